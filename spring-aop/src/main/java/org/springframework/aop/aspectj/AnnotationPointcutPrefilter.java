@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Class-level pre-filter for pointcut expressions that require an
+ * {@code @annotation} or {@code @within} annotation, rejecting target classes
+ * without the annotation anywhere in their hierarchy before AspectJ matching
+ * is attempted for each of their methods.
+ *
+ * <p>The annotation types present per target class are indexed once and
+ * shared by all pointcuts.
+ *
+ * @since 5.2.23
+ * @see AspectJExpressionPointcut#matches(Class)
+ */
+final class AnnotationPointcutPrefilter {
+
+	private static final Pattern ANNOTATION_DESIGNATOR_PATTERN =
+			Pattern.compile("@(annotation|within)\\(\\s*([\\w.$]+)\\s*\\)");
+
+	/** 按目标类索引其类型层次及方法上出现的注解类型 */
+	private static final Map<Class<?>, AnnotationIndex> annotationIndexCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	/** 以类名比较，避免切点与目标类由不同的类加载器加载时误判 */
+	private final Set<String> methodAnnotationTypes;
+
+	private final Set<String> typeAnnotationTypes;
+
+
+	private AnnotationPointcutPrefilter(Set<String> methodAnnotationTypes, Set<String> typeAnnotationTypes) {
+		this.methodAnnotationTypes = methodAnnotationTypes;
+		this.typeAnnotationTypes = typeAnnotationTypes;
+	}
+
+
+	/**
+	 * Create a pre-filter for the given pointcut expression, if applicable.
+	 * <p>Only expressions without disjunction or negation qualify: in such an
+	 * expression, every {@code @annotation} and {@code @within} designator has
+	 * to match for the expression to match.
+	 * @param expression the pointcut expression, with boolean operators
+	 * already replaced by their symbolic form
+	 * @return the pre-filter, or {@code null} if the expression does not qualify
+	 */
+	@Nullable
+	static AnnotationPointcutPrefilter forExpression(String expression, String[] parameterNames,
+			Class<?>[] parameterTypes, @Nullable ClassLoader classLoader) {
+
+		if (expression.contains("||") || expression.contains("!")) {
+			return null;
+		}
+		Set<String> methodAnnotationTypes = new LinkedHashSet<>();
+		Set<String> typeAnnotationTypes = new LinkedHashSet<>();
+		Matcher matcher = ANNOTATION_DESIGNATOR_PATTERN.matcher(expression);
+		while (matcher.find()) {
+			String annotationType = resolveAnnotationType(matcher.group(2), parameterNames, parameterTypes, classLoader);
+			if (annotationType == null) {
+				continue;
+			}
+			if ("annotation".equals(matcher.group(1))) {
+				methodAnnotationTypes.add(annotationType);
+			}
+			else {
+				typeAnnotationTypes.add(annotationType);
+			}
+		}
+		if (methodAnnotationTypes.isEmpty() && typeAnnotationTypes.isEmpty()) {
+			return null;
+		}
+		return new AnnotationPointcutPrefilter(methodAnnotationTypes, typeAnnotationTypes);
+	}
+
+	@Nullable
+	private static String resolveAnnotationType(String name, String[] parameterNames,
+			Class<?>[] parameterTypes, @Nullable ClassLoader classLoader) {
+
+		for (int i = 0; i < parameterNames.length; i++) {
+			if (parameterNames[i].equals(name)) {
+				return (parameterTypes[i].isAnnotation() ? parameterTypes[i].getName() : null);
+			}
+		}
+		if (name.indexOf('.') == -1) {
+			// 简单类名需要AspectJ基于声明作用域解析
+			return null;
+		}
+		try {
+			Class<?> type = ClassUtils.forName(name, classLoader);
+			return (type.isAnnotation() ? type.getName() : null);
+		}
+		catch (Throwable ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Determine whether the pointcut could match any method of the given class.
+	 * @return {@code false} if a required annotation is known to be absent
+	 */
+	boolean couldMatch(Class<?> targetClass) {
+		AnnotationIndex index = annotationIndexCache.get(targetClass);
+		if (index == null) {
+			index = new AnnotationIndex(targetClass);
+			annotationIndexCache.put(targetClass, index);
+		}
+		if (!index.complete) {
+			return true;
+		}
+		for (String annotationType : this.methodAnnotationTypes) {
+			if (!index.methodAnnotationTypes.contains(annotationType)) {
+				return false;
+			}
+		}
+		for (String annotationType : this.typeAnnotationTypes) {
+			if (!index.typeAnnotationTypes.contains(annotationType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Annotation types declared on the types in a class hierarchy and on their
+	 * methods, including superclasses and all interfaces.
+	 */
+	private static final class AnnotationIndex {
+
+		final Set<String> typeAnnotationTypes;
+
+		final Set<String> methodAnnotationTypes;
+
+		final boolean complete;
+
+		AnnotationIndex(Class<?> targetClass) {
+			Set<String> typeAnnotationTypes = new HashSet<>();
+			Set<String> methodAnnotationTypes = new HashSet<>();
+			boolean complete = true;
+			try {
+				Set<Class<?>> types = new LinkedHashSet<>();
+				for (Class<?> clazz = targetClass; clazz != null; clazz = clazz.getSuperclass()) {
+					types.add(clazz);
+				}
+				// 接口继承的父接口上的注解同样可能匹配
+				PersistentPointcutMatchCache.collectInterfaces(targetClass, types);
+				for (Class<?> type : types) {
+					addAnnotationTypes(type.getDeclaredAnnotations(), typeAnnotationTypes);
+					for (Method method : type.getDeclaredMethods()) {
+						addAnnotationTypes(method.getDeclaredAnnotations(), methodAnnotationTypes);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				// 无法完整内省（如缺少依赖类）时不做预过滤
+				complete = false;
+			}
+			this.typeAnnotationTypes = (complete ? typeAnnotationTypes : Collections.emptySet());
+			this.methodAnnotationTypes = (complete ? methodAnnotationTypes : Collections.emptySet());
+			this.complete = complete;
+		}
+
+		private static void addAnnotationTypes(Annotation[] annotations, Set<String> annotationTypes) {
+			for (Annotation annotation : annotations) {
+				annotationTypes.add(annotation.annotationType().getName());
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,9 +22,11 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -60,6 +62,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -107,6 +110,19 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private static final Log logger = LogFactory.getLog(AspectJExpressionPointcut.class);
 
+	private static final Pattern BEAN_DESIGNATOR_PATTERN = Pattern.compile("\\bbean\\s*\\(");
+
+	private static final ShadowMatch UNRESOLVED_SHADOW_MATCH =
+			new ShadowMatchImpl(org.aspectj.util.FuzzyBoolean.NO, null, null, null);
+
+	/** 持久化缓存中已知不匹配的方法，放入内存缓存以免再次构建条目key */
+	private static final ShadowMatch KNOWN_MISMATCH_SHADOW_MATCH =
+			new ShadowMatchImpl(org.aspectj.util.FuzzyBoolean.NO, null, null, null);
+
+	/** 表达式、声明作用域、参数及类加载器均相同的切点共享解析结果及ShadowMatch缓存 */
+	private static final Map<SharedPointcutKey, SharedPointcutState> sharedPointcutStates =
+			new ConcurrentReferenceHashMap<>(64);
+
 	@Nullable
 	private Class<?> pointcutDeclarationScope;
 
@@ -125,6 +141,15 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private transient Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
 
+	@Nullable
+	private transient AnnotationPointcutPrefilter annotationPrefilter;
+
+	@Nullable
+	private transient PersistentPointcutMatchCache matchCache;
+
+	@Nullable
+	private transient String matchCacheKey;
+
 
 	/**
 	 * Create a new default AspectJExpressionPointcut.
@@ -193,6 +218,8 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	/**
 	 * Check whether this pointcut is ready to match,
 	 * lazily building the underlying AspectJ pointcut expression.
+	 * <p>The expression and its shadow matches are shared with equal pointcuts
+	 * unless they depend on this pointcut instance, as with {@code bean()}.
 	 */
 	private PointcutExpression obtainPointcutExpression() {
 		// 如果没有expression的值的话，直接抛出异常
@@ -202,12 +229,168 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		if (this.pointcutExpression == null) {
 			// 选择类加载器
 			this.pointcutClassLoader = determinePointcutClassLoader();
-			// 构建PointcutExpression的实例
-			this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			String expression = replaceBooleanOperators(resolveExpression());
+			this.annotationPrefilter = AnnotationPointcutPrefilter.forExpression(
+					expression, this.pointcutParameterNames, this.pointcutParameterTypes, this.pointcutClassLoader);
+			if (isShareable(expression)) {
+				SharedPointcutKey key = new SharedPointcutKey(expression, this.pointcutDeclarationScope,
+						this.pointcutParameterNames, this.pointcutParameterTypes, this.pointcutClassLoader);
+				SharedPointcutState state = sharedPointcutStates.get(key);
+				if (state == null) {
+					// 构建PointcutExpression的实例
+					state = new SharedPointcutState(buildPointcutExpression(this.pointcutClassLoader));
+					SharedPointcutState existing = sharedPointcutStates.putIfAbsent(key, state);
+					if (existing != null) {
+						state = existing;
+					}
+				}
+				this.shadowMatchCache = state.shadowMatchCache;
+				initializeMatchCache(expression);
+				this.pointcutExpression = state.pointcutExpression;
+			} else {
+				// 构建PointcutExpression的实例
+				this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			}
 		}
 		return this.pointcutExpression;
 	}
 
+	/**
+	 * Determine whether the parsed expression may be shared with equal pointcuts:
+	 * {@code bean()} matching and subclasses may depend on this pointcut instance.
+	 */
+	private boolean isShareable(String expression) {
+		return (getClass() == AspectJExpressionPointcut.class && !BEAN_DESIGNATOR_PATTERN.matcher(expression).find());
+	}
+
+	/**
+	 * Set up the persistent match cache for this pointcut, if configured and if
+	 * the expression only refers to pointcuts of its declaration scope.
+	 * <p>The pointcut key includes fingerprints of the declaration scope, of the
+	 * pointcut parameter types and of all types named in the expression, so that
+	 * persisted mismatches become stale once any of these classes changes.
+	 * Expressions naming types that cannot be resolved, or using wildcards in
+	 * annotation type patterns, are not cached since their result may depend on
+	 * classes that cannot be fingerprinted.
+	 * @see PersistentPointcutMatchCache#getSharedInstance()
+	 */
+	private void initializeMatchCache(String expression) {
+		PersistentPointcutMatchCache matchCache = PersistentPointcutMatchCache.getSharedInstance();
+		if (matchCache == null || !isPersistable(expression)) {
+			return;
+		}
+		StringBuilder key = new StringBuilder(expression).append('|');
+		if (this.pointcutDeclarationScope != null) {
+			String scopeFingerprint = matchCache.getClassFingerprint(this.pointcutDeclarationScope);
+			if (scopeFingerprint == null) {
+				return;
+			}
+			key.append(this.pointcutDeclarationScope.getName()).append('=').append(scopeFingerprint);
+		}
+		for (int i = 0; i < this.pointcutParameterNames.length; i++) {
+			String typeFingerprint = matchCache.getHierarchyFingerprint(this.pointcutParameterTypes[i]);
+			if (typeFingerprint == null) {
+				return;
+			}
+			key.append('|').append(this.pointcutParameterTypes[i].getName()).append(' ').append(this.pointcutParameterNames[i]);
+			key.append('=').append(typeFingerprint);
+		}
+		Set<String> typeNames = getReferencedTypeNames(expression);
+		if (typeNames == null) {
+			return;
+		}
+		for (String typeName : typeNames) {
+			Class<?> type = resolveReferencedType(typeName);
+			String typeFingerprint = (type != null ? matchCache.getHierarchyFingerprint(type) : null);
+			if (typeFingerprint == null) {
+				return;
+			}
+			key.append('|').append(type.getName()).append('=').append(typeFingerprint);
+		}
+		this.matchCacheKey = key.toString();
+		this.matchCache = matchCache;
+	}
+
+	/**
+	 * 顶层的具名切点引用若带有类名，则依赖于声明作用域之外的类，无法仅凭作用域的指纹判断缓存是否过期
+	 */
+	private static boolean isPersistable(String expression) {
+		int depth = 0;
+		for (int i = 0; i < expression.length(); i++) {
+			char c = expression.charAt(i);
+			if (c == '(') {
+				if (depth == 0) {
+					int end = i;
+					while (end > 0 && Character.isWhitespace(expression.charAt(end - 1))) {
+						end--;
+					}
+					int start = end;
+					while (start > 0 && (Character.isJavaIdentifierPart(expression.charAt(start - 1)) ||
+							expression.charAt(start - 1) == '.')) {
+						start--;
+					}
+					if (expression.substring(start, end).indexOf('.') != -1) {
+						return false;
+					}
+				}
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 表达式中出现的全限定类型名（不含通配符）；注解类型模式中带有通配符时返回null，
+	 * 因为其匹配结果取决于无法预先确定的注解类型
+	 */
+	@Nullable
+	private static Set<String> getReferencedTypeNames(String expression) {
+		Set<String> typeNames = new LinkedHashSet<>();
+		int length = expression.length();
+		int i = 0;
+		while (i < length) {
+			char c = expression.charAt(i);
+			if (!Character.isJavaIdentifierPart(c) && c != '*' && c != '.') {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < length && (Character.isJavaIdentifierPart(expression.charAt(i)) ||
+					expression.charAt(i) == '*' || expression.charAt(i) == '.')) {
+				i++;
+			}
+			String token = expression.substring(start, i);
+			boolean wildcard = (token.indexOf('*') != -1 || token.contains(".."));
+			if (wildcard && start > 0 && expression.charAt(start - 1) == '@') {
+				return null;
+			}
+			if (!wildcard && token.indexOf('.') != -1) {
+				typeNames.add(token);
+			}
+		}
+		return typeNames;
+	}
+
+	/**
+	 * Resolve a type named in the pointcut expression, also considering the
+	 * declaring type of a qualified method or field name such as
+	 * {@code com.example.Service.process}.
+	 */
+	@Nullable
+	private Class<?> resolveReferencedType(String typeName) {
+		ClassLoader classLoader = this.pointcutClassLoader;
+		if (ClassUtils.isPresent(typeName, classLoader)) {
+			return ClassUtils.resolveClassName(typeName, classLoader);
+		}
+		String declaringTypeName = typeName.substring(0, typeName.lastIndexOf('.'));
+		if (ClassUtils.isPresent(declaringTypeName, classLoader)) {
+			return ClassUtils.resolveClassName(declaringTypeName, classLoader);
+		}
+		return null;
+	}
+
 	/**
 	 * Determine the ClassLoader to use for pointcut evaluation.
 	 */
@@ -279,6 +462,10 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	@Override
 	public boolean matches(Class<?> targetClass) {
 		PointcutExpression pointcutExpression = obtainPointcutExpression();
+		AnnotationPointcutPrefilter prefilter = this.annotationPrefilter;
+		if (prefilter != null && !prefilter.couldMatch(targetClass)) {
+			return false;
+		}
 		try {
 			try {
 				return pointcutExpression.couldMatchJoinPointsInType(targetClass);
@@ -299,7 +486,26 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	@Override
 	public boolean matches(Method method, Class<?> targetClass, boolean hasIntroductions) {
 		obtainPointcutExpression();
-		ShadowMatch shadowMatch = getTargetShadowMatch(method, targetClass);
+		ShadowMatch shadowMatch;
+		PersistentPointcutMatchCache matchCache = this.matchCache;
+		String matchCacheKey = this.matchCacheKey;
+		if (matchCache != null && matchCacheKey != null) {
+			// 先查内存中的ShadowMatch缓存，命中时无需构建持久化缓存的条目key
+			Method targetMethod = getTargetMethod(method, targetClass);
+			shadowMatch = this.shadowMatchCache.get(targetMethod);
+			if (shadowMatch == null) {
+				if (matchCache.isKnownMismatch(matchCacheKey, method, targetClass)) {
+					this.shadowMatchCache.putIfAbsent(targetMethod, KNOWN_MISMATCH_SHADOW_MATCH);
+					return false;
+				}
+				shadowMatch = getShadowMatch(targetMethod, method);
+				if (shadowMatch.neverMatches() && shadowMatch != UNRESOLVED_SHADOW_MATCH) {
+					matchCache.recordMismatch(matchCacheKey, method, targetClass);
+				}
+			}
+		} else {
+			shadowMatch = getTargetShadowMatch(method, targetClass);
+		}
 
 		// Special handling for this, target, @this, @target, @annotation
 		// in Spring - we can optimize since we know we have exactly this class,
@@ -428,6 +634,10 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	}
 
 	private ShadowMatch getTargetShadowMatch(Method method, Class<?> targetClass) {
+		return getShadowMatch(getTargetMethod(method, targetClass), method);
+	}
+
+	private Method getTargetMethod(Method method, Class<?> targetClass) {
 		Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
 		if (targetMethod.getDeclaringClass().isInterface()) {
 			// Try to build the most specific interface possible for inherited methods to be
@@ -445,7 +655,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 				}
 			}
 		}
-		return getShadowMatch(targetMethod, method);
+		return targetMethod;
 	}
 
 	private ShadowMatch getShadowMatch(Method targetMethod, Method originalMethod) {
@@ -500,7 +710,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 						fallbackExpression = null;
 					}
 					if (shadowMatch == null) {
-						shadowMatch = new ShadowMatchImpl(org.aspectj.util.FuzzyBoolean.NO, null, null, null);
+						shadowMatch = UNRESOLVED_SHADOW_MATCH;
 					} else if (shadowMatch.maybeMatches() && fallbackExpression != null) {
 						shadowMatch = new DefensiveShadowMatch(shadowMatch,
 								fallbackExpression.matchesMethodExecution(methodToMatch));
@@ -665,6 +875,75 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	}
 
 
+	/**
+	 * Key for sharing parsed pointcut expressions between equal pointcuts.
+	 */
+	private static final class SharedPointcutKey {
+
+		private final String expression;
+
+		@Nullable
+		private final Class<?> declarationScope;
+
+		private final String[] parameterNames;
+
+		private final Class<?>[] parameterTypes;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		SharedPointcutKey(String expression, @Nullable Class<?> declarationScope, String[] parameterNames,
+				Class<?>[] parameterTypes, @Nullable ClassLoader classLoader) {
+
+			this.expression = expression;
+			this.declarationScope = declarationScope;
+			this.parameterNames = parameterNames.clone();
+			this.parameterTypes = parameterTypes.clone();
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SharedPointcutKey)) {
+				return false;
+			}
+			SharedPointcutKey otherKey = (SharedPointcutKey) other;
+			return (this.expression.equals(otherKey.expression) &&
+					this.declarationScope == otherKey.declarationScope &&
+					Arrays.equals(this.parameterNames, otherKey.parameterNames) &&
+					Arrays.equals(this.parameterTypes, otherKey.parameterTypes) &&
+					this.classLoader == otherKey.classLoader);
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = this.expression.hashCode();
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.declarationScope);
+			hashCode = 31 * hashCode + Arrays.hashCode(this.parameterNames);
+			hashCode = 31 * hashCode + Arrays.hashCode(this.parameterTypes);
+			return hashCode;
+		}
+	}
+
+
+	/**
+	 * Parsed pointcut expression and shadow matches shared between equal pointcuts.
+	 */
+	private static final class SharedPointcutState {
+
+		final PointcutExpression pointcutExpression;
+
+		final Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
+
+		SharedPointcutState(PointcutExpression pointcutExpression) {
+			this.pointcutExpression = pointcutExpression;
+		}
+	}
+
+
 	private static class DefensiveShadowMatch implements ShadowMatch {
 
 		private final ShadowMatch primary;
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * File-based cache of negative pointcut matches, allowing a later run to skip
+ * AspectJ shadow matching for methods that a pointcut expression is known not
+ * to match.
+ *
+ * <p>Each entry is validated against fingerprints of the target class hierarchy,
+ * of the hierarchies of the declaring class and of all parameter, return and
+ * exception types of the method, and of the annotation types declared on the
+ * method and its parameters: the jar entry CRC for classes in jars, or an MD5
+ * of the class file content otherwise. Types referenced by the pointcut
+ * expression itself are part of the pointcut key. Stale entries are evaluated
+ * through AspectJ again, and entries involving classes without a class file
+ * (e.g. generated classes) are not persisted.
+ *
+ * <p>The {@linkplain #getSharedInstance() shared instance} is consulted by
+ * {@link AspectJExpressionPointcut} if the {@link #CACHE_LOCATION_PROPERTY_NAME}
+ * property is set, and written by the AspectJ auto-proxy creator once all
+ * singletons have been instantiated.
+ *
+ * @since 5.2.23
+ * @see AspectJExpressionPointcut
+ * @see org.springframework.aop.aspectj.autoproxy.AspectJAwareAdvisorAutoProxyCreator
+ */
+public class PersistentPointcutMatchCache {
+
+	/**
+	 * System property that specifies the location of the shared cache file:
+	 * {@value}. No file-based cache is used if not set.
+	 */
+	public static final String CACHE_LOCATION_PROPERTY_NAME = "spring.aop.match-cache.location";
+
+	private static final int CACHE_FILE_MAGIC = 0x53504D58;
+
+	private static final int CACHE_FILE_VERSION = 2;
+
+	private static final Log logger = LogFactory.getLog(PersistentPointcutMatchCache.class);
+
+	@Nullable
+	private static PersistentPointcutMatchCache sharedInstance;
+
+
+	private final File cacheFile;
+
+	/** 从缓存文件读取的条目：key -> 目标类层次及方法签名的指纹 */
+	private final Map<String, String> storedEntries = new ConcurrentHashMap<>(256);
+
+	/** 本次运行中命中或新记录的条目，保存时仅写出这些条目 */
+	private final Map<String, String> usedEntries = new ConcurrentHashMap<>(256);
+
+	private final Map<Class<?>, String> fingerprintCache = new ConcurrentReferenceHashMap<>(256);
+
+	private final Map<Class<?>, String> hierarchyFingerprintCache = new ConcurrentReferenceHashMap<>(256);
+
+	private final Map<Method, String> methodFingerprintCache = new ConcurrentReferenceHashMap<>(256);
+
+	private volatile boolean loaded;
+
+	private volatile boolean modified;
+
+
+	/**
+	 * Create a new PersistentPointcutMatchCache for the given file.
+	 * @param cacheFile the file to read cached matches from and write them to
+	 */
+	public PersistentPointcutMatchCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the cache for the location specified by the
+	 * {@link #CACHE_LOCATION_PROPERTY_NAME} property, if any.
+	 */
+	@Nullable
+	public static synchronized PersistentPointcutMatchCache getSharedInstance() {
+		String location = SpringProperties.getProperty(CACHE_LOCATION_PROPERTY_NAME);
+		if (location == null) {
+			return null;
+		}
+		File cacheFile = new File(location);
+		if (sharedInstance == null || !sharedInstance.cacheFile.equals(cacheFile)) {
+			sharedInstance = new PersistentPointcutMatchCache(cacheFile);
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Return the file that this cache reads from and writes to.
+	 */
+	public File getCacheFile() {
+		return this.cacheFile;
+	}
+
+
+	/**
+	 * Determine whether the given pointcut is known not to match the given
+	 * method on the given target class.
+	 * @param pointcutKey the key of the pointcut, including fingerprints of
+	 * the classes its expression depends on
+	 * @param method the method to match
+	 * @param targetClass the target class
+	 */
+	boolean isKnownMismatch(String pointcutKey, Method method, Class<?> targetClass) {
+		if (!this.loaded) {
+			loadCache();
+		}
+		if (this.storedEntries.isEmpty()) {
+			return false;
+		}
+		String fingerprint = getEntryFingerprint(method, targetClass);
+		if (fingerprint == null) {
+			return false;
+		}
+		String key = getEntryKey(pointcutKey, method, targetClass);
+		if (fingerprint.equals(this.storedEntries.get(key))) {
+			this.usedEntries.put(key, fingerprint);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record that the given pointcut does not match the given method on the
+	 * given target class.
+	 * @see #isKnownMismatch
+	 */
+	void recordMismatch(String pointcutKey, Method method, Class<?> targetClass) {
+		String fingerprint = getEntryFingerprint(method, targetClass);
+		if (fingerprint != null) {
+			this.usedEntries.put(getEntryKey(pointcutKey, method, targetClass), fingerprint);
+			this.modified = true;
+		}
+	}
+
+	/**
+	 * Return a fingerprint of the given class file, or {@code null} if the
+	 * class has no class file to fingerprint.
+	 */
+	@Nullable
+	String getClassFingerprint(Class<?> clazz) {
+		String fingerprint = this.fingerprintCache.get(clazz);
+		if (fingerprint == null) {
+			fingerprint = computeClassFingerprint(clazz);
+			this.fingerprintCache.put(clazz, fingerprint);
+		}
+		return (fingerprint.isEmpty() ? null : fingerprint);
+	}
+
+	/**
+	 * Write the entries used since the cache file was loaded to the cache file,
+	 * replacing its previous content. This is a no-op if all entries have been
+	 * restored from an up-to-date cache file.
+	 * @throws IOException if the cache file could not be written
+	 */
+	public void saveCache() throws IOException {
+		if (!this.loaded) {
+			loadCache();
+		}
+		if (!this.modified && this.usedEntries.size() == this.storedEntries.size()) {
+			return;
+		}
+		Map<String, String> entries = new LinkedHashMap<>(this.usedEntries);
+		Path target = this.cacheFile.getAbsoluteFile().toPath();
+		Path directory = target.getParent();
+		Files.createDirectories(directory);
+		Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(CACHE_FILE_MAGIC);
+				out.writeInt(CACHE_FILE_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, String> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeUTF(entry.getValue());
+				}
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+		this.storedEntries.clear();
+		this.storedEntries.putAll(entries);
+		this.modified = false;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Wrote " + entries.size() + " pointcut match cache entries to " + target);
+		}
+	}
+
+
+	private synchronized void loadCache() {
+		if (!this.loaded) {
+			try {
+				readCacheFile();
+			}
+			finally {
+				this.loaded = true;
+			}
+		}
+	}
+
+	private void readCacheFile() {
+		if (!this.cacheFile.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(this.cacheFile.toPath())))) {
+			if (in.readInt() != CACHE_FILE_MAGIC || in.readInt() != CACHE_FILE_VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring pointcut match cache file in unsupported format: " + this.cacheFile);
+				}
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				this.storedEntries.put(in.readUTF(), in.readUTF());
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Read " + count + " pointcut match cache entries from " + this.cacheFile);
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			// Corrupt or truncated file: start over with AspectJ-based matching
+			this.storedEntries.clear();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read pointcut match cache file " + this.cacheFile, ex);
+			}
+		}
+	}
+
+	private String getEntryKey(String pointcutKey, Method method, Class<?> targetClass) {
+		StringBuilder sb = new StringBuilder(pointcutKey).append('\n');
+		sb.append(targetClass.getName()).append('\n');
+		sb.append(method.getDeclaringClass().getName()).append('.').append(method.getName()).append('(');
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(parameterTypes[i].getName());
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * Return a fingerprint of the given class, its superclasses and all of its
+	 * interfaces, or {@code null} if any of them has no class file to fingerprint.
+	 */
+	@Nullable
+	String getHierarchyFingerprint(Class<?> targetClass) {
+		String fingerprint = this.hierarchyFingerprintCache.get(targetClass);
+		if (fingerprint == null) {
+			fingerprint = computeHierarchyFingerprint(targetClass);
+			this.hierarchyFingerprintCache.put(targetClass, fingerprint);
+		}
+		return (fingerprint.isEmpty() ? null : fingerprint);
+	}
+
+	/**
+	 * 条目的指纹：目标类层次的指纹加上方法签名的指纹，任何一部分无法计算时返回null
+	 */
+	@Nullable
+	private String getEntryFingerprint(Method method, Class<?> targetClass) {
+		String hierarchyFingerprint = getHierarchyFingerprint(targetClass);
+		if (hierarchyFingerprint == null) {
+			return null;
+		}
+		String methodFingerprint = this.methodFingerprintCache.get(method);
+		if (methodFingerprint == null) {
+			methodFingerprint = computeMethodFingerprint(method);
+			this.methodFingerprintCache.put(method, methodFingerprint);
+		}
+		return (methodFingerprint.isEmpty() ? null : hierarchyFingerprint + '/' + methodFingerprint);
+	}
+
+	private String computeMethodFingerprint(Method method) {
+		StringBuilder sb = new StringBuilder();
+		if (!appendHierarchyFingerprint(sb, method.getDeclaringClass()) ||
+				!appendHierarchyFingerprint(sb, method.getReturnType())) {
+			return "";
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!appendHierarchyFingerprint(sb, parameterType)) {
+				return "";
+			}
+		}
+		for (Class<?> exceptionType : method.getExceptionTypes()) {
+			if (!appendHierarchyFingerprint(sb, exceptionType)) {
+				return "";
+			}
+		}
+		// 注解类型本身（如保留策略）的变化同样会影响@annotation、@args等的匹配结果
+		for (Annotation annotation : method.getDeclaredAnnotations()) {
+			if (!appendFingerprint(sb, annotation.annotationType())) {
+				return "";
+			}
+		}
+		for (Annotation[] parameterAnnotations : method.getParameterAnnotations()) {
+			for (Annotation annotation : parameterAnnotations) {
+				if (!appendFingerprint(sb, annotation.annotationType())) {
+					return "";
+				}
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private boolean appendHierarchyFingerprint(StringBuilder sb, Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		String fingerprint = getHierarchyFingerprint(type);
+		if (fingerprint == null) {
+			return false;
+		}
+		sb.append(type.getName()).append('=').append(fingerprint).append(';');
+		return true;
+	}
+
+	private String computeHierarchyFingerprint(Class<?> targetClass) {
+		StringBuilder sb = new StringBuilder();
+		Class<?> clazz = targetClass;
+		while (clazz != null && clazz != Object.class) {
+			if (!appendFingerprint(sb, clazz)) {
+				return "";
+			}
+			clazz = clazz.getSuperclass();
+		}
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		collectInterfaces(targetClass, interfaces);
+		for (Class<?> ifc : interfaces) {
+			if (!appendFingerprint(sb, ifc)) {
+				return "";
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 收集类层次上的所有接口，包括接口继承的父接口（子类型匹配如{@code Base+}依赖于完整的接口层次）
+	 */
+	static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+		Class<?> current = clazz;
+		while (current != null) {
+			for (Class<?> ifc : current.getInterfaces()) {
+				if (interfaces.add(ifc)) {
+					collectInterfaces(ifc, interfaces);
+				}
+			}
+			current = current.getSuperclass();
+		}
+	}
+
+	private boolean appendFingerprint(StringBuilder sb, Class<?> clazz) {
+		String fingerprint = getClassFingerprint(clazz);
+		if (fingerprint == null) {
+			return false;
+		}
+		sb.append(clazz.getName()).append('=').append(fingerprint).append(';');
+		return true;
+	}
+
+	private String computeClassFingerprint(Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null) {
+			// JDK类随JDK版本固定
+			return "jdk:" + System.getProperty("java.version");
+		}
+		URL url = classLoader.getResource(ClassUtils.convertClassNameToResourcePath(clazz.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX);
+		if (url == null) {
+			return "";
+		}
+		try {
+			if (ResourceUtils.isJarURL(url)) {
+				URLConnection con = url.openConnection();
+				if (con instanceof JarURLConnection) {
+					JarURLConnection jarCon = (JarURLConnection) con;
+					ResourceUtils.useCachesIfNecessary(jarCon);
+					JarEntry jarEntry = jarCon.getJarEntry();
+					if (!jarCon.getUseCaches()) {
+						jarCon.getJarFile().close();
+					}
+					if (jarEntry != null && jarEntry.getCrc() != -1) {
+						return "crc:" + Long.toHexString(jarEntry.getCrc()) + ":" + jarEntry.getSize();
+					}
+				}
+			}
+			try (InputStream is = url.openStream()) {
+				return "md5:" + DigestUtils.md5DigestAsHex(is);
+			}
+		}
+		catch (IOException ex) {
+			return "";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -74,6 +74,9 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	/** Cache with Method as key and advisor chain List as value. */
 	private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+	/** Cache with Method as key and compiled advisor chain as value, for frozen configurations. */
+	private transient Map<Method, CompiledInterceptorChain> compiledChainCache;
+
 	/**
 	 * Interfaces to be implemented by the proxy. Held in List to keep the order
 	 * of registration, to create JDK proxy with specified order of interfaces.
@@ -98,6 +101,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	public AdvisedSupport() {
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.compiledChainCache = new ConcurrentHashMap<>(32);
 	}
 
 	/**
@@ -480,11 +484,31 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		return cached;
 	}
 
+	/**
+	 * Determine the compiled interceptor chain for the given method, to be
+	 * used once this configuration is frozen. The chain is cached per method
+	 * without allocating a cache key.
+	 * @param method the proxied method
+	 * @param targetClass the target class
+	 * @return the compiled interceptor chain
+	 * @since 5.2.23
+	 * @see #isFrozen()
+	 */
+	CompiledInterceptorChain getCompiledInterceptorChain(Method method, @Nullable Class<?> targetClass) {
+		CompiledInterceptorChain compiled = this.compiledChainCache.get(method);
+		if (compiled == null) {
+			compiled = new CompiledInterceptorChain(getInterceptorsAndDynamicInterceptionAdvice(method, targetClass));
+			this.compiledChainCache.put(method, compiled);
+		}
+		return compiled;
+	}
+
 	/**
 	 * Invoked when advice has changed.
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.compiledChainCache.clear();
 	}
 
 	/**
@@ -545,6 +569,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 
 		// Initialize transient fields.
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.compiledChainCache = new ConcurrentHashMap<>(32);
 	}
 
 
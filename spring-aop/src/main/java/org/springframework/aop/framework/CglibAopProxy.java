@@ -681,7 +681,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 				Class<?> targetClass = (target != null ? target.getClass() : null);
 
 				// 从advised中获取配置好的AOP通知
-				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+				List<Object> chain = (this.advised.isFrozen() ?
+						this.advised.getCompiledInterceptorChain(method, targetClass).getChain() :
+						this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass));
 				Object retVal;
 
 				// Check whether we only have one InvokerInterceptor: that is,
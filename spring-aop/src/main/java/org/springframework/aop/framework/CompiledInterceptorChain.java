@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.aop.AopInvocationException;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.GeneratedMemberAccessors;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Interceptor chain for a method of a frozen proxy configuration, resolved
+ * once per method: a chain without dynamic method matchers is held as a plain
+ * {@link MethodInterceptor} array, and the target method is invoked through a
+ * generated accessor rather than through reflection where possible, if generated
+ * accessors are enabled through the
+ * {@link GeneratedMemberAccessors#GENERATED_ACCESSORS_PROPERTY_NAME} property.
+ *
+ * @since 5.2.23
+ * @see AdvisedSupport#getCompiledInterceptorChain
+ * @see CompiledMethodInvocation
+ */
+final class CompiledInterceptorChain {
+
+	private final List<Object> chain;
+
+	@Nullable
+	private final MethodInterceptor[] interceptors;
+
+	@Nullable
+	private volatile JoinpointAccessor joinpointAccessor;
+
+
+	CompiledInterceptorChain(List<Object> chain) {
+		this.chain = chain;
+		this.interceptors = toInterceptorArray(chain);
+	}
+
+	@Nullable
+	private static MethodInterceptor[] toInterceptorArray(List<Object> chain) {
+		MethodInterceptor[] interceptors = new MethodInterceptor[chain.size()];
+		for (int i = 0; i < interceptors.length; i++) {
+			Object interceptor = chain.get(i);
+			if (!(interceptor instanceof MethodInterceptor)) {
+				// 含有动态方法匹配器的链仍需逐个匹配，不做展开
+				return null;
+			}
+			interceptors[i] = (MethodInterceptor) interceptor;
+		}
+		return interceptors;
+	}
+
+
+	/**
+	 * Return the chain of interceptors and dynamic method matchers.
+	 */
+	List<Object> getChain() {
+		return this.chain;
+	}
+
+	/**
+	 * Return the interceptors, or {@code null} if the chain contains
+	 * dynamic method matchers.
+	 */
+	@Nullable
+	MethodInterceptor[] getInterceptors() {
+		return this.interceptors;
+	}
+
+	/**
+	 * Invoke the given method on the given target, preferably through a
+	 * generated accessor for the most specific method of the target class
+	 * if generated accessors are enabled.
+	 * @see GeneratedMemberAccessors#isUseGeneratedAccessorsByDefault()
+	 * @see AopUtils#invokeJoinpointUsingReflection
+	 */
+	@Nullable
+	Object invokeJoinpoint(@Nullable Object target, Method method, Object[] args) throws Throwable {
+		if (target != null && GeneratedMemberAccessors.isUseGeneratedAccessorsByDefault()) {
+			JoinpointAccessor accessor = this.joinpointAccessor;
+			if (accessor == null || accessor.targetClass != target.getClass()) {
+				accessor = new JoinpointAccessor(method, target.getClass());
+				this.joinpointAccessor = accessor;
+			}
+			if (accessor.targetMethod != null) {
+				try {
+					return GeneratedMemberAccessors.invoke(accessor.targetMethod, target, args);
+				}
+				catch (InvocationTargetException ex) {
+					throw ex.getTargetException();
+				}
+				catch (IllegalArgumentException | ClassCastException ex) {
+					throw new AopInvocationException("AOP configuration seems to be invalid: tried calling method [" +
+							method + "] on target [" + target + "]", ex);
+				}
+			}
+		}
+		return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+	}
+
+
+	/**
+	 * Generated accessor for the target method, resolved for a specific target class.
+	 */
+	private static final class JoinpointAccessor {
+
+		final Class<?> targetClass;
+
+		@Nullable
+		final Method targetMethod;
+
+		JoinpointAccessor(Method method, Class<?> targetClass) {
+			this.targetClass = targetClass;
+			Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			if (GeneratedMemberAccessors.hasGeneratedAccessor(specificMethod)) {
+				// 生成的访问器不接受某些参数（如基本类型的null）时会回退到反射
+				ReflectionUtils.makeAccessible(specificMethod);
+				this.targetMethod = specificMethod;
+			}
+			else {
+				this.targetMethod = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link ReflectiveMethodInvocation} for a {@link CompiledInterceptorChain},
+ * walking a plain interceptor array and invoking the target method through
+ * the chain's joinpoint accessor.
+ *
+ * @since 5.2.23
+ * @see JdkDynamicAopProxy
+ */
+class CompiledMethodInvocation extends ReflectiveMethodInvocation {
+
+	private final CompiledInterceptorChain compiledChain;
+
+	@Nullable
+	private final MethodInterceptor[] interceptors;
+
+	private int interceptorIndex = -1;
+
+
+	CompiledMethodInvocation(Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+			@Nullable Class<?> targetClass, CompiledInterceptorChain compiledChain) {
+
+		super(proxy, target, method, arguments, targetClass, compiledChain.getChain());
+		this.compiledChain = compiledChain;
+		this.interceptors = compiledChain.getInterceptors();
+	}
+
+
+	@Override
+	@Nullable
+	public Object proceed() throws Throwable {
+		MethodInterceptor[] interceptors = this.interceptors;
+		if (interceptors == null) {
+			return super.proceed();
+		}
+		if (this.interceptorIndex == interceptors.length - 1) {
+			return invokeJoinpoint();
+		}
+		return interceptors[++this.interceptorIndex].invoke(this);
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeJoinpoint() throws Throwable {
+		return this.compiledChain.invokeJoinpoint(this.target, this.method, this.arguments);
+	}
+
+}
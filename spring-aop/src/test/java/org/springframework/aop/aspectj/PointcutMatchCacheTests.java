@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import test.annotation.transaction.Tx;
+
+import org.springframework.core.SpringProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for shared pointcut state, annotation pre-filtering and the
+ * persistent pointcut match cache of {@link AspectJExpressionPointcut}.
+ *
+ * @since 5.2.23
+ */
+class PointcutMatchCacheTests {
+
+	private static final String TX_EXPRESSION = "@annotation(test.annotation.transaction.Tx)";
+
+
+	@Test
+	void equalPointcutsShareParsedExpression() {
+		AspectJExpressionPointcut pc1 = createPointcut("execution(* greet(..)) and args(String)");
+		AspectJExpressionPointcut pc2 = createPointcut("execution(* greet(..)) and args(String)");
+
+		assertThat(pc1.getPointcutExpression()).isSameAs(pc2.getPointcutExpression());
+	}
+
+	@Test
+	void beanPointcutsDoNotShareParsedExpression() {
+		AspectJExpressionPointcut pc1 = createPointcut("bean(greeter) && execution(* greet(..))");
+		AspectJExpressionPointcut pc2 = createPointcut("bean(greeter) && execution(* greet(..))");
+
+		assertThat(pc1.getPointcutExpression()).isNotSameAs(pc2.getPointcutExpression());
+	}
+
+	@Test
+	void annotationPrefilterRejectsClassWithoutAnnotation() {
+		AspectJExpressionPointcut pc = createPointcut("execution(* *(..)) && " + TX_EXPRESSION);
+
+		assertThat(pc.matches(PlainGreeter.class)).isFalse();
+		assertThat(pc.matches(TransactionalGreeter.class)).isTrue();
+	}
+
+	@Test
+	void annotationPrefilterConsidersInterfacesAndSuperclasses() {
+		AspectJExpressionPointcut methodPc = createPointcut(TX_EXPRESSION);
+		AspectJExpressionPointcut typePc = createPointcut("@within(test.annotation.transaction.Tx)");
+
+		assertThat(methodPc.matches(AnnotatedInterfaceGreeter.class)).isTrue();
+		assertThat(methodPc.matches(TransactionalGreeterSubclass.class)).isTrue();
+		assertThat(typePc.matches(TransactionalTypeSubclass.class)).isTrue();
+		assertThat(typePc.matches(TransactionalGreeter.class)).isFalse();
+	}
+
+	@Test
+	void annotationPrefilterConsidersInheritedInterfaces() {
+		AspectJExpressionPointcut pc = createPointcut(TX_EXPRESSION);
+
+		assertThat(pc.matches(ExtendedInterfaceGreeter.class)).isTrue();
+	}
+
+	@Test
+	void annotationPrefilterBindsAnnotationParameter() {
+		AspectJExpressionPointcut pc = new AspectJExpressionPointcut(
+				PointcutMatchCacheTests.class, new String[] {"tx"}, new Class<?>[] {Tx.class});
+		pc.setExpression("@annotation(tx)");
+
+		assertThat(pc.matches(PlainGreeter.class)).isFalse();
+		assertThat(pc.matches(TransactionalGreeter.class)).isTrue();
+	}
+
+	@Test
+	void disjunctionIsNotPrefiltered() throws Exception {
+		AspectJExpressionPointcut pc = createPointcut(TX_EXPRESSION + " || execution(* greet(..))");
+
+		assertThat(pc.matches(PlainGreeter.class)).isTrue();
+		assertThat(pc.matches(PlainGreeter.class.getMethod("greet", String.class), PlainGreeter.class)).isTrue();
+	}
+
+	@Test
+	void persistentCacheRoundTrip(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		Method greet = PlainGreeter.class.getMethod("greet", String.class);
+		Method toString = Object.class.getMethod("toString");
+
+		PersistentPointcutMatchCache matchCache = new PersistentPointcutMatchCache(cacheFile);
+		assertThat(matchCache.isKnownMismatch("pc", greet, PlainGreeter.class)).isFalse();
+		matchCache.recordMismatch("pc", greet, PlainGreeter.class);
+		matchCache.saveCache();
+		assertThat(cacheFile).isFile();
+
+		PersistentPointcutMatchCache restored = new PersistentPointcutMatchCache(cacheFile);
+		assertThat(restored.isKnownMismatch("pc", greet, PlainGreeter.class)).isTrue();
+		assertThat(restored.isKnownMismatch("other", greet, PlainGreeter.class)).isFalse();
+		assertThat(restored.isKnownMismatch("pc", toString, PlainGreeter.class)).isFalse();
+		assertThat(restored.isKnownMismatch("pc", greet, TransactionalGreeter.class)).isFalse();
+	}
+
+	@Test
+	void persistentCacheIgnoresCorruptFile(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		Files.write(cacheFile.toPath(), new byte[] {1, 2, 3});
+		Method greet = PlainGreeter.class.getMethod("greet", String.class);
+
+		PersistentPointcutMatchCache matchCache = new PersistentPointcutMatchCache(cacheFile);
+		assertThat(matchCache.isKnownMismatch("pc", greet, PlainGreeter.class)).isFalse();
+	}
+
+	@Test
+	void pointcutRecordsAndReusesMismatches(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, cacheFile.getPath());
+		try {
+			Method greet = PlainGreeter.class.getMethod("greet", String.class);
+			AspectJExpressionPointcut pc = createPointcut("execution(* farewell(..))");
+			assertThat(pc.matches(greet, PlainGreeter.class)).isFalse();
+			PersistentPointcutMatchCache sharedCache = PersistentPointcutMatchCache.getSharedInstance();
+			assertThat(sharedCache).isNotNull();
+			sharedCache.saveCache();
+
+			PersistentPointcutMatchCache restored = new PersistentPointcutMatchCache(cacheFile);
+			assertThat(restored.isKnownMismatch(
+					"execution(* farewell(..))|" + PointcutMatchCacheTests.class.getName() + "=" +
+							restored.getClassFingerprint(PointcutMatchCacheTests.class),
+					greet, PlainGreeter.class)).isTrue();
+		}
+		finally {
+			SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, null);
+		}
+	}
+
+	@Test
+	void persistentCacheEntryDependsOnMethodSignatureTypes(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		Method greet = PlainGreeter.class.getMethod("greet", String.class);
+		Method greetTx = TransactionalGreeter.class.getMethod("greet", String.class);
+
+		PersistentPointcutMatchCache matchCache = new PersistentPointcutMatchCache(cacheFile);
+		matchCache.recordMismatch("pc", greetTx, TransactionalGreeterSubclass.class);
+		matchCache.saveCache();
+
+		PersistentPointcutMatchCache restored = new PersistentPointcutMatchCache(cacheFile);
+		assertThat(restored.isKnownMismatch("pc", greetTx, TransactionalGreeterSubclass.class)).isTrue();
+		assertThat(restored.isKnownMismatch("pc", greet, TransactionalGreeterSubclass.class)).isFalse();
+	}
+
+	@Test
+	void pointcutKeyIncludesReferencedTypes(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, cacheFile.getPath());
+		try {
+			Method greet = PlainGreeter.class.getMethod("greet", String.class);
+			AspectJExpressionPointcut pc = createPointcut("execution(* *(" + Tx.class.getName() + "+))");
+			assertThat(pc.matches(greet, PlainGreeter.class)).isFalse();
+			PersistentPointcutMatchCache.getSharedInstance().saveCache();
+
+			PersistentPointcutMatchCache restored = new PersistentPointcutMatchCache(cacheFile);
+			String pointcutKey = "execution(* *(" + Tx.class.getName() + "+))|" +
+					PointcutMatchCacheTests.class.getName() + "=" + restored.getClassFingerprint(PointcutMatchCacheTests.class);
+			assertThat(restored.isKnownMismatch(pointcutKey, greet, PlainGreeter.class)).isFalse();
+			assertThat(restored.isKnownMismatch(pointcutKey + "|" + Tx.class.getName() + "=" +
+					restored.getHierarchyFingerprint(Tx.class), greet, PlainGreeter.class)).isTrue();
+		}
+		finally {
+			SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, null);
+		}
+	}
+
+	@Test
+	void pointcutWithWildcardAnnotationPatternIsNotPersisted(@TempDir File tempDir) throws Exception {
+		File cacheFile = new File(tempDir, "pointcut-matches.bin");
+		SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, cacheFile.getPath());
+		try {
+			Method greet = PlainGreeter.class.getMethod("greet", String.class);
+			AspectJExpressionPointcut pc = createPointcut("execution(@test.annotation..* * *(..))");
+			assertThat(pc.matches(greet, PlainGreeter.class)).isFalse();
+			PersistentPointcutMatchCache.getSharedInstance().saveCache();
+
+			assertThat(cacheFile).doesNotExist();
+		}
+		finally {
+			SpringProperties.setProperty(PersistentPointcutMatchCache.CACHE_LOCATION_PROPERTY_NAME, null);
+		}
+	}
+
+
+	private static AspectJExpressionPointcut createPointcut(String expression) {
+		AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+		pc.setPointcutDeclarationScope(PointcutMatchCacheTests.class);
+		pc.setExpression(expression);
+		return pc;
+	}
+
+
+	public static class PlainGreeter {
+
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	public static class TransactionalGreeter {
+
+		@Tx
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	public static class TransactionalGreeterSubclass extends TransactionalGreeter {
+	}
+
+
+	public interface AnnotatedGreeter {
+
+		@Tx
+		String greet(String name);
+	}
+
+
+	public static class AnnotatedInterfaceGreeter implements AnnotatedGreeter {
+
+		@Override
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	public interface ExtendedGreeter extends AnnotatedGreeter {
+	}
+
+
+	public static class ExtendedInterfaceGreeter implements ExtendedGreeter {
+
+		@Override
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	@Tx
+	public static class TransactionalType {
+	}
+
+
+	public static class TransactionalTypeSubclass extends TransactionalType {
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.DynamicMethodMatcherPointcut;
+import org.springframework.beans.factory.support.GeneratedMemberAccessors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for compiled interceptor chains of frozen proxy configurations.
+ *
+ * @since 5.2.23
+ */
+class CompiledInterceptorChainTests {
+
+	private final List<String> invocations = new ArrayList<>();
+
+
+	@Test
+	void frozenJdkProxyUsesCompiledInvocation() {
+		List<Class<?>> invocationTypes = new ArrayList<>();
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvice((MethodInterceptor) mi -> {
+			invocationTypes.add(mi.getClass());
+			this.invocations.add("first");
+			return mi.proceed();
+		});
+		pf.addAdvice(recordingInterceptor("second"));
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Juergen");
+		assertThat(proxy.greet("Sam")).isEqualTo("Hello Sam");
+		assertThat(this.invocations).containsExactly("first", "second", "first", "second");
+		assertThat(invocationTypes).containsOnly(CompiledMethodInvocation.class);
+	}
+
+	@Test
+	void unfrozenJdkProxyUsesReflectiveInvocation() {
+		List<Class<?>> invocationTypes = new ArrayList<>();
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvice((MethodInterceptor) mi -> {
+			invocationTypes.add(mi.getClass());
+			return mi.proceed();
+		});
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Juergen");
+		assertThat(invocationTypes).containsExactly(ReflectiveMethodInvocation.class);
+	}
+
+	@Test
+	void targetMethodIsInvokedThroughReflectionUnlessGeneratedAccessorsAreEnabled() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvice(recordingInterceptor("interceptor"));
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		// 仅在开启spring.beans.generated-accessors时由生成的FastClass直接调用目标方法
+		StackTraceElement caller = proxy.stackTrace()[1];
+		if (GeneratedMemberAccessors.isUseGeneratedAccessorsByDefault()) {
+			assertThat(caller.getClassName()).contains("FastClass");
+		}
+		else {
+			assertThat(caller.getClassName()).doesNotContain("FastClass");
+		}
+	}
+
+	@Test
+	void adviceChangeAfterUnfreezingIsApplied() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Juergen");
+
+		pf.setFrozen(false);
+		pf.addAdvice(recordingInterceptor("added"));
+		pf.setFrozen(true);
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Juergen");
+		assertThat(this.invocations).containsExactly("added");
+	}
+
+	@Test
+	void dynamicMethodMatcherIsEvaluatedPerInvocation() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvisor(new DefaultPointcutAdvisor(new DynamicMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass, Object... args) {
+				return (args.length == 1 && "Juergen".equals(args[0]));
+			}
+		}, recordingInterceptor("dynamic")));
+		pf.addAdvice(recordingInterceptor("static"));
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		proxy.greet("Juergen");
+		proxy.greet("Sam");
+		assertThat(this.invocations).containsExactly("dynamic", "static", "static");
+	}
+
+	@Test
+	void checkedTargetExceptionIsPropagated() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvice(recordingInterceptor("interceptor"));
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		assertThatIOException().isThrownBy(proxy::fail).withMessage("Expected");
+	}
+
+	@Test
+	void invocableCloneProceedsWithRemainingChain() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.addAdvice((MethodInterceptor) mi -> {
+			Object first = ((ProxyMethodInvocation) mi).invocableClone("Sam").proceed();
+			return first + " / " + mi.proceed();
+		});
+		pf.addAdvice(recordingInterceptor("second"));
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Sam / Hello Juergen");
+		assertThat(this.invocations).containsExactly("second", "second");
+	}
+
+	@Test
+	void frozenJdkProxyWithoutAdvice() {
+		ProxyFactory pf = new ProxyFactory(new DefaultGreeter());
+		pf.setFrozen(true);
+		Greeter proxy = (Greeter) pf.getProxy();
+
+		assertThat(proxy.greet("Juergen")).isEqualTo("Hello Juergen");
+		assertThatIOException().isThrownBy(proxy::fail);
+	}
+
+
+	private MethodInterceptor recordingInterceptor(String name) {
+		return mi -> {
+			this.invocations.add(name);
+			return mi.proceed();
+		};
+	}
+
+
+	public interface Greeter {
+
+		String greet(String name);
+
+		StackTraceElement[] stackTrace();
+
+		void fail() throws IOException;
+	}
+
+
+	public static class DefaultGreeter implements Greeter {
+
+		@Override
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+
+		@Override
+		public StackTraceElement[] stackTrace() {
+			return new Throwable().getStackTrace();
+		}
+
+		@Override
+		public void fail() throws IOException {
+			throw new IOException("Expected");
+		}
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the container hot paths of {@link DefaultListableBeanFactory}:
+ * singleton pre-instantiation, prototype creation and by-type lookups.
+ *
+ * @since 5.2.23
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DefaultListableBeanFactoryBenchmark {
+
+	/**
+	 * Prepares a batch of fresh bean factories per iteration, so that each
+	 * single-shot invocation pre-instantiates an untouched factory without
+	 * per-invocation setup overhead.
+	 */
+	@State(Scope.Benchmark)
+	public static class SingletonState {
+
+		static final int BATCH_SIZE = 10;
+
+		@Param({"1000", "10000"})
+		public int beanCount;
+
+		private DefaultListableBeanFactory[] beanFactories;
+
+		private int index;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.beanFactories = new DefaultListableBeanFactory[BATCH_SIZE];
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				this.beanFactories[i] = new DefaultListableBeanFactory();
+				registerBeanDefinitions(this.beanFactories[i], this.beanCount, BeanDefinition.SCOPE_SINGLETON);
+			}
+			this.index = 0;
+		}
+
+		public DefaultListableBeanFactory nextBeanFactory() {
+			return this.beanFactories[this.index++];
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PrototypeState {
+
+		@Param({"simple", "constructor", "constructorArgument", "properties", "resolvedProperties"})
+		public String mode;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.registerBeanDefinition("dependency", new RootBeanDefinition(Dependency.class));
+			RootBeanDefinition rbd = new RootBeanDefinition(PrototypeBean.class);
+			rbd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			switch (this.mode) {
+				case "simple":
+					break;
+				case "constructor":
+					rbd.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+					break;
+				case "constructorArgument":
+					rbd.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("dependency"));
+					break;
+				case "properties":
+					rbd.getPropertyValues().add("name", "juergen");
+					rbd.getPropertyValues().add("age", "99");
+					break;
+				case "resolvedProperties":
+					rbd.getPropertyValues().add("dependency", new RuntimeBeanReference("dependency"));
+					rbd.getPropertyValues().add("name", "juergen");
+					break;
+			}
+			this.beanFactory.registerBeanDefinition("prototype", rbd);
+			this.beanFactory.freezeConfiguration();
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class LookupState {
+
+		@Param({"1000", "10000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			registerBeanDefinitions(this.beanFactory, this.beanCount, BeanDefinition.SCOPE_SINGLETON);
+			this.beanFactory.registerBeanDefinition("lookupTarget", new RootBeanDefinition(LookupTarget.class));
+			this.beanFactory.freezeConfiguration();
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(batchSize = SingletonState.BATCH_SIZE)
+	@Measurement(batchSize = SingletonState.BATCH_SIZE)
+	public DefaultListableBeanFactory preInstantiateSingletons(SingletonState state) {
+		DefaultListableBeanFactory beanFactory = state.nextBeanFactory();
+		beanFactory.preInstantiateSingletons();
+		return beanFactory;
+	}
+
+	@Benchmark
+	public Object createPrototype(PrototypeState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public void getBeanByType(LookupState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean(LookupTarget.class));
+		bh.consume(state.beanFactory.getBeanNamesForType(Dependency.class));
+	}
+
+
+	private static void registerBeanDefinitions(DefaultListableBeanFactory beanFactory, int beanCount, String scope) {
+		for (int i = 0; i < beanCount; i++) {
+			RootBeanDefinition rbd;
+			if (i % 2 == 0) {
+				rbd = new RootBeanDefinition(Dependency.class);
+			}
+			else {
+				rbd = new RootBeanDefinition(PrototypeBean.class);
+				rbd.getPropertyValues().add("dependency", new RuntimeBeanReference("bean" + (i - 1)));
+				rbd.getPropertyValues().add("name", "bean" + i);
+			}
+			rbd.setScope(scope);
+			beanFactory.registerBeanDefinition("bean" + i, rbd);
+		}
+	}
+
+
+	public static class Dependency {
+	}
+
+
+	public static class LookupTarget {
+	}
+
+
+	public static class PrototypeBean {
+
+		private Dependency dependency;
+
+		private String name;
+
+		private int age;
+
+		public PrototypeBean() {
+		}
+
+		public PrototypeBean(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+
+		public void setDependency(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing reflective bean instantiation and injection with
+ * {@link GeneratedAccessorInstantiationStrategy} and the generated injection
+ * accessors of {@link AutowiredAnnotationBeanPostProcessor}.
+ *
+ * @since 5.2.23
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeneratedAccessorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryState {
+
+		@Param({"reflective", "generated"})
+		public String accessors;
+
+		@Param({"constructor", "autowiredMembers"})
+		public String mode;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			boolean generated = "generated".equals(this.accessors);
+			this.beanFactory = new DefaultListableBeanFactory();
+			if (generated) {
+				this.beanFactory.setInstantiationStrategy(new GeneratedAccessorInstantiationStrategy());
+			}
+			AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+			bpp.setBeanFactory(this.beanFactory);
+			bpp.setUseGeneratedAccessors(generated);
+			this.beanFactory.addBeanPostProcessor(bpp);
+			this.beanFactory.registerBeanDefinition("dependency", new RootBeanDefinition(Dependency.class));
+			RootBeanDefinition rbd;
+			if ("constructor".equals(this.mode)) {
+				rbd = new RootBeanDefinition(ConstructorBean.class);
+				rbd.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			}
+			else {
+				rbd = new RootBeanDefinition(AutowiredBean.class);
+			}
+			rbd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", rbd);
+			this.beanFactory.freezeConfiguration();
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class AccessorState {
+
+		public Constructor<ConstructorBean> constructor;
+
+		public Field field;
+
+		public Dependency dependency = new Dependency();
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.constructor = ConstructorBean.class.getConstructor(Dependency.class);
+			this.field = AutowiredBean.class.getDeclaredField("dependency");
+			this.field.setAccessible(true);
+		}
+	}
+
+
+	@Benchmark
+	public Object createPrototype(BeanFactoryState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object reflectiveConstructor(AccessorState state) {
+		return BeanUtils.instantiateClass(state.constructor, state.dependency);
+	}
+
+	@Benchmark
+	public Object generatedConstructor(AccessorState state) throws Exception {
+		return GeneratedMemberAccessors.newInstance(state.constructor, state.dependency);
+	}
+
+	@Benchmark
+	public void reflectiveFieldInjection(AccessorState state, Blackhole bh) throws Exception {
+		AutowiredBean bean = new AutowiredBean();
+		state.field.set(bean, state.dependency);
+		bh.consume(bean);
+	}
+
+	@Benchmark
+	public void generatedFieldInjection(AccessorState state, Blackhole bh) throws Exception {
+		AutowiredBean bean = new AutowiredBean();
+		GeneratedMemberAccessors.set(state.field, bean, state.dependency);
+		bh.consume(bean);
+	}
+
+
+	public static class Dependency {
+	}
+
+
+	public static class ConstructorBean {
+
+		private final Dependency dependency;
+
+		public ConstructorBean(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+
+	public static class AutowiredBean {
+
+		@Autowired
+		private Dependency dependency;
+
+		private Dependency other;
+
+		@Autowired
+		public void setOther(Dependency other) {
+			this.other = other;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+
+		public Dependency getOther() {
+			return this.other;
+		}
+	}
+
+}
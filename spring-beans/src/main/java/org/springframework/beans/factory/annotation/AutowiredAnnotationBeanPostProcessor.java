@@ -26,6 +26,7 @@ import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.GeneratedMemberAccessors;
 import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -125,6 +126,9 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 
 	private int order = Ordered.LOWEST_PRECEDENCE - 2;
 
+	// 是否通过生成的访问器（而非反射）完成字段和方法注入
+	private boolean useGeneratedAccessors = GeneratedMemberAccessors.isUseGeneratedAccessorsByDefault();
+
 	@Nullable
 	private ConfigurableListableBeanFactory beanFactory;
 
@@ -215,6 +219,30 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		this.requiredParameterValue = requiredParameterValue;
 	}
 
+	/**
+	 * Set whether to inject fields and methods through generated accessors
+	 * instead of core reflection, allowing the JIT to inline repeated injection
+	 * into the same members (e.g. for prototype beans).
+	 * <p>Default is "false", unless the
+	 * {@link GeneratedMemberAccessors#GENERATED_ACCESSORS_PROPERTY_NAME} property is set.
+	 * Members which cannot be accessed from generated code are still injected reflectively.
+	 *
+	 * @since 5.2.23
+	 * @see GeneratedMemberAccessors
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether fields and methods are injected through generated accessors.
+	 *
+	 * @since 5.2.23
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 	public void setOrder(int order) {
 		this.order = order;
 	}
@@ -699,7 +727,11 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			if (value != null) {
 				// 通过反射，给属性赋值
 				ReflectionUtils.makeAccessible(field);
-				field.set(bean, value);
+				if (useGeneratedAccessors) {
+					GeneratedMemberAccessors.set(field, bean, value);
+				} else {
+					field.set(bean, value);
+				}
 			}
 		}
 
@@ -801,7 +833,11 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			if (arguments != null) {
 				try {
 					ReflectionUtils.makeAccessible(method);
-					method.invoke(bean, arguments);
+					if (useGeneratedAccessors) {
+						GeneratedMemberAccessors.invoke(method, bean, arguments);
+					} else {
+						method.invoke(bean, arguments);
+					}
 				} catch (InvocationTargetException ex) {
 					throw ex.getTargetException();
 				}
@@ -18,6 +18,7 @@ package org.springframework.beans.factory.config;
 
 import java.beans.PropertyEditor;
 import java.security.AccessControlContext;
+import java.util.concurrent.Executor;
 
 import org.springframework.beans.PropertyEditorRegistrar;
 import org.springframework.beans.PropertyEditorRegistry;
@@ -130,6 +131,34 @@ public interface ConfigurableBeanFactory extends HierarchicalBeanFactory, Single
 	 */
 	boolean isCacheBeanMetadata();
 
+	/**
+	 * Set the {@link Executor} (possibly a {@link java.util.concurrent.ForkJoinPool})
+	 * for parallel pre-instantiation of singletons. Default is none.
+	 * <p>If set, eagerly initialized singletons are grouped into subgraphs of
+	 * statically known dependencies (depends-on relationships, bean references
+	 * and parent definitions), and independent subgraphs are created on the given
+	 * executor concurrently. Dependencies that are only discovered during creation,
+	 * e.g. through autowiring, are resolved on demand across threads.
+	 * <p>A circular reference between singletons created on different threads
+	 * is resolved through early singleton references, just like on a single
+	 * thread. If it cannot be resolved that way, e.g. for a constructor injection
+	 * cycle, pre-instantiation fails with a
+	 * {@link org.springframework.beans.factory.BeanCurrentlyInCreationException}
+	 * as root cause, as on a single thread.
+	 * Which bean of the cycle that exception names depends on the order in which
+	 * the threads reach the cycle, though.
+	 * @since 5.2.23
+	 * @see ConfigurableListableBeanFactory#preInstantiateSingletons()
+	 */
+	void setBootstrapExecutor(@Nullable Executor executor);
+
+	/**
+	 * Return the {@link Executor} for parallel pre-instantiation of singletons, if any.
+	 * @since 5.2.23
+	 */
+	@Nullable
+	Executor getBootstrapExecutor();
+
 	/**
 	 * Specify the resolution strategy for expressions in bean definition values.
 	 * <p>There is no expression support active in a BeanFactory by default.
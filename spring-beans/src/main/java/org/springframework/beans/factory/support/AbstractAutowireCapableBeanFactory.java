@@ -27,6 +27,7 @@ import org.springframework.util.ReflectionUtils.MethodCallback;
 
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -81,7 +82,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	/** bean的生成策略 默认是cglib
 	 * Strategy for creating bean instances.
 	 */
-	private InstantiationStrategy instantiationStrategy = new CglibSubclassingInstantiationStrategy();
+	private InstantiationStrategy instantiationStrategy = (GeneratedMemberAccessors.isUseGeneratedAccessorsByDefault() ?
+			new GeneratedAccessorInstantiationStrategy() : new CglibSubclassingInstantiationStrategy());
 
 	/** 解析策略的方法参数
 	 * Resolver strategy for method parameter names.
@@ -134,6 +136,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	private final ConcurrentMap<Class<?>, PropertyDescriptor[]> filteredPropertyDescriptorsCache =
 			new ConcurrentHashMap<>();
 
+	/**
+	 * Whether non-singleton beans may be created through a creation plan, i.e.
+	 * whether this factory does not customize the regular creation steps.
+	 */
+	private final boolean creationPlanSupported = !overridesCreationSteps(getClass());
+
 
 	/**
 	 * Create a new AbstractAutowireCapableBeanFactory.
@@ -380,8 +388,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 		// 初始化返回结果existingBean
 		Object result = existingBean;
-		// 遍历该工厂创建的bean的BeanPostProcessor列表
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		// 遍历该工厂创建的bean的BeanPostProcessor列表（只包含实现了该回调的BeanPostProcessor）
+		for (BeanPostProcessor processor : getBeanPostProcessorCache().beforeInitialization) {
 			// postProcessBeforeInitialization：在任何Bean初始化回调之前（如初始化Bean的afterPropertiesSet或自定义的init方法）
 			// 将此BeanPostProcessor 应用到给定的新bean实例 .Bean已经填充了属性值，返回的bean实例可能是原始Bean的包装器
 			// 默认实现按原样返回给定的bean
@@ -402,8 +410,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 		// 初始化结果对象为result,默认引用existingBean
 		Object result = existingBean;
-		// 遍历该工厂创建的bean的BeanPostProcessors列表
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		// 遍历该工厂创建的bean的BeanPostProcessors列表（只包含实现了该回调的BeanPostProcessor）
+		for (BeanPostProcessor processor : getBeanPostProcessorCache().afterInitialization) {
 			// 回调BeanPostProcessor#postProcessAfterInitialization来对现有的bean实例进行包装
 			Object current = processor.postProcessAfterInitialization(result, beanName);
 			// 一般processor对不感兴趣的bean会回调直接返回result,使其能继续回调后续的BeanPostProcessor;
@@ -422,7 +430,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 	@Override
 	public void destroyBean(Object existingBean) {
-		new DisposableBeanAdapter(existingBean, getBeanPostProcessors(), getAccessControlContext()).destroy();
+		new DisposableBeanAdapter(existingBean, getBeanPostProcessorCache().destructionAware, getAccessControlContext()).destroy();
 	}
 
 
@@ -536,6 +544,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected Object doCreateBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args)
 			throws BeanCreationException {
 
+		// 非单例bean在首次创建之后，如果满足条件，则按照创建计划走快捷路径，不再创建BeanWrapper
+		if (args == null && !mbd.isSingleton() && this.creationPlanSupported && isCreationPlanApplicable(mbd)) {
+			return createBeanFromPlan(beanName, mbd);
+		}
+
 		// Instantiate the bean.
 		// 这个beanWrapper用来持有创建出来的bean对象的
 		BeanWrapper instanceWrapper = null;
@@ -646,6 +659,160 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return exposedObject;
 	}
 
+	/**
+	 * Determine whether non-singleton instances of the given bean definition can
+	 * be created through a creation plan, i.e. without going through the full
+	 * {@link #doCreateBean} algorithm again.
+	 * <p>This is the case once an instance has been created through a resolved
+	 * constructor without arguments, and the definition does not require any
+	 * instance supplier, factory method, method overrides, autowiring by name or
+	 * type, or dependency checks. The result is cached in the merged bean definition.
+	 * <p>Creation plans are not used at all by factory subclasses which override
+	 * {@link #createBeanInstance}, {@link #instantiateBean} or {@link #populateBean},
+	 * since the plan would bypass these customizations.
+	 *
+	 * @param mbd the merged bean definition for the bean
+	 * @return whether {@link #createBeanFromPlan} can be used
+	 * @since 5.2.23
+	 */
+	private boolean isCreationPlanApplicable(RootBeanDefinition mbd) {
+		Boolean applicable = mbd.creationPlanApplicable;
+		if (applicable == null) {
+			Executable resolvedConstructor;
+			boolean constructorArgumentsResolved;
+			synchronized (mbd.constructorArgumentLock) {
+				resolvedConstructor = mbd.resolvedConstructorOrFactoryMethod;
+				constructorArgumentsResolved = mbd.constructorArgumentsResolved;
+			}
+			synchronized (mbd.postProcessingLock) {
+				if (!(resolvedConstructor instanceof Constructor) || !mbd.postProcessed) {
+					// Not created yet: decide after the first instance.
+					return false;
+				}
+			}
+			applicable = (!constructorArgumentsResolved && mbd.getInstanceSupplier() == null &&
+					mbd.getFactoryMethodName() == null && !mbd.hasMethodOverrides() &&
+					mbd.getResolvedAutowireMode() == AUTOWIRE_NO &&
+					mbd.getDependencyCheck() == AbstractBeanDefinition.DEPENDENCY_CHECK_NONE);
+			mbd.creationPlanApplicable = applicable;
+		}
+		return applicable;
+	}
+
+	/**
+	 * Determine whether the given factory class overrides any of the creation
+	 * steps which {@link #createBeanFromPlan} bypasses.
+	 *
+	 * @param factoryClass the concrete class of this factory
+	 * @return {@code true} if creation plans must not be used
+	 * @since 5.2.23
+	 */
+	private static boolean overridesCreationSteps(Class<?> factoryClass) {
+		return (isOverridden(factoryClass, "createBeanInstance", String.class, RootBeanDefinition.class, Object[].class) ||
+				isOverridden(factoryClass, "instantiateBean", String.class, RootBeanDefinition.class) ||
+				isOverridden(factoryClass, "populateBean", String.class, RootBeanDefinition.class, BeanWrapper.class));
+	}
+
+	private static boolean isOverridden(Class<?> factoryClass, String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(factoryClass, methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != AbstractAutowireCapableBeanFactory.class);
+	}
+
+	/**
+	 * Create a non-singleton bean instance through its creation plan: instantiate
+	 * it through the previously resolved constructor, and apply only those
+	 * post-processors which actually implement the respective callbacks.
+	 * <p>In contrast to {@link #doCreateBean}, the instance is not wrapped in a
+	 * {@link BeanWrapper} unless property values need to be applied to it.
+	 *
+	 * @param beanName the name of the bean
+	 * @param mbd      the merged bean definition for the bean
+	 * @return a new instance of the bean
+	 * @throws BeanCreationException if the bean could not be created
+	 * @see #isCreationPlanApplicable
+	 * @since 5.2.23
+	 */
+	private Object createBeanFromPlan(String beanName, RootBeanDefinition mbd) throws BeanCreationException {
+		Object bean;
+		try {
+			if (System.getSecurityManager() != null) {
+				bean = AccessController.doPrivileged(
+						(PrivilegedAction<Object>) () -> getInstantiationStrategy().instantiate(mbd, beanName, this),
+						getAccessControlContext());
+			} else {
+				bean = getInstantiationStrategy().instantiate(mbd, beanName, this);
+			}
+		} catch (Throwable ex) {
+			throw new BeanCreationException(
+					mbd.getResourceDescription(), beanName, "Instantiation of bean failed", ex);
+		}
+
+		Object exposedObject;
+		try {
+			populateBeanFromPlan(beanName, mbd, bean);
+			exposedObject = initializeBean(beanName, bean, mbd);
+		} catch (Throwable ex) {
+			if (ex instanceof BeanCreationException && beanName.equals(((BeanCreationException) ex).getBeanName())) {
+				throw (BeanCreationException) ex;
+			} else {
+				throw new BeanCreationException(
+						mbd.getResourceDescription(), beanName, "Initialization of bean failed", ex);
+			}
+		}
+
+		try {
+			registerDisposableBeanIfNecessary(beanName, bean, mbd);
+		} catch (BeanDefinitionValidationException ex) {
+			throw new BeanCreationException(
+					mbd.getResourceDescription(), beanName, "Invalid destruction signature", ex);
+		}
+		return exposedObject;
+	}
+
+	/**
+	 * Variant of {@link #populateBean} for {@link #createBeanFromPlan}, only
+	 * creating a {@link BeanWrapper} for the bean instance if actually needed.
+	 *
+	 * @param beanName the name of the bean
+	 * @param mbd      the merged bean definition for the bean
+	 * @param bean     the raw bean instance
+	 */
+	@SuppressWarnings("deprecation")  // for postProcessPropertyValues
+	private void populateBeanFromPlan(String beanName, RootBeanDefinition mbd, Object bean) {
+		BeanPostProcessorCache bpCache = getBeanPostProcessorCache();
+		if (!mbd.isSynthetic()) {
+			for (InstantiationAwareBeanPostProcessor ibp : bpCache.afterInstantiation) {
+				if (!ibp.postProcessAfterInstantiation(bean, beanName)) {
+					return;
+				}
+			}
+		}
+		PropertyValues pvs = mbd.getPropertyValues();
+		BeanWrapper bw = null;
+		for (InstantiationAwareBeanPostProcessor ibp : bpCache.propertyProcessing) {
+			PropertyValues pvsToUse = ibp.postProcessProperties(pvs, bean, beanName);
+			if (pvsToUse == null) {
+				if (bw == null) {
+					bw = new BeanWrapperImpl(bean);
+					initBeanWrapper(bw);
+				}
+				PropertyDescriptor[] filteredPds = filterPropertyDescriptorsForDependencyCheck(bw, mbd.allowCaching);
+				pvsToUse = ibp.postProcessPropertyValues(pvs, filteredPds, bean, beanName);
+				if (pvsToUse == null) {
+					return;
+				}
+			}
+			pvs = pvsToUse;
+		}
+		if (!pvs.isEmpty()) {
+			if (bw == null) {
+				bw = new BeanWrapperImpl(bean);
+				initBeanWrapper(bw);
+			}
+			applyPropertyValues(beanName, mbd, bw, pvs);
+		}
+	}
+
 	@Override
 	@Nullable
 	protected Class<?> predictBeanType(String beanName, RootBeanDefinition mbd, Class<?>... typesToMatch) {
@@ -654,14 +821,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// eventual type after a before-instantiation shortcut.
 		if (targetType != null && !mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
 			boolean matchingOnlyFactoryBean = typesToMatch.length == 1 && typesToMatch[0] == FactoryBean.class;
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					Class<?> predicted = ibp.predictBeanType(targetType, beanName);
-					if (predicted != null &&
-							(!matchingOnlyFactoryBean || FactoryBean.class.isAssignableFrom(predicted))) {
-						return predicted;
-					}
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().smartInstantiationAware) {
+				Class<?> predicted = ibp.predictBeanType(targetType, beanName);
+				if (predicted != null &&
+						(!matchingOnlyFactoryBean || FactoryBean.class.isAssignableFrom(predicted))) {
+					return predicted;
 				}
 			}
 		}
@@ -965,14 +1129,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// mbd的synthetic属性：设置此bean定义是否是"synthetic",一般是指只有AOP相关的pointCut配置或者Advice配置才会将 synthetic设置为true
 		// 如果mdb不是synthetic且此工厂拥有InstantiationAwareBeanPostProcessor
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			// 遍历工厂内的所有后处理器
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				// 如果bp是SmartInstantiationAwareBeanPostProcessor实例
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					// 让exposedObject经过每个SmartInstantiationAwareBeanPostProcessor的包装 (代理对象)
-					exposedObject = ibp.getEarlyBeanReference(exposedObject, beanName);
-				}
+			// 遍历工厂内的所有SmartInstantiationAwareBeanPostProcessor
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().smartInstantiationAware) {
+				// 让exposedObject经过每个SmartInstantiationAwareBeanPostProcessor的包装 (代理对象)
+				exposedObject = ibp.getEarlyBeanReference(exposedObject, beanName);
 			}
 		}
 		//返回最终经过层次包装后的对象
@@ -1100,11 +1260,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 * @see MergedBeanDefinitionPostProcessor#postProcessMergedBeanDefinition
 	 */
 	protected void applyMergedBeanDefinitionPostProcessors(RootBeanDefinition mbd, Class<?> beanType, String beanName) {
-		for (BeanPostProcessor bp : getBeanPostProcessors()) {
-			if (bp instanceof MergedBeanDefinitionPostProcessor) {
-				MergedBeanDefinitionPostProcessor bdp = (MergedBeanDefinitionPostProcessor) bp;
-				bdp.postProcessMergedBeanDefinition(mbd, beanType, beanName);
-			}
+		for (MergedBeanDefinitionPostProcessor bdp : getBeanPostProcessorCache().mergedDefinition) {
+			bdp.postProcessMergedBeanDefinition(mbd, beanType, beanName);
 		}
 	}
 
@@ -1154,13 +1311,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	protected Object applyBeanPostProcessorsBeforeInstantiation(Class<?> beanClass, String beanName) {
-		for (BeanPostProcessor bp : getBeanPostProcessors()) {
-			if (bp instanceof InstantiationAwareBeanPostProcessor) {
-				InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-				Object result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
-				if (result != null) {
-					return result;
-				}
+		for (InstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().beforeInstantiation) {
+			Object result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
+			if (result != null) {
+				return result;
 			}
 		}
 		return null;
@@ -1325,14 +1479,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		if (beanClass != null && hasInstantiationAwareBeanPostProcessors()) {
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					// 从SmartInstantiationAwareBeanPostProcessor 判断
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					Constructor<?>[] ctors = ibp.determineCandidateConstructors(beanClass, beanName);
-					if (ctors != null) {
-						return ctors;
-					}
+			// 从SmartInstantiationAwareBeanPostProcessor 判断
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().smartInstantiationAware) {
+				Constructor<?>[] ctors = ibp.determineCandidateConstructors(beanClass, beanName);
+				if (ctors != null) {
+					return ctors;
 				}
 			}
 		}
@@ -1438,15 +1589,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// 是否是"synthetic"。一般是指只有A0P相关的pointCut配置或者Advice配置才会将synthetic设置为true
 		// 如果mdb不是'synthetic'且工厂拥有InstantiationAwareBeanPostProcessor
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			// 遍历工厂中的BeanPostProcessor对象
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				// 如果bp是InstantiationAwareBeanPostProcessor实例
-				if (bp instanceof InstantiationAwareBeanPostProcessor) {
-					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-					// postProcessAfterInstantiation:一般用于设置属性
-					if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
-						return;
-					}
+			// 遍历工厂中实现了postProcessAfterInstantiation的InstantiationAwareBeanPostProcessor对象
+			for (InstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().afterInstantiation) {
+				// postProcessAfterInstantiation:一般用于设置属性
+				if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
+					return;
 				}
 			}
 		}
@@ -1490,36 +1637,32 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				// 尝试获取mbd的PropertyValues
 				pvs = mbd.getPropertyValues();
 			}
-			// 遍历工厂内所有后置处理器
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				// 如果 bp 是InstantiationAwareBeanPostProcessor 的实例
-				if (bp instanceof InstantiationAwareBeanPostProcessor) {
-					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-					// postProcessProperties：在工厂将给定的属性值应用到给定Bean之前，对它们进行后处理，不需要任何属性扫描符，该回调方法在未来的版本会被删掉。
-					// 取而代之的是 postProcessPropertyValues回调方法
-					// 让ibp对pvs增加对bw的bean对象的propertyValue，或编辑pvs的propertyValue
-					PropertyValues pvsToUse = ibp.postProcessProperties(pvs, bw.getWrappedInstance(), beanName);
-					// 如果psv为null
+			// 遍历工厂内所有处理属性的InstantiationAwareBeanPostProcessor
+			for (InstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().propertyProcessing) {
+				// postProcessProperties：在工厂将给定的属性值应用到给定Bean之前，对它们进行后处理，不需要任何属性扫描符，该回调方法在未来的版本会被删掉。
+				// 取而代之的是 postProcessPropertyValues回调方法
+				// 让ibp对pvs增加对bw的bean对象的propertyValue，或编辑pvs的propertyValue
+				PropertyValues pvsToUse = ibp.postProcessProperties(pvs, bw.getWrappedInstance(), beanName);
+				// 如果psv为null
+				if (pvsToUse == null) {
+					// 如果filteredPds为null
+					if (filteredPds == null) {
+						// mbd,allowCaching:是否允许缓存，默认是允许的。缓存除了可以提高效率以外，还可以保证在并发的情况下，返回的PropertyDescriptor[]永远都是同一份
+						// 从bw提取一组经过筛选的PropertyDescriptor,排除忽略的依赖项或忽略项上的定义的属性
+						filteredPds = filterPropertyDescriptorsForDependencyCheck(bw, mbd.allowCaching);
+					}
+					// postProcessPropertyValues:一般进行检查是否所有依赖项都满足，例如基于"Require"注释在bean属性setter,
+					// -替换要应用的属性值，通常是通过基于原始的PropertyValues创建一个新的MutablePropertyValue实例，添加或删除特定的值
+					// -返回的PropertyValues将应用于bw包装的bean实例的实际属性值（添加PropertyValues:实例到pvs或者设置为null以跳过属性填充）
+					// 回到ipd的postProcessPropertyValues方法
+					pvsToUse = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
+					// 如果pvsToUse为null，则跳过属性填充
 					if (pvsToUse == null) {
-						// 如果filteredPds为null
-						if (filteredPds == null) {
-							// mbd,allowCaching:是否允许缓存，默认是允许的。缓存除了可以提高效率以外，还可以保证在并发的情况下，返回的PropertyDescriptor[]永远都是同一份
-							// 从bw提取一组经过筛选的PropertyDescriptor,排除忽略的依赖项或忽略项上的定义的属性
-							filteredPds = filterPropertyDescriptorsForDependencyCheck(bw, mbd.allowCaching);
-						}
-						// postProcessPropertyValues:一般进行检查是否所有依赖项都满足，例如基于"Require"注释在bean属性setter,
-						// -替换要应用的属性值，通常是通过基于原始的PropertyValues创建一个新的MutablePropertyValue实例，添加或删除特定的值
-						// -返回的PropertyValues将应用于bw包装的bean实例的实际属性值（添加PropertyValues:实例到pvs或者设置为null以跳过属性填充）
-						// 回到ipd的postProcessPropertyValues方法
-						pvsToUse = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
-						// 如果pvsToUse为null，则跳过属性填充
-						if (pvsToUse == null) {
-							return;
-						}
+						return;
 					}
-					// 让pvs引用pvsToUse
-					pvs = pvsToUse;
 				}
+				// 让pvs引用pvsToUse
+				pvs = pvsToUse;
 			}
 		}
 		// 如果需要依赖检查
@@ -28,11 +28,16 @@ import org.springframework.core.log.LogMessage;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
 
+import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditor;
+import java.lang.reflect.Method;
 import java.security.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Abstract base class for {@link org.springframework.beans.factory.BeanFactory}
@@ -93,6 +98,12 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	 */
 	private boolean cacheBeanMetadata = true;
 
+	/**
+	 * Executor for parallel pre-instantiation of singletons, if any.
+	 */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 	/**
 	 * Resolution strategy for expressions in bean definition values.
 	 */
@@ -129,7 +140,13 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	/**
 	 * BeanPostProcessors to apply.
 	 */
-	private final List<BeanPostProcessor> beanPostProcessors = new CopyOnWriteArrayList<>();
+	private final List<BeanPostProcessor> beanPostProcessors = new BeanPostProcessorCacheAwareList();
+
+	/**
+	 * Cache of pre-filtered post-processors.
+	 */
+	@Nullable
+	private volatile BeanPostProcessorCache beanPostProcessorCache;
 
 	/**
 	 * Indicates whether any InstantiationAwareBeanPostProcessors have been registered.
@@ -848,6 +865,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.cacheBeanMetadata;
 	}
 
+	@Override
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	@Override
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 	@Override
 	public void setBeanExpressionResolver(@Nullable BeanExpressionResolver resolver) {
 		this.beanExpressionResolver = resolver;
@@ -987,6 +1015,21 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.beanPostProcessors;
 	}
 
+	/**
+	 * Return the internal cache of pre-filtered post-processors,
+	 * freshly (re-)building it if necessary.
+	 *
+	 * @since 5.2.23
+	 */
+	BeanPostProcessorCache getBeanPostProcessorCache() {
+		BeanPostProcessorCache bpCache = this.beanPostProcessorCache;
+		if (bpCache == null) {
+			bpCache = new BeanPostProcessorCache(this.beanPostProcessors);
+			this.beanPostProcessorCache = bpCache;
+		}
+		return bpCache;
+	}
+
 	/**
 	 * Return whether this factory holds a InstantiationAwareBeanPostProcessor
 	 * that will get applied to singleton beans on creation.
@@ -1065,6 +1108,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		Assert.notNull(otherFactory, "BeanFactory must not be null");
 		setBeanClassLoader(otherFactory.getBeanClassLoader());
 		setCacheBeanMetadata(otherFactory.isCacheBeanMetadata());
+		setBootstrapExecutor(otherFactory.getBootstrapExecutor());
 		setBeanExpressionResolver(otherFactory.getBeanExpressionResolver());
 		setConversionService(otherFactory.getConversionService());
 		if (otherFactory instanceof AbstractBeanFactory) {
@@ -1079,6 +1123,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 					otherAbstractFactory.hasDestructionAwareBeanPostProcessors;
 			this.scopes.putAll(otherAbstractFactory.scopes);
 			this.securityContextProvider = otherAbstractFactory.securityContextProvider;
+			setAllowConcurrentSingletonCreation(otherAbstractFactory.isAllowConcurrentSingletonCreation());
 		} else {
 			setTypeConverter(otherFactory.getTypeConverter());
 			String[] otherScopeNames = otherFactory.getRegisteredScopeNames();
@@ -1211,7 +1256,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	 * @param mbd      the merged bean definition
 	 */
 	protected void destroyBean(String beanName, Object bean, RootBeanDefinition mbd) {
-		new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessors(), getAccessControlContext()).destroy();
+		new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessorCache().destructionAware, getAccessControlContext()).destroy();
 	}
 
 	@Override
@@ -1972,7 +2017,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		// Bean有应用于它的可识别销毁的后处理器)就为true;否则返回false
 		return (bean.getClass() != NullBean.class &&
 				(DisposableBeanAdapter.hasDestroyMethod(bean, mbd) || (hasDestructionAwareBeanPostProcessors() &&
-						DisposableBeanAdapter.hasApplicableProcessors(bean, getBeanPostProcessors()))));
+						DisposableBeanAdapter.hasApplicableProcessors(bean, getBeanPostProcessorCache().destructionAware))));
 	}
 
 	/**
@@ -2002,7 +2047,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				// DisposableBeanAdapter:实际一次性Bean和可运行接口适配器，对给定Bean实例执行各种销毁步骤
 				// 构建Bean对应的DisposableBeanAdapter对象，与beanName绑定到注册中心的一次性Bean列表中
 				registerDisposableBean(beanName,
-						new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessors(), acc));
+						new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessorCache().destructionAware, acc));
 			} else {
 				// A bean with a custom scope...
 				// 具有自已作用域的Bean
@@ -2015,7 +2060,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				}
 				// 注册一个回调，在销毁作用域中将构建Bean对应的DisposableBeanAdapter对象指定（或者在销毁整个作用域时执行，如果作用域没有销毁单个对象，而是全部终止）
 				scope.registerDestructionCallback(beanName,
-						new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessors(), acc));
+						new DisposableBeanAdapter(bean, beanName, mbd, getBeanPostProcessorCache().destructionAware, acc));
 			}
 		}
 	}
@@ -2079,4 +2124,189 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	protected abstract Object createBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args)
 			throws BeanCreationException;
 
+
+	/**
+	 * CopyOnWriteArrayList which resets the beanPostProcessorCache field on modification.
+	 *
+	 * @since 5.2.23
+	 */
+	@SuppressWarnings("serial")
+	private class BeanPostProcessorCacheAwareList extends CopyOnWriteArrayList<BeanPostProcessor> {
+
+		@Override
+		public BeanPostProcessor set(int index, BeanPostProcessor element) {
+			BeanPostProcessor result = super.set(index, element);
+			beanPostProcessorCache = null;
+			return result;
+		}
+
+		@Override
+		public boolean add(BeanPostProcessor o) {
+			boolean success = super.add(o);
+			beanPostProcessorCache = null;
+			return success;
+		}
+
+		@Override
+		public void add(int index, BeanPostProcessor element) {
+			super.add(index, element);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		public BeanPostProcessor remove(int index) {
+			BeanPostProcessor result = super.remove(index);
+			beanPostProcessorCache = null;
+			return result;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			boolean success = super.remove(o);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			boolean success = super.removeAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			boolean success = super.retainAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends BeanPostProcessor> c) {
+			boolean success = super.addAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean addAll(int index, Collection<? extends BeanPostProcessor> c) {
+			boolean success = super.addAll(index, c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean removeIf(Predicate<? super BeanPostProcessor> filter) {
+			boolean success = super.removeIf(filter);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public void replaceAll(UnaryOperator<BeanPostProcessor> operator) {
+			super.replaceAll(operator);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		public void clear() {
+			super.clear();
+			beanPostProcessorCache = null;
+		}
+	}
+
+
+	/**
+	 * Internal cache of pre-filtered post-processors.
+	 * <p>Besides grouping the post-processors by type, the cache leaves out
+	 * post-processors for those callbacks that they do not implement at all,
+	 * i.e. that they inherit as a no-op from the post-processor interfaces or
+	 * from {@link InstantiationAwareBeanPostProcessorAdapter}. Such callbacks
+	 * are guaranteed not to apply to any bean, so bean creation does not need
+	 * to walk over them.
+	 *
+	 * @since 5.2.23
+	 */
+	static final class BeanPostProcessorCache {
+
+		private static final Set<Class<?>> noOpCallbackDeclaringClasses = new HashSet<>(Arrays.asList(
+				BeanPostProcessor.class, InstantiationAwareBeanPostProcessor.class,
+				SmartInstantiationAwareBeanPostProcessor.class, InstantiationAwareBeanPostProcessorAdapter.class));
+
+		final List<SmartInstantiationAwareBeanPostProcessor> smartInstantiationAware = new ArrayList<>();
+
+		final List<DestructionAwareBeanPostProcessor> destructionAware = new ArrayList<>();
+
+		final List<MergedBeanDefinitionPostProcessor> mergedDefinition = new ArrayList<>();
+
+		final List<InstantiationAwareBeanPostProcessor> beforeInstantiation = new ArrayList<>();
+
+		final List<InstantiationAwareBeanPostProcessor> afterInstantiation = new ArrayList<>();
+
+		final List<InstantiationAwareBeanPostProcessor> propertyProcessing = new ArrayList<>();
+
+		final List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+
+		final List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+
+		BeanPostProcessorCache(List<BeanPostProcessor> beanPostProcessors) {
+			for (BeanPostProcessor bp : beanPostProcessors) {
+				if (bp instanceof InstantiationAwareBeanPostProcessor) {
+					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
+					if (implementsCallback(bp, "postProcessBeforeInstantiation", Class.class, String.class)) {
+						this.beforeInstantiation.add(ibp);
+					}
+					if (implementsCallback(bp, "postProcessAfterInstantiation", Object.class, String.class)) {
+						this.afterInstantiation.add(ibp);
+					}
+					if (implementsCallback(bp, "postProcessProperties", PropertyValues.class, Object.class, String.class) ||
+							implementsCallback(bp, "postProcessPropertyValues", PropertyValues.class,
+									PropertyDescriptor[].class, Object.class, String.class)) {
+						this.propertyProcessing.add(ibp);
+					}
+					if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
+						this.smartInstantiationAware.add((SmartInstantiationAwareBeanPostProcessor) bp);
+					}
+				}
+				if (bp instanceof DestructionAwareBeanPostProcessor) {
+					this.destructionAware.add((DestructionAwareBeanPostProcessor) bp);
+				}
+				if (bp instanceof MergedBeanDefinitionPostProcessor) {
+					this.mergedDefinition.add((MergedBeanDefinitionPostProcessor) bp);
+				}
+				if (implementsCallback(bp, "postProcessBeforeInitialization", Object.class, String.class)) {
+					this.beforeInitialization.add(bp);
+				}
+				if (implementsCallback(bp, "postProcessAfterInitialization", Object.class, String.class)) {
+					this.afterInitialization.add(bp);
+				}
+			}
+		}
+
+		/**
+		 * Determine whether the given post-processor provides its own implementation
+		 * of the specified callback, rather than inheriting a no-op default.
+		 */
+		private static boolean implementsCallback(BeanPostProcessor bp, String methodName, Class<?>... paramTypes) {
+			try {
+				Method method = bp.getClass().getMethod(methodName, paramTypes);
+				return !noOpCallbackDeclaringClasses.contains(method.getDeclaringClass());
+			} catch (NoSuchMethodException | SecurityException ex) {
+				return true;
+			}
+		}
+	}
+
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of bean names by type, used by {@link DefaultListableBeanFactory} to
+ * narrow down the beans which need to be checked for a by-type lookup.
+ *
+ * <p>Each bean is registered under every class and interface in the hierarchy
+ * of its determined type, so that the index returns a superset of the beans
+ * matching a given raw type; generic matching is left to the caller. Beans
+ * whose type cannot be determined upfront (e.g. FactoryBeans) or may match
+ * beyond its hierarchy (arrays, primitives) are candidates for every type.
+ * The index is maintained incrementally, one bean at a time.
+ *
+ * @since 5.2.23
+ * @see DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)
+ */
+final class BeanTypeIndex {
+
+	private static final Comparator<Entry> ORDER = Comparator.comparingLong(entry -> entry.ordinal);
+
+	/** 构建索引时的后置处理器缓存：后置处理器变化时可能改变类型预测，索引随之失效 */
+	@Nullable
+	private final Object beanPostProcessorCache;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	private final Map<Class<?>, Set<String>> beanNamesByType = new ConcurrentHashMap<>(256);
+
+	private final Set<String> unresolvedBeanNames = ConcurrentHashMap.newKeySet();
+
+	private long nextOrdinal;
+
+
+	BeanTypeIndex(@Nullable Object beanPostProcessorCache) {
+		this.beanPostProcessorCache = beanPostProcessorCache;
+	}
+
+
+	/**
+	 * Return whether this index has been built against the given post-processor cache.
+	 */
+	boolean isValidFor(@Nullable Object beanPostProcessorCache) {
+		return (this.beanPostProcessorCache == beanPostProcessorCache);
+	}
+
+	/**
+	 * Register or re-register the given bean, keeping its position if it was
+	 * registered in the same category before.
+	 *
+	 * @param beanName the name of the bean
+	 * @param manualSingleton whether the bean is a manually registered singleton
+	 * (as opposed to a bean definition)
+	 * @param beanType the determined bean type, or {@code null} if the type
+	 * cannot be determined upfront
+	 * @return the types for which lookup results may have changed,
+	 * or {@code null} for all types
+	 */
+	@Nullable
+	synchronized Set<Class<?>> put(String beanName, boolean manualSingleton, @Nullable Class<?> beanType) {
+		Entry previous = this.entries.get(beanName);
+		long ordinal = (previous != null && previous.manualSingleton == manualSingleton ?
+				previous.ordinal : this.nextOrdinal++);
+		Set<Class<?>> previousTypes = (previous != null ? unregister(beanName, previous) : Collections.emptySet());
+		// 数组（协变）和基本类型（自动装箱）的匹配不限于类型层次结构，视为无法预先确定
+		Set<Class<?>> types = (beanType != null && !beanType.isArray() && !beanType.isPrimitive() ?
+				getTypeHierarchy(beanType) : null);
+		register(new Entry(beanName, ordinal, manualSingleton, types));
+		return union(previousTypes, types);
+	}
+
+	/**
+	 * Add the type of a bean instance to an already registered bean, in case
+	 * the instance exposes further types than determined before.
+	 *
+	 * @param beanName the name of the bean
+	 * @param instanceType the type of the bean instance
+	 * @return the types for which lookup results may have changed,
+	 * or {@code null} for all types
+	 */
+	@Nullable
+	synchronized Set<Class<?>> addInstanceType(String beanName, Class<?> instanceType) {
+		Entry entry = this.entries.get(beanName);
+		if (entry == null || entry.types == null || entry.types.contains(instanceType)) {
+			return Collections.emptySet();
+		}
+		if (instanceType.isArray()) {
+			return put(beanName, entry.manualSingleton, null);
+		}
+		Set<Class<?>> addedTypes = getTypeHierarchy(instanceType);
+		addedTypes.removeAll(entry.types);
+		Set<Class<?>> types = new LinkedHashSet<>(entry.types);
+		types.addAll(addedTypes);
+		unregister(beanName, entry);
+		register(new Entry(beanName, entry.ordinal, entry.manualSingleton, types));
+		return addedTypes;
+	}
+
+	/**
+	 * Remove the given bean from this index.
+	 *
+	 * @param beanName the name of the bean
+	 * @return the types for which lookup results may have changed,
+	 * or {@code null} for all types
+	 */
+	@Nullable
+	synchronized Set<Class<?>> remove(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		return (entry != null ? unregister(beanName, entry) : Collections.emptySet());
+	}
+
+	/**
+	 * Return the names of all beans which may match the given raw type, in
+	 * registration order.
+	 *
+	 * @param type the raw type to match
+	 * @param manualSingletons whether to return manually registered singletons
+	 * rather than bean definitions
+	 * @param additionalBeanNames further bean names to consider as candidates
+	 * @return the candidate bean names
+	 */
+	List<String> getCandidateBeanNames(Class<?> type, boolean manualSingletons,
+			Collection<String> additionalBeanNames) {
+
+		List<Entry> candidates = new ArrayList<>();
+		Set<String> beanNames = this.beanNamesByType.get(type);
+		if (beanNames != null) {
+			addCandidates(beanNames, manualSingletons, candidates);
+		}
+		addCandidates(this.unresolvedBeanNames, manualSingletons, candidates);
+		addCandidates(additionalBeanNames, manualSingletons, candidates);
+		candidates.sort(ORDER);
+		List<String> result = new ArrayList<>(candidates.size());
+		for (Entry candidate : candidates) {
+			// 同一个bean可能同时来自多个集合，排序后相邻去重
+			if (result.isEmpty() || !result.get(result.size() - 1).equals(candidate.beanName)) {
+				result.add(candidate.beanName);
+			}
+		}
+		return result;
+	}
+
+
+	private void addCandidates(Collection<String> beanNames, boolean manualSingletons, List<Entry> candidates) {
+		for (String beanName : beanNames) {
+			Entry entry = this.entries.get(beanName);
+			if (entry != null && entry.manualSingleton == manualSingletons) {
+				candidates.add(entry);
+			}
+		}
+	}
+
+	private void register(Entry entry) {
+		this.entries.put(entry.beanName, entry);
+		if (entry.types == null) {
+			this.unresolvedBeanNames.add(entry.beanName);
+		} else {
+			for (Class<?> type : entry.types) {
+				this.beanNamesByType.computeIfAbsent(type, key -> ConcurrentHashMap.newKeySet()).add(entry.beanName);
+			}
+		}
+	}
+
+	@Nullable
+	private Set<Class<?>> unregister(String beanName, Entry entry) {
+		this.entries.remove(beanName);
+		if (entry.types == null) {
+			this.unresolvedBeanNames.remove(beanName);
+			return null;
+		}
+		for (Class<?> type : entry.types) {
+			Set<String> beanNames = this.beanNamesByType.get(type);
+			if (beanNames != null) {
+				beanNames.remove(beanName);
+				if (beanNames.isEmpty()) {
+					this.beanNamesByType.remove(type);
+				}
+			}
+		}
+		return entry.types;
+	}
+
+	private static Set<Class<?>> getTypeHierarchy(Class<?> beanType) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		addTypeHierarchy(beanType, types);
+		types.add(Object.class);
+		return types;
+	}
+
+	private static void addTypeHierarchy(@Nullable Class<?> type, Set<Class<?>> types) {
+		if (type != null && types.add(type)) {
+			addTypeHierarchy(type.getSuperclass(), types);
+			for (Class<?> ifc : type.getInterfaces()) {
+				addTypeHierarchy(ifc, types);
+			}
+		}
+	}
+
+	@Nullable
+	private static Set<Class<?>> union(@Nullable Set<Class<?>> first, @Nullable Set<Class<?>> second) {
+		if (first == null || second == null) {
+			return null;
+		}
+		Set<Class<?>> union = new LinkedHashSet<>(first);
+		union.addAll(second);
+		return union;
+	}
+
+
+	/**
+	 * Index entry for a single bean: its registration position and indexed types.
+	 */
+	private static final class Entry {
+
+		final String beanName;
+
+		final long ordinal;
+
+		final boolean manualSingleton;
+
+		/** 为null表示类型无法预先确定 */
+		@Nullable
+		final Set<Class<?>> types;
+
+		Entry(String beanName, long ordinal, boolean manualSingleton, @Nullable Set<Class<?>> types) {
+			this.beanName = beanName;
+			this.ordinal = ordinal;
+			this.manualSingleton = manualSingleton;
+			this.types = types;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.beans.factory.support;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.*;
@@ -38,7 +39,13 @@ import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -151,6 +158,23 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/**
+	 * Index of bean names by type, built on demand once the configuration is frozen.
+	 */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex;
+
+	/**
+	 * Whether the bean type index is currently being built.
+	 */
+	private final AtomicBoolean beanTypeIndexInProgress = new AtomicBoolean();
+
+	/**
+	 * Number of modifications relevant to the bean type index, for detecting
+	 * modifications during the build of the index.
+	 */
+	private final AtomicLong beanTypeIndexModCount = new AtomicLong();
+
 	/**
 	 * List of bean definition names, in registration order.
 	 */
@@ -512,9 +536,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
+		// 配置冻结后通过类型索引只检查可能匹配的bean，泛型等精确匹配仍由isTypeMatch完成
+		Collection<String> beanDefinitionNames = this.beanDefinitionNames;
+		Collection<String> manualSingletonNames = this.manualSingletonNames;
+		Class<?> rawType = type.resolve();
+		BeanTypeIndex index = (rawType != null ? getBeanTypeIndex() : null);
+		if (index != null) {
+			// 基本类型与其包装类型相互匹配
+			Class<?> typeToIndex = ClassUtils.resolvePrimitiveIfNecessary(rawType);
+			Set<String> singletonsInCreation = getSingletonsCurrentlyInCreation();
+			beanDefinitionNames = index.getCandidateBeanNames(typeToIndex, false, singletonsInCreation);
+			manualSingletonNames = index.getCandidateBeanNames(typeToIndex, true, singletonsInCreation);
+		}
+
 		// Check all bean definitions.
 		// 遍历beanDefinitionNames集合
-		for (String beanName : this.beanDefinitionNames) {
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name is not defined as alias for some other bean.
 			// 如果是别名，则直接跳过
 			if (!isAlias(beanName)) {
@@ -580,7 +617,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 		// Check manually registered singletons too.
 		// 遍历单例bean名称的集合
-		for (String beanName : this.manualSingletonNames) {
+		for (String beanName : manualSingletonNames) {
 			try {
 				// In case of FactoryBean, match object created by FactoryBean.
 				// 如果是factoryBean，那么久调用getObjectType去匹配是否符合指定类型
@@ -608,6 +645,103 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Return the bean type index, building it if necessary.
+	 * <p>Returns {@code null} if the configuration has not been frozen yet
+	 * or if the index cannot be built at this point, in which case all beans
+	 * need to be checked.
+	 */
+	@Nullable
+	private BeanTypeIndex getBeanTypeIndex() {
+		if (!isConfigurationFrozen()) {
+			return null;
+		}
+		BeanPostProcessorCache bpCache = getBeanPostProcessorCache();
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index != null && index.isValidFor(bpCache)) {
+			return index;
+		}
+		// 正在构建（包括构建过程中的递归查找）时直接回退到遍历所有bean，避免等待
+		if (!this.beanTypeIndexInProgress.compareAndSet(false, true)) {
+			return null;
+		}
+		try {
+			long modCount = this.beanTypeIndexModCount.get();
+			index = new BeanTypeIndex(bpCache);
+			for (String beanName : this.beanDefinitionNames) {
+				index.put(beanName, false, determineIndexedType(beanName));
+			}
+			for (String beanName : this.manualSingletonNames) {
+				index.put(beanName, true, determineIndexedType(beanName));
+			}
+			if (modCount != this.beanTypeIndexModCount.get() || !isConfigurationFrozen()) {
+				// Concurrent modification: try again on next lookup.
+				return null;
+			}
+			this.beanTypeIndex = index;
+			return index;
+		} finally {
+			this.beanTypeIndexInProgress.set(false);
+		}
+	}
+
+	/**
+	 * Determine the type under which the given bean is indexed: the type of
+	 * its singleton instance if available (unless a NullBean), the predicted
+	 * type otherwise.
+	 * Returns {@code null} if all lookups need to check the bean, e.g. for
+	 * FactoryBeans or beans whose class must not be loaded eagerly.
+	 */
+	@Nullable
+	private Class<?> determineIndexedType(String beanName) {
+		try {
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance != null && beanInstance.getClass() != NullBean.class) {
+				return (beanInstance instanceof FactoryBean ? null : beanInstance.getClass());
+			}
+			if (!containsBeanDefinition(beanName) || isAlias(beanName)) {
+				return null;
+			}
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract() || (!mbd.hasBeanClass() && mbd.isLazyInit() && !isAllowEagerClassLoading()) ||
+					isFactoryBean(beanName, mbd)) {
+				return null;
+			}
+			return getType(beanName, false);
+		} catch (Throwable ex) {
+			// Type to be determined on lookup.
+			return null;
+		}
+	}
+
+	/**
+	 * Update the bean type index for the given bean after its definition or
+	 * singleton instance has been registered or removed, and clear the by-type
+	 * lookup results which may have changed.
+	 */
+	private void updateBeanTypeIndex(String beanName) {
+		this.beanTypeIndexModCount.incrementAndGet();
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index == null) {
+			clearByTypeCache();
+			return;
+		}
+		Set<Class<?>> changedTypes;
+		if (this.manualSingletonNames.contains(beanName)) {
+			changedTypes = index.put(beanName, true, determineIndexedType(beanName));
+		} else if (containsBeanDefinition(beanName)) {
+			changedTypes = index.put(beanName, false, determineIndexedType(beanName));
+		} else {
+			changedTypes = index.remove(beanName);
+		}
+		clearByTypeCache(changedTypes);
+	}
+
+	private void resetBeanTypeIndex() {
+		this.beanTypeIndexModCount.incrementAndGet();
+		this.beanTypeIndex = null;
+	}
+
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
@@ -851,11 +985,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
+		resetBeanTypeIndex();
 		clearByTypeCache();
 	}
 
 	@Override
 	public void freezeConfiguration() {
+		resetBeanTypeIndex();
 		this.configurationFrozen = true;
 		this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
 	}
@@ -889,37 +1025,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 		// Trigger initialization of all non-lazy singleton beans...
 		// 触发所有非延迟加载单例bean的初始化，遍历集合的对象
-		for (String beanName : beanNames) {
-			// 合并父类BeanDefinition
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			// 条件判断，抽象，单例，非懒加载
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				// 判断是否实现了FactoryBean接口
-				if (isFactoryBean(beanName)) {
-					// 根据&+beanName来获取具体的对象
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					// 进行类型转换
-					if (bean instanceof FactoryBean) {
-						FactoryBean<?> factory = (FactoryBean<?>) bean;
-						// 判断这个FactoryBean是否希望急切的初始化
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged(
-									(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						} else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						// 如果希望急切的初始化，则通过beanName获取bean实例
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				} else {
-					// 如果beanName对应的bean不是FactoryBean，只是普通的bean,通过beanName获取bean实例
-					getBean(beanName);
-				}
+		Executor bootstrapExecutor = getBootstrapExecutor();
+		if (bootstrapExecutor != null) {
+			// 配置了bootstrapExecutor时，互相独立的bean子图并行初始化
+			preInstantiateSingletonsInParallel(beanNames, bootstrapExecutor);
+		} else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -946,6 +1058,209 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Trigger initialization of the given bean if it is a non-lazy singleton,
+	 * including FactoryBeans which ask for eager initialization of their object.
+	 *
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		// 合并父类BeanDefinition
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		// 条件判断，抽象，单例，非懒加载
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			// 判断是否实现了FactoryBean接口
+			if (isFactoryBean(beanName)) {
+				// 根据&+beanName来获取具体的对象
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				// 进行类型转换
+				if (bean instanceof FactoryBean) {
+					FactoryBean<?> factory = (FactoryBean<?>) bean;
+					// 判断这个FactoryBean是否希望急切的初始化
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged(
+								(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					} else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					// 如果希望急切的初始化，则通过beanName获取bean实例
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			} else {
+				// 如果beanName对应的bean不是FactoryBean，只是普通的bean,通过beanName获取bean实例
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Trigger initialization of all non-lazy singletons on the given executor.
+	 * <p>Singletons connected via statically known dependencies are grouped into
+	 * subgraphs which get initialized sequentially in registration order, whereas
+	 * independent subgraphs get initialized concurrently. Dependencies which only
+	 * show up during creation, e.g. through autowiring, are handled by concurrent
+	 * singleton creation in {@link DefaultSingletonBeanRegistry}.
+	 *
+	 * @param beanNames the names of all beans in registration order
+	 * @param executor  the executor to initialize independent subgraphs on
+	 * @see #setBootstrapExecutor
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames, Executor executor) {
+		Map<String, String> subgraphs = new HashMap<>(beanNames.size());
+		List<String> candidateNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				candidateNames.add(beanName);
+				for (String dependency : getDeclaredDependencies(beanName, bd)) {
+					if (containsBeanDefinition(dependency)) {
+						mergeSubgraphs(subgraphs, beanName, dependency);
+					}
+				}
+			}
+		}
+
+		Map<String, List<String>> beanNamesBySubgraph = new LinkedHashMap<>();
+		for (String beanName : candidateNames) {
+			beanNamesBySubgraph.computeIfAbsent(findSubgraph(subgraphs, beanName), key -> new ArrayList<>()).add(beanName);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + candidateNames.size() + " singletons in " +
+					beanNamesBySubgraph.size() + " independent subgraphs");
+		}
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>(beanNamesBySubgraph.size());
+		setConcurrentSingletonCreation(true);
+		try {
+			for (List<String> subgraph : beanNamesBySubgraph.values()) {
+				futures.add(CompletableFuture.runAsync(() -> subgraph.forEach(this::preInstantiateSingleton), executor));
+			}
+			// Wait for all subgraphs, even if some of them failed already
+			for (CompletableFuture<Void> future : futures) {
+				try {
+					future.join();
+				} catch (CompletionException | CancellationException ex) {
+					// Reported below in registration order
+				}
+			}
+		} finally {
+			setConcurrentSingletonCreation(false);
+		}
+
+		for (CompletableFuture<Void> future : futures) {
+			try {
+				future.join();
+			} catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new BeanCreationException("Parallel singleton pre-instantiation failed", cause);
+			}
+		}
+	}
+
+	/**
+	 * Collect the names of the beans that the given bean definition statically
+	 * refers to: depends-on relationships, the factory bean as well as bean
+	 * references in constructor arguments and property values.
+	 */
+	private Set<String> getDeclaredDependencies(String beanName, BeanDefinition bd) {
+		Set<String> dependencies = new LinkedHashSet<>();
+		collectDeclaredDependencies(bd, dependencies);
+		Set<String> result = new LinkedHashSet<>(dependencies.size());
+		for (String dependency : dependencies) {
+			String canonicalName = transformedBeanName(dependency);
+			if (!canonicalName.equals(beanName)) {
+				result.add(canonicalName);
+			}
+		}
+		return result;
+	}
+
+	private void collectDeclaredDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(dependencies, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		if (bd.getParentName() != null) {
+			dependencies.add(bd.getParentName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				collectDeclaredDependencies(valueHolder.getValue(), dependencies);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				collectDeclaredDependencies(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectDeclaredDependencies(pv.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void collectDeclaredDependencies(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof BeanReference) {
+			dependencies.add(((BeanReference) value).getBeanName());
+		} else if (value instanceof BeanDefinitionHolder) {
+			collectDeclaredDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		} else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencies((BeanDefinition) value, dependencies);
+		} else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectDeclaredDependencies(element, dependencies);
+			}
+		} else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectDeclaredDependencies(entry.getKey(), dependencies);
+				collectDeclaredDependencies(entry.getValue(), dependencies);
+			}
+		} else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectDeclaredDependencies(element, dependencies);
+			}
+		}
+	}
+
+	private static String findSubgraph(Map<String, String> subgraphs, String beanName) {
+		String root = beanName;
+		String parent;
+		while ((parent = subgraphs.get(root)) != null) {
+			root = parent;
+		}
+		// Path compression for subsequent lookups
+		String current = beanName;
+		while (!current.equals(root)) {
+			String next = subgraphs.get(current);
+			subgraphs.put(current, root);
+			current = next;
+		}
+		return root;
+	}
+
+	private static void mergeSubgraphs(Map<String, String> subgraphs, String beanName, String otherBeanName) {
+		String root = findSubgraph(subgraphs, beanName);
+		String otherRoot = findSubgraph(subgraphs, otherBeanName);
+		if (!root.equals(otherRoot)) {
+			subgraphs.put(otherRoot, root);
+		}
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -1020,7 +1335,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// 重置所有beanName对应的缓存
 			resetBeanDefinition(beanName);
 		} else if (isConfigurationFrozen()) {
-			clearByTypeCache();
+			updateBeanTypeIndex(beanName);
 		}
 	}
 
@@ -1104,11 +1419,31 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
 		updateManualSingletonNames(set -> set.add(beanName), set -> !this.beanDefinitionMap.containsKey(beanName));
-		clearByTypeCache();
+		updateBeanTypeIndex(beanName);
+	}
+
+	/**
+	 * Also adds the type of the singleton instance to the bean type index,
+	 * in case the instance exposes further types than predicted.
+	 */
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		// 即使索引尚未发布也需计数，使正在进行的索引构建能感知到该单例而放弃发布
+		this.beanTypeIndexModCount.incrementAndGet();
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index != null && singletonObject.getClass() != NullBean.class) {
+			if (singletonObject instanceof FactoryBean) {
+				index.put(beanName, this.manualSingletonNames.contains(beanName), null);
+			} else {
+				index.addInstanceType(beanName, singletonObject.getClass());
+			}
+		}
 	}
 
 	@Override
 	public void destroySingletons() {
+		resetBeanTypeIndex();
 		super.destroySingletons();
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
 		clearByTypeCache();
@@ -1118,7 +1453,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
 		removeManualSingletonName(beanName);
-		clearByTypeCache();
+		updateBeanTypeIndex(beanName);
 	}
 
 	private void removeManualSingletonName(String beanName) {
@@ -1158,6 +1493,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.singletonBeanNamesByType.clear();
 	}
 
+	/**
+	 * Remove the by-type mappings for the given types.
+	 *
+	 * @param types the types to remove the mappings for, or {@code null} for all types
+	 */
+	private void clearByTypeCache(@Nullable Set<Class<?>> types) {
+		if (types == null) {
+			clearByTypeCache();
+		} else {
+			for (Class<?> type : types) {
+				this.allBeanNamesByType.remove(type);
+				this.singletonBeanNamesByType.remove(type);
+			}
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Dependency resolution functionality
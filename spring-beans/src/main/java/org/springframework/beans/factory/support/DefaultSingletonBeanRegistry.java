@@ -135,6 +135,26 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/**
+	 * Singletons currently created in concurrent mode: bean name to in-flight creation.
+	 */
+	private final Map<String, SingletonCreation> singletonCreations = new ConcurrentHashMap<>(16);
+
+	/**
+	 * Threads that currently wait for a singleton created by another thread: thread to bean name.
+	 */
+	private final Map<Thread, String> singletonCreationWaits = new ConcurrentHashMap<>(16);
+
+	/**
+	 * Whether singletons may currently be created by several threads at the same time.
+	 */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/**
+	 * Whether singletons may always be created by several threads at the same time.
+	 */
+	private volatile boolean allowConcurrentSingletonCreation = false;
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -221,6 +241,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		// 如果单例对象缓存中没有，并且该beanName对应的单例bean正在创建中
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			// 并发创建模式下，只有正在创建该bean的线程才能拿到早期引用，其他线程需要等待创建完成
+			SingletonCreation creation = this.singletonCreations.get(beanName);
+			if (creation != null && creation.thread != Thread.currentThread()) {
+				return null;
+			}
 			// 从早期单例对象缓存中获取单例对象（之所以称为早期单例对象，是因为earlySingletonObjects里
 			// 的对象都是通过提前曝光的ObjectFactory创建出来的，还未进行属性填充等操作)
 			singletonObject = this.earlySingletonObjects.get(beanName);
@@ -274,6 +299,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.concurrentSingletonCreation || this.allowConcurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		// 全局变量需要同步
 		synchronized (this.singletonObjects) {
 			// 首先检查以及缓存中是否存在对应的bean
@@ -343,6 +371,232 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent mode:
+	 * only holds the singleton lock for claiming and publishing the singleton, not
+	 * for the actual creation, so that independent singletons can be created by
+	 * several threads at the same time.
+	 * <p>A thread asking for a singleton that another thread is currently creating
+	 * waits for that specific creation to finish, without blocking the creation of
+	 * any other singleton. If that other thread in turn waits for a singleton created
+	 * by the current thread, the circular reference is resolved through an early
+	 * singleton reference, just like within a single thread.
+	 * <p>A waiting thread which already holds the singleton lock, e.g. while
+	 * obtaining the object from a FactoryBean, waits on that lock instead, so that
+	 * the creating thread is able to publish the singleton.
+	 *
+	 * @param beanName         the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton
+	 *                         with, if necessary
+	 * @return the registered singleton object
+	 * @see #setConcurrentSingletonCreation
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		// 调用方可能已持有全局单例锁，例如获取FactoryBean产生的对象或进行FactoryBean类型检查时
+		boolean holdsSingletonLock = Thread.holdsLock(this.singletonObjects);
+		SingletonCreation creation;
+		boolean claimed;
+		while (true) {
+			// 快速路径：已创建完成的单例无需加锁
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			synchronized (this.singletonObjects) {
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject != null) {
+					return singletonObject;
+				}
+				creation = this.singletonCreations.get(beanName);
+				if (creation == null || creation.thread == currentThread) {
+					// Not in creation yet, or a circular reference within the current thread
+					// which beforeSingletonCreation is going to reject below.
+					claimed = (creation == null);
+					if (this.singletonsCurrentlyInDestruction) {
+						throw new BeanCreationNotAllowedException(beanName,
+								"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+										"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Creating shared instance of singleton bean '" + beanName + "' in thread '" +
+								currentThread.getName() + "'");
+					}
+					// Registered as in creation within the lock, for consistent checks by other threads.
+					beforeSingletonCreation(beanName);
+					if (claimed) {
+						creation = new SingletonCreation(currentThread);
+						this.singletonCreations.put(beanName, creation);
+					}
+					break;
+				}
+				if (isWaitingForThread(creation.thread, currentThread)) {
+					// Circular reference across threads: the other thread waits for us.
+					singletonObject = getEarlySingletonReference(beanName);
+					if (singletonObject == null) {
+						// 无早期引用可用（例如构造器注入的循环依赖）：与单线程创建时一样失败
+						throw new BeanCurrentlyInCreationException(beanName,
+								"Requested bean is currently in creation in thread '" + creation.thread.getName() +
+								"' which waits for a bean created by the current thread: " +
+								"Is there an unresolvable circular reference?");
+					}
+					return singletonObject;
+				}
+				this.singletonCreationWaits.put(currentThread, beanName);
+			}
+			// 只等待当前bean的创建完成，不占用全局单例锁
+			try {
+				if (holdsSingletonLock) {
+					// 在全局单例锁上等待并释放该锁，否则创建线程无法发布单例而导致死锁
+					synchronized (this.singletonObjects) {
+						while (this.singletonCreations.get(beanName) == creation) {
+							this.singletonObjects.wait();
+						}
+					}
+				} else {
+					creation.await();
+				}
+			} catch (InterruptedException ex) {
+				currentThread.interrupt();
+				throw new BeanCreationException(beanName,
+						"Interrupted while waiting for singleton creation in another thread", ex);
+			} finally {
+				this.singletonCreationWaits.remove(currentThread);
+			}
+		}
+
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		} catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		} finally {
+			try {
+				synchronized (this.singletonObjects) {
+					try {
+						afterSingletonCreation(beanName);
+						if (newSingleton) {
+							addSingleton(beanName, singletonObject);
+						}
+					} finally {
+						if (claimed) {
+							this.singletonCreations.remove(beanName);
+							// 唤醒持有全局单例锁等待的线程
+							this.singletonObjects.notifyAll();
+						}
+					}
+				}
+			} finally {
+				if (claimed) {
+					creation.complete();
+				}
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Determine whether the given thread (transitively) waits for a singleton
+	 * that is currently being created by the target thread.
+	 * <p>To be called within the singleton lock.
+	 */
+	private boolean isWaitingForThread(Thread thread, Thread targetThread) {
+		Set<Thread> visitedThreads = new HashSet<>();
+		Thread current = thread;
+		while (visitedThreads.add(current)) {
+			String awaitedBeanName = this.singletonCreationWaits.get(current);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			SingletonCreation creation = this.singletonCreations.get(awaitedBeanName);
+			if (creation == null) {
+				return false;
+			}
+			current = creation.thread;
+			if (current == targetThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Obtain an early reference to a singleton currently in creation, bypassing
+	 * the creation thread check in {@link #getSingleton(String, boolean)}.
+	 * <p>To be called within the singleton lock.
+	 */
+	@Nullable
+	private Object getEarlySingletonReference(String beanName) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Specify whether singletons may be created by several threads at the same time,
+	 * e.g. during parallel pre-instantiation of singletons.
+	 * <p>In concurrent mode, the singleton lock is not held for the entire creation
+	 * of a singleton anymore. Instead, each singleton is claimed by its creating thread,
+	 * and other threads asking for it wait until it has been fully initialized.
+	 * Early references to singletons in creation are only exposed to the creating
+	 * thread, unless needed for resolving a circular reference across threads.
+	 *
+	 * @since 5.2.23
+	 * @see #getSingleton(String, ObjectFactory)
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may currently be created by several threads at the same time.
+	 *
+	 * @since 5.2.23
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
+	/**
+	 * Set whether singletons may always be created by several threads at the same
+	 * time, not just during parallel pre-instantiation. Default is "false".
+	 * <p>Switch this on if lazy-init singletons get requested by many threads at
+	 * runtime: a thread creating a lazy singleton then only blocks other threads
+	 * asking for that same singleton, rather than every singleton creation in the
+	 * factory. Circular references are resolved through early singleton references
+	 * as usual, including across threads.
+	 *
+	 * @since 5.2.23
+	 * @see #setConcurrentSingletonCreation
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.allowConcurrentSingletonCreation = allowConcurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may always be created by several threads at the same time.
+	 *
+	 * @since 5.2.23
+	 */
+	public boolean isAllowConcurrentSingletonCreation() {
+		return this.allowConcurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -427,6 +681,17 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonsCurrentlyInCreation.contains(beanName);
 	}
 
+	/**
+	 * Return the names of all singleton beans currently in creation
+	 * (within the entire factory).
+	 *
+	 * @since 5.2.23
+	 * @see #isSingletonCurrentlyInCreation
+	 */
+	protected Set<String> getSingletonsCurrentlyInCreation() {
+		return Collections.unmodifiableSet(this.singletonsCurrentlyInCreation);
+	}
+
 	/**
 	 * 创建单例前的回调
 	 * 如果当前在创建检查中的排除bean名列表【inCreationCheckExclusions】中不包含该beanName且将beanName添加到
@@ -745,4 +1010,32 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * The creation of a singleton in concurrent mode, claimed by a specific thread.
+	 * Other threads asking for the singleton wait on this object, not on the
+	 * singleton mutex.
+	 */
+	private static final class SingletonCreation {
+
+		final Thread thread;
+
+		private boolean completed;
+
+		SingletonCreation(Thread thread) {
+			this.thread = thread;
+		}
+
+		synchronized void await() throws InterruptedException {
+			while (!this.completed) {
+				wait();
+			}
+		}
+
+		synchronized void complete() {
+			this.completed = true;
+			notifyAll();
+		}
+	}
+
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Object instantiation strategy which invokes bean constructors and factory
+ * methods through generated bytecode accessors instead of core reflection,
+ * allowing the JIT to inline repeated (e.g. prototype) bean creation.
+ *
+ * <p>Supports <em>Method Injection</em> like its superclass. Constructors and
+ * factory methods which cannot be invoked from generated code, Kotlin types
+ * and argument arrays which need reflective adaptation (e.g. {@code null}
+ * for primitive parameters) are handled reflectively as before.
+ *
+ * @since 5.2.23
+ * @see GeneratedMemberAccessors
+ * @see AbstractAutowireCapableBeanFactory#setInstantiationStrategy
+ */
+public class GeneratedAccessorInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	@Override
+	protected Object instantiateClass(Constructor<?> ctor, Object... args) throws BeanInstantiationException {
+		if (!isGeneratedAccessorApplicable(ctor, args) ||
+				(KotlinDetector.isKotlinReflectPresent() && KotlinDetector.isKotlinType(ctor.getDeclaringClass()))) {
+			return super.instantiateClass(ctor, args);
+		}
+		try {
+			return GeneratedMemberAccessors.newInstance(ctor, args);
+		} catch (InstantiationException ex) {
+			throw new BeanInstantiationException(ctor, "Is it an abstract class?", ex);
+		} catch (IllegalAccessException ex) {
+			throw new BeanInstantiationException(ctor, "Is the constructor accessible?", ex);
+		} catch (IllegalArgumentException ex) {
+			throw new BeanInstantiationException(ctor, "Illegal arguments for constructor", ex);
+		} catch (InvocationTargetException ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex.getTargetException());
+		}
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeFactoryMethod(Method factoryMethod, @Nullable Object factoryBean, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return GeneratedMemberAccessors.invoke(factoryMethod, factoryBean, args);
+	}
+
+	/**
+	 * BeanUtils会为基本类型参数的null值填充默认值，这种情况以及参数个数不匹配时仍交给反射处理。
+	 */
+	private static boolean isGeneratedAccessorApplicable(Constructor<?> ctor, Object[] args) {
+		if (args.length != ctor.getParameterCount()) {
+			return false;
+		}
+		if (args.length > 0) {
+			Class<?>[] parameterTypes = ctor.getParameterTypes();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] == null && parameterTypes[i].isPrimitive()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
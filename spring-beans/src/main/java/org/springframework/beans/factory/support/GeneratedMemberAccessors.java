@@ -0,0 +1,314 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+
+/**
+ * Accessors for constructors, methods and fields which avoid core reflection
+ * on the hot path of bean creation and injection.
+ *
+ * <p>Constructors and methods are invoked through a CGLIB {@link FastClass}
+ * generated per declaring class, i.e. through plain bytecode which the JIT can
+ * inline; fields are written through a {@link MethodHandle} setter. Members
+ * which cannot be accessed from generated code (e.g. private or protected
+ * members, or members of private classes) transparently fall back to
+ * reflection. Accessors are cached per member.
+ *
+ * @since 5.2.23
+ * @see GeneratedAccessorInstantiationStrategy
+ * @see org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor#setUseGeneratedAccessors
+ */
+public abstract class GeneratedMemberAccessors {
+
+	/**
+	 * System property that instructs Spring to use generated accessors by default,
+	 * i.e. for the instantiation strategy of every {@link AbstractAutowireCapableBeanFactory}
+	 * and for the field and method injection of every
+	 * {@link org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor}:
+	 * {@code "spring.beans.generated-accessors"}.
+	 * <p>The default is "false", using core reflection unless configured otherwise.
+	 */
+	public static final String GENERATED_ACCESSORS_PROPERTY_NAME = "spring.beans.generated-accessors";
+
+	private static final boolean useGeneratedAccessorsByDefault =
+			SpringProperties.getFlag(GENERATED_ACCESSORS_PROPERTY_NAME);
+
+	private static final Log logger = LogFactory.getLog(GeneratedMemberAccessors.class);
+
+	/** 标记无法生成访问器的成员，避免重复尝试 */
+	private static final Object NO_ACCESSOR = new Object();
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/** 按声明类缓存的FastClass */
+	private static final Map<Class<?>, Object> fastClassCache = new ConcurrentReferenceHashMap<>(64);
+
+	/** 按成员缓存的访问器: FastAccessor、MethodHandle或NO_ACCESSOR */
+	private static final Map<Member, Object> accessorCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	/**
+	 * Return whether generated accessors are used by default, as determined by
+	 * the {@link #GENERATED_ACCESSORS_PROPERTY_NAME} property.
+	 */
+	public static boolean isUseGeneratedAccessorsByDefault() {
+		return useGeneratedAccessorsByDefault;
+	}
+
+	/**
+	 * Determine whether the given member is invoked through a generated accessor
+	 * rather than through reflection.
+	 *
+	 * @param member the constructor, method or field to check
+	 * @return {@code true} if a generated accessor is available
+	 */
+	public static boolean hasGeneratedAccessor(Member member) {
+		return (getAccessor(member) != NO_ACCESSOR);
+	}
+
+	/**
+	 * Create a new instance through the given constructor.
+	 *
+	 * @param ctor the constructor to invoke
+	 * @param args the constructor arguments to apply
+	 * @return the new instance
+	 * @throws InstantiationException if the declaring class is abstract
+	 * @throws IllegalAccessException if the constructor is not accessible
+	 * @throws InvocationTargetException if the constructor threw an exception
+	 * @see Constructor#newInstance
+	 */
+	public static Object newInstance(Constructor<?> ctor, Object... args)
+			throws InstantiationException, IllegalAccessException, InvocationTargetException {
+
+		Object accessor = getAccessor(ctor);
+		if (accessor instanceof FastAccessor && ((FastAccessor) accessor).accepts(args)) {
+			return ((FastAccessor) accessor).newInstance(args);
+		}
+		ReflectionUtils.makeAccessible(ctor);
+		return ctor.newInstance(args);
+	}
+
+	/**
+	 * Invoke the given method on the given target.
+	 *
+	 * @param method the method to invoke
+	 * @param target the target instance, or {@code null} for a static method
+	 * @param args the method arguments to apply
+	 * @return the invocation result, if any
+	 * @throws IllegalAccessException if the method is not accessible
+	 * @throws InvocationTargetException if the method threw an exception
+	 * @see Method#invoke
+	 */
+	@Nullable
+	public static Object invoke(Method method, @Nullable Object target, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		Object accessor = getAccessor(method);
+		if (accessor instanceof FastAccessor && ((FastAccessor) accessor).accepts(args)) {
+			return ((FastAccessor) accessor).invoke(target, args);
+		}
+		return method.invoke(target, args);
+	}
+
+	/**
+	 * Set the given field on the given target to the given value.
+	 * <p>The field is expected to have been made accessible already
+	 * if it is not public.
+	 *
+	 * @param field the field to set
+	 * @param target the target instance, or {@code null} for a static field
+	 * @param value the value to set
+	 * @throws IllegalAccessException if the field is not accessible
+	 * @see Field#set
+	 */
+	public static void set(Field field, @Nullable Object target, @Nullable Object value)
+			throws IllegalAccessException {
+
+		Object accessor = getAccessor(field);
+		if (accessor instanceof MethodHandle) {
+			try {
+				((MethodHandle) accessor).invokeExact(target, value);
+			} catch (RuntimeException | Error ex) {
+				throw ex;
+			} catch (Throwable ex) {
+				throw new UndeclaredThrowableException(ex);
+			}
+		} else {
+			field.set(target, value);
+		}
+	}
+
+	/**
+	 * Clear the accessor caches, e.g. on shutdown of the owning class loader.
+	 */
+	public static void clearCache() {
+		fastClassCache.clear();
+		accessorCache.clear();
+	}
+
+
+	private static Object getAccessor(Member member) {
+		Object accessor = accessorCache.get(member);
+		if (accessor == null) {
+			accessor = createAccessor(member);
+			accessorCache.put(member, accessor);
+		}
+		return accessor;
+	}
+
+	private static Object createAccessor(Member member) {
+		Class<?> declaringClass = member.getDeclaringClass();
+		try {
+			if (member instanceof Field) {
+				Field field = (Field) member;
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+					return NO_ACCESSOR;
+				}
+				// 字段使用MethodHandle写入，统一签名为(Object, Object)void；非public字段需事先设置为可访问
+				return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+			}
+			Executable executable = (Executable) member;
+			if (!isAccessibleFromGeneratedCode(executable) ||
+					(member instanceof Constructor && Modifier.isAbstract(declaringClass.getModifiers()))) {
+				return NO_ACCESSOR;
+			}
+			FastClass fastClass = getFastClass(declaringClass);
+			if (fastClass == null) {
+				return NO_ACCESSOR;
+			}
+			int index = (member instanceof Constructor ?
+					fastClass.getIndex(executable.getParameterTypes()) :
+					fastClass.getIndex(member.getName(), executable.getParameterTypes()));
+			return (index >= 0 ? new FastAccessor(fastClass, index, executable.getParameterTypes()) : NO_ACCESSOR);
+		} catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Falling back to reflection for " + member + ": " + ex);
+			}
+			return NO_ACCESSOR;
+		}
+	}
+
+	@Nullable
+	private static FastClass getFastClass(Class<?> declaringClass) {
+		Object fastClass = fastClassCache.get(declaringClass);
+		if (fastClass == null) {
+			try {
+				FastClass.Generator generator = new FastClass.Generator();
+				generator.setType(declaringClass);
+				generator.setClassLoader(declaringClass.getClassLoader());
+				generator.setContextClass(declaringClass);
+				generator.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+				fastClass = generator.create();
+			} catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not generate FastClass for " + declaringClass + ": " + ex);
+				}
+				fastClass = NO_ACCESSOR;
+			}
+			fastClassCache.put(declaringClass, fastClass);
+		}
+		return (fastClass instanceof FastClass ? (FastClass) fastClass : null);
+	}
+
+	/**
+	 * 生成的FastClass与声明类位于同一个包中，因此只能访问public或包可见的成员；
+	 * 另外声明类及其外部类都不能是private的，且不能是JDK自身的类。
+	 */
+	private static boolean isAccessibleFromGeneratedCode(Member member) {
+		int modifiers = member.getModifiers();
+		if (Modifier.isPrivate(modifiers) || Modifier.isProtected(modifiers) || member.isSynthetic()) {
+			return false;
+		}
+		Class<?> declaringClass = member.getDeclaringClass();
+		if (declaringClass.getClassLoader() == null || declaringClass.isInterface() ||
+				declaringClass.isSynthetic() || declaringClass.isAnonymousClass()) {
+			return false;
+		}
+		for (Class<?> clazz = declaringClass; clazz != null; clazz = clazz.getEnclosingClass()) {
+			if (Modifier.isPrivate(clazz.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A generated accessor for a single constructor or method.
+	 */
+	private static final class FastAccessor {
+
+		private final FastClass fastClass;
+
+		private final int index;
+
+		private final Class<?>[] parameterTypes;
+
+		FastAccessor(FastClass fastClass, int index, Class<?>[] parameterTypes) {
+			this.fastClass = fastClass;
+			this.index = index;
+			this.parameterTypes = parameterTypes;
+		}
+
+		/**
+		 * 生成的代码会直接拆箱参数：参数个数不匹配或基本类型参数为null时交给反射处理，
+		 * 以保持反射调用的异常语义。
+		 */
+		boolean accepts(Object[] args) {
+			if (args.length != this.parameterTypes.length) {
+				return false;
+			}
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] == null && this.parameterTypes[i].isPrimitive()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		Object newInstance(Object[] args) throws InvocationTargetException {
+			return this.fastClass.newInstance(this.index, args);
+		}
+
+		@Nullable
+		Object invoke(@Nullable Object target, Object[] args) throws InvocationTargetException {
+			return this.fastClass.invoke(this.index, target, args);
+		}
+	}
+
+}
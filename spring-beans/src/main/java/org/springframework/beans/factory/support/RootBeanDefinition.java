@@ -118,6 +118,10 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	@Nullable
 	volatile Boolean beforeInstantiationResolved;
 
+	/** Package-visible field that indicates whether non-singleton instances can be created through a creation plan. */
+	@Nullable
+	volatile Boolean creationPlanApplicable;
+
 	@Nullable
 	private Set<Member> externallyManagedConfigMembers;
 
@@ -94,7 +94,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 				}
 			}
 			// 通过反射生成具体的实例化对象
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateClass(constructorToUse);
 		} else {
 			// Must generate CGLIB subclass.
 			// 必须生成cglib子类
@@ -126,7 +126,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 				});
 			}
 			// 通过反射实例化对象
-			return BeanUtils.instantiateClass(ctor, args);
+			return instantiateClass(ctor, args);
 		} else {
 			// 如果有methodOverride对象，则调用方法来进行实现
 			return instantiateWithMethodInjection(bd, beanName, owner, ctor, args);
@@ -166,7 +166,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 				// 设置当前的Method
 				currentlyInvokedFactoryMethod.set(factoryMethod);
 				// 使用factoryMethod实例化对象
-				Object result = factoryMethod.invoke(factoryBean, args);
+				Object result = invokeFactoryMethod(factoryMethod, factoryBean, args);
 				if (result == null) {
 					result = new NullBean();
 				}
@@ -197,4 +197,39 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	/**
+	 * Instantiate a bean through the given constructor, which has already been
+	 * resolved for the bean definition at hand.
+	 * <p>The default implementation delegates to
+	 * {@link BeanUtils#instantiateClass(Constructor, Object...)}; subclasses may
+	 * override this to avoid reflective invocation of the constructor.
+	 *
+	 * @param ctor the constructor to use
+	 * @param args the constructor arguments to apply
+	 * @return the new instance
+	 * @throws BeanInstantiationException if the bean cannot be instantiated
+	 * @since 5.2.23
+	 */
+	protected Object instantiateClass(Constructor<?> ctor, Object... args) throws BeanInstantiationException {
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+
+	/**
+	 * Invoke the given factory method, which has already been made accessible.
+	 * <p>The default implementation uses {@link Method#invoke}; subclasses may
+	 * override this to avoid reflective invocation of the factory method.
+	 *
+	 * @param factoryMethod the factory method to invoke
+	 * @param factoryBean the factory bean instance, or {@code null} for a static factory method
+	 * @param args the arguments to apply to the factory method
+	 * @return the result of the factory method invocation
+	 * @since 5.2.23
+	 */
+	@Nullable
+	protected Object invokeFactoryMethod(Method factoryMethod, @Nullable Object factoryBean, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return factoryMethod.invoke(factoryBean, args);
+	}
+
 }
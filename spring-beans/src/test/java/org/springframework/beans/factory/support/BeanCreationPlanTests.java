@@ -0,0 +1,238 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.AbstractBeanFactory.BeanPostProcessorCache;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the creation plan of non-singleton beans and for the
+ * pre-filtered post-processor cache in {@link AbstractBeanFactory}.
+ *
+ * @since 5.2.23
+ */
+class BeanCreationPlanTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Test
+	void prototypeUsesCreationPlanAfterFirstInstance() {
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		this.beanFactory.addBeanPostProcessor(bpp);
+		RecordingPostProcessor recorder = new RecordingPostProcessor();
+		this.beanFactory.addBeanPostProcessor(recorder);
+		this.beanFactory.registerSingleton("spouse", new TestBean("spouse"));
+		registerPrototype("bean", new RootBeanDefinition(AutowiredBean.class));
+
+		AutowiredBean first = this.beanFactory.getBean("bean", AutowiredBean.class);
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isNull();
+		AutowiredBean second = this.beanFactory.getBean("bean", AutowiredBean.class);
+		AutowiredBean third = this.beanFactory.getBean("bean", AutowiredBean.class);
+
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isTrue();
+		assertThat(first).isNotSameAs(second).isNotSameAs(third);
+		for (AutowiredBean bean : new AutowiredBean[] {first, second, third}) {
+			assertThat(bean.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+		}
+		assertThat(recorder.initializedBeans).containsExactly(first, second, third);
+	}
+
+	@Test
+	void prototypeWithPropertyValuesUsesCreationPlan() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("name", "plan").add("age", "42");
+		registerPrototype("bean", bd);
+
+		this.beanFactory.getBean("bean");
+		TestBean bean = this.beanFactory.getBean("bean", TestBean.class);
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isTrue();
+		assertThat(bean.getName()).isEqualTo("plan");
+		assertThat(bean.getAge()).isEqualTo(42);
+	}
+
+	@Test
+	void prototypeWithConstructorArgumentsDoesNotUseCreationPlan() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("plan");
+		registerPrototype("bean", bd);
+
+		this.beanFactory.getBean("bean");
+		TestBean bean = this.beanFactory.getBean("bean", TestBean.class);
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isFalse();
+		assertThat(bean.getName()).isEqualTo("plan");
+	}
+
+	@Test
+	void prototypeWithAutowireByTypeDoesNotUseCreationPlan() {
+		this.beanFactory.registerSingleton("spouse", new TestBean("spouse"));
+		RootBeanDefinition bd = new RootBeanDefinition(AutowiredBean.class);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		registerPrototype("bean", bd);
+
+		this.beanFactory.getBean("bean");
+		AutowiredBean bean = this.beanFactory.getBean("bean", AutowiredBean.class);
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isFalse();
+		assertThat(bean.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void legacyPropertyValuesCallbackIsAppliedThroughCreationPlan() {
+		List<PropertyDescriptor[]> descriptors = new ArrayList<>();
+		this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public PropertyValues postProcessPropertyValues(
+					PropertyValues pvs, PropertyDescriptor[] pds, Object bean, String beanName) {
+				descriptors.add(pds);
+				return pvs;
+			}
+		});
+		registerPrototype("bean", new RootBeanDefinition(TestBean.class));
+
+		this.beanFactory.getBean("bean");
+		this.beanFactory.getBean("bean");
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isTrue();
+		assertThat(descriptors).hasSize(2).allSatisfy(pds -> assertThat(pds).isNotEmpty());
+	}
+
+	@Test
+	void postProcessorCacheLeavesOutNoOpCallbacks() {
+		RecordingPostProcessor recorder = new RecordingPostProcessor();
+		InstantiationAwareBeanPostProcessor propertyProcessor = new InstantiationAwareBeanPostProcessor() {
+			@Override
+			public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName) {
+				return pvs;
+			}
+		};
+		this.beanFactory.addBeanPostProcessor(recorder);
+		this.beanFactory.addBeanPostProcessor(propertyProcessor);
+
+		BeanPostProcessorCache bpCache = this.beanFactory.getBeanPostProcessorCache();
+		assertThat(bpCache.smartInstantiationAware).containsExactly(recorder);
+		assertThat(bpCache.beforeInstantiation).isEmpty();
+		assertThat(bpCache.afterInstantiation).isEmpty();
+		assertThat(bpCache.propertyProcessing).containsExactly(propertyProcessor);
+		assertThat(bpCache.beforeInitialization).isEmpty();
+		assertThat(bpCache.afterInitialization).containsExactly(recorder);
+		assertThat(bpCache.destructionAware).isEmpty();
+	}
+
+	@Test
+	void postProcessorCacheIsResetOnModification() {
+		RecordingPostProcessor recorder = new RecordingPostProcessor();
+		BeanPostProcessor plain = new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+		};
+		this.beanFactory.addBeanPostProcessor(recorder);
+		assertThat(this.beanFactory.getBeanPostProcessorCache().afterInitialization).containsExactly(recorder);
+
+		this.beanFactory.addBeanPostProcessor(plain);
+		assertThat(this.beanFactory.getBeanPostProcessorCache().beforeInitialization).containsExactly(plain);
+
+		this.beanFactory.getBeanPostProcessors().removeIf(bp -> bp == recorder);
+		assertThat(this.beanFactory.getBeanPostProcessorCache().afterInitialization).isEmpty();
+		assertThat(this.beanFactory.getBeanPostProcessorCache().smartInstantiationAware).isEmpty();
+	}
+
+	@Test
+	void factoryOverridingCreationStepsDoesNotUseCreationPlan() {
+		List<Object> populatedBeans = new ArrayList<>();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory() {
+			@Override
+			protected void populateBean(String beanName, RootBeanDefinition mbd, BeanWrapper bw) {
+				populatedBeans.add(bw.getWrappedInstance());
+				super.populateBean(beanName, mbd, bw);
+			}
+		};
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		beanFactory.registerBeanDefinition("bean", bd);
+
+		Object first = beanFactory.getBean("bean");
+		Object second = beanFactory.getBean("bean");
+		Object third = beanFactory.getBean("bean");
+		assertThat(beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isNull();
+		assertThat(populatedBeans).containsExactly(first, second, third);
+	}
+
+	@Test
+	void destructionAwarePostProcessorIsAppliedFromCache() {
+		List<Object> destroyedBeans = new ArrayList<>();
+		DestructionAwareBeanPostProcessor destructionProcessor = (bean, beanName) -> destroyedBeans.add(bean);
+		this.beanFactory.addBeanPostProcessor(destructionProcessor);
+		assertThat(this.beanFactory.getBeanPostProcessorCache().destructionAware).containsExactly(destructionProcessor);
+		registerPrototype("bean", new RootBeanDefinition(TestBean.class));
+
+		this.beanFactory.getBean("bean");
+		Object bean = this.beanFactory.getBean("bean");
+		assertThat(this.beanFactory.getMergedLocalBeanDefinition("bean").creationPlanApplicable).isTrue();
+		this.beanFactory.destroyBean("bean", bean);
+		assertThat(destroyedBeans).containsExactly(bean);
+	}
+
+
+	private void registerPrototype(String beanName, RootBeanDefinition bd) {
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition(beanName, bd);
+	}
+
+
+	public static class AutowiredBean {
+
+		@Autowired
+		TestBean spouse;
+
+		public void setSpouse(TestBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+
+	static class RecordingPostProcessor extends InstantiationAwareBeanPostProcessorAdapter {
+
+		final List<Object> initializedBeans = new ArrayList<>();
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			this.initializedBeans.add(bean);
+			return bean;
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.ResolvableType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for by-type lookups through the {@link BeanTypeIndex} of a frozen
+ * {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.2.23
+ */
+class BeanTypeIndexTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Test
+	void lookupsMatchRegistrationOrder() {
+		this.beanFactory.registerBeanDefinition("first", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("other", new RootBeanDefinition(Other.class));
+		this.beanFactory.registerSingleton("manual", new TestBean("manual"));
+		RootBeanDefinition prototype = new RootBeanDefinition(TestBean.class);
+		prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("second", prototype);
+		this.beanFactory.freezeConfiguration();
+
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("first", "second", "manual");
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class, false, true)).containsExactly("first", "manual");
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).containsExactly("other");
+		assertThat(this.beanFactory.getBeanNamesForType(Object.class)).containsExactly("first", "other", "second", "manual");
+		assertThat(this.beanFactory.getBeanNamesForType(Runnable.class)).isEmpty();
+	}
+
+	@Test
+	void genericLookupIsRefinedForCandidates() {
+		this.beanFactory.registerBeanDefinition("strings", new RootBeanDefinition(StringHolder.class));
+		this.beanFactory.registerBeanDefinition("integers", new RootBeanDefinition(IntegerHolder.class));
+		this.beanFactory.freezeConfiguration();
+
+		assertThat(this.beanFactory.getBeanNamesForType(ResolvableType.forClassWithGenerics(Holder.class, String.class)))
+				.containsExactly("strings");
+		assertThat(this.beanFactory.getBeanNamesForType(Holder.class)).containsExactly("strings", "integers");
+	}
+
+	@Test
+	void factoryBeansAreAlwaysChecked() {
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(TestBeanFactoryBean.class));
+		this.beanFactory.freezeConfiguration();
+
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("factory");
+		assertThat(this.beanFactory.getBeanNamesForType(TestBeanFactoryBean.class)).containsExactly("&factory");
+	}
+
+	@Test
+	void registrationAfterFreezeIsIndexed() {
+		this.beanFactory.registerBeanDefinition("first", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.freezeConfiguration();
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("first");
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).isEmpty();
+
+		this.beanFactory.registerSingleton("plugin", new Other());
+		this.beanFactory.registerBeanDefinition("second", new RootBeanDefinition(TestBean.class));
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).containsExactly("plugin");
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("first", "second");
+
+		this.beanFactory.removeBeanDefinition("first");
+		this.beanFactory.destroySingleton("plugin");
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).isEmpty();
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("second");
+	}
+
+	@Test
+	void overridingDefinitionKeepsPosition() {
+		this.beanFactory.registerBeanDefinition("first", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("second", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.freezeConfiguration();
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).isEmpty();
+
+		this.beanFactory.registerBeanDefinition("first", new RootBeanDefinition(Other.class));
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).containsExactly("first");
+		this.beanFactory.registerBeanDefinition("first", new RootBeanDefinition(TestBean.class));
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("first", "second");
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).isEmpty();
+	}
+
+	@Test
+	void instanceTypeBeyondPredictedType() {
+		RootBeanDefinition bd = new RootBeanDefinition(BeanTypeIndexTests.class);
+		bd.setFactoryMethodName("createSerializable");
+		this.beanFactory.registerBeanDefinition("serializable", bd);
+		this.beanFactory.freezeConfiguration();
+		assertThat(this.beanFactory.getBeanNamesForType(Serializable.class)).containsExactly("serializable");
+		assertThat(this.beanFactory.getBeanNamesForType(Runnable.class)).isEmpty();
+
+		this.beanFactory.getBean("serializable");
+		assertThat(this.beanFactory.getBeanNamesForType(Task.class)).containsExactly("serializable");
+	}
+
+	@Test
+	void singletonCompletedWhileBuildingIndexIsIndexedByInstanceType() {
+		RootBeanDefinition bd = new RootBeanDefinition(BeanTypeIndexTests.class);
+		bd.setFactoryMethodName("createSerializable");
+		this.beanFactory.registerBeanDefinition("serializable", bd);
+		this.beanFactory.registerBeanDefinition("trigger", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+			private boolean triggered;
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				if ("trigger".equals(beanName) && !this.triggered) {
+					// Completes the singleton after its predicted type has been indexed
+					this.triggered = true;
+					beanFactory.getBean("serializable");
+				}
+				return null;
+			}
+		});
+		this.beanFactory.freezeConfiguration();
+
+		assertThat(this.beanFactory.getBeanNamesForType(Runnable.class)).containsExactly("serializable");
+		assertThat(this.beanFactory.getBeanNamesForType(Task.class)).containsExactly("serializable");
+	}
+
+	@Test
+	void primitiveLookup() {
+		RootBeanDefinition bd = new RootBeanDefinition(BeanTypeIndexTests.class);
+		bd.setFactoryMethodName("createFlag");
+		this.beanFactory.registerBeanDefinition("flag", bd);
+		this.beanFactory.registerSingleton("number", 42);
+		this.beanFactory.freezeConfiguration();
+
+		assertThat(this.beanFactory.getBeanNamesForType(boolean.class)).containsExactly("flag");
+		assertThat(this.beanFactory.getBeanNamesForType(Boolean.class)).containsExactly("flag");
+		assertThat(this.beanFactory.getBeanNamesForType(int.class)).containsExactly("number");
+	}
+
+	@Test
+	void postProcessorChangesInvalidateIndex() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.freezeConfiguration();
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).isEmpty();
+
+		this.beanFactory.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				return Other.class;
+			}
+		});
+		this.beanFactory.clearMetadataCache();
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).containsExactly("bean");
+	}
+
+	@Test
+	void lookupsWithManyBeans() {
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			Class<?> beanClass = (i % 10 == 0 ? Other.class : TestBean.class);
+			this.beanFactory.registerBeanDefinition("bean" + i, new RootBeanDefinition(beanClass));
+			if (beanClass == Other.class) {
+				expected.add("bean" + i);
+			}
+		}
+		this.beanFactory.freezeConfiguration();
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.beanFactory.getBeanNamesForType(Other.class)).containsExactlyElementsOf(expected);
+		assertThat(this.beanFactory.getBeansOfType(Other.class)).hasSize(100);
+	}
+
+
+	public static Serializable createSerializable() {
+		return new Task();
+	}
+
+	public static boolean createFlag() {
+		return true;
+	}
+
+
+	public static class Other {
+	}
+
+
+	public static class Task implements Serializable, Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+
+	public interface Holder<T> {
+	}
+
+
+	public static class StringHolder implements Holder<String> {
+	}
+
+
+	public static class IntegerHolder implements Holder<Integer> {
+	}
+
+
+	public static class TestBeanFactoryBean implements FactoryBean<TestBean> {
+
+		@Override
+		public TestBean getObject() {
+			return new TestBean();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return TestBean.class;
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.support.ParallelPreInstantiationTests.CircularBean1;
+import org.springframework.beans.factory.support.ParallelPreInstantiationTests.CircularBean2;
+import org.springframework.beans.factory.support.ParallelPreInstantiationTests.RendezvousBean;
+import org.springframework.beans.factory.support.ParallelPreInstantiationTests.SharedBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for concurrent creation of lazy-init singletons through
+ * {@link DefaultSingletonBeanRegistry#setAllowConcurrentSingletonCreation}.
+ *
+ * @since 5.2.23
+ */
+class ConcurrentSingletonCreationTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	void setup() {
+		this.executor = Executors.newFixedThreadPool(8);
+		this.beanFactory.setAllowConcurrentSingletonCreation(true);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	void allowConcurrentSingletonCreationIsOffByDefault() {
+		assertThat(new DefaultListableBeanFactory().isAllowConcurrentSingletonCreation()).isFalse();
+	}
+
+	@Test
+	void allowConcurrentSingletonCreationIsCopied() {
+		DefaultListableBeanFactory copy = new DefaultListableBeanFactory();
+		copy.copyConfigurationFrom(this.beanFactory);
+		assertThat(copy.isAllowConcurrentSingletonCreation()).isTrue();
+	}
+
+	@Test
+	void independentLazySingletonsAreCreatedConcurrently() throws Exception {
+		CountDownLatch latch = new CountDownLatch(2);
+		for (int i = 0; i < 2; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(RendezvousBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(latch);
+			bd.setLazyInit(true);
+			this.beanFactory.registerBeanDefinition("bean" + i, bd);
+		}
+
+		List<Object> beans = getBeansConcurrently("bean0", "bean1");
+		for (Object bean : beans) {
+			assertThat(((RendezvousBean) bean).metOthers).isTrue();
+		}
+		assertThat(this.beanFactory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+	@Test
+	void sameLazySingletonIsCreatedOnce() throws Exception {
+		SharedBean.instances.set(0);
+		RootBeanDefinition bd = new RootBeanDefinition(SharedBean.class);
+		bd.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("shared", bd);
+
+		List<Object> beans = getBeansConcurrently("shared", "shared", "shared", "shared", "shared", "shared");
+		assertThat(SharedBean.instances.get()).isEqualTo(1);
+		assertThat(beans).allSatisfy(bean -> assertThat(bean).isSameAs(beans.get(0)));
+	}
+
+	@Test
+	void circularReferenceAcrossThreadsIsResolved() throws Exception {
+		CountDownLatch latch = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(CircularBean1.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(latch);
+		bd1.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		bd1.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("circular1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(CircularBean2.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(latch);
+		bd2.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		bd2.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("circular2", bd2);
+
+		List<Object> beans = getBeansConcurrently("circular1", "circular2");
+		CircularBean1 circular1 = (CircularBean1) beans.get(0);
+		CircularBean2 circular2 = (CircularBean2) beans.get(1);
+		assertThat(circular1.getOther()).isSameAs(circular2);
+		assertThat(circular2.getOther()).isSameAs(circular1);
+	}
+
+	@Test
+	void factoryBeanObjectWaitingForSingletonInCreationDoesNotDeadlock() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RootBeanDefinition gated = new RootBeanDefinition(GatedBean.class);
+		gated.getConstructorArgumentValues().addIndexedArgumentValue(0, entered);
+		gated.getConstructorArgumentValues().addIndexedArgumentValue(1, release);
+		gated.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("gated", gated);
+		RootBeanDefinition factory = new RootBeanDefinition(GatedBeanFactoryBean.class);
+		factory.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("factory", factory);
+
+		Future<Object> creator = this.executor.submit(() -> this.beanFactory.getBean("gated"));
+		assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+		// Both threads resolve the FactoryBean object, holding the singleton lock while calling getObject()
+		Future<Object> first = this.executor.submit(() -> this.beanFactory.getBean("factory"));
+		Future<Object> second = this.executor.submit(() -> this.beanFactory.getBean("factory"));
+		GatedBeanFactoryBean factoryBean = (GatedBeanFactoryBean) this.beanFactory.getBean("&factory");
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!factoryBean.isRequesterWaiting() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+
+		Object bean = creator.get(30, TimeUnit.SECONDS);
+		assertThat(first.get(30, TimeUnit.SECONDS)).isSameAs(bean);
+		assertThat(second.get(30, TimeUnit.SECONDS)).isSameAs(bean);
+	}
+
+
+	private List<Object> getBeansConcurrently(String... beanNames) throws Exception {
+		List<Future<Object>> futures = new ArrayList<>();
+		for (String beanName : beanNames) {
+			futures.add(this.executor.submit(() -> this.beanFactory.getBean(beanName)));
+		}
+		List<Object> beans = new ArrayList<>();
+		for (Future<Object> future : futures) {
+			beans.add(future.get(30, TimeUnit.SECONDS));
+		}
+		return beans;
+	}
+
+
+	public static class GatedBean {
+
+		public GatedBean(CountDownLatch entered, CountDownLatch release) throws InterruptedException {
+			entered.countDown();
+			release.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	public static class GatedBeanFactoryBean implements FactoryBean<Object>, BeanFactoryAware {
+
+		private BeanFactory beanFactory;
+
+		private volatile Thread requester;
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		@Override
+		public Object getObject() {
+			this.requester = Thread.currentThread();
+			return this.beanFactory.getBean("gated");
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return GatedBean.class;
+		}
+
+		boolean isRequesterWaiting() {
+			Thread requester = this.requester;
+			return (requester != null && requester.getState() == Thread.State.WAITING);
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link GeneratedAccessorInstantiationStrategy} and generated
+ * injection accessors in {@link AutowiredAnnotationBeanPostProcessor}.
+ *
+ * @since 5.2.23
+ */
+class GeneratedAccessorInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@BeforeEach
+	void setup() {
+		this.beanFactory.setInstantiationStrategy(new GeneratedAccessorInstantiationStrategy());
+		this.beanFactory.registerSingleton("spouse", new TestBean("spouse"));
+	}
+
+
+	@Test
+	void generatedAccessorsForAccessibleMembers() throws Exception {
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(ConstructorBean.class.getConstructor(TestBean.class))).isTrue();
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(Factory.class.getMethod("create", String.class))).isTrue();
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(InjectedBean.class.getDeclaredMethod("setOther", TestBean.class))).isTrue();
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(InjectedBean.class.getDeclaredField("spouse"))).isTrue();
+	}
+
+	@Test
+	void reflectionForInaccessibleMembers() throws Exception {
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(PrivateConstructorBean.class.getDeclaredConstructor())).isFalse();
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(PrivateBean.class.getDeclaredConstructor())).isFalse();
+		assertThat(GeneratedMemberAccessors.hasGeneratedAccessor(Factory.class.getDeclaredMethod("protectedCreate"))).isFalse();
+
+		Method method = Factory.class.getDeclaredMethod("protectedCreate");
+		ReflectionUtils.makeAccessible(method);
+		assertThat(GeneratedMemberAccessors.invoke(method, new Factory())).isEqualTo(new TestBean("protected"));
+		Field field = InjectedBean.class.getDeclaredField("privateValue");
+		ReflectionUtils.makeAccessible(field);
+		InjectedBean bean = new InjectedBean();
+		GeneratedMemberAccessors.set(field, bean, "value");
+		assertThat(bean.privateValue).isEqualTo("value");
+	}
+
+	@Test
+	void prototypeWithConstructorArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorBean.class);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		registerPrototype("bean", bd);
+
+		ConstructorBean first = this.beanFactory.getBean("bean", ConstructorBean.class);
+		ConstructorBean second = this.beanFactory.getBean("bean", ConstructorBean.class);
+		assertThat(first).isNotSameAs(second);
+		assertThat(first.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+		assertThat(second.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+	}
+
+	@Test
+	void prototypeWithPrivateConstructor() {
+		registerPrototype("bean", new RootBeanDefinition(PrivateConstructorBean.class));
+		assertThat(this.beanFactory.getBean("bean")).isInstanceOf(PrivateConstructorBean.class);
+	}
+
+	@Test
+	void nullArgumentForPrimitiveParameter() throws Exception {
+		Object bean = new GeneratedAccessorInstantiationStrategy().instantiate(
+				new RootBeanDefinition(PrimitiveBean.class), "bean", this.beanFactory,
+				PrimitiveBean.class.getDeclaredConstructor(int.class), (Object) null);
+		assertThat(((PrimitiveBean) bean).value).isEqualTo(0);
+	}
+
+	@Test
+	void constructorExceptionIsPropagated() {
+		registerPrototype("bean", new RootBeanDefinition(FailingBean.class));
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() -> this.beanFactory.getBean("bean"))
+				.withRootCauseInstanceOf(IllegalStateException.class)
+				.withMessageContaining("Constructor threw exception");
+	}
+
+	@Test
+	void staticAndInstanceFactoryMethods() {
+		RootBeanDefinition staticBd = new RootBeanDefinition(Factory.class);
+		staticBd.setFactoryMethodName("createStatic");
+		registerPrototype("static", staticBd);
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(Factory.class));
+		RootBeanDefinition instanceBd = new RootBeanDefinition();
+		instanceBd.setFactoryBeanName("factory");
+		instanceBd.setFactoryMethodName("create");
+		instanceBd.getConstructorArgumentValues().addGenericArgumentValue("instance");
+		registerPrototype("instance", instanceBd);
+
+		assertThat(this.beanFactory.getBean("static")).isEqualTo(new TestBean("static"));
+		assertThat(this.beanFactory.getBean("instance")).isEqualTo(new TestBean("instance"));
+	}
+
+	@Test
+	void injectionThroughGeneratedAccessors() {
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		bpp.setUseGeneratedAccessors(true);
+		this.beanFactory.addBeanPostProcessor(bpp);
+		registerPrototype("bean", new RootBeanDefinition(InjectedBean.class));
+
+		for (int i = 0; i < 3; i++) {
+			InjectedBean bean = this.beanFactory.getBean("bean", InjectedBean.class);
+			assertThat(bean.spouse).isSameAs(this.beanFactory.getBean("spouse"));
+			assertThat(bean.other).isSameAs(this.beanFactory.getBean("spouse"));
+		}
+	}
+
+	@Test
+	void useGeneratedAccessorsIsOffByDefault() {
+		assertThat(new AutowiredAnnotationBeanPostProcessor().isUseGeneratedAccessors()).isFalse();
+		assertThat(new DefaultListableBeanFactory().getInstantiationStrategy())
+				.isNotInstanceOf(GeneratedAccessorInstantiationStrategy.class);
+	}
+
+
+	private void registerPrototype(String beanName, RootBeanDefinition bd) {
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition(beanName, bd);
+	}
+
+
+	public static class ConstructorBean {
+
+		final TestBean spouse;
+
+		public ConstructorBean(TestBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+
+	static class PrivateConstructorBean {
+
+		private PrivateConstructorBean() {
+		}
+	}
+
+
+	private static class PrivateBean {
+	}
+
+
+	static class PrimitiveBean {
+
+		final int value;
+
+		PrimitiveBean(int value) {
+			this.value = value;
+		}
+	}
+
+
+	static class FailingBean {
+
+		FailingBean() {
+			throw new IllegalStateException("failed");
+		}
+	}
+
+
+	static class Factory {
+
+		public static TestBean createStatic() {
+			return new TestBean("static");
+		}
+
+		public TestBean create(String name) {
+			return new TestBean(name);
+		}
+
+		protected TestBean protectedCreate() {
+			return new TestBean("protected");
+		}
+	}
+
+
+	static class InjectedBean {
+
+		@Autowired
+		TestBean spouse;
+
+		TestBean other;
+
+		private String privateValue;
+
+		@Autowired
+		void setOther(TestBean other) {
+			this.other = other;
+		}
+	}
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for parallel pre-instantiation of singletons through
+ * {@link DefaultListableBeanFactory#setBootstrapExecutor}.
+ *
+ * @since 5.2.23
+ */
+class ParallelPreInstantiationTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	void setup() {
+		this.executor = Executors.newFixedThreadPool(4);
+		this.beanFactory.setBootstrapExecutor(this.executor);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	void independentSingletonsAreInitializedConcurrently() {
+		CountDownLatch latch = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(RendezvousBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(latch);
+			this.beanFactory.registerBeanDefinition("bean" + i, bd);
+		}
+		this.beanFactory.preInstantiateSingletons();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.beanFactory.getBean("bean" + i, RendezvousBean.class).metOthers).isTrue();
+		}
+		assertThat(this.beanFactory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+	@Test
+	void referencedSingletonsAreInitializedWithinSameSubgraph() {
+		RootBeanDefinition bd = new RootBeanDefinition(ThreadRecordingBean.class);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("dependency"));
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		RootBeanDefinition dependsOnBd = new RootBeanDefinition(ThreadRecordingBean.class);
+		dependsOnBd.setDependsOn("bean");
+		this.beanFactory.registerBeanDefinition("dependent", dependsOnBd);
+		this.beanFactory.registerBeanDefinition("dependency", new RootBeanDefinition(ThreadRecordingBean.class));
+		this.beanFactory.preInstantiateSingletons();
+
+		ThreadRecordingBean bean = this.beanFactory.getBean("bean", ThreadRecordingBean.class);
+		ThreadRecordingBean dependent = this.beanFactory.getBean("dependent", ThreadRecordingBean.class);
+		ThreadRecordingBean dependency = this.beanFactory.getBean("dependency", ThreadRecordingBean.class);
+		assertThat(bean.getDependency()).isSameAs(dependency);
+		assertThat(bean.thread).isSameAs(dependency.thread).isSameAs(dependent.thread);
+		assertThat(bean.thread).isNotSameAs(Thread.currentThread());
+	}
+
+	@Test
+	void sharedAutowiredSingletonIsCreatedOnce() {
+		SharedBean.instances.set(0);
+		this.beanFactory.registerBeanDefinition("shared", new RootBeanDefinition(SharedBean.class));
+		for (int i = 0; i < 8; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(SharedBeanHolder.class);
+			bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+			this.beanFactory.registerBeanDefinition("holder" + i, bd);
+		}
+		this.beanFactory.preInstantiateSingletons();
+
+		SharedBean shared = this.beanFactory.getBean(SharedBean.class);
+		assertThat(SharedBean.instances.get()).isEqualTo(1);
+		for (int i = 0; i < 8; i++) {
+			assertThat(this.beanFactory.getBean("holder" + i, SharedBeanHolder.class).getShared()).isSameAs(shared);
+		}
+	}
+
+	@Test
+	void circularReferenceAcrossThreadsIsResolved() {
+		CountDownLatch latch = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(CircularBean1.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(latch);
+		bd1.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		this.beanFactory.registerBeanDefinition("circular1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(CircularBean2.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(latch);
+		bd2.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		this.beanFactory.registerBeanDefinition("circular2", bd2);
+		this.beanFactory.preInstantiateSingletons();
+
+		CircularBean1 circular1 = this.beanFactory.getBean(CircularBean1.class);
+		CircularBean2 circular2 = this.beanFactory.getBean(CircularBean2.class);
+		assertThat(circular1.getOther()).isSameAs(circular2);
+		assertThat(circular2.getOther()).isSameAs(circular1);
+	}
+
+	@Test
+	void constructorCircularReferenceAcrossThreadsFails() {
+		RootBeanDefinition gate = new RootBeanDefinition(RendezvousBean.class);
+		gate.getConstructorArgumentValues().addGenericArgumentValue(new CountDownLatch(2));
+		gate.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("gate", gate);
+		RootBeanDefinition bd1 = new RootBeanDefinition(ConstructorCircularBean1.class);
+		bd1.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		this.beanFactory.registerBeanDefinition("circular1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(ConstructorCircularBean2.class);
+		bd2.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		this.beanFactory.registerBeanDefinition("circular2", bd2);
+
+		// Either thread may detect the cycle first, but the root cause is always a BeanCurrentlyInCreationException
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.beanFactory::preInstantiateSingletons)
+				.satisfies(ex -> {
+					assertThat(ex.getBeanName()).isEqualTo("circular1");
+					assertThat(ex.getMostSpecificCause()).isInstanceOf(BeanCurrentlyInCreationException.class);
+					assertThat(((BeanCurrentlyInCreationException) ex.getMostSpecificCause()).getBeanName())
+							.isIn("circular1", "circular2");
+				});
+		assertThat(this.beanFactory.containsSingleton("circular1")).isFalse();
+		assertThat(this.beanFactory.containsSingleton("circular2")).isFalse();
+		assertThat(this.beanFactory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+	@Test
+	void initializationFailureIsPropagated() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(ThreadRecordingBean.class));
+		this.beanFactory.registerBeanDefinition("failing", new RootBeanDefinition(FailingBean.class));
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.beanFactory::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"));
+		assertThat(this.beanFactory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+
+	public static class RendezvousBean implements InitializingBean {
+
+		private final CountDownLatch latch;
+
+		boolean metOthers;
+
+		public RendezvousBean(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			this.latch.countDown();
+			this.metOthers = this.latch.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	public static class ThreadRecordingBean {
+
+		final Thread thread = Thread.currentThread();
+
+		private ThreadRecordingBean dependency;
+
+		public ThreadRecordingBean getDependency() {
+			return this.dependency;
+		}
+
+		public void setDependency(ThreadRecordingBean dependency) {
+			assertThat(dependency.thread).isSameAs(Thread.currentThread());
+			this.dependency = dependency;
+		}
+	}
+
+
+	public static class SharedBean {
+
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public SharedBean() throws InterruptedException {
+			instances.incrementAndGet();
+			Thread.sleep(50);
+		}
+	}
+
+
+	public static class SharedBeanHolder {
+
+		private SharedBean shared;
+
+		public SharedBean getShared() {
+			return this.shared;
+		}
+
+		public void setShared(SharedBean shared) {
+			this.shared = shared;
+		}
+	}
+
+
+	public static class CircularBean1 {
+
+		private CircularBean2 other;
+
+		public CircularBean1(CountDownLatch latch) throws InterruptedException {
+			latch.countDown();
+			latch.await(10, TimeUnit.SECONDS);
+		}
+
+		public CircularBean2 getOther() {
+			return this.other;
+		}
+
+		public void setOther(CircularBean2 other) {
+			this.other = other;
+		}
+	}
+
+
+	public static class CircularBean2 {
+
+		private CircularBean1 other;
+
+		public CircularBean2(CountDownLatch latch) throws InterruptedException {
+			latch.countDown();
+			latch.await(10, TimeUnit.SECONDS);
+		}
+
+		public CircularBean1 getOther() {
+			return this.other;
+		}
+
+		public void setOther(CircularBean1 other) {
+			this.other = other;
+		}
+	}
+
+
+	public static class ConstructorCircularBean1 {
+
+		public ConstructorCircularBean1(RendezvousBean gate, ConstructorCircularBean2 other) {
+		}
+	}
+
+
+	public static class ConstructorCircularBean2 {
+
+		public ConstructorCircularBean2(RendezvousBean gate, ConstructorCircularBean1 other) {
+		}
+	}
+
+
+	public static class FailingBean implements InitializingBean {
+
+		@Override
+		public void afterPropertiesSet() {
+			throw new IllegalStateException("Initialization failed");
+		}
+	}
+
+}
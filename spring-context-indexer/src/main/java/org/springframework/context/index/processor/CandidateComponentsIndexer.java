@@ -38,7 +38,8 @@ import javax.lang.model.element.TypeElement;
 
 /**
  * Annotation {@link Processor} that writes {@link CandidateComponentsMetadata}
- * file for spring components.
+ * file for spring components, along with a {@link ConfigurationClassMetadata}
+ * file describing the structure of configuration classes.
  *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
@@ -55,6 +56,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private ConfigurationClassMetadataFactory configurationClassMetadataFactory;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -78,7 +81,9 @@ public class CandidateComponentsIndexer implements Processor {
 		this.stereotypesProviders = getStereotypesProviders(env);
 		this.typeHelper = new TypeHelper(env);
 		this.metadataStore = new MetadataStore(env);
-		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
+		this.configurationClassMetadataFactory = new ConfigurationClassMetadataFactory(env);
+		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata(),
+				this.metadataStore.readConfigurationClasses());
 	}
 
 	@Override
@@ -119,6 +124,10 @@ public class CandidateComponentsIndexer implements Processor {
 		if (!stereotypes.isEmpty()) {
 			this.metadataCollector.add(new ItemMetadata(this.typeHelper.getType(element), stereotypes));
 		}
+		ConfigurationClassMetadata configurationClass = this.configurationClassMetadataFactory.create(element);
+		if (configurationClass != null) {
+			this.metadataCollector.add(configurationClass);
+		}
 	}
 
 	private void writeMetaData() {
@@ -131,6 +140,15 @@ public class CandidateComponentsIndexer implements Processor {
 				throw new IllegalStateException("Failed to write metadata", ex);
 			}
 		}
+		List<ConfigurationClassMetadata> configurationClasses = this.metadataCollector.getConfigurationClasses();
+		if (!configurationClasses.isEmpty()) {
+			try {
+				this.metadataStore.writeConfigurationClasses(configurationClasses);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to write configuration class metadata", ex);
+			}
+		}
 	}
 
 	private static List<TypeElement> staticTypesIn(Iterable<? extends Element> elements) {
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents the structure of one configuration class in the index: its
+ * modifiers and a set of named attributes describing the class hierarchy,
+ * the class-level annotations and the annotated methods, in the encoded
+ * form written to {@value MetadataStore#CONFIGURATIONS_PATH}.
+ *
+ * @since 5.2.23
+ * @see ConfigurationClassMetadataFactory
+ */
+class ConfigurationClassMetadata {
+
+	private final String type;
+
+	private final String flags;
+
+	private final Map<String, String> attributes;
+
+
+	public ConfigurationClassMetadata(String type, String flags, Map<String, String> attributes) {
+		this.type = type;
+		this.flags = flags;
+		this.attributes = new LinkedHashMap<>(attributes);
+	}
+
+
+	public String getType() {
+		return this.type;
+	}
+
+	public String getFlags() {
+		return this.flags;
+	}
+
+	public Map<String, String> getAttributes() {
+		return this.attributes;
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigurationClassMetadata{" + "type=" + this.type + ", attributes=" + this.attributes + '}';
+	}
+
+}
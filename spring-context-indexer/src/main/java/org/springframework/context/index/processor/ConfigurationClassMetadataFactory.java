@@ -0,0 +1,304 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.lang.model.util.Types;
+
+/**
+ * Create {@link ConfigurationClassMetadata} for the types that the configuration
+ * class infrastructure is going to introspect: classes that are annotated or
+ * meta-annotated with {@code @Component}, {@code @ComponentScan}, {@code @Import}
+ * or {@code @ImportResource}, as well as classes and interfaces that declare
+ * {@code @Bean} methods.
+ *
+ * <p>Only annotations with runtime retention are recorded, with the attribute
+ * values that are explicitly declared. Values are written as quoted strings,
+ * arrays in square brackets and nested annotations in {@code @type(name=value)}
+ * form; the runtime side converts them according to the annotation type.
+ *
+ * @since 5.2.23
+ */
+class ConfigurationClassMetadataFactory {
+
+	private static final String BEAN_ANNOTATION = "org.springframework.context.annotation.Bean";
+
+	private static final Set<String> CANDIDATE_INDICATORS = new HashSet<>(Arrays.asList(
+			"org.springframework.stereotype.Component",
+			"org.springframework.context.annotation.ComponentScan",
+			"org.springframework.context.annotation.Import",
+			"org.springframework.context.annotation.ImportResource"));
+
+	private final Elements elements;
+
+	private final Types types;
+
+	private final ValueWriter valueWriter = new ValueWriter();
+
+
+	public ConfigurationClassMetadataFactory(ProcessingEnvironment env) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+	}
+
+
+	/**
+	 * Return the {@link ConfigurationClassMetadata} for the specified element or
+	 * {@code null} if it is not relevant for configuration class processing.
+	 */
+	public ConfigurationClassMetadata create(Element element) {
+		ElementKind kind = element.getKind();
+		if ((kind != ElementKind.CLASS && kind != ElementKind.INTERFACE) || !isCandidate(element)) {
+			return null;
+		}
+		TypeElement type = (TypeElement) element;
+		Map<String, String> attributes = new LinkedHashMap<>();
+		Element enclosingElement = type.getEnclosingElement();
+		if (enclosingElement instanceof TypeElement) {
+			attributes.put("enclosingClass", getClassName((TypeElement) enclosingElement));
+		}
+		if (kind == ElementKind.CLASS && type.getSuperclass().getKind() == TypeKind.DECLARED) {
+			attributes.put("superClass", getClassName(type.getSuperclass()));
+		}
+		StringJoiner interfaces = new StringJoiner(",");
+		type.getInterfaces().forEach(i -> interfaces.add(getClassName(i)));
+		if (interfaces.length() > 0) {
+			attributes.put("interfaces", interfaces.toString());
+		}
+		StringJoiner memberClasses = new StringJoiner(",");
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed instanceof TypeElement) {
+				memberClasses.add(getClassName((TypeElement) enclosed));
+			}
+		}
+		if (memberClasses.length() > 0) {
+			attributes.put("memberClasses", memberClasses.toString());
+		}
+		String annotations = writeAnnotations(type.getAnnotationMirrors());
+		if (!annotations.equals("[]")) {
+			attributes.put("annotations", annotations);
+		}
+		int index = 0;
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed.getKind() == ElementKind.METHOD || enclosed.getKind() == ElementKind.CONSTRUCTOR) {
+				String methodAnnotations = writeAnnotations(enclosed.getAnnotationMirrors());
+				if (!methodAnnotations.equals("[]")) {
+					attributes.put("method." + index++, writeMethod((ExecutableElement) enclosed, methodAnnotations));
+				}
+			}
+		}
+		return new ConfigurationClassMetadata(getClassName(type), getFlags(type), attributes);
+	}
+
+	private boolean isCandidate(Element element) {
+		if (isAnnotated(element, CANDIDATE_INDICATORS, new HashSet<>())) {
+			return true;
+		}
+		for (Element enclosed : element.getEnclosedElements()) {
+			if (enclosed.getKind() == ElementKind.METHOD &&
+					isAnnotated(enclosed, Collections.singleton(BEAN_ANNOTATION), new HashSet<>())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isAnnotated(Element element, Set<String> annotationTypes, Set<Element> seen) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			Element annotationElement = annotation.getAnnotationType().asElement();
+			if (annotationTypes.contains(getClassName(annotation.getAnnotationType()))) {
+				return true;
+			}
+			if (seen.add(annotationElement) && !annotationElement.toString().startsWith("java.lang") &&
+					isAnnotated(annotationElement, annotationTypes, seen)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getFlags(TypeElement type) {
+		StringJoiner flags = new StringJoiner(",");
+		Set<Modifier> modifiers = type.getModifiers();
+		if (type.getKind().isInterface()) {
+			flags.add("interface");
+		}
+		if (type.getKind().isInterface() || modifiers.contains(Modifier.ABSTRACT)) {
+			flags.add("abstract");
+		}
+		if (modifiers.contains(Modifier.FINAL)) {
+			flags.add("final");
+		}
+		if (modifiers.contains(Modifier.STATIC) || type.getKind().isInterface()) {
+			flags.add("static");
+		}
+		return flags.toString();
+	}
+
+	private String writeMethod(ExecutableElement method, String annotations) {
+		boolean constructor = (method.getKind() == ElementKind.CONSTRUCTOR);
+		StringJoiner flags = new StringJoiner(",");
+		Set<Modifier> modifiers = method.getModifiers();
+		for (Modifier modifier : Arrays.asList(Modifier.ABSTRACT, Modifier.STATIC, Modifier.FINAL, Modifier.PRIVATE)) {
+			if (modifiers.contains(modifier)) {
+				flags.add(modifier.toString());
+			}
+		}
+		StringBuilder result = new StringBuilder("[");
+		this.valueWriter.writeString(constructor ? "<init>" : method.getSimpleName().toString(), result);
+		result.append(',');
+		this.valueWriter.writeString(flags.toString(), result);
+		result.append(',');
+		this.valueWriter.writeString(constructor ? "void" : getClassName(method.getReturnType()), result);
+		result.append(',').append(annotations).append(']');
+		return result.toString();
+	}
+
+	private String writeAnnotations(List<? extends AnnotationMirror> annotations) {
+		List<String> result = new ArrayList<>();
+		for (AnnotationMirror annotation : annotations) {
+			if (isRuntimeRetained(annotation)) {
+				StringBuilder builder = new StringBuilder();
+				this.valueWriter.writeAnnotation(annotation, builder);
+				result.add(builder.toString());
+			}
+		}
+		return "[" + String.join(",", result) + "]";
+	}
+
+	private boolean isRuntimeRetained(AnnotationMirror annotation) {
+		Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+		return (retention != null && retention.value() == RetentionPolicy.RUNTIME);
+	}
+
+	private String getClassName(TypeElement type) {
+		return this.elements.getBinaryName(type).toString();
+	}
+
+	/**
+	 * Return the erased class name of the given type, using the same format as
+	 * {@link Class#getName()} for nested types and {@code type[]} for arrays.
+	 */
+	private String getClassName(TypeMirror type) {
+		TypeMirror erasure = this.types.erasure(type);
+		if (erasure.getKind() == TypeKind.ARRAY) {
+			return getClassName(((ArrayType) erasure).getComponentType()) + "[]";
+		}
+		if (erasure.getKind() == TypeKind.DECLARED) {
+			return getClassName((TypeElement) ((DeclaredType) erasure).asElement());
+		}
+		return erasure.toString();
+	}
+
+
+	/**
+	 * Writes annotations and annotation values in the encoded index form.
+	 */
+	private class ValueWriter extends SimpleAnnotationValueVisitor8<Void, StringBuilder> {
+
+		void writeAnnotation(AnnotationMirror annotation, StringBuilder result) {
+			result.append('@').append(getClassName(annotation.getAnnotationType())).append('(');
+			boolean first = true;
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+					annotation.getElementValues().entrySet()) {
+				if (!first) {
+					result.append(',');
+				}
+				result.append(entry.getKey().getSimpleName()).append('=');
+				entry.getValue().accept(this, result);
+				first = false;
+			}
+			result.append(')');
+		}
+
+		void writeString(String value, StringBuilder result) {
+			result.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char ch = value.charAt(i);
+				if (ch == '"' || ch == '\\') {
+					result.append('\\');
+				}
+				result.append(ch);
+			}
+			result.append('"');
+		}
+
+		@Override
+		protected Void defaultAction(Object value, StringBuilder result) {
+			writeString(String.valueOf(value), result);
+			return null;
+		}
+
+		@Override
+		public Void visitType(TypeMirror type, StringBuilder result) {
+			writeString(getClassName(type), result);
+			return null;
+		}
+
+		@Override
+		public Void visitEnumConstant(VariableElement constant, StringBuilder result) {
+			writeString(constant.getSimpleName().toString(), result);
+			return null;
+		}
+
+		@Override
+		public Void visitAnnotation(AnnotationMirror annotation, StringBuilder result) {
+			writeAnnotation(annotation, result);
+			return null;
+		}
+
+		@Override
+		public Void visitArray(List<? extends AnnotationValue> values, StringBuilder result) {
+			result.append('[');
+			for (int i = 0; i < values.size(); i++) {
+				if (i > 0) {
+					result.append(',');
+				}
+				values.get(i).accept(this, result);
+			}
+			result.append(']');
+			return null;
+		}
+	}
+
+}
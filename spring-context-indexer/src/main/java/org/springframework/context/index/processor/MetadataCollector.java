@@ -36,10 +36,14 @@ class MetadataCollector {
 
 	private final List<ItemMetadata> metadataItems = new ArrayList<>();
 
+	private final List<ConfigurationClassMetadata> configurationClasses = new ArrayList<>();
+
 	private final ProcessingEnvironment processingEnvironment;
 
 	private final CandidateComponentsMetadata previousMetadata;
 
+	private final List<ConfigurationClassMetadata> previousConfigurationClasses;
+
 	private final TypeHelper typeHelper;
 
 	private final Set<String> processedSourceTypes = new HashSet<>();
@@ -49,12 +53,15 @@ class MetadataCollector {
 	 * Create a new {@code MetadataProcessor} instance.
 	 * @param processingEnvironment the processing environment of the build
 	 * @param previousMetadata any previous metadata or {@code null}
+	 * @param previousConfigurationClasses any previous configuration class
+	 * metadata or {@code null}
 	 */
 	public MetadataCollector(ProcessingEnvironment processingEnvironment,
-			CandidateComponentsMetadata previousMetadata) {
+			CandidateComponentsMetadata previousMetadata, List<ConfigurationClassMetadata> previousConfigurationClasses) {
 
 		this.processingEnvironment = processingEnvironment;
 		this.previousMetadata = previousMetadata;
+		this.previousConfigurationClasses = previousConfigurationClasses;
 		this.typeHelper = new TypeHelper(processingEnvironment);
 	}
 
@@ -75,6 +82,10 @@ class MetadataCollector {
 		this.metadataItems.add(metadata);
 	}
 
+	public void add(ConfigurationClassMetadata metadata) {
+		this.configurationClasses.add(metadata);
+	}
+
 	public CandidateComponentsMetadata getMetadata() {
 		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
 		for (ItemMetadata item : this.metadataItems) {
@@ -91,8 +102,23 @@ class MetadataCollector {
 		return metadata;
 	}
 
+	public List<ConfigurationClassMetadata> getConfigurationClasses() {
+		List<ConfigurationClassMetadata> result = new ArrayList<>(this.configurationClasses);
+		if (this.previousConfigurationClasses != null) {
+			for (ConfigurationClassMetadata metadata : this.previousConfigurationClasses) {
+				if (shouldBeMerged(metadata.getType())) {
+					result.add(metadata);
+				}
+			}
+		}
+		return result;
+	}
+
 	private boolean shouldBeMerged(ItemMetadata itemMetadata) {
-		String sourceType = itemMetadata.getType();
+		return shouldBeMerged(itemMetadata.getType());
+	}
+
+	private boolean shouldBeMerged(String sourceType) {
 		return (sourceType != null && !deletedInCurrentBuild(sourceType)
 				&& !processedInCurrentBuild(sourceType));
 	}
@@ -19,13 +19,15 @@ package org.springframework.context.index.processor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 
 /**
- * Store {@link CandidateComponentsMetadata} on the filesystem.
+ * Store {@link CandidateComponentsMetadata} and {@link ConfigurationClassMetadata}
+ * on the filesystem.
  *
  * @author Stephane Nicoll
  * @since 5.0
@@ -34,6 +36,8 @@ class MetadataStore {
 
 	static final String METADATA_PATH = "META-INF/spring.components";
 
+	static final String CONFIGURATIONS_PATH = "META-INF/spring.configurations";
+
 	private final ProcessingEnvironment environment;
 
 
@@ -60,6 +64,24 @@ class MetadataStore {
 		}
 	}
 
+	public List<ConfigurationClassMetadata> readConfigurationClasses() {
+		try (InputStream in = getResource(CONFIGURATIONS_PATH).openInputStream()) {
+			return PropertiesMarshaller.readConfigurationClasses(in);
+		}
+		catch (IOException ex) {
+			// Failed to read metadata -> ignore.
+			return null;
+		}
+	}
+
+	public void writeConfigurationClasses(List<ConfigurationClassMetadata> metadata) throws IOException {
+		if (!metadata.isEmpty()) {
+			try (OutputStream outputStream = createResource(CONFIGURATIONS_PATH).openOutputStream()) {
+				PropertiesMarshaller.writeConfigurationClasses(metadata, outputStream);
+			}
+		}
+	}
+
 
 	private CandidateComponentsMetadata readMetadata(InputStream in) throws IOException {
 		try {
@@ -71,11 +93,19 @@ class MetadataStore {
 	}
 
 	private FileObject getMetadataResource() throws IOException {
-		return this.environment.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
+		return getResource(METADATA_PATH);
 	}
 
 	private FileObject createMetadataResource() throws IOException {
-		return this.environment.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
+		return createResource(METADATA_PATH);
+	}
+
+	private FileObject getResource(String path) throws IOException {
+		return this.environment.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", path);
+	}
+
+	private FileObject createResource(String path) throws IOException {
+		return this.environment.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", path);
 	}
 
 }
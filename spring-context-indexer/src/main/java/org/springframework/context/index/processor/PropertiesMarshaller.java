@@ -19,13 +19,20 @@ package org.springframework.context.index.processor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
- * Marshaller to write {@link CandidateComponentsMetadata} as properties.
+ * Marshaller to write {@link CandidateComponentsMetadata} and
+ * {@link ConfigurationClassMetadata} as properties.
  *
  * @author Stephane Nicoll
  * @author Vedran Pavic
@@ -33,6 +40,8 @@ import java.util.Set;
  */
 abstract class PropertiesMarshaller {
 
+	private static final char ATTRIBUTE_SEPARATOR = '#';
+
 	public static void write(CandidateComponentsMetadata metadata, OutputStream out) throws IOException {
 		Properties props = new SortedProperties(true);
 		metadata.getItems().forEach(m -> props.put(m.getType(), String.join(",", m.getStereotypes())));
@@ -50,4 +59,38 @@ abstract class PropertiesMarshaller {
 		return result;
 	}
 
+	public static void writeConfigurationClasses(List<ConfigurationClassMetadata> metadata, OutputStream out)
+			throws IOException {
+
+		Properties props = new SortedProperties(true);
+		metadata.forEach(m -> {
+			props.put(m.getType(), m.getFlags());
+			m.getAttributes().forEach((name, value) -> props.put(m.getType() + ATTRIBUTE_SEPARATOR + name, value));
+		});
+		props.store(out, null);
+	}
+
+	public static List<ConfigurationClassMetadata> readConfigurationClasses(InputStream in) throws IOException {
+		Properties props = new Properties();
+		props.load(in);
+		Map<String, Map<String, String>> attributes = new TreeMap<>();
+		props.forEach((key, value) -> {
+			String name = (String) key;
+			int separatorIndex = name.indexOf(ATTRIBUTE_SEPARATOR);
+			if (separatorIndex != -1) {
+				attributes.computeIfAbsent(name.substring(0, separatorIndex), type -> new LinkedHashMap<>())
+						.put(name.substring(separatorIndex + 1), (String) value);
+			}
+		});
+		List<ConfigurationClassMetadata> result = new ArrayList<>();
+		props.forEach((key, value) -> {
+			String type = (String) key;
+			if (type.indexOf(ATTRIBUTE_SEPARATOR) == -1) {
+				result.add(new ConfigurationClassMetadata(type, (String) value,
+						attributes.getOrDefault(type, Collections.emptyMap())));
+			}
+		});
+		return result;
+	}
+
 }
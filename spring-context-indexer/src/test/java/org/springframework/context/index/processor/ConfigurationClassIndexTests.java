@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.index.ConfigurationClassIndex;
+import org.springframework.context.index.ConfigurationClassIndexLoader;
+import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleNone;
+import org.springframework.context.index.sample.config.SampleConfiguration;
+import org.springframework.context.index.sample.config.SampleConfiguration.NestedConfiguration;
+import org.springframework.context.index.test.TestCompiler;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the configuration class index generated by
+ * {@link CandidateComponentsIndexer}.
+ *
+ * @since 5.2.23
+ */
+class ConfigurationClassIndexTests {
+
+	private TestCompiler compiler;
+
+
+	@BeforeEach
+	void createCompiler(@TempDir Path tempDir) throws IOException {
+		this.compiler = new TestCompiler(tempDir);
+	}
+
+	@Test
+	void configurationClassesAreIndexed() {
+		List<ConfigurationClassMetadata> metadata = compile(SampleConfiguration.class, SampleComponent.class,
+				SampleNone.class);
+		assertThat(metadata).extracting(ConfigurationClassMetadata::getType).containsOnly(
+				SampleConfiguration.class.getName(), NestedConfiguration.class.getName(),
+				SampleComponent.class.getName());
+	}
+
+	@Test
+	void noConfigurationClass() {
+		assertThat(compile(SampleNone.class)).isEmpty();
+		assertThat(new File(this.compiler.getOutputLocation(), MetadataStore.CONFIGURATIONS_PATH)).doesNotExist();
+	}
+
+	@Test
+	void indexedMetadataMatchesClassFileMetadata() throws Exception {
+		compile(SampleConfiguration.class);
+		ConfigurationClassIndex index = loadIndex();
+		AnnotationMetadata indexed = index.getAnnotationMetadata(SampleConfiguration.class.getName());
+		AnnotationMetadata expected = readClassFile(SampleConfiguration.class);
+
+		assertThat(indexed).isNotNull();
+		assertThat(indexed.getClassName()).isEqualTo(expected.getClassName());
+		assertThat(indexed.getSuperClassName()).isEqualTo(expected.getSuperClassName());
+		assertThat(indexed.getInterfaceNames()).containsExactly(expected.getInterfaceNames());
+		assertThat(indexed.getMemberClassNames()).containsExactlyInAnyOrder(expected.getMemberClassNames());
+		assertThat(indexed.isIndependent()).isEqualTo(expected.isIndependent());
+		assertThat(indexed.isAbstract()).isEqualTo(expected.isAbstract());
+		assertThat(indexed.getAnnotationTypes()).isEqualTo(expected.getAnnotationTypes());
+		for (Class<?> annotationType : new Class<?>[] {Configuration.class, Import.class,
+				ComponentScan.class, PropertySource.class}) {
+			assertThat(normalize(indexed.getAnnotationAttributes(annotationType.getName())))
+					.isEqualTo(normalize(expected.getAnnotationAttributes(annotationType.getName())));
+		}
+
+		Map<String, MethodMetadata> indexedMethods = beanMethods(indexed);
+		Map<String, MethodMetadata> expectedMethods = beanMethods(expected);
+		assertThat(indexedMethods.keySet()).containsExactlyElementsOf(expectedMethods.keySet());
+		expectedMethods.forEach((name, expectedMethod) -> {
+			MethodMetadata indexedMethod = indexedMethods.get(name);
+			assertThat(indexedMethod.getReturnTypeName()).isEqualTo(expectedMethod.getReturnTypeName());
+			assertThat(indexedMethod.getDeclaringClassName()).isEqualTo(expectedMethod.getDeclaringClassName());
+			assertThat(indexedMethod.isStatic()).isEqualTo(expectedMethod.isStatic());
+			assertThat(indexedMethod.isOverridable()).isEqualTo(expectedMethod.isOverridable());
+			for (Class<?> annotationType : new Class<?>[] {Bean.class, Scope.class, Lazy.class}) {
+				assertThat(normalize(indexedMethod.getAnnotationAttributes(annotationType.getName())))
+						.isEqualTo(normalize(expectedMethod.getAnnotationAttributes(annotationType.getName())));
+			}
+		});
+	}
+
+	@Test
+	void indexedMetadataForNestedClass() throws Exception {
+		compile(SampleConfiguration.class);
+		AnnotationMetadata indexed = loadIndex().getAnnotationMetadata(NestedConfiguration.class.getName());
+		AnnotationMetadata expected = readClassFile(NestedConfiguration.class);
+		assertThat(indexed.getEnclosingClassName()).isEqualTo(expected.getEnclosingClassName());
+		assertThat(indexed.isIndependent()).isEqualTo(expected.isIndependent()).isTrue();
+		assertThat(beanMethods(indexed).get("letter").getReturnTypeName()).isEqualTo("char");
+	}
+
+	@Test
+	void indexIsUsedByConfigurationClassProcessing() throws Exception {
+		compile(SampleConfiguration.class);
+		try (URLClassLoader classLoader = createClassLoader()) {
+			AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+			context.setClassLoader(classLoader);
+			context.registerBeanDefinition("sampleConfiguration",
+					new RootBeanDefinition(SampleConfiguration.class.getName()));
+			context.refresh();
+			assertThat(context.getBean("name")).isEqualTo("sample");
+			assertThat(context.getBean("counter")).isEqualTo(42);
+			assertThat(context.getBean("names")).isEqualTo(new String[] {"first", "second"});
+			assertThat(context.getBeanNamesForType(SampleComponent.class)).hasSize(1);
+			context.close();
+		}
+	}
+
+
+	private List<ConfigurationClassMetadata> compile(Class<?>... types) {
+		CandidateComponentsIndexer processor = new CandidateComponentsIndexer();
+		this.compiler.getTask(types).call(processor);
+		File metadataFile = new File(this.compiler.getOutputLocation(), MetadataStore.CONFIGURATIONS_PATH);
+		if (!metadataFile.isFile()) {
+			return Collections.emptyList();
+		}
+		try (FileInputStream fileInputStream = new FileInputStream(metadataFile)) {
+			return PropertiesMarshaller.readConfigurationClasses(fileInputStream);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to read metadata from disk", ex);
+		}
+	}
+
+	private ConfigurationClassIndex loadIndex() throws IOException {
+		ConfigurationClassIndex index = ConfigurationClassIndexLoader.loadIndex(createClassLoader());
+		assertThat(index).isNotNull();
+		return index;
+	}
+
+	private URLClassLoader createClassLoader() throws IOException {
+		return new URLClassLoader(new URL[] {this.compiler.getOutputLocation().toURI().toURL()},
+				getClass().getClassLoader());
+	}
+
+	private static AnnotationMetadata readClassFile(Class<?> type) throws IOException {
+		return new SimpleMetadataReaderFactory(type.getClassLoader())
+				.getMetadataReader(type.getName()).getAnnotationMetadata();
+	}
+
+	/**
+	 * Convert arrays to lists so that attributes can be compared by value.
+	 */
+	private static Object normalize(Object value) {
+		if (value instanceof Map) {
+			Map<Object, Object> result = new LinkedHashMap<>();
+			((Map<?, ?>) value).forEach((key, nested) -> result.put(key, normalize(nested)));
+			return result;
+		}
+		if (value != null && value.getClass().isArray()) {
+			List<Object> result = new ArrayList<>();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				result.add(normalize(Array.get(value, i)));
+			}
+			return result;
+		}
+		return value;
+	}
+
+	private static Map<String, MethodMetadata> beanMethods(AnnotationMetadata metadata) {
+		return metadata.getAnnotatedMethods(Bean.class.getName()).stream().collect(
+				Collectors.toMap(MethodMetadata::getMethodName, Function.identity(), (a, b) -> a,
+						LinkedHashMap::new));
+	}
+
+}
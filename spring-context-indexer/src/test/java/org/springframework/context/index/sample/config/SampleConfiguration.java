@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleService;
+
+/**
+ * Test candidate for the configuration class index.
+ */
+@Configuration(proxyBeanMethods = false)
+@Import(SampleComponent.class)
+@ComponentScan(basePackages = "org.springframework.context.index.sample.none", lazyInit = true,
+		excludeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SampleService.class))
+@PropertySource(value = {"classpath:first.properties", "classpath:\"second\".properties"},
+		ignoreResourceNotFound = true)
+public class SampleConfiguration implements Runnable {
+
+	@Bean
+	@Lazy
+	public String name() {
+		return "sample";
+	}
+
+	@Bean(name = {"count", "counter"}, initMethod = "toString")
+	@Scope(scopeName = "prototype", proxyMode = ScopedProxyMode.NO)
+	public static Integer count() {
+		return 42;
+	}
+
+	@Bean
+	String[] names() {
+		return new String[] {"first", "second"};
+	}
+
+	@Override
+	public void run() {
+	}
+
+
+	@Configuration
+	public static class NestedConfiguration {
+
+		@Bean
+		public char letter() {
+			return 'a';
+		}
+	}
+
+}
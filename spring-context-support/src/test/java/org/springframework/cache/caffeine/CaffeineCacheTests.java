@@ -16,6 +16,10 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -79,4 +83,18 @@ public class CaffeineCacheTests extends AbstractValueAdaptingCacheTests<Caffeine
 		assertThat(cache.get(key).get()).isEqualTo(value);
 	}
 
+	@Test
+	public void testGetAllAndPutAll() {
+		CaffeineCache cache = getCache();
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("a", "one");
+		entries.put("b", null);
+		cache.putAll(entries);
+
+		Map<Object, Cache.ValueWrapper> hits = cache.getAll(Arrays.asList("a", "b", "c"));
+		assertThat(hits).containsOnlyKeys("a", "b");
+		assertThat(hits.get("a").get()).isEqualTo("one");
+		assertThat(hits.get("b").get()).isNull();
+	}
+
 }
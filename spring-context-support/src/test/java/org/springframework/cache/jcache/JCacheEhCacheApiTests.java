@@ -16,6 +16,10 @@
 
 package org.springframework.cache.jcache;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
@@ -24,9 +28,12 @@ import javax.cache.spi.CachingProvider;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheTests;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * @author Stephane Nicoll
  */
@@ -79,4 +86,18 @@ public class JCacheEhCacheApiTests extends AbstractValueAdaptingCacheTests<JCach
 		return this.nativeCache;
 	}
 
+	@Test
+	public void testGetAllAndPutAll() {
+		JCacheCache cache = getCache();
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("a", "one");
+		entries.put("b", null);
+		cache.putAll(entries);
+
+		Map<Object, org.springframework.cache.Cache.ValueWrapper> hits = cache.getAll(Arrays.asList("a", "b", "c"));
+		assertThat(hits).containsOnlyKeys("a", "b");
+		assertThat(hits.get("a").get()).isEqualTo("one");
+		assertThat(hits.get("b").get()).isNull();
+	}
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link AnnotationConfigApplicationContext#refresh()} against
+ * a large number of synthetic {@code @Component} classes, either registered
+ * directly or discovered through classpath scanning.
+ *
+ * <p>The component classes are generated once per trial and written to a
+ * temporary directory, so that scanning goes through the regular ASM-based
+ * metadata reading path just like for application classes.
+ *
+ * @since 5.2.23
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnnotationConfigApplicationContextBenchmark {
+
+	private static final String SYNTHETIC_PACKAGE = "org.springframework.context.annotation.synthetic";
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"1000", "10000"})
+		public int componentCount;
+
+		@Param({"register", "scan"})
+		public String mode;
+
+		public Path directory;
+
+		public URLClassLoader classLoader;
+
+		public Class<?>[] componentClasses;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.directory = Files.createTempDirectory("synthetic-components");
+			for (int i = 0; i < this.componentCount; i++) {
+				String className = SYNTHETIC_PACKAGE + ".SyntheticComponent" + i;
+				Path classFile = this.directory.resolve(className.replace('.', File.separatorChar) + ".class");
+				Files.createDirectories(classFile.getParent());
+				Files.write(classFile, generateComponentClass(className));
+			}
+			this.classLoader = new URLClassLoader(new URL[] {this.directory.toUri().toURL()},
+					getClass().getClassLoader());
+			this.componentClasses = new Class<?>[this.componentCount];
+			for (int i = 0; i < this.componentCount; i++) {
+				this.componentClasses[i] = this.classLoader.loadClass(SYNTHETIC_PACKAGE + ".SyntheticComponent" + i);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			this.classLoader.close();
+			FileSystemUtils.deleteRecursively(this.directory);
+		}
+	}
+
+
+	@Benchmark
+	public AnnotationConfigApplicationContext refresh(BenchmarkState state) {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(state.classLoader);
+		context.register(SharedDependency.class);
+		if ("scan".equals(state.mode)) {
+			context.scan(SYNTHETIC_PACKAGE);
+		}
+		else {
+			context.register(state.componentClasses);
+		}
+		context.refresh();
+		context.close();
+		return context;
+	}
+
+
+	/**
+	 * Generate a {@code @Component} subclass of {@link SyntheticComponentSupport}
+	 * with a public no-arg constructor.
+	 */
+	private static byte[] generateComponentClass(String className) {
+		String internalName = className.replace('.', '/');
+		String superName = Type.getInternalName(SyntheticComponentSupport.class);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, superName, null);
+		cw.visitAnnotation(Type.getDescriptor(Component.class), true).visitEnd();
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+
+	public static class SharedDependency {
+	}
+
+
+	public abstract static class SyntheticComponentSupport {
+
+		@Autowired
+		private SharedDependency dependency;
+
+		public SharedDependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+}
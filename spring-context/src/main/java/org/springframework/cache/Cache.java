@@ -16,7 +16,11 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.lang.Nullable;
 
@@ -100,6 +104,49 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key, without
+	 * blocking the calling thread on the underlying cache provider.
+	 * <p>The returned future completes with {@code null} if the cache contains
+	 * no mapping for this key; otherwise with a {@link ValueWrapper} holding
+	 * the cached value (which may be {@code null} itself), analogous to
+	 * {@link #get(Object)}.
+	 * <p>The default implementation delegates to {@link #get(Object)}, which
+	 * is appropriate for in-memory caches. Implementations backed by a remote
+	 * store should override this method with a non-blocking lookup.
+	 * @param key the key whose associated value is to be returned
+	 * @return a future for the value to which this cache maps the specified key
+	 * @since 5.2.23
+	 * @see #get(Object)
+	 */
+	default CompletableFuture<ValueWrapper> retrieve(Object key) {
+		return CompletableFuture.completedFuture(get(key));
+	}
+
+	/**
+	 * Return the values to which this cache maps the specified keys, ideally
+	 * in a single round trip to the underlying cache provider.
+	 * <p>The default implementation delegates to {@link #get(Object)} for each
+	 * key. Implementations backed by a store with a native bulk operation
+	 * should override this method.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key found in this cache to a {@link ValueWrapper}
+	 * holding its value (which may be {@code null} itself); keys without a
+	 * mapping are not contained in the map
+	 * @since 5.2.23
+	 * @see #get(Object)
+	 */
+	default Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
@@ -114,6 +161,22 @@ public interface Cache {
 	 */
 	void put(Object key, @Nullable Object value);
 
+	/**
+	 * Associate the specified values with the specified keys in this cache,
+	 * ideally in a single round trip to the underlying cache provider.
+	 * <p>The same deferral semantics as for {@link #put(Object, Object)} apply.
+	 * <p>The default implementation delegates to {@link #put(Object, Object)}
+	 * for each entry. Implementations backed by a store with a native bulk
+	 * operation should override this method.
+	 * @param entries the keys and values to be associated, with {@code null}
+	 * values as far as supported by this cache
+	 * @since 5.2.23
+	 * @see #put(Object, Object)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
 	/**
 	 * Atomically associate the specified value with the specified key in this cache
 	 * if it is not set already.
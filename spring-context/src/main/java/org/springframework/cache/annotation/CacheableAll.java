@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.core.annotation.AliasFor;
+
+/**
+ * Annotation indicating that the result of a bulk lookup method can be cached
+ * per key, e.g. for a method such as {@code Map<Long, User> findUsers(List<Long> ids)}.
+ *
+ * <p>The first parameter of type {@link java.util.Collection} (a {@code List},
+ * {@code Set} or {@code Collection}) holds the keys, each element being used
+ * as a cache key as-is. The method has to return a {@link java.util.Map} from
+ * key to value (declared as {@code Map} or {@code HashMap}).
+ *
+ * <p>Each time an advised method is invoked, the keys are looked up in bulk
+ * through {@link org.springframework.cache.Cache#getAll}. The method is only
+ * invoked for the missing keys, with a collection holding just those keys, and
+ * the entries it returns are stored through
+ * {@link org.springframework.cache.Cache#putAll} and merged with the cached
+ * ones, in the order of the requested keys. Keys absent from the returned map
+ * are not cached. Restricting the invocation to the missing keys relies on
+ * a cloned {@link org.springframework.aop.ProxyMethodInvocation} and leaves
+ * the caller's arguments untouched; other invocation mechanisms, such as the
+ * AspectJ cache aspect, invoke the method for all keys.
+ *
+ * <p>This annotation cannot be combined with other cache operations on the
+ * same method.
+ *
+ * @since 5.2.23
+ * @see Cacheable
+ * @see CacheConfig
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface CacheableAll {
+
+	/**
+	 * Alias for {@link #cacheNames}.
+	 */
+	@AliasFor("cacheNames")
+	String[] value() default {};
+
+	/**
+	 * Names of the caches in which the entries are stored.
+	 * <p>Caches are looked up in order for the keys still missing; entries
+	 * returned by the method are stored in all of them.
+	 * @see #value
+	 * @see CacheConfig#cacheNames
+	 */
+	@AliasFor("value")
+	String[] cacheNames() default {};
+
+	/**
+	 * The bean name of the custom {@link org.springframework.cache.CacheManager} to use to
+	 * create a default {@link org.springframework.cache.interceptor.CacheResolver} if none
+	 * is set already.
+	 * <p>Mutually exclusive with the {@link #cacheResolver} attribute.
+	 * @see org.springframework.cache.interceptor.SimpleCacheResolver
+	 * @see CacheConfig#cacheManager
+	 */
+	String cacheManager() default "";
+
+	/**
+	 * The bean name of the custom {@link org.springframework.cache.interceptor.CacheResolver}
+	 * to use.
+	 * @see CacheConfig#cacheResolver
+	 */
+	String cacheResolver() default "";
+
+	/**
+	 * Spring Expression Language (SpEL) expression used for making the
+	 * caching conditional, evaluated against the method arguments as for
+	 * {@link Cacheable#condition()}.
+	 * <p>Default is {@code ""}, meaning the entries are always cached.
+	 */
+	String condition() default "";
+
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheOperation;
 import org.springframework.cache.interceptor.CachePutOperation;
+import org.springframework.cache.interceptor.CacheableAllOperation;
 import org.springframework.cache.interceptor.CacheableOperation;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -36,7 +37,7 @@ import org.springframework.util.StringUtils;
 
 /**
  * Strategy implementation for parsing Spring's {@link Caching}, {@link Cacheable},
- * {@link CacheEvict}, and {@link CachePut} annotations.
+ * {@link CacheableAll}, {@link CacheEvict}, and {@link CachePut} annotations.
  *
  * @author Costin Leau
  * @author Juergen Hoeller
@@ -53,6 +54,7 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 
 	static {
 		CACHE_OPERATION_ANNOTATIONS.add(Cacheable.class);
+		CACHE_OPERATION_ANNOTATIONS.add(CacheableAll.class);
 		CACHE_OPERATION_ANNOTATIONS.add(CacheEvict.class);
 		CACHE_OPERATION_ANNOTATIONS.add(CachePut.class);
 		CACHE_OPERATION_ANNOTATIONS.add(Caching.class);
@@ -105,6 +107,8 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		final Collection<CacheOperation> ops = new ArrayList<>(1);
 		anns.stream().filter(ann -> ann instanceof Cacheable).forEach(
 				ann -> ops.add(parseCacheableAnnotation(ae, cachingConfig, (Cacheable) ann)));
+		anns.stream().filter(ann -> ann instanceof CacheableAll).forEach(
+				ann -> ops.add(parseCacheableAllAnnotation(ae, cachingConfig, (CacheableAll) ann)));
 		anns.stream().filter(ann -> ann instanceof CacheEvict).forEach(
 				ann -> ops.add(parseEvictAnnotation(ae, cachingConfig, (CacheEvict) ann)));
 		anns.stream().filter(ann -> ann instanceof CachePut).forEach(
@@ -136,6 +140,24 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		return op;
 	}
 
+	private CacheableAllOperation parseCacheableAllAnnotation(
+			AnnotatedElement ae, DefaultCacheConfig defaultConfig, CacheableAll cacheableAll) {
+
+		CacheableAllOperation.Builder builder = new CacheableAllOperation.Builder();
+
+		builder.setName(ae.toString());
+		builder.setCacheNames(cacheableAll.cacheNames());
+		builder.setCondition(cacheableAll.condition());
+		builder.setCacheManager(cacheableAll.cacheManager());
+		builder.setCacheResolver(cacheableAll.cacheResolver());
+
+		defaultConfig.applyDefault(builder);
+		CacheableAllOperation op = builder.build();
+		validateCacheOperation(ae, op);
+
+		return op;
+	}
+
 	private CacheEvictOperation parseEvictAnnotation(
 			AnnotatedElement ae, DefaultCacheConfig defaultConfig, CacheEvict cacheEvict) {
 
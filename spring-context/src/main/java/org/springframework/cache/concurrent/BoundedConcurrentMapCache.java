@@ -0,0 +1,605 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.core.serializer.support.SerializationDelegate;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation based on the core JDK
+ * {@code java.util.concurrent} package, limiting the number of entries and
+ * optionally expiring entries a given time after they have been written.
+ *
+ * <p>Entries are evicted according to a segmented LRU policy: new entries
+ * start out in a probationary segment and are promoted to a protected segment
+ * when accessed again, so that a scan over many keys which are used only once
+ * cannot displace the frequently used entries. Eviction candidates are taken
+ * from the least recently used end of the probationary segment first.
+ *
+ * <p>Reads are lock-free; access order is recorded on a best-effort basis and
+ * skipped under contention. Writes are serialized through a single lock which
+ * is never held while invoking a value loader.
+ *
+ * <p>Hit, miss and eviction counts are exposed via {@link #getStatistics()}.
+ *
+ * @since 5.2.23
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setExpireAfterWrite
+ */
+public class BoundedConcurrentMapCache extends AbstractValueAdaptingCache {
+
+	/** 两次全量清理过期条目之间至少间隔的写入次数 */
+	private static final int SWEEP_THRESHOLD = 64;
+
+
+	private final String name;
+
+	private final long maximumSize;
+
+	/** 保护段的容量上限，约为总容量的80% */
+	private final long protectedMaximumSize;
+
+	private final long expireAfterWriteNanos;
+
+	@Nullable
+	private final SerializationDelegate serialization;
+
+	private final LongSupplier ticker;
+
+	private final ConcurrentMap<Object, Node> store = new ConcurrentHashMap<>(256);
+
+	private final ConcurrentMap<Object, Load> loads = new ConcurrentHashMap<>(16);
+
+	/** 保护两条LRU链表以及对store的所有修改 */
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final Node probation = Node.sentinel();
+
+	private final Node protectedSegment = Node.sentinel();
+
+	private long protectedSize;
+
+	private boolean expiring;
+
+	/** 距下次全量清理剩余的写入次数：取上次清理后的条目数，使清理开销均摊到每次写入 */
+	private int writesUntilSweep = SWEEP_THRESHOLD;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and limits.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite the time after which an entry expires once it
+	 * has been written, or {@code null} for no expiration
+	 */
+	public BoundedConcurrentMapCache(String name, long maximumSize, @Nullable Duration expireAfterWrite) {
+		this(name, maximumSize, expireAfterWrite, true);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and limits.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite the time after which an entry expires once it
+	 * has been written, or {@code null} for no expiration
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 */
+	public BoundedConcurrentMapCache(String name, long maximumSize, @Nullable Duration expireAfterWrite,
+			boolean allowNullValues) {
+
+		this(name, maximumSize, expireAfterWrite, allowNullValues, null);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and limits.
+	 * If the {@link SerializationDelegate} is specified,
+	 * {@link #isStoreByValue() store-by-value} is enabled.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite the time after which an entry expires once it
+	 * has been written, or {@code null} for no expiration
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 * @param serialization the {@link SerializationDelegate} to use
+	 * to serialize cache entry or {@code null} to store the reference
+	 */
+	protected BoundedConcurrentMapCache(String name, long maximumSize, @Nullable Duration expireAfterWrite,
+			boolean allowNullValues, @Nullable SerializationDelegate serialization) {
+
+		this(name, maximumSize, expireAfterWrite, allowNullValues, serialization, System::nanoTime);
+	}
+
+	BoundedConcurrentMapCache(String name, long maximumSize, @Nullable Duration expireAfterWrite,
+			boolean allowNullValues, @Nullable SerializationDelegate serialization, LongSupplier ticker) {
+
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+		Assert.isTrue(expireAfterWrite == null || !expireAfterWrite.isNegative(),
+				"Expire-after-write duration must not be negative");
+		this.name = name;
+		this.maximumSize = maximumSize;
+		this.protectedMaximumSize = maximumSize - maximumSize / 5;
+		this.expireAfterWriteNanos = (expireAfterWrite != null ? expireAfterWrite.toNanos() : 0);
+		this.serialization = serialization;
+		this.ticker = ticker;
+		this.expiring = (this.expireAfterWriteNanos > 0);
+	}
+
+
+	/**
+	 * Return the maximum number of entries in this cache.
+	 */
+	public final long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Return the time after which an entry expires once it has been written,
+	 * or {@code null} if entries do not expire by default.
+	 */
+	@Nullable
+	public final Duration getExpireAfterWrite() {
+		return (this.expireAfterWriteNanos > 0 ? Duration.ofNanos(this.expireAfterWriteNanos) : null);
+	}
+
+	/**
+	 * Return whether this cache stores a copy of each entry ({@code true}) or
+	 * a reference ({@code false}, default). If store by value is enabled, each
+	 * entry in the cache must be serializable.
+	 */
+	public final boolean isStoreByValue() {
+		return (this.serialization != null);
+	}
+
+	/**
+	 * Return the current number of entries in this cache, possibly including
+	 * entries which have expired but have not been cleaned up yet.
+	 */
+	public int size() {
+		return this.store.size();
+	}
+
+	/**
+	 * Return a snapshot of the hit, miss and eviction counts of this cache.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum());
+	}
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, since the underlying
+	 * store holds internal entry holders rather than plain values.
+	 */
+	@Override
+	public final Object getNativeCache() {
+		return this;
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		Node node = getLiveNode(key);
+		if (node == null) {
+			this.missCount.increment();
+			return null;
+		}
+		this.hitCount.increment();
+		recordAccess(node);
+		return node.value;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+		// 同一个key的并发加载只执行一次，其余线程等待其结果；加载期间不持有写锁
+		Load load = new Load(() -> {
+			Node node = getLiveNode(key);
+			if (node != null) {
+				return node.value;
+			}
+			Object value = toStoreValue(valueLoader.call());
+			put(key, value, this.expireAfterWriteNanos, false);
+			return value;
+		});
+		Load existing = this.loads.putIfAbsent(key, load);
+		if (existing == null) {
+			try {
+				load.run();
+			}
+			finally {
+				this.loads.remove(key, load);
+			}
+		}
+		else {
+			if (existing.owner == Thread.currentThread()) {
+				// 加载器递归请求同一个key时直接失败，避免等待自身的加载结果
+				throw new IllegalStateException("Recursive load of key '" + key + "' in cache '" + this.name + "'");
+			}
+			load = existing;
+		}
+		try {
+			return (T) fromStoreValue(load.get());
+		}
+		catch (ExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		put(key, toStoreValue(value), this.expireAfterWriteNanos, false);
+	}
+
+	/**
+	 * Associate the specified value with the specified key in this cache,
+	 * expiring it after the given time instead of the cache's default.
+	 * @param key the key with which the specified value is to be associated
+	 * @param value the value to be associated with the specified key
+	 * @param timeToLive the time after which the entry expires
+	 */
+	public void put(Object key, @Nullable Object value, Duration timeToLive) {
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "Time to live must be positive");
+		put(key, toStoreValue(value), timeToLive.toNanos(), false);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		return toValueWrapper(put(key, toStoreValue(value), this.expireAfterWriteNanos, true));
+	}
+
+	@Override
+	public void evict(Object key) {
+		evictIfPresent(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		this.evictionLock.lock();
+		try {
+			Node node = this.store.remove(key);
+			if (node == null) {
+				return false;
+			}
+			unlink(node);
+			return !node.isExpired(this.ticker.getAsLong());
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		invalidate();
+	}
+
+	@Override
+	public boolean invalidate() {
+		this.evictionLock.lock();
+		try {
+			boolean notEmpty = !this.store.isEmpty();
+			this.store.clear();
+			unlinkAll(this.probation);
+			unlinkAll(this.protectedSegment);
+			this.protectedSize = 0;
+			this.writesUntilSweep = SWEEP_THRESHOLD;
+			return notEmpty;
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove all expired entries from this cache right away. Expired entries
+	 * are otherwise cleaned up when being accessed or, in amortized fashion,
+	 * while writing to the cache.
+	 */
+	public void cleanUp() {
+		this.evictionLock.lock();
+		try {
+			removeExpired(this.ticker.getAsLong());
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	protected Object toStoreValue(@Nullable Object userValue) {
+		Object storeValue = super.toStoreValue(userValue);
+		if (this.serialization != null) {
+			try {
+				return this.serialization.serializeToByteArray(storeValue);
+			}
+			catch (Throwable ex) {
+				throw new IllegalArgumentException("Failed to serialize cache value '" + userValue +
+						"'. Does it implement Serializable?", ex);
+			}
+		}
+		else {
+			return storeValue;
+		}
+	}
+
+	@Override
+	protected Object fromStoreValue(@Nullable Object storeValue) {
+		if (storeValue != null && this.serialization != null) {
+			try {
+				return super.fromStoreValue(this.serialization.deserializeFromByteArray((byte[]) storeValue));
+			}
+			catch (Throwable ex) {
+				throw new IllegalArgumentException("Failed to deserialize cache value '" + storeValue + "'", ex);
+			}
+		}
+		else {
+			return super.fromStoreValue(storeValue);
+		}
+	}
+
+
+	/**
+	 * Return the node for the given key unless it has expired, in which case
+	 * it is removed from the cache.
+	 */
+	@Nullable
+	private Node getLiveNode(Object key) {
+		Node node = this.store.get(key);
+		if (node != null && node.isExpired(this.ticker.getAsLong())) {
+			this.evictionLock.lock();
+			try {
+				if (this.store.remove(key, node)) {
+					unlink(node);
+					this.evictionCount.increment();
+				}
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+			return null;
+		}
+		return node;
+	}
+
+	/**
+	 * Write the given store value, returning the previous live store value
+	 * (if any) in case of {@code onlyIfAbsent}.
+	 */
+	@Nullable
+	private Object put(Object key, Object storeValue, long timeToLiveNanos, boolean onlyIfAbsent) {
+		long now = this.ticker.getAsLong();
+		long expiresAt = (timeToLiveNanos > 0 ? now + timeToLiveNanos : 0);
+		this.evictionLock.lock();
+		try {
+			if (expiresAt != 0) {
+				this.expiring = true;
+			}
+			Node node = this.store.get(key);
+			if (node != null && node.isExpired(now)) {
+				this.store.remove(key);
+				unlink(node);
+				this.evictionCount.increment();
+				node = null;
+			}
+			if (node != null) {
+				if (onlyIfAbsent) {
+					return node.value;
+				}
+				node.value = storeValue;
+				node.expiresAt = expiresAt;
+				moveToMostRecent(node);
+			}
+			else {
+				node = new Node(key, storeValue, expiresAt);
+				this.store.put(key, node);
+				link(node, this.probation);
+			}
+			if (this.expiring && --this.writesUntilSweep <= 0) {
+				removeExpired(now);
+			}
+			evictIfNecessary();
+			return null;
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void recordAccess(Node node) {
+		// 读路径只尝试获取锁：竞争激烈时放弃本次访问记录，而不阻塞读取
+		if (this.evictionLock.tryLock()) {
+			try {
+				if (node.prev != null) {
+					moveToMostRecent(node);
+				}
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void moveToMostRecent(Node node) {
+		if (node.inProtected) {
+			unlink(node);
+			link(node, this.protectedSegment);
+		}
+		else {
+			// 试用段中再次被访问的条目晋升到保护段，保护段溢出时将其最久未用的条目降级回试用段
+			unlink(node);
+			link(node, this.protectedSegment);
+			while (this.protectedSize > this.protectedMaximumSize) {
+				Node demoted = this.protectedSegment.next;
+				unlink(demoted);
+				link(demoted, this.probation);
+			}
+		}
+	}
+
+	private void evictIfNecessary() {
+		while (this.store.size() > this.maximumSize) {
+			Node victim = (this.probation.next != this.probation ? this.probation.next : this.protectedSegment.next);
+			if (victim == this.protectedSegment) {
+				return;
+			}
+			this.store.remove(victim.key, victim);
+			unlink(victim);
+			this.evictionCount.increment();
+		}
+	}
+
+	private void removeExpired(long now) {
+		for (Iterator<Node> it = this.store.values().iterator(); it.hasNext();) {
+			Node node = it.next();
+			if (node.isExpired(now)) {
+				it.remove();
+				unlink(node);
+				this.evictionCount.increment();
+			}
+		}
+		this.writesUntilSweep = Math.max(SWEEP_THRESHOLD, this.store.size());
+	}
+
+	private void link(Node node, Node segment) {
+		node.inProtected = (segment == this.protectedSegment);
+		if (node.inProtected) {
+			this.protectedSize++;
+		}
+		node.prev = segment.prev;
+		node.next = segment;
+		segment.prev.next = node;
+		segment.prev = node;
+	}
+
+	private void unlink(Node node) {
+		if (node.prev == null) {
+			return;
+		}
+		if (node.inProtected) {
+			this.protectedSize--;
+		}
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+	}
+
+	private static void unlinkAll(Node segment) {
+		Node node = segment.next;
+		while (node != segment) {
+			Node next = node.next;
+			node.prev = null;
+			node.next = null;
+			node = next;
+		}
+		segment.prev = segment;
+		segment.next = segment;
+	}
+
+
+	/**
+	 * Cache entry, linked into one of the two LRU segments while present.
+	 */
+	private static final class Node {
+
+		@Nullable
+		final Object key;
+
+		volatile Object value;
+
+		/** 过期时间点（纳秒），为0表示永不过期 */
+		volatile long expiresAt;
+
+		/** 以下字段均由evictionLock保护 */
+		boolean inProtected;
+
+		@Nullable
+		Node prev;
+
+		@Nullable
+		Node next;
+
+		Node(@Nullable Object key, Object value, long expiresAt) {
+			this.key = key;
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		static Node sentinel() {
+			Node sentinel = new Node(null, Boolean.TRUE, 0);
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			return sentinel;
+		}
+
+		boolean isExpired(long now) {
+			long expiresAt = this.expiresAt;
+			return (expiresAt != 0 && now - expiresAt >= 0);
+		}
+	}
+
+
+	/**
+	 * In-flight value load, remembering the thread that runs it.
+	 */
+	private static final class Load extends FutureTask<Object> {
+
+		final Thread owner = Thread.currentThread();
+
+		Load(Callable<Object> callable) {
+			super(callable);
+		}
+	}
+
+}
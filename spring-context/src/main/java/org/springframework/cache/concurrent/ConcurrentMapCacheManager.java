@@ -16,6 +16,7 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,8 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +38,13 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>Caches are unbounded by default. A {@link #setMaximumSize maximum size}
+ * and/or an {@link #setExpireAfterWrite expire-after-write} duration switch
+ * to {@link BoundedConcurrentMapCache} instances with the given limits.
+ *
+ * <p>Note: This is by no means a sophisticated CacheManager; it comes with
+ * only basic cache configuration options. However, it may be useful for
+ * testing or simple caching scenarios. For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager},
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
@@ -45,6 +52,7 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.1
  * @see ConcurrentMapCache
+ * @see BoundedConcurrentMapCache
  */
 public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderAware {
 
@@ -56,6 +64,11 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 
 	private boolean storeByValue = false;
 
+	private long maximumSize = 0;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
 	@Nullable
 	private SerializationDelegate serialization;
 
@@ -146,6 +159,63 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries for each cache in this cache manager,
+	 * evicting entries beyond that limit according to a segmented LRU policy.
+	 * <p>Default is "0", i.e. unbounded caches.
+	 * <p>Note: A change of the maximum size will reset all existing caches,
+	 * if any, to reconfigure them with the new limit.
+	 * @since 5.2.23
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setMaximumSize(long maximumSize) {
+		Assert.isTrue(maximumSize >= 0, "Maximum size must not be negative");
+		if (maximumSize != this.maximumSize) {
+			this.maximumSize = maximumSize;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the maximum number of entries for each cache in this cache manager,
+	 * or "0" for unbounded caches.
+	 * @since 5.2.23
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Specify the time after which an entry expires once it has been written,
+	 * for all caches in this cache manager.
+	 * <p>Default is none, i.e. entries do not expire.
+	 * <p>Note: A change of the expiration setting will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration.
+	 * @since 5.2.23
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		Assert.isTrue(expireAfterWrite == null || !expireAfterWrite.isNegative(),
+				"Expire-after-write duration must not be negative");
+		if (expireAfterWrite != null && expireAfterWrite.isZero()) {
+			expireAfterWrite = null;
+		}
+		if (!ObjectUtils.nullSafeEquals(expireAfterWrite, this.expireAfterWrite)) {
+			this.expireAfterWrite = expireAfterWrite;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the time after which an entry expires once it has been written,
+	 * or {@code null} if entries do not expire.
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public Duration getExpireAfterWrite() {
+		return this.expireAfterWrite;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -185,11 +255,18 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 
 	/**
 	 * Create a new ConcurrentMapCache instance for the specified cache name.
+	 * <p>Creates a {@link BoundedConcurrentMapCache} if a maximum size or
+	 * an expire-after-write duration has been specified.
 	 * @param name the name of the cache
 	 * @return the ConcurrentMapCache (or a decorator thereof)
 	 */
 	protected Cache createConcurrentMapCache(String name) {
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
+		if (this.maximumSize > 0 || this.expireAfterWrite != null) {
+			long actualMaximumSize = (this.maximumSize > 0 ? this.maximumSize : Long.MAX_VALUE);
+			return new BoundedConcurrentMapCache(name, actualMaximumSize, this.expireAfterWrite,
+					isAllowNullValues(), actualSerialization);
+		}
 		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256), isAllowNullValues(), actualSerialization);
 	}
 
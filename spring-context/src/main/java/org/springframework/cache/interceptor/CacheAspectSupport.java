@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,15 +21,25 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -44,6 +54,9 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -70,6 +83,15 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Methods returning a {@link CompletableFuture}, or a reactive type such as
+ * {@code Mono} or {@code Flux} if Reactor is present, are cached by their
+ * resolved value (a {@code List} for multi-value types), using the
+ * non-blocking {@link Cache#retrieve(Object)} for lookups. Concurrent
+ * misses for the same cache keys share a single in-flight invocation.
+ * If the lookup completes immediately, the method is invoked on the calling
+ * thread; otherwise it is invoked through the {@linkplain #setAsyncExecutor
+ * async executor} rather than on a thread of the cache provider.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -84,6 +106,18 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	/**
+	 * System property that instructs Spring to coalesce concurrent cache misses
+	 * by default: {@code "spring.cache.single-flight"}.
+	 * @since 5.2.23
+	 * @see #setSingleFlight
+	 */
+	public static final String SINGLE_FLIGHT_PROPERTY_NAME = "spring.cache.single-flight";
+
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
@@ -101,6 +135,20 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	private boolean singleFlight = SpringProperties.getFlag(SINGLE_FLIGHT_PROPERTY_NAME);
+
+	@Nullable
+	private Executor asyncExecutor;
+
+	/** 正在执行中的缓存未命中调用：相同方法、相同缓存key的并发未命中共享同一次调用 */
+	private final Map<Object, InFlightInvocation> inFlightInvocations = new ConcurrentHashMap<>(64);
+
+	/** 异步返回类型的缓存未命中调用：始终合并相同缓存key的并发加载 */
+	private final Map<Object, CompletableFuture<Object>> inFlightAsyncInvocations = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler = (reactorPresent ? new ReactiveCachingHandler() : null);
+
 	private boolean initialized = false;
 
 
@@ -195,6 +243,58 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Specify whether concurrent cache misses for the same method and the same
+	 * cache keys should share a single invocation of the underlying method.
+	 * <p>The first caller invokes the method and applies the resulting cache
+	 * puts as usual; callers missing the cache while that invocation is in
+	 * flight wait for it and receive its result (or exception). In contrast
+	 * to {@code @Cacheable(sync=true)}, this works with any {@link Cache}
+	 * implementation, multiple caches and {@code unless} conditions.
+	 * <p>The default is "false", unless the {@value #SINGLE_FLIGHT_PROPERTY_NAME}
+	 * system property has been set to "true".
+	 * @since 5.2.23
+	 */
+	public void setSingleFlight(boolean singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	/**
+	 * Return whether concurrent cache misses share a single invocation.
+	 * @since 5.2.23
+	 */
+	public boolean isSingleFlight() {
+		return this.singleFlight;
+	}
+
+	/**
+	 * Set the executor to invoke methods with an asynchronous return type on
+	 * after a cache miss, if the {@link Cache#retrieve(Object)} lookup did not
+	 * complete immediately.
+	 * <p>Lookups completing immediately, e.g. for in-memory caches, proceed on
+	 * the calling thread, so that thread-bound state such as a transaction or
+	 * security context remains available to the method. Otherwise the method
+	 * is not invoked on the thread completing the lookup, which typically
+	 * belongs to the I/O infrastructure of the cache client, but through this
+	 * executor; thread-bound state of the caller is not available then.
+	 * <p>The default is the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common pool}, as with {@link CompletableFuture#thenComposeAsync(Function)}.
+	 * @since 5.2.23
+	 */
+	public void setAsyncExecutor(@Nullable Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * Return the executor to invoke methods with an asynchronous return type
+	 * on after an asynchronously completed cache lookup, if any.
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public Executor getAsyncExecutor() {
+		return this.asyncExecutor;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -372,6 +472,23 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		// Special handling of multi-key operations
+		Collection<CacheOperationContext> bulkContexts = contexts.get(CacheableAllOperation.class);
+		if (!bulkContexts.isEmpty()) {
+			return executeAll(invoker, method, bulkContexts.iterator().next());
+		}
+
+		// Special handling of asynchronous return types
+		if (method.getReturnType() == CompletableFuture.class) {
+			return executeAsync(invoker, method, contexts, returnValue -> (CompletableFuture<?>) returnValue);
+		}
+		if (this.reactiveCachingHandler != null) {
+			ReactiveAdapter adapter = this.reactiveCachingHandler.getAdapter(method.getReturnType());
+			if (adapter != null) {
+				return this.reactiveCachingHandler.executeReactive(invoker, method, contexts, adapter);
+			}
+		}
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
@@ -408,6 +525,16 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 					CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
 		}
 
+		if (cacheHit == null && this.singleFlight && !cachePutRequests.isEmpty()) {
+			return executeSingleFlight(invoker, method, contexts, cachePutRequests);
+		}
+		return invokeAndCache(invoker, method, contexts, cacheHit, cachePutRequests);
+	}
+
+	@Nullable
+	private Object invokeAndCache(CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts,
+			@Nullable Cache.ValueWrapper cacheHit, List<CachePutRequest> cachePutRequests) {
+
 		Object cacheValue;
 		Object returnValue;
 
@@ -436,6 +563,297 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	@Nullable
+	private Object executeSingleFlight(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, List<CachePutRequest> cachePutRequests) {
+
+		Object flightKey = createFlightKey(method, cachePutRequests);
+		InFlightInvocation flight = new InFlightInvocation();
+		InFlightInvocation existing = this.inFlightInvocations.putIfAbsent(flightKey, flight);
+		if (existing == null) {
+			try {
+				Object returnValue = invokeAndCache(invoker, method, contexts, null, cachePutRequests);
+				flight.result.complete(returnValue);
+				return returnValue;
+			}
+			catch (Throwable ex) {
+				flight.result.completeExceptionally(ex);
+				throw ex;
+			}
+			finally {
+				// 缓存写入已完成，之后的调用者可以直接命中缓存
+				this.inFlightInvocations.remove(flightKey, flight);
+			}
+		}
+		// 同一线程的递归调用不能等待自己，按普通未命中处理
+		if (existing.leader != Thread.currentThread()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Joining in-flight invocation of " + method + " for cache keys " + flightKey);
+			}
+			Object returnValue;
+			try {
+				returnValue = existing.result.get();
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw (RuntimeException) cause;
+			}
+			catch (InterruptedException ex) {
+				// 不再自行调用方法，将中断作为调用失败传播给调用者
+				Thread.currentThread().interrupt();
+				throw new CacheOperationInvoker.ThrowableWrapper(ex);
+			}
+			processJoinedInvocationResult(contexts, unwrapReturnValue(returnValue));
+			return returnValue;
+		}
+		return invokeAndCache(invoker, method, contexts, null, cachePutRequests);
+	}
+
+	/**
+	 * Process the cache operations of a caller that joined the in-flight
+	 * invocation of another caller, based on the shared result.
+	 * <p>The {@code @Cacheable} puts have been applied by the invoking caller
+	 * already, so only this caller's own {@code @CachePut} operations and late
+	 * evictions remain to be processed.
+	 */
+	private void processJoinedInvocationResult(CacheOperationContexts contexts, @Nullable Object cacheValue) {
+		List<CachePutRequest> cachePutRequests = new LinkedList<>();
+		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			cachePutRequest.apply(cacheValue);
+		}
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+	}
+
+	/**
+	 * Execute a multi-key cacheable operation: look up all requested keys in
+	 * bulk, invoke the method for the missing keys only and merge the results.
+	 * @see org.springframework.cache.annotation.CacheableAll
+	 */
+	@Nullable
+	private Object executeAll(CacheOperationInvoker invoker, Method method, CacheOperationContext context) {
+		int keysIndex = getKeysParameterIndex(method);
+		Object[] args = context.getArgs();
+		Collection<?> keys = (Collection<?>) args[keysIndex];
+		if (keys == null || !isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+			return invokeOperation(invoker);
+		}
+
+		Map<Object, Cache.ValueWrapper> cacheHits = new HashMap<>();
+		Set<Object> missingKeys = new LinkedHashSet<>(keys);
+		for (Cache cache : context.getCaches()) {
+			if (missingKeys.isEmpty()) {
+				break;
+			}
+			Map<Object, Cache.ValueWrapper> hits = doGetAll(cache, new ArrayList<>(missingKeys));
+			hits.forEach((key, wrapper) -> {
+				if (missingKeys.remove(key)) {
+					cacheHits.put(key, wrapper);
+				}
+			});
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace(cacheHits.size() + " of " + keys.size() + " keys found in cache(s) " +
+					context.getCacheNames() + " for " + method);
+		}
+
+		Map<?, ?> invocationResult = Collections.emptyMap();
+		if (!missingKeys.isEmpty()) {
+			// 在参数副本中替换为缺失的key，调用者及外层拦截器看到的参数保持不变
+			Object[] missingKeysArgs = args.clone();
+			missingKeysArgs[keysIndex] = adaptKeys(missingKeys, method.getParameterTypes()[keysIndex]);
+			Object returnValue = invokeOperation(() -> invoker.invoke(missingKeysArgs));
+			if (returnValue != null) {
+				invocationResult = (Map<?, ?>) returnValue;
+				if (!invocationResult.isEmpty()) {
+					for (Cache cache : context.getCaches()) {
+						doPutAll(cache, invocationResult);
+					}
+				}
+			}
+		}
+
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			Cache.ValueWrapper cacheHit = cacheHits.get(key);
+			if (cacheHit != null) {
+				result.put(key, cacheHit.get());
+			}
+			else if (invocationResult.containsKey(key)) {
+				result.put(key, invocationResult.get(key));
+			}
+		}
+		return result;
+	}
+
+	private static int getKeysParameterIndex(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("@CacheableAll requires a Collection parameter holding the keys on '" +
+				method + "'");
+	}
+
+	private static Collection<Object> adaptKeys(Set<Object> keys, Class<?> parameterType) {
+		if (parameterType.isAssignableFrom(ArrayList.class)) {
+			return new ArrayList<>(keys);
+		}
+		if (parameterType.isAssignableFrom(LinkedHashSet.class)) {
+			return keys;
+		}
+		throw new IllegalStateException("Unsupported @CacheableAll keys parameter type [" +
+				parameterType.getName() + "]: expected List, Set or Collection");
+	}
+
+	/**
+	 * Execute the cache operations for a method with an asynchronous return type,
+	 * based on the value that the returned future or publisher resolves to.
+	 * @param valueAdapter adapts the return value of the method to a future
+	 * for the value to cache
+	 * @return a future for the cached or resolved value
+	 */
+	private CompletableFuture<Object> executeAsync(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, Function<Object, CompletableFuture<?>> valueAdapter) {
+
+		CompletableFuture<Cache.ValueWrapper> cacheHitFuture;
+		try {
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+					CacheOperationExpressionEvaluator.NO_RESULT);
+			cacheHitFuture = findCachedItemAsync(contexts.get(CacheableOperation.class));
+		}
+		catch (RuntimeException ex) {
+			return failedFuture(ex);
+		}
+		Function<Cache.ValueWrapper, CompletableFuture<Object>> resultFunction = cacheHit -> {
+			List<CachePutRequest> cachePutRequests = new LinkedList<>();
+			if (cacheHit == null) {
+				collectPutRequests(contexts.get(CacheableOperation.class),
+						CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+			}
+			if (cacheHit != null && !hasCachePut(contexts)) {
+				Object cacheValue = cacheHit.get();
+				processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+				return CompletableFuture.completedFuture(cacheValue);
+			}
+			if (cacheHit == null && !cachePutRequests.isEmpty()) {
+				return invokeAsyncShared(invoker, method, contexts, cachePutRequests, valueAdapter);
+			}
+			return invokeAsync(invoker, contexts, cachePutRequests, valueAdapter);
+		};
+		if (cacheHitFuture.isDone()) {
+			// 查找已同步完成：在调用线程上执行方法，保留事务、安全上下文等线程绑定的状态
+			return cacheHitFuture.thenCompose(resultFunction);
+		}
+		// 查找异步完成：不在缓存客户端的I/O线程上执行方法
+		Executor executor = this.asyncExecutor;
+		return (executor != null ? cacheHitFuture.thenComposeAsync(resultFunction, executor) :
+				cacheHitFuture.thenComposeAsync(resultFunction));
+	}
+
+	/**
+	 * Invoke the method, sharing the invocation with concurrent misses for
+	 * the same cache keys.
+	 */
+	private CompletableFuture<Object> invokeAsyncShared(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, List<CachePutRequest> cachePutRequests,
+			Function<Object, CompletableFuture<?>> valueAdapter) {
+
+		Object flightKey = createFlightKey(method, cachePutRequests);
+		CompletableFuture<Object> shared = new CompletableFuture<>();
+		CompletableFuture<Object> existing = this.inFlightAsyncInvocations.putIfAbsent(flightKey, shared);
+		if (existing != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Joining in-flight invocation of " + method + " for cache keys " + flightKey);
+			}
+			// 每个调用者获得独立的依赖future，取消时不会影响共享的加载；结果可用后执行本调用自身的缓存操作
+			return existing.thenApply(cacheValue -> {
+				processJoinedInvocationResult(contexts, cacheValue);
+				return cacheValue;
+			});
+		}
+		invokeAsync(invoker, contexts, cachePutRequests, valueAdapter).whenComplete((value, ex) -> {
+			this.inFlightAsyncInvocations.remove(flightKey, shared);
+			if (ex != null) {
+				shared.completeExceptionally(ex);
+			}
+			else {
+				shared.complete(value);
+			}
+		});
+		return shared.thenApply(Function.identity());
+	}
+
+	private CompletableFuture<Object> invokeAsync(CacheOperationInvoker invoker, CacheOperationContexts contexts,
+			List<CachePutRequest> cachePutRequests, Function<Object, CompletableFuture<?>> valueAdapter) {
+
+		CompletableFuture<?> valueFuture;
+		try {
+			Object returnValue = invokeOperation(invoker);
+			valueFuture = (returnValue != null ? valueAdapter.apply(returnValue) :
+					CompletableFuture.completedFuture(null));
+		}
+		catch (CacheOperationInvoker.ThrowableWrapper ex) {
+			return failedFuture(ex.getOriginal());
+		}
+		return valueFuture.thenApply(cacheValue -> {
+			collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
+			for (CachePutRequest cachePutRequest : cachePutRequests) {
+				cachePutRequest.apply(cacheValue);
+			}
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+			return cacheValue;
+		});
+	}
+
+	/**
+	 * Find a cached item only for {@link CacheableOperation} that passes the
+	 * condition, looking up the caches one after the other without blocking.
+	 * @param contexts the cacheable operations
+	 * @return a future for the {@link Cache.ValueWrapper} holding the cached
+	 * item, completing with {@code null} if none is found
+	 */
+	private CompletableFuture<Cache.ValueWrapper> findCachedItemAsync(Collection<CacheOperationContext> contexts) {
+		CompletableFuture<Cache.ValueWrapper> result = CompletableFuture.completedFuture(null);
+		for (CacheOperationContext context : contexts) {
+			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
+				for (Cache cache : context.getCaches()) {
+					result = result.thenCompose(cacheHit ->
+							(cacheHit != null ? CompletableFuture.completedFuture(cacheHit) : doRetrieve(cache, key)));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static CompletableFuture<Object> failedFuture(Throwable ex) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		future.completeExceptionally(ex);
+		return future;
+	}
+
+	/**
+	 * Create the key identifying an invocation in flight: the method and each
+	 * cache / key combination it is about to populate.
+	 */
+	private Object createFlightKey(Method method, List<CachePutRequest> cachePutRequests) {
+		List<Object> elements = new ArrayList<>();
+		elements.add(method);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			for (Cache cache : cachePutRequest.context.getCaches()) {
+				elements.add(cache);
+				elements.add(cachePutRequest.key);
+			}
+		}
+		return new SimpleKey(elements.toArray());
+	}
+
 	@Nullable
 	private Object handleSynchronizedGet(CacheOperationInvoker invoker, Object key, Cache cache) {
 		InvocationAwareResult invocationResult = new InvocationAwareResult();
@@ -615,6 +1033,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
 			}
 			this.sync = determineSyncFlag(method);
+			validateBulkOperation(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -661,6 +1080,21 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private void validateBulkOperation(Method method) {
+			List<CacheOperationContext> bulkContexts = this.contexts.get(CacheableAllOperation.class);
+			if (bulkContexts == null) {
+				return;
+			}
+			if (this.contexts.size() > 1 || bulkContexts.size() > 1) {
+				throw new IllegalStateException(
+						"@CacheableAll cannot be combined with other cache operations on '" + method + "'");
+			}
+			if (!method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+				throw new IllegalStateException(
+						"@CacheableAll requires a Map return type on '" + method + "'");
+			}
+		}
 	}
 
 
@@ -717,6 +1151,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		@Nullable
 		private Boolean conditionPassing;
 
+		/** 同一次调用内的多次求值（condition/key/unless）复用同一个求值上下文 */
+		@Nullable
+		private EvaluationContext evaluationContext;
+
 		public CacheOperationContext(CacheOperationMetadata metadata, Object[] args, Object target) {
 			this.metadata = metadata;
 			this.args = extractArgs(metadata.method, args);
@@ -798,8 +1236,18 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		private EvaluationContext createEvaluationContext(@Nullable Object result) {
-			return evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
-					this.target, this.metadata.targetClass, this.metadata.targetMethod, result, beanFactory);
+			EvaluationContext evaluationContext = this.evaluationContext;
+			if (evaluationContext == null) {
+				evaluationContext = evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
+						this.target, this.metadata.targetClass, this.metadata.targetMethod, result, beanFactory);
+				this.evaluationContext = evaluationContext;
+			}
+			else {
+				// 清除之前的求值中赋值的变量，各表达式之间互不可见
+				((CacheEvaluationContext) evaluationContext).clearAssignedVariables();
+				evaluator.setResult(evaluationContext, result);
+			}
+			return evaluationContext;
 		}
 
 		protected Collection<? extends Cache> getCaches() {
@@ -885,6 +1333,49 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		@Nullable
+		public ReactiveAdapter getAdapter(Class<?> returnType) {
+			ReactiveAdapter adapter = this.registry.getAdapter(returnType);
+			return (adapter != null && !adapter.isNoValue() ? adapter : null);
+		}
+
+		public Object executeReactive(CacheOperationInvoker invoker, Method method,
+				CacheOperationContexts contexts, ReactiveAdapter adapter) {
+
+			// 延迟到订阅时执行，与响应式类型的惰性语义一致；多值类型以List形式缓存
+			if (adapter.isMultiValue()) {
+				Flux<?> flux = Mono.defer(() -> Mono.fromFuture(executeAsync(invoker, method, contexts,
+						returnValue -> Flux.from(adapter.toPublisher(returnValue)).collectList().toFuture())))
+						.flatMapIterable(list -> (List<?>) list);
+				return adapter.fromPublisher(flux);
+			}
+			else {
+				Mono<?> mono = Mono.defer(() -> Mono.fromFuture(executeAsync(invoker, method, contexts,
+						returnValue -> Mono.from(adapter.toPublisher(returnValue)).toFuture())));
+				return adapter.fromPublisher(mono);
+			}
+		}
+	}
+
+
+	/**
+	 * Internal holder for an invocation shared between concurrent cache misses.
+	 */
+	private static class InFlightInvocation {
+
+		final Thread leader = Thread.currentThread();
+
+		final CompletableFuture<Object> result = new CompletableFuture<>();
+	}
+
+
 	/**
 	 * Internal holder class for recording that a cache method was invoked.
 	 */
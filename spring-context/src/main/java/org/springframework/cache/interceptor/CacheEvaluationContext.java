@@ -46,6 +46,11 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 
 	private final Set<String> unavailableVariables = new HashSet<>(1);
 
+	/** 求值期间赋值的变量，在复用此上下文进行下一次求值前清除 */
+	private final Set<String> assignedVariables = new HashSet<>(2);
+
+	private boolean loadingArguments;
+
 
 	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
 			ParameterNameDiscoverer parameterNameDiscoverer) {
@@ -53,6 +58,12 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		super(rootObject, method, arguments, parameterNameDiscoverer);
 	}
 
+	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
+			@Nullable String[] parameterNames) {
+
+		super(rootObject, method, arguments, parameterNames);
+	}
+
 
 	/**
 	 * Add the specified variable name as unavailable for that context.
@@ -65,6 +76,45 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		this.unavailableVariables.add(name);
 	}
 
+	/**
+	 * Make the specified variable available again, e.g. when reusing
+	 * this context once the variable can be provided.
+	 * @since 5.2.23
+	 */
+	public void removeUnavailableVariable(String name) {
+		this.unavailableVariables.remove(name);
+	}
+
+	/**
+	 * Return whether any variable has been marked as unavailable.
+	 * @since 5.2.23
+	 */
+	public boolean hasUnavailableVariables() {
+		return !this.unavailableVariables.isEmpty();
+	}
+
+
+	/**
+	 * Remove all variables set since the last call, e.g. through an assignment
+	 * in an expression, so that this context can be reused for evaluating
+	 * another expression without exposing them.
+	 * @since 5.2.23
+	 */
+	public void clearAssignedVariables() {
+		for (String name : this.assignedVariables) {
+			super.setVariable(name, null);
+		}
+		this.assignedVariables.clear();
+	}
+
+
+	@Override
+	public void setVariable(@Nullable String name, @Nullable Object value) {
+		super.setVariable(name, value);
+		if (name != null && !this.loadingArguments) {
+			this.assignedVariables.add(name);
+		}
+	}
 
 	/**
 	 * Load the param information only when needed.
@@ -78,4 +128,16 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		return super.lookupVariable(name);
 	}
 
+	@Override
+	protected void lazyLoadArguments() {
+		// 参数变量在上下文的整个生命周期内保持可用
+		this.loadingArguments = true;
+		try {
+			super.lazyLoadArguments();
+		}
+		finally {
+			this.loadingArguments = false;
+		}
+	}
+
 }
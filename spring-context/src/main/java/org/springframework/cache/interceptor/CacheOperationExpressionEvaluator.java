@@ -35,7 +35,10 @@ import org.springframework.lang.Nullable;
  * Meant to be used as a reusable, thread-safe component.
  *
  * <p>Performs internal caching for performance reasons
- * using {@link AnnotatedElementKey}.
+ * using {@link AnnotatedElementKey}. Evaluation contexts resolve method
+ * arguments by index against parameter names cached per method, and may be
+ * reused for several evaluations within the same invocation through
+ * {@link #setResult}.
  *
  * @author Costin Leau
  * @author Phillip Webb
@@ -67,6 +70,9 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
+	/** 结果变量不可用时求值的条件表达式：预期会频繁失败，因此不参与编译 */
+	private final Map<ExpressionKey, Expression> unavailableResultConditionCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Create an {@link EvaluationContext}.
@@ -86,27 +92,46 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		CacheExpressionRootObject rootObject = new CacheExpressionRootObject(
 				caches, method, args, target, targetClass);
 		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(
-				rootObject, targetMethod, args, getParameterNameDiscoverer());
-		if (result == RESULT_UNAVAILABLE) {
-			evaluationContext.addUnavailableVariable(RESULT_VARIABLE);
-		}
-		else if (result != NO_RESULT) {
-			evaluationContext.setVariable(RESULT_VARIABLE, result);
-		}
+				rootObject, targetMethod, args, getParameterNames(targetMethod));
+		setResult(evaluationContext, result);
 		if (beanFactory != null) {
 			evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
 		}
 		return evaluationContext;
 	}
 
+	/**
+	 * Expose the given result in an existing {@link EvaluationContext}
+	 * created by this evaluator, replacing any previous result.
+	 * @param evaluationContext the evaluation context to update
+	 * @param result the return value (can be {@code null}), or
+	 * {@link #NO_RESULT} if there is no return at this time, or
+	 * {@link #RESULT_UNAVAILABLE} if the result cannot be used at all
+	 * @since 5.2.23
+	 */
+	public void setResult(EvaluationContext evaluationContext, @Nullable Object result) {
+		CacheEvaluationContext cacheEvaluationContext = (CacheEvaluationContext) evaluationContext;
+		if (result == RESULT_UNAVAILABLE) {
+			cacheEvaluationContext.addUnavailableVariable(RESULT_VARIABLE);
+		}
+		else {
+			cacheEvaluationContext.removeUnavailableVariable(RESULT_VARIABLE);
+			// null值会移除该变量，与未设置结果时一致
+			cacheEvaluationContext.setVariable(RESULT_VARIABLE, (result != NO_RESULT ? result : null));
+		}
+	}
+
 	@Nullable
 	public Object key(String keyExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
 		return getExpression(this.keyCache, methodKey, keyExpression).getValue(evalContext);
 	}
 
 	public boolean condition(String conditionExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
-		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
-				evalContext, Boolean.class)));
+		Expression expression = (evalContext instanceof CacheEvaluationContext &&
+				((CacheEvaluationContext) evalContext).hasUnavailableVariables() ?
+				getInterpretedExpression(this.unavailableResultConditionCache, methodKey, conditionExpression) :
+				getExpression(this.conditionCache, methodKey, conditionExpression));
+		return (Boolean.TRUE.equals(expression.getValue(evalContext, Boolean.class)));
 	}
 
 	public boolean unless(String unlessExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
@@ -121,6 +146,7 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		this.keyCache.clear();
 		this.conditionCache.clear();
 		this.unlessCache.clear();
+		this.unavailableResultConditionCache.clear();
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,21 @@ public interface CacheOperationInvoker {
 	 */
 	Object invoke() throws ThrowableWrapper;
 
+	/**
+	 * Invoke the cache operation defined by this instance with the given
+	 * arguments instead of the original ones, leaving the original argument
+	 * array untouched.
+	 * <p>The default implementation ignores the given arguments and delegates
+	 * to {@link #invoke()}.
+	 * @param args the arguments to invoke the operation with
+	 * @return the result of the operation
+	 * @throws ThrowableWrapper if an error occurred while invoking the operation
+	 * @since 5.2.23
+	 */
+	default Object invoke(Object[] args) throws ThrowableWrapper {
+		return invoke();
+	}
+
 
 	/**
 	 * Wrap any exception thrown while invoking {@link #invoke()}.
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Immutable snapshot of the hit, miss and eviction counts of a cache.
+ *
+ * @since 5.2.23
+ * @see org.springframework.cache.concurrent.BoundedConcurrentMapCache#getStatistics()
+ */
+public final class CacheStatistics {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long evictionCount;
+
+
+	/**
+	 * Create a new CacheStatistics instance with the given counts.
+	 * @param hitCount the number of lookups which returned a cached value
+	 * @param missCount the number of lookups which did not find a cached value
+	 * @param evictionCount the number of entries removed due to size or expiration
+	 */
+	public CacheStatistics(long hitCount, long missCount, long evictionCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+	}
+
+
+	/**
+	 * Return the number of lookups which returned a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Return the number of lookups which did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Return the number of entries removed due to size or expiration,
+	 * not counting explicit evictions.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Return the total number of lookups, i.e. hits plus misses.
+	 */
+	public long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	/**
+	 * Return the ratio of lookups which returned a cached value,
+	 * or {@code 1.0} if there have been no lookups yet.
+	 */
+	public double getHitRate() {
+		long requestCount = getRequestCount();
+		return (requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount);
+	}
+
+	/**
+	 * Return the difference between these statistics and the given earlier
+	 * snapshot, e.g. for reporting the activity within a time window.
+	 * @param other the earlier snapshot
+	 * @return the statistics accumulated since the given snapshot
+	 */
+	public CacheStatistics minus(CacheStatistics other) {
+		return new CacheStatistics(Math.max(0, this.hitCount - other.hitCount),
+				Math.max(0, this.missCount - other.missCount),
+				Math.max(0, this.evictionCount - other.evictionCount));
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CacheStatistics)) {
+			return false;
+		}
+		CacheStatistics otherStats = (CacheStatistics) other;
+		return (this.hitCount == otherStats.hitCount && this.missCount == otherStats.missCount &&
+				this.evictionCount == otherStats.evictionCount);
+	}
+
+	@Override
+	public int hashCode() {
+		return (Long.hashCode(this.hitCount) * 31 + Long.hashCode(this.missCount)) * 31 +
+				Long.hashCode(this.evictionCount);
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics[hitCount=" + this.hitCount + ", missCount=" + this.missCount +
+				", evictionCount=" + this.evictionCount + "]";
+	}
+
+}
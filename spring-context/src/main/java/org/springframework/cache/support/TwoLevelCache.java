@@ -0,0 +1,426 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.BoundedConcurrentMapCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} decorator which fronts a remote cache with a local in-heap
+ * cache ("near cache"). Lookups are served from the local tier where possible
+ * and fall back to the remote tier, populating the local tier on a remote hit.
+ * Writes go through to the remote tier first and are then applied locally.
+ *
+ * <p>The local tier is populated from remote reads with {@code putIfAbsent}
+ * only, so that a concurrent write through this cache is never overwritten
+ * by an older remote value. Each write additionally advances a per-key
+ * write sequence; a read whose sequence changed while it was in progress
+ * does not populate the local tier, or evicts the entry it just added.
+ *
+ * <p>Entries changed by other nodes are not visible locally until they expire
+ * from the local tier, or until {@link #evictLocal} or {@link #clearLocal} is
+ * called, e.g. in response to an invalidation message from the remote store.
+ * Local writes can be published to other nodes through an
+ * {@link InvalidationListener}.
+ *
+ * <p>Hits and misses are recorded per tier, see {@link #getLocalStatistics()}
+ * and {@link #getRemoteStatistics()}.
+ *
+ * @since 5.2.23
+ * @see TwoLevelCacheManager
+ */
+public class TwoLevelCache implements Cache {
+
+	private static final int WRITE_SEQUENCE_STRIPES = 64;
+
+
+	private final Cache localCache;
+
+	private final Cache remoteCache;
+
+	@Nullable
+	private final InvalidationListener invalidationListener;
+
+	private final AtomicLongArray writeSequences = new AtomicLongArray(WRITE_SEQUENCE_STRIPES);
+
+	private final LongAdder localHits = new LongAdder();
+
+	private final LongAdder localMisses = new LongAdder();
+
+	private final LongAdder remoteHits = new LongAdder();
+
+	private final LongAdder remoteMisses = new LongAdder();
+
+
+	/**
+	 * Create a new TwoLevelCache for the given tiers.
+	 * @param localCache the local cache, which must allow {@code null} values
+	 * if the remote cache may contain any
+	 * @param remoteCache the remote cache
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache) {
+		this(localCache, remoteCache, null);
+	}
+
+	/**
+	 * Create a new TwoLevelCache for the given tiers.
+	 * @param localCache the local cache, which must allow {@code null} values
+	 * if the remote cache may contain any
+	 * @param remoteCache the remote cache
+	 * @param invalidationListener a listener to notify about entries changed
+	 * through this cache, or {@code null} if none
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache, @Nullable InvalidationListener invalidationListener) {
+		Assert.notNull(localCache, "Local Cache must not be null");
+		Assert.notNull(remoteCache, "Remote Cache must not be null");
+		this.localCache = localCache;
+		this.remoteCache = remoteCache;
+		this.invalidationListener = invalidationListener;
+	}
+
+
+	/**
+	 * Return the local tier of this cache.
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the remote tier of this cache.
+	 */
+	public Cache getRemoteCache() {
+		return this.remoteCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.remoteCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHits.increment();
+			return wrapper;
+		}
+		this.localMisses.increment();
+		long sequence = getWriteSequence(key);
+		wrapper = this.remoteCache.get(key);
+		recordRemoteLookup(wrapper != null);
+		if (wrapper != null) {
+			populateLocal(key, wrapper.get(), sequence);
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHits.increment();
+			return (T) wrapper.get();
+		}
+		this.localMisses.increment();
+		// 由远程缓存负责同步加载，通过包装loader判断是否命中远程
+		AtomicBoolean loaded = new AtomicBoolean();
+		long sequence = getWriteSequence(key);
+		T value = this.remoteCache.get(key, () -> {
+			loaded.set(true);
+			return valueLoader.call();
+		});
+		recordRemoteLookup(!loaded.get());
+		populateLocal(key, value, sequence);
+		return value;
+	}
+
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHits.increment();
+			return CompletableFuture.completedFuture(wrapper);
+		}
+		this.localMisses.increment();
+		long sequence = getWriteSequence(key);
+		return this.remoteCache.retrieve(key).thenApply(remoteWrapper -> {
+			recordRemoteLookup(remoteWrapper != null);
+			if (remoteWrapper != null) {
+				populateLocal(key, remoteWrapper.get(), sequence);
+			}
+			return remoteWrapper;
+		});
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> localResults = this.localCache.getAll(keys);
+		this.localHits.add(localResults.size());
+		if (localResults.size() == keys.size()) {
+			return localResults;
+		}
+		List<Object> missingKeys = new ArrayList<>(keys.size() - localResults.size());
+		for (Object key : keys) {
+			if (!localResults.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		this.localMisses.add(missingKeys.size());
+		long[] sequences = new long[missingKeys.size()];
+		for (int i = 0; i < sequences.length; i++) {
+			sequences[i] = getWriteSequence(missingKeys.get(i));
+		}
+		Map<Object, ValueWrapper> remoteResults = this.remoteCache.getAll(missingKeys);
+		this.remoteHits.add(remoteResults.size());
+		this.remoteMisses.add(missingKeys.size() - remoteResults.size());
+		for (int i = 0; i < sequences.length; i++) {
+			Object key = missingKeys.get(i);
+			ValueWrapper wrapper = remoteResults.get(key);
+			if (wrapper != null) {
+				populateLocal(key, wrapper.get(), sequences[i]);
+			}
+		}
+		// 按请求key的顺序合并两级缓存的命中结果
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(localResults.size() + remoteResults.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = localResults.get(key);
+			if (wrapper == null) {
+				wrapper = remoteResults.get(key);
+			}
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.remoteCache.put(key, value);
+		advanceWriteSequence(key);
+		this.localCache.put(key, value);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		this.remoteCache.putAll(entries);
+		for (Object key : entries.keySet()) {
+			advanceWriteSequence(key);
+		}
+		this.localCache.putAll(entries);
+		for (Object key : entries.keySet()) {
+			notifyInvalidation(key);
+		}
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		long sequence = getWriteSequence(key);
+		ValueWrapper existing = this.remoteCache.putIfAbsent(key, value);
+		if (existing != null) {
+			populateLocal(key, existing.get(), sequence);
+		}
+		else {
+			advanceWriteSequence(key);
+			this.localCache.put(key, value);
+			notifyInvalidation(key);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.remoteCache.evict(key);
+		advanceWriteSequence(key);
+		this.localCache.evict(key);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean present = this.remoteCache.evictIfPresent(key);
+		advanceWriteSequence(key);
+		this.localCache.evict(key);
+		if (present) {
+			notifyInvalidation(key);
+		}
+		return present;
+	}
+
+	@Override
+	public void clear() {
+		this.remoteCache.clear();
+		advanceAllWriteSequences();
+		this.localCache.clear();
+		notifyInvalidation(null);
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean invalidated = this.remoteCache.invalidate();
+		advanceAllWriteSequences();
+		this.localCache.invalidate();
+		notifyInvalidation(null);
+		return invalidated;
+	}
+
+	/**
+	 * Evict the mapping for this key from the local tier only, e.g. when
+	 * another node has changed the corresponding remote entry.
+	 * @param key the key whose mapping is to be removed from the local tier
+	 */
+	public void evictLocal(Object key) {
+		advanceWriteSequence(key);
+		this.localCache.evict(key);
+	}
+
+	/**
+	 * Clear the local tier only, e.g. when another node has cleared the
+	 * remote cache or when invalidation messages may have been missed.
+	 */
+	public void clearLocal() {
+		advanceAllWriteSequences();
+		this.localCache.clear();
+	}
+
+	/**
+	 * Return the statistics of the local tier. Misses of the local tier
+	 * correspond to lookups in the remote tier.
+	 * @see #getRemoteStatistics()
+	 */
+	public CacheStatistics getLocalStatistics() {
+		long evictionCount = (this.localCache instanceof BoundedConcurrentMapCache ?
+				((BoundedConcurrentMapCache) this.localCache).getStatistics().getEvictionCount() : 0);
+		return new CacheStatistics(this.localHits.sum(), this.localMisses.sum(), evictionCount);
+	}
+
+	/**
+	 * Return the statistics of the remote tier, as seen through this cache.
+	 * Evictions are not tracked for the remote tier.
+	 * @see #getLocalStatistics()
+	 */
+	public CacheStatistics getRemoteStatistics() {
+		return new CacheStatistics(this.remoteHits.sum(), this.remoteMisses.sum(), 0);
+	}
+
+	private void recordRemoteLookup(boolean hit) {
+		if (hit) {
+			this.remoteHits.increment();
+		}
+		else {
+			this.remoteMisses.increment();
+		}
+	}
+
+	/**
+	 * Populate the local tier with a value read from the remote tier, unless
+	 * the entry has been written since the given sequence was obtained.
+	 */
+	private void populateLocal(Object key, @Nullable Object value, long sequence) {
+		int stripe = getStripe(key);
+		if (this.writeSequences.get(stripe) == sequence) {
+			this.localCache.putIfAbsent(key, value);
+			if (this.writeSequences.get(stripe) != sequence) {
+				// 填充期间有并发写入：丢弃可能已过期的本地条目
+				this.localCache.evict(key);
+			}
+		}
+	}
+
+	private long getWriteSequence(Object key) {
+		return this.writeSequences.get(getStripe(key));
+	}
+
+	private void advanceWriteSequence(Object key) {
+		this.writeSequences.incrementAndGet(getStripe(key));
+	}
+
+	private void advanceAllWriteSequences() {
+		for (int i = 0; i < WRITE_SEQUENCE_STRIPES; i++) {
+			this.writeSequences.incrementAndGet(i);
+		}
+	}
+
+	private static int getStripe(Object key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & (WRITE_SEQUENCE_STRIPES - 1);
+	}
+
+	private void notifyInvalidation(@Nullable Object key) {
+		if (this.invalidationListener != null) {
+			this.invalidationListener.onInvalidation(getName(), key);
+		}
+	}
+
+
+	/**
+	 * Callback interface for publishing changes made through a
+	 * {@link TwoLevelCache}, so that other nodes can evict the affected
+	 * entries from their local tier.
+	 */
+	@FunctionalInterface
+	public interface InvalidationListener {
+
+		/**
+		 * Invoked after an entry has been written or evicted through the cache.
+		 * @param cacheName the name of the cache
+		 * @param key the key of the affected entry, or {@code null} if the
+		 * cache has been cleared as a whole
+		 * @see TwoLevelCache#evictLocal(Object)
+		 * @see TwoLevelCache#clearLocal()
+		 */
+		void onInvalidation(String cacheName, @Nullable Object key);
+	}
+
+}
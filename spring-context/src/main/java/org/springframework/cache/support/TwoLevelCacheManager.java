@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.BoundedConcurrentMapCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} which layers a bounded local in-heap tier on top of
+ * the caches of a remote {@link CacheManager}, e.g. a
+ * {@code JCacheCacheManager}, exposing each cache as a {@link TwoLevelCache}.
+ *
+ * <p>In contrast to {@link CompositeCacheManager}, which falls through between
+ * delegate managers by cache name, this manager combines both tiers within
+ * each cache: the hottest entries are served locally without a remote round
+ * trip, while writes go through to the remote tier.
+ *
+ * <p>By default, each local tier is a {@link BoundedConcurrentMapCache}
+ * holding up to 1000 entries without expiration. Unless all nodes publish
+ * their changes via an {@link #setInvalidationListener invalidation listener}
+ * and apply received invalidations through {@link #evictLocal}, consider a
+ * short {@link #setLocalExpireAfterWrite expiration} to bound staleness.
+ *
+ * @since 5.2.23
+ * @see #setRemoteCacheManager
+ * @see TwoLevelCache
+ */
+public class TwoLevelCacheManager implements CacheManager, InitializingBean {
+
+	@Nullable
+	private CacheManager remoteCacheManager;
+
+	private long localMaximumSize = 1000;
+
+	@Nullable
+	private Duration localExpireAfterWrite;
+
+	@Nullable
+	private TwoLevelCache.InvalidationListener invalidationListener;
+
+	private final ConcurrentMap<String, TwoLevelCache> cacheMap = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new TwoLevelCacheManager, setting the remote CacheManager
+	 * through the {@link #setRemoteCacheManager} bean property.
+	 */
+	public TwoLevelCacheManager() {
+	}
+
+	/**
+	 * Create a new TwoLevelCacheManager for the given remote CacheManager.
+	 * @param remoteCacheManager the CacheManager providing the remote tier
+	 */
+	public TwoLevelCacheManager(CacheManager remoteCacheManager) {
+		Assert.notNull(remoteCacheManager, "Remote CacheManager must not be null");
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+
+	/**
+	 * Set the CacheManager providing the remote tier.
+	 */
+	public void setRemoteCacheManager(CacheManager remoteCacheManager) {
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+	/**
+	 * Set the maximum number of entries in the local tier of each cache.
+	 * Default is 1000.
+	 * <p>Only applies to caches created after this call.
+	 */
+	public void setLocalMaximumSize(long localMaximumSize) {
+		Assert.isTrue(localMaximumSize > 0, "Local maximum size must be positive");
+		this.localMaximumSize = localMaximumSize;
+	}
+
+	/**
+	 * Set the time after which entries expire from the local tier of each
+	 * cache, bounding how long changes made by other nodes may go unnoticed.
+	 * Default is none.
+	 * <p>Only applies to caches created after this call.
+	 */
+	public void setLocalExpireAfterWrite(@Nullable Duration localExpireAfterWrite) {
+		this.localExpireAfterWrite = localExpireAfterWrite;
+	}
+
+	/**
+	 * Set a listener to notify about entries written or evicted through the
+	 * managed caches, e.g. for publishing invalidation messages to other nodes.
+	 * <p>Only applies to caches created after this call.
+	 */
+	public void setInvalidationListener(@Nullable TwoLevelCache.InvalidationListener invalidationListener) {
+		this.invalidationListener = invalidationListener;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.remoteCacheManager == null) {
+			throw new IllegalArgumentException("Property 'remoteCacheManager' is required");
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		TwoLevelCache cache = this.cacheMap.get(name);
+		if (cache == null) {
+			Assert.state(this.remoteCacheManager != null, "No remote CacheManager set");
+			Cache remoteCache = this.remoteCacheManager.getCache(name);
+			if (remoteCache == null) {
+				return null;
+			}
+			cache = new TwoLevelCache(createLocalCache(name), remoteCache, this.invalidationListener);
+			TwoLevelCache existing = this.cacheMap.putIfAbsent(name, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		Assert.state(this.remoteCacheManager != null, "No remote CacheManager set");
+		return this.remoteCacheManager.getCacheNames();
+	}
+
+	/**
+	 * Evict the mapping for the given key from the local tier of the given
+	 * cache, e.g. in response to an invalidation message from another node.
+	 * Does nothing if the cache has not been used yet.
+	 * @param cacheName the name of the cache
+	 * @param key the key to evict, or {@code null} to clear the local tier
+	 */
+	public void evictLocal(String cacheName, @Nullable Object key) {
+		TwoLevelCache cache = this.cacheMap.get(cacheName);
+		if (cache != null) {
+			if (key != null) {
+				cache.evictLocal(key);
+			}
+			else {
+				cache.clearLocal();
+			}
+		}
+	}
+
+	/**
+	 * Create the local tier for the specified cache name.
+	 * <p>The default implementation creates a {@link BoundedConcurrentMapCache}
+	 * with the configured size and expiration, allowing {@code null} values.
+	 * @param name the name of the cache
+	 * @return the local tier (never {@code null})
+	 */
+	protected Cache createLocalCache(String name) {
+		return new BoundedConcurrentMapCache(name, this.localMaximumSize, this.localExpireAfterWrite, true);
+	}
+
+}
@@ -60,6 +60,15 @@ public interface ConfigurableApplicationContext extends ApplicationContext, Life
 	 */
 	String CONVERSION_SERVICE_BEAN_NAME = "conversionService";
 
+	/**
+	 * Name of the bootstrap Executor bean in the factory. If such a bean is
+	 * supplied, the context will pre-instantiate independent singletons in
+	 * parallel on that executor.
+	 * @since 5.2.23
+	 * @see org.springframework.beans.factory.config.ConfigurableBeanFactory#setBootstrapExecutor
+	 */
+	String BOOTSTRAP_EXECUTOR_BEAN_NAME = "bootstrapExecutor";
+
 	/**
 	 * Name of the LoadTimeWeaver bean in the factory. If such a bean is supplied,
 	 * the context will use a temporary ClassLoader for type matching, in order
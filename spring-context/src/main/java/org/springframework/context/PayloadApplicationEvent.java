@@ -16,9 +16,12 @@
 
 package org.springframework.context;
 
+import java.util.Map;
+
 import org.springframework.core.ResolvableType;
 import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * An {@link ApplicationEvent} that carries an arbitrary payload.
@@ -32,6 +35,9 @@ import org.springframework.util.Assert;
 @SuppressWarnings("serial")
 public class PayloadApplicationEvent<T> extends ApplicationEvent implements ResolvableTypeProvider {
 
+	/** Cache of event types by payload class, for plain PayloadApplicationEvent instances */
+	private static final Map<Class<?>, ResolvableType> eventTypeCache = new ConcurrentReferenceHashMap<>(64);
+
 	private final T payload;
 
 
@@ -49,6 +55,11 @@ public class PayloadApplicationEvent<T> extends ApplicationEvent implements Reso
 
 	@Override
 	public ResolvableType getResolvableType() {
+		if (getClass() == PayloadApplicationEvent.class && !(this.payload instanceof ResolvableTypeProvider)) {
+			// 事件类型仅取决于载荷类型：复用同一实例，避免每次发布都构建ResolvableType
+			return eventTypeCache.computeIfAbsent(this.payload.getClass(), payloadType -> ResolvableType
+					.forClassWithGenerics(PayloadApplicationEvent.class, ResolvableType.forClass(payloadType)));
+		}
 		return ResolvableType.forClassWithGenerics(getClass(), ResolvableType.forInstance(getPayload()));
 	}
 
@@ -24,7 +24,9 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.*;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
@@ -53,6 +55,9 @@ class ComponentScanAnnotationParser {
 
 	private final BeanDefinitionRegistry registry;
 
+	@Nullable
+	private MetadataReaderFactory metadataReaderFactory;
+
 
 	public ComponentScanAnnotationParser(Environment environment, ResourceLoader resourceLoader,
 			BeanNameGenerator beanNameGenerator, BeanDefinitionRegistry registry) {
@@ -63,10 +68,23 @@ class ComponentScanAnnotationParser {
 		this.registry = registry;
 	}
 
+
+	/**
+	 * Set a specific {@link MetadataReaderFactory} to share with the scanners,
+	 * instead of letting each scanner create a default one for the ResourceLoader.
+	 * @since 5.2.23
+	 */
+	void setMetadataReaderFactory(@Nullable MetadataReaderFactory metadataReaderFactory) {
+		this.metadataReaderFactory = metadataReaderFactory;
+	}
+
 	// 解析@ComponentScan注解的属性值
 	public Set<BeanDefinitionHolder> parse(AnnotationAttributes componentScan, String declaringClass) {
 		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(this.registry,
 				componentScan.getBoolean("useDefaultFilters"), this.environment, this.resourceLoader);
+		if (this.metadataReaderFactory != null) {
+			scanner.setMetadataReaderFactory(this.metadataReaderFactory);
+		}
 		// 获取@ComponentScan的参数，并进行参数设置工作
 		Class<? extends BeanNameGenerator> generatorClass = componentScan.getClass("nameGenerator");
 		boolean useInheritedGenerator = (BeanNameGenerator.class == generatorClass);
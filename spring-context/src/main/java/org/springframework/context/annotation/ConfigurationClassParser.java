@@ -51,6 +51,7 @@ import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
@@ -141,6 +142,11 @@ class ConfigurationClassParser {
 		this.registry = registry;
 		this.componentScanParser = new ComponentScanAnnotationParser(
 				environment, resourceLoader, componentScanBeanNameGenerator, registry);
+		if (metadataReaderFactory instanceof PersistentMetadataReaderFactory ||
+				metadataReaderFactory instanceof IndexedMetadataReaderFactory) {
+			// Let component scanning restore candidate metadata from the same cache file or index
+			this.componentScanParser.setMetadataReaderFactory(metadataReaderFactory);
+		}
 		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
 	}
 
@@ -36,8 +36,11 @@ import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ConfigurationClassEnhancer.EnhancedConfiguration;
+import org.springframework.context.index.ConfigurationClassIndex;
+import org.springframework.context.index.ConfigurationClassIndexLoader;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -46,10 +49,13 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -156,7 +162,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	/**
 	 * Set the {@link MetadataReaderFactory} to use.
 	 * <p>Default is a {@link CachingMetadataReaderFactory} for the specified
-	 * {@linkplain #setBeanClassLoader bean class loader}.
+	 * {@linkplain #setBeanClassLoader bean class loader}, or a
+	 * {@link PersistentMetadataReaderFactory} if the
+	 * {@value PersistentMetadataReaderFactory#CACHE_LOCATION_PROPERTY_NAME}
+	 * property specifies a metadata cache file.
 	 */
 	public void setMetadataReaderFactory(MetadataReaderFactory metadataReaderFactory) {
 		Assert.notNull(metadataReaderFactory, "MetadataReaderFactory must not be null");
@@ -199,7 +208,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		Assert.notNull(resourceLoader, "ResourceLoader must not be null");
 		this.resourceLoader = resourceLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+			File cacheFile = getMetadataCacheFile();
+			this.metadataReaderFactory = (cacheFile != null ?
+					new PersistentMetadataReaderFactory(cacheFile, resourceLoader) :
+					new CachingMetadataReaderFactory(resourceLoader));
 		}
 	}
 
@@ -207,10 +219,19 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public void setBeanClassLoader(ClassLoader beanClassLoader) {
 		this.beanClassLoader = beanClassLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(beanClassLoader);
+			File cacheFile = getMetadataCacheFile();
+			this.metadataReaderFactory = (cacheFile != null ?
+					new PersistentMetadataReaderFactory(cacheFile, beanClassLoader) :
+					new CachingMetadataReaderFactory(beanClassLoader));
 		}
 	}
 
+	@Nullable
+	private static File getMetadataCacheFile() {
+		String location = SpringProperties.getProperty(PersistentMetadataReaderFactory.CACHE_LOCATION_PROPERTY_NAME);
+		return (location != null ? new File(location) : null);
+	}
+
 
 	/**
 	 * Derive further bean definitions from the configuration classes in the registry.
@@ -234,6 +255,20 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		processConfigBeanDefinitions(registry);
 	}
 
+	/**
+	 * Return a {@link MetadataReaderFactory} that serves configuration class
+	 * metadata from the {@link ConfigurationClassIndex} if one is available,
+	 * falling back to the configured {@code MetadataReaderFactory}.
+	 * @since 5.2.23
+	 * @see ConfigurationClassIndexLoader
+	 */
+	private MetadataReaderFactory getIndexedMetadataReaderFactory() {
+		ConfigurationClassIndex index = ConfigurationClassIndexLoader.loadIndex(this.resourceLoader.getClassLoader());
+		return (index != null ?
+				new IndexedMetadataReaderFactory(index, this.metadataReaderFactory, this.resourceLoader) :
+				this.metadataReaderFactory);
+	}
+
 	/**
 	 * 添加CGLib增强处理及ImportAwareBeanPostProcessor后置处理类
 	 * Prepare the Configuration classes for servicing bean requests at runtime
@@ -269,7 +304,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		List<BeanDefinitionHolder> configCandidates = new ArrayList<>();
 		// 当前registry就是DefaultListableBeanFactory，获取所有已经注册的BeanDefinition的beanName
 		String[] candidateNames = registry.getBeanDefinitionNames();
-
+		// 如果存在编译期生成的配置类索引，则优先从索引中获取类的元数据，避免ASM解析
+		MetadataReaderFactory readerFactory = getIndexedMetadataReaderFactory();
 
 		// 遍历所有要处理的beanDefinition的名称,筛选对应的beanDefinition（被注解修饰的）
 		for (String beanName : candidateNames) {
@@ -285,7 +321,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			// 如果Configuration配置proxyBeanMethods代理为true则为fuLl
 			// 如果加了@Bean、@Component、@ComponentScan、@Import、@ImportResource注解，则设置为Lite
 			// 如果配置类上被@Order注解标注，则设置BeanDefinition的order)属性值
-			else if (ConfigurationClassUtils.checkConfigurationClassCandidate(beanDef, this.metadataReaderFactory)) {
+			else if (ConfigurationClassUtils.checkConfigurationClassCandidate(beanDef, readerFactory)) {
 				// 添加到对应的集合对象中
 				configCandidates.add(new BeanDefinitionHolder(beanDef, beanName));
 			}
@@ -331,7 +367,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		// Parse each @Configuration class
 		// 实例化ConfigurationClassParser类，并初始化相关的参数，完成配置类( @Configuration标注的类 )的解析工作
 		ConfigurationClassParser parser = new ConfigurationClassParser(
-				this.metadataReaderFactory, this.problemReporter, this.environment,
+				readerFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry);
 
 		// 创建两个集合对象，
@@ -377,7 +413,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 				for (String candidateName : newCandidateNames) {
 					if (!oldCandidateNames.contains(candidateName)) {
 						BeanDefinition bd = registry.getBeanDefinition(candidateName);
-						if (ConfigurationClassUtils.checkConfigurationClassCandidate(bd, this.metadataReaderFactory) &&
+						if (ConfigurationClassUtils.checkConfigurationClassCandidate(bd, readerFactory) &&
 								!alreadyParsedClasses.contains(bd.getBeanClassName())) {
 							candidates.add(new BeanDefinitionHolder(bd, candidateName));
 						}
@@ -393,6 +429,18 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
+		if (this.metadataReaderFactory instanceof PersistentMetadataReaderFactory) {
+			// Keep the metadata of this run for the next startup
+			PersistentMetadataReaderFactory persistentFactory = (PersistentMetadataReaderFactory) this.metadataReaderFactory;
+			try {
+				persistentFactory.saveCache();
+			}
+			catch (IOException ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to write metadata cache file " + persistentFactory.getCacheFile(), ex);
+				}
+			}
+		}
 		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
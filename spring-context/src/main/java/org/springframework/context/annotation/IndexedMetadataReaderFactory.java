@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+
+import org.springframework.context.index.ConfigurationClassIndex;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link MetadataReaderFactory} that serves class metadata from a
+ * {@link ConfigurationClassIndex} where available, delegating to a regular
+ * (class file based) {@code MetadataReaderFactory} otherwise.
+ *
+ * @since 5.2.23
+ * @see ConfigurationClassPostProcessor
+ */
+class IndexedMetadataReaderFactory implements MetadataReaderFactory {
+
+	private final ConfigurationClassIndex index;
+
+	private final MetadataReaderFactory delegate;
+
+	private final ResourceLoader resourceLoader;
+
+
+	IndexedMetadataReaderFactory(ConfigurationClassIndex index, MetadataReaderFactory delegate,
+			ResourceLoader resourceLoader) {
+
+		this.index = index;
+		this.delegate = delegate;
+		this.resourceLoader = resourceLoader;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(String className) throws IOException {
+		AnnotationMetadata metadata = this.index.getAnnotationMetadata(className);
+		if (metadata != null) {
+			String resourcePath = ResourceLoader.CLASSPATH_URL_PREFIX +
+					ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+			return new IndexedMetadataReader(this.resourceLoader.getResource(resourcePath), metadata);
+		}
+		return this.delegate.getMetadataReader(className);
+	}
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		return this.delegate.getMetadataReader(resource);
+	}
+
+
+	private static class IndexedMetadataReader implements MetadataReader {
+
+		private final Resource resource;
+
+		private final AnnotationMetadata metadata;
+
+		IndexedMetadataReader(Resource resource, AnnotationMetadata metadata) {
+			this.resource = resource;
+			this.metadata = metadata;
+		}
+
+		@Override
+		public Resource getResource() {
+			return this.resource;
+		}
+
+		@Override
+		public ClassMetadata getClassMetadata() {
+			return this.metadata;
+		}
+
+		@Override
+		public AnnotationMetadata getAnnotationMetadata() {
+			return this.metadata;
+		}
+	}
+
+}
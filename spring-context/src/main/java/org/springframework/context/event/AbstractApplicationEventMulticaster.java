@@ -18,6 +18,7 @@ package org.springframework.context.event;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,11 @@ import org.springframework.util.ObjectUtils;
  * ApplicationListener objects can be overridden through the "collectionClass"
  * bean property.
  *
+ * <p>Listener registrations are kept as copy-on-write snapshots, so retrieving
+ * listeners never locks. The pre-filtered listeners are cached per event type
+ * and source type; adding or removing a listener instance only invalidates
+ * the cached entries that the listener is relevant for.
+ *
  * <p>Implementing ApplicationEventMulticaster's actual {@link #multicastEvent} method
  * is left to subclasses. {@link SimpleApplicationEventMulticaster} simply multicasts
  * all events to all registered listeners, invoking them in the calling thread.
@@ -107,27 +113,30 @@ public abstract class AbstractApplicationEventMulticaster
 	 */
 	@Override
 	public void addApplicationListener(ApplicationListener<?> listener) {
-		// 锁定监听器助手对象
+		// 锁定监听器助手对象（仅串行化写操作，读取监听器时无需加锁）
 		synchronized (this.defaultRetriever) {
+			Set<ApplicationListener<?>> listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
 			// Explicitly remove target for a proxy, if registered already,
 			// in order to avoid double invocations of the same listener.
 			///如果已经注册，则显式删除已经注册的监听器对象，为了避免调用重复的监听器对象
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
-			if (singletonTarget instanceof ApplicationListener) {
-				//删除监听器对象
-				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+			if (singletonTarget instanceof ApplicationListener && listeners.remove(singletonTarget)) {
+				invalidateRetrieversContaining(singletonTarget);
 			}
 			//新增监听器对象
-			this.defaultRetriever.applicationListeners.add(listener);
-			//清空监听器助手缓存map
-			this.retrieverCache.clear();
+			listeners.add(listener);
+			this.defaultRetriever.applicationListeners = Collections.unmodifiableSet(listeners);
+			// 只失效该监听器支持的事件类型对应的缓存项
+			invalidateRetrieversSupporting(listener);
 		}
 	}
 
 	@Override
 	public void addApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.defaultRetriever) {
-			this.defaultRetriever.applicationListenerBeans.add(listenerBeanName);
+			Set<String> listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			listenerBeans.add(listenerBeanName);
+			this.defaultRetriever.applicationListenerBeans = Collections.unmodifiableSet(listenerBeans);
 			this.retrieverCache.clear();
 		}
 	}
@@ -135,15 +144,20 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.defaultRetriever) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			Set<ApplicationListener<?>> listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
+			if (listeners.remove(listener)) {
+				this.defaultRetriever.applicationListeners = Collections.unmodifiableSet(listeners);
+			}
+			invalidateRetrieversContaining(listener);
 		}
 	}
 
 	@Override
 	public void removeApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.defaultRetriever) {
-			this.defaultRetriever.applicationListenerBeans.remove(listenerBeanName);
+			Set<String> listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			listenerBeans.remove(listenerBeanName);
+			this.defaultRetriever.applicationListenerBeans = Collections.unmodifiableSet(listenerBeans);
 			this.retrieverCache.clear();
 		}
 	}
@@ -151,12 +165,32 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeAllListeners() {
 		synchronized (this.defaultRetriever) {
-			this.defaultRetriever.applicationListeners.clear();
-			this.defaultRetriever.applicationListenerBeans.clear();
+			this.defaultRetriever.applicationListeners = Collections.emptySet();
+			this.defaultRetriever.applicationListenerBeans = Collections.emptySet();
 			this.retrieverCache.clear();
 		}
 	}
 
+	/**
+	 * Remove the cached retrievers for event types supported by the given
+	 * newly added listener, as well as any retriever still being populated.
+	 * Must be called after the listener has been registered.
+	 */
+	private void invalidateRetrieversSupporting(ApplicationListener<?> listener) {
+		this.retrieverCache.entrySet().removeIf(entry -> !entry.getValue().isPopulated() ||
+				supportsEvent(listener, entry.getKey().eventType, entry.getKey().sourceType));
+	}
+
+	/**
+	 * Remove the cached retrievers containing the given removed listener,
+	 * as well as any retriever still being populated.
+	 * Must be called after the listener has been unregistered.
+	 */
+	private void invalidateRetrieversContaining(Object listener) {
+		this.retrieverCache.values().removeIf(retriever ->
+				!retriever.isPopulated() || retriever.contains(listener));
+	}
+
 
 	/**
 	 * Return a Collection containing all ApplicationListeners.
@@ -165,14 +199,16 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners() {
-		synchronized (this.defaultRetriever) {
-			return this.defaultRetriever.getApplicationListeners();
-		}
+		return this.defaultRetriever.getApplicationListeners();
 	}
 
 	/**
 	 * Return a Collection of ApplicationListeners matching the given
 	 * event type. Non-matching listeners get excluded early.
+	 * <p>As of 5.2.23, the returned Collection may be an unmodifiable snapshot
+	 * which is shared between calls for the same event and source type, rather
+	 * than a fresh Collection per call. Subclasses that need to modify the
+	 * result have to copy it first.
 	 *
 	 * @param event     the event to be propagated. Allows for excluding
 	 *                  non-matching listeners early, based on cached matching information.
@@ -232,12 +268,9 @@ public abstract class AbstractApplicationEventMulticaster
 		Set<ApplicationListener<?>> filteredListeners = (retriever != null ? new LinkedHashSet<>() : null);
 		Set<String> filteredListenerBeans = (retriever != null ? new LinkedHashSet<>() : null);
 
-		Set<ApplicationListener<?>> listeners;
-		Set<String> listenerBeans;
-		synchronized (this.defaultRetriever) {
-			listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
-			listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
-		}
+		// Copy-on-write snapshots: no locking required
+		Set<ApplicationListener<?>> listeners = this.defaultRetriever.applicationListeners;
+		Set<String> listenerBeans = this.defaultRetriever.applicationListenerBeans;
 
 		// Add programmatically registered listeners, including ones coming
 		// from ApplicationListenerDetector (singleton beans and inner beans).
@@ -289,6 +322,7 @@ public abstract class AbstractApplicationEventMulticaster
 		AnnotationAwareOrderComparator.sort(allListeners);
 		if (retriever != null) {
 			if (filteredListenerBeans.isEmpty()) {
+				retriever.sortedListeners = Collections.unmodifiableList(new ArrayList<>(allListeners));
 				retriever.applicationListeners = new LinkedHashSet<>(allListeners);
 				retriever.applicationListenerBeans = filteredListenerBeans;
 			} else {
@@ -437,15 +471,33 @@ public abstract class AbstractApplicationEventMulticaster
 	 */
 	private class CachedListenerRetriever {
 
+		/** 无原型监听器bean时预先排好序的不可变监听器列表，分发时直接返回 */
+		@Nullable
+		public volatile List<ApplicationListener<?>> sortedListeners;
+
 		@Nullable
 		public volatile Set<ApplicationListener<?>> applicationListeners;
 
 		@Nullable
 		public volatile Set<String> applicationListenerBeans;
 
+		public boolean isPopulated() {
+			return (this.applicationListeners != null && this.applicationListenerBeans != null);
+		}
+
+		public boolean contains(Object listener) {
+			Set<ApplicationListener<?>> applicationListeners = this.applicationListeners;
+			return (applicationListeners != null && applicationListeners.contains(listener));
+		}
+
 		// 获取应用程序的时间监听器
 		@Nullable
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			List<ApplicationListener<?>> sortedListeners = this.sortedListeners;
+			if (sortedListeners != null) {
+				return sortedListeners;
+			}
+
 			Set<ApplicationListener<?>> applicationListeners = this.applicationListeners;
 			Set<String> applicationListenerBeans = this.applicationListenerBeans;
 			if (applicationListeners == null || applicationListenerBeans == null) {
@@ -484,20 +536,22 @@ public abstract class AbstractApplicationEventMulticaster
 	 * Helper class that encapsulates a general set of target listeners.
 	 */
 	private class DefaultListenerRetriever {
-		// 存放应用程序事件监听器，有序，不可重复
-		public final Set<ApplicationListener<?>> applicationListeners = new LinkedHashSet<>();
-		// 存放应用程序事件监听器bean名称
-		public final Set<String> applicationListenerBeans = new LinkedHashSet<>();
+		// 存放应用程序事件监听器，有序，不可重复（写时复制的不可变快照）
+		public volatile Set<ApplicationListener<?>> applicationListeners = Collections.emptySet();
+		// 存放应用程序事件监听器bean名称（写时复制的不可变快照）
+		public volatile Set<String> applicationListenerBeans = Collections.emptySet();
 
 		// 获取应用程序的事件监听器
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			Set<ApplicationListener<?>> applicationListeners = this.applicationListeners;
+			Set<String> applicationListenerBeans = this.applicationListenerBeans;
 			// 创建一个指定大小的ApplicationListener监听器List集合
 			List<ApplicationListener<?>> allListeners = new ArrayList<>(
-					this.applicationListeners.size() + this.applicationListenerBeans.size());
-			allListeners.addAll(this.applicationListeners);
-			if (!this.applicationListenerBeans.isEmpty()) {
+					applicationListeners.size() + applicationListenerBeans.size());
+			allListeners.addAll(applicationListeners);
+			if (!applicationListenerBeans.isEmpty()) {
 				BeanFactory beanFactory = getBeanFactory();
-				for (String listenerBeanName : this.applicationListenerBeans) {
+				for (String listenerBeanName : applicationListenerBeans) {
 					try {
 						ApplicationListener<?> listener =
 								beanFactory.getBean(listenerBeanName, ApplicationListener.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -130,7 +130,12 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 			throw new IllegalStateException(
 					"Event parameter is mandatory for event listener method: " + method);
 		}
-		return Collections.singletonList(ResolvableType.forMethodParameter(method, 0));
+		ResolvableType parameterType = ResolvableType.forMethodParameter(method, 0);
+		if (AnnotatedElementUtils.hasAnnotation(method, BatchEventListener.class)) {
+			// 批量监听方法的参数为事件列表，事件类型取其元素类型
+			parameterType = parameterType.asCollection().getGeneric();
+		}
+		return Collections.singletonList(parameterType);
 	}
 
 	private static int resolveOrder(Method method) {
@@ -276,7 +281,7 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		logger.error("Unexpected error occurred in asynchronous listener", t);
 	}
 
-	private boolean shouldHandle(ApplicationEvent event, @Nullable Object[] args) {
+	boolean shouldHandle(ApplicationEvent event, @Nullable Object[] args) {
 		if (args == null) {
 			return false;
 		}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.core.annotation.AliasFor;
+
+/**
+ * An {@link EventListener} that receives events in micro-batches, e.g. for a
+ * method such as {@code void onAudit(List<AuditEvent> events)}.
+ *
+ * <p>The annotated method has to declare a single parameter of type
+ * {@link java.util.List} (or {@code Collection}), the element type of which
+ * determines the events to handle, unless {@link #classes} is specified.
+ * Matching events are accumulated and delivered once {@link #maxSize} events
+ * are pending or {@link #maxDelay} has elapsed since the first pending event,
+ * whichever comes first. Pending events are delivered as well when the
+ * application context is closed.
+ *
+ * <p>A batch reaching its maximum size is delivered in the publishing thread,
+ * while a batch reaching its maximum delay is delivered in a scheduler thread:
+ * either of the unique {@link org.springframework.scheduling.TaskScheduler} bean
+ * of the application context, or of a scheduler owned by the context. Batches
+ * are delivered one at a time, in publication order.
+ *
+ * @since 5.2.23
+ * @see BatchingApplicationListenerMethodAdapter
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@EventListener
+public @interface BatchEventListener {
+
+	/**
+	 * Alias for {@link #classes}.
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "classes")
+	Class<?>[] value() default {};
+
+	/**
+	 * The event classes that this listener handles, if not to be inferred
+	 * from the element type of the method parameter.
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "classes")
+	Class<?>[] classes() default {};
+
+	/**
+	 * Spring Expression Language (SpEL) expression used for making the event
+	 * handling conditional, evaluated for each individual event.
+	 * <p>The default is {@code ""}, meaning all events are handled.
+	 * @see EventListener#condition
+	 */
+	@AliasFor(annotation = EventListener.class)
+	String condition() default "";
+
+	/**
+	 * The maximum number of events per batch.
+	 */
+	int maxSize() default 100;
+
+	/**
+	 * The maximum time in milliseconds that an event may be pending before
+	 * its batch is delivered; {@code 0} for no time threshold.
+	 */
+	long maxDelay() default 1000;
+
+}
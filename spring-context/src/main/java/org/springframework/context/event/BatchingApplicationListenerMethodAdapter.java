@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * {@link ApplicationListenerMethodAdapter} for a {@link BatchEventListener}
+ * annotated method, accumulating events and invoking the method with a
+ * list of events once a size or time threshold is reached.
+ *
+ * <p>Pending events are delivered when the {@link ContextClosedEvent} of the
+ * owning application context is received.
+ *
+ * <p>Batches reaching their maximum delay are flushed through the unique
+ * {@link TaskScheduler} bean of the application context, if any. Otherwise,
+ * a single-threaded scheduler is created per application context, shared by
+ * all of its batching listeners and shut down when the context is closed.
+ *
+ * @since 5.2.23
+ * @see BatchEventListener
+ * @see DefaultEventListenerFactory
+ */
+public class BatchingApplicationListenerMethodAdapter extends ApplicationListenerMethodAdapter {
+
+	/**
+	 * The bean name of the internally managed flush scheduler of an application context.
+	 */
+	public static final String FLUSH_SCHEDULER_BEAN_NAME =
+			"org.springframework.context.event.internalBatchEventListenerFlushScheduler";
+
+
+	private final int maxSize;
+
+	private final long maxDelay;
+
+	/** 保护待处理批次及其定时刷新任务 */
+	private final Object batchMonitor = new Object();
+
+	/** 保证批次依次按发布顺序交付 */
+	private final Object deliveryMonitor = new Object();
+
+	private List<Object> batch = new ArrayList<>();
+
+	@Nullable
+	private ScheduledFuture<?> scheduledFlush;
+
+	@Nullable
+	private ApplicationContext applicationContext;
+
+	@Nullable
+	private TaskScheduler taskScheduler;
+
+	/** 上下文无法托管时由当前监听器自行持有，关闭上下文时销毁 */
+	@Nullable
+	private FlushScheduler ownedFlushScheduler;
+
+
+	public BatchingApplicationListenerMethodAdapter(String beanName, Class<?> targetClass, Method method) {
+		super(beanName, targetClass, method);
+		if (method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+			throw new IllegalStateException(
+					"Batch event listener method must declare a single List parameter: " + method);
+		}
+		BatchEventListener ann = AnnotatedElementUtils.findMergedAnnotation(method, BatchEventListener.class);
+		if (ann == null) {
+			throw new IllegalStateException("No @BatchEventListener annotation found on '" + method + "'");
+		}
+		if (ann.maxSize() < 1) {
+			throw new IllegalStateException("Batch size must be positive: " + method);
+		}
+		this.maxSize = ann.maxSize();
+		this.maxDelay = ann.maxDelay();
+	}
+
+
+	@Override
+	void init(ApplicationContext applicationContext, EventExpressionEvaluator evaluator) {
+		super.init(applicationContext, evaluator);
+		this.applicationContext = applicationContext;
+		if (this.maxDelay > 0) {
+			this.taskScheduler = resolveTaskScheduler(applicationContext);
+		}
+	}
+
+	/**
+	 * Resolve the scheduler for flushing batches which reached their maximum
+	 * delay: the unique {@link TaskScheduler} bean of the given context, if
+	 * any, or else the {@link FlushScheduler} of the context.
+	 */
+	private TaskScheduler resolveTaskScheduler(ApplicationContext applicationContext) {
+		TaskScheduler taskScheduler = applicationContext.getBeanProvider(TaskScheduler.class).getIfUnique();
+		if (taskScheduler != null) {
+			return taskScheduler;
+		}
+		if (applicationContext instanceof ConfigurableApplicationContext) {
+			ConfigurableListableBeanFactory beanFactory =
+					((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+			if (beanFactory instanceof DefaultSingletonBeanRegistry) {
+				// 同一上下文中的批量监听器共用一个调度器，随单例一起销毁
+				synchronized (beanFactory.getSingletonMutex()) {
+					Object flushScheduler = beanFactory.getSingleton(FLUSH_SCHEDULER_BEAN_NAME);
+					if (!(flushScheduler instanceof FlushScheduler)) {
+						flushScheduler = new FlushScheduler();
+						beanFactory.registerSingleton(FLUSH_SCHEDULER_BEAN_NAME, flushScheduler);
+						((DefaultSingletonBeanRegistry) beanFactory).registerDisposableBean(
+								FLUSH_SCHEDULER_BEAN_NAME, (FlushScheduler) flushScheduler);
+					}
+					return ((FlushScheduler) flushScheduler).taskScheduler;
+				}
+			}
+		}
+		this.ownedFlushScheduler = new FlushScheduler();
+		return this.ownedFlushScheduler.taskScheduler;
+	}
+
+	@Override
+	public boolean supportsEventType(ResolvableType eventType) {
+		return (super.supportsEventType(eventType) || ContextClosedEvent.class.isAssignableFrom(eventType.toClass()));
+	}
+
+	@Override
+	public void processEvent(ApplicationEvent event) {
+		if (event instanceof ContextClosedEvent &&
+				((ContextClosedEvent) event).getApplicationContext() == this.applicationContext) {
+			if (super.supportsEventType(ResolvableType.forInstance(event))) {
+				addToBatch(event);
+			}
+			flush();
+			if (this.ownedFlushScheduler != null) {
+				this.ownedFlushScheduler.destroy();
+			}
+			return;
+		}
+		addToBatch(event);
+	}
+
+	private void addToBatch(ApplicationEvent event) {
+		Object[] args = resolveArguments(event);
+		if (!shouldHandle(event, args)) {
+			return;
+		}
+		boolean full;
+		synchronized (this.batchMonitor) {
+			this.batch.add(args[0]);
+			full = (this.batch.size() >= this.maxSize);
+			if (!full && this.batch.size() == 1 && this.taskScheduler != null) {
+				try {
+					this.scheduledFlush = this.taskScheduler.schedule(
+							this::flushScheduled, Instant.now().plusMillis(this.maxDelay));
+				}
+				catch (TaskRejectedException ex) {
+					// 调度器已关闭（如上下文关闭期间发布的事件）：立即交付
+					full = true;
+				}
+			}
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Deliver the pending events, if any.
+	 */
+	public void flush() {
+		synchronized (this.deliveryMonitor) {
+			List<Object> events;
+			synchronized (this.batchMonitor) {
+				if (this.scheduledFlush != null) {
+					this.scheduledFlush.cancel(false);
+					this.scheduledFlush = null;
+				}
+				if (this.batch.isEmpty()) {
+					return;
+				}
+				events = this.batch;
+				this.batch = new ArrayList<>();
+			}
+			Object result = doInvoke(events);
+			if (result != null) {
+				handleResult(result);
+			}
+		}
+	}
+
+	private void flushScheduled() {
+		try {
+			flush();
+		}
+		catch (Throwable ex) {
+			logger.error("Failed to deliver batch of events to listener method " + this, ex);
+		}
+	}
+
+	/**
+	 * Return the number of pending events.
+	 */
+	public int getPendingCount() {
+		synchronized (this.batchMonitor) {
+			return this.batch.size();
+		}
+	}
+
+
+	/**
+	 * Single-threaded scheduler shared by the batching listeners of an
+	 * application context. Not exposed as a {@link TaskScheduler} bean itself,
+	 * so that it does not interfere with scheduler lookups by type.
+	 */
+	static final class FlushScheduler implements DisposableBean {
+
+		final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+		FlushScheduler() {
+			this.taskScheduler.setThreadNamePrefix("batch-event-listener-");
+			this.taskScheduler.setDaemon(true);
+			this.taskScheduler.setRemoveOnCancelPolicy(true);
+			this.taskScheduler.initialize();
+		}
+
+		@Override
+		public void destroy() {
+			this.taskScheduler.shutdown();
+		}
+	}
+
+}
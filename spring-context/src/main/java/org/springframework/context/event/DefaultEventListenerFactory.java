@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,10 +20,12 @@ import java.lang.reflect.Method;
 
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 
 /**
  * Default {@link EventListenerFactory} implementation that supports the
- * regular {@link EventListener} annotation.
+ * regular {@link EventListener} annotation as well as the
+ * {@link BatchEventListener} variant.
  *
  * <p>Used as "catch-all" implementation by default.
  *
@@ -52,6 +54,9 @@ public class DefaultEventListenerFactory implements EventListenerFactory, Ordere
 
 	@Override
 	public ApplicationListener<?> createApplicationListener(String beanName, Class<?> type, Method method) {
+		if (AnnotatedElementUtils.hasAnnotation(method, BatchEventListener.class)) {
+			return new BatchingApplicationListenerMethodAdapter(beanName, type, method);
+		}
 		return new ApplicationListenerMethodAdapter(beanName, type, method);
 	}
 
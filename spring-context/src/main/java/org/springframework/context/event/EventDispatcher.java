@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Strategy for dispatching an event to a particular listener, as resolved
+ * per listener by a {@link SimpleApplicationEventMulticaster}.
+ *
+ * @since 5.2.23
+ * @see SimpleApplicationEventMulticaster#setDispatcherResolver
+ * @see QueuedEventDispatcher
+ */
+@FunctionalInterface
+public interface EventDispatcher {
+
+	/**
+	 * Dispatcher which invokes listeners in the publishing thread.
+	 */
+	EventDispatcher SAME_THREAD = (event, listenerInvocation) -> listenerInvocation.run();
+
+
+	/**
+	 * Dispatch the given event by running the given listener invocation,
+	 * either right away or at a later point.
+	 * @param event the event to dispatch
+	 * @param listenerInvocation the invocation of the listener for the event,
+	 * including the multicaster's error handling
+	 */
+	void dispatch(ApplicationEvent event, Runnable listenerInvocation);
+
+}
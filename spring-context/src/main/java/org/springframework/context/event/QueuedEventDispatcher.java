@@ -0,0 +1,316 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link EventDispatcher} which invokes listeners asynchronously on a given
+ * {@link Executor}, bounding the number of events which are queued or in
+ * progress. Once the capacity is reached, further events are handled
+ * according to the {@link RejectionPolicy}.
+ *
+ * <p>If an {@linkplain #setOrderingKeyExtractor ordering key extractor} is set,
+ * events with the same key are dispatched one after the other in publication
+ * order, while events with different keys may be dispatched concurrently.
+ *
+ * <p>Queue size, rejections and dispatch latency (from publication until the
+ * listener invocation has completed) are exposed for monitoring.
+ *
+ * <p>A dispatcher instance may be shared by several listeners, which then
+ * share its capacity and, if ordered, its per-key ordering.
+ *
+ * @since 5.2.23
+ * @see SimpleApplicationEventMulticaster#setDispatcherResolver
+ */
+public class QueuedEventDispatcher implements EventDispatcher {
+
+	/**
+	 * Policy for events published while the dispatcher is at capacity.
+	 */
+	public enum RejectionPolicy {
+
+		/**
+		 * Throw a {@link TaskRejectedException} to the publisher.
+		 */
+		ABORT,
+
+		/**
+		 * Invoke the listener in the publishing thread, slowing down the publisher.
+		 * Note that this may break the ordering of events with the same key.
+		 */
+		CALLER_RUNS,
+
+		/**
+		 * Drop the event for the affected listeners.
+		 */
+		DISCARD,
+
+		/**
+		 * Block the publishing thread until capacity becomes available.
+		 */
+		BLOCK
+	}
+
+
+	private static final Log logger = LogFactory.getLog(QueuedEventDispatcher.class);
+
+	private final Executor executor;
+
+	private final int queueCapacity;
+
+	private final Semaphore permits;
+
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+	@Nullable
+	private Function<? super ApplicationEvent, ?> orderingKeyExtractor;
+
+	/** 每个排序key对应的待执行任务队列；存在即表示该key有正在执行的任务 */
+	private final Map<Object, Deque<Runnable>> orderedQueues = new HashMap<>();
+
+	private final LongAdder dispatchedCount = new LongAdder();
+
+	private final LongAdder completedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final LongAdder totalLatencyNanos = new LongAdder();
+
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+
+	/**
+	 * Create a new QueuedEventDispatcher.
+	 * @param executor the executor to invoke listeners with
+	 * @param queueCapacity the maximum number of events queued or in progress
+	 */
+	public QueuedEventDispatcher(Executor executor, int queueCapacity) {
+		Assert.notNull(executor, "Executor must not be null");
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+		this.executor = executor;
+		this.queueCapacity = queueCapacity;
+		this.permits = new Semaphore(queueCapacity);
+	}
+
+
+	/**
+	 * Set the policy for events published while the dispatcher is at capacity.
+	 * Default is {@link RejectionPolicy#ABORT}.
+	 */
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		Assert.notNull(rejectionPolicy, "RejectionPolicy must not be null");
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	/**
+	 * Set a function extracting the ordering key from an event, e.g. an
+	 * aggregate id. Events with the same key are dispatched in publication
+	 * order; a {@code null} key means no ordering for the event.
+	 * <p>Default is none, dispatching all events concurrently.
+	 */
+	public void setOrderingKeyExtractor(@Nullable Function<? super ApplicationEvent, ?> orderingKeyExtractor) {
+		this.orderingKeyExtractor = orderingKeyExtractor;
+	}
+
+
+	@Override
+	public void dispatch(ApplicationEvent event, Runnable listenerInvocation) {
+		if (!acquirePermit(event)) {
+			handleRejection(event, listenerInvocation);
+			return;
+		}
+		this.dispatchedCount.increment();
+		long startTime = System.nanoTime();
+		Runnable task = () -> {
+			try {
+				listenerInvocation.run();
+			}
+			finally {
+				complete(startTime);
+			}
+		};
+		Object key = (this.orderingKeyExtractor != null ? this.orderingKeyExtractor.apply(event) : null);
+		if (key != null) {
+			dispatchOrdered(key, task);
+		}
+		else {
+			try {
+				this.executor.execute(task);
+			}
+			catch (RejectedExecutionException ex) {
+				this.permits.release();
+				throw new TaskRejectedException("Executor [" + this.executor + "] did not accept event " + event, ex);
+			}
+		}
+	}
+
+	private boolean acquirePermit(ApplicationEvent event) {
+		if (this.rejectionPolicy != RejectionPolicy.BLOCK) {
+			return this.permits.tryAcquire();
+		}
+		try {
+			this.permits.acquire();
+			return true;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting to dispatch event " + event, ex);
+		}
+	}
+
+	private void handleRejection(ApplicationEvent event, Runnable listenerInvocation) {
+		this.rejectedCount.increment();
+		switch (this.rejectionPolicy) {
+			case CALLER_RUNS:
+				listenerInvocation.run();
+				break;
+			case DISCARD:
+				if (logger.isDebugEnabled()) {
+					logger.debug("Discarding event because dispatch queue is full: " + event);
+				}
+				break;
+			default:
+				throw new TaskRejectedException(
+						"Dispatch queue with capacity " + this.queueCapacity + " is full for event " + event);
+		}
+	}
+
+	private void dispatchOrdered(Object key, Runnable task) {
+		synchronized (this.orderedQueues) {
+			Deque<Runnable> queue = this.orderedQueues.get(key);
+			if (queue != null) {
+				queue.add(task);
+				return;
+			}
+			this.orderedQueues.put(key, new ArrayDeque<>());
+		}
+		try {
+			this.executor.execute(() -> drain(key, task));
+		}
+		catch (RejectedExecutionException ex) {
+			// 其他事件可能已排在该key之后：在发布线程中执行以保证顺序且不丢失事件
+			drain(key, task);
+		}
+	}
+
+	private void drain(Object key, Runnable firstTask) {
+		Runnable task = firstTask;
+		while (task != null) {
+			try {
+				task.run();
+			}
+			catch (Throwable ex) {
+				logger.error("Unexpected exception while dispatching event for ordering key '" + key + "'", ex);
+			}
+			synchronized (this.orderedQueues) {
+				Deque<Runnable> queue = this.orderedQueues.get(key);
+				task = queue.poll();
+				if (task == null) {
+					this.orderedQueues.remove(key);
+				}
+			}
+		}
+	}
+
+	private void complete(long startTime) {
+		long latency = System.nanoTime() - startTime;
+		this.totalLatencyNanos.add(latency);
+		this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+		this.permits.release();
+		this.completedCount.increment();
+	}
+
+
+	/**
+	 * Return the maximum number of events queued or in progress.
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Return the current number of events queued or in progress.
+	 */
+	public int getQueueSize() {
+		return this.queueCapacity - this.permits.availablePermits();
+	}
+
+	/**
+	 * Return the number of events accepted for asynchronous dispatch.
+	 */
+	public long getDispatchedCount() {
+		return this.dispatchedCount.sum();
+	}
+
+	/**
+	 * Return the number of events whose listener invocation has completed.
+	 */
+	public long getCompletedCount() {
+		return this.completedCount.sum();
+	}
+
+	/**
+	 * Return the number of events handled according to the rejection policy
+	 * because the dispatcher was at capacity.
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * Return the average time from publication until the listener invocation
+	 * has completed, or {@link Duration#ZERO} if none has completed yet.
+	 */
+	public Duration getAverageLatency() {
+		long completed = this.completedCount.sum();
+		return (completed > 0 ? Duration.ofNanos(this.totalLatencyNanos.sum() / completed) : Duration.ZERO);
+	}
+
+	/**
+	 * Return the maximum time from publication until the listener invocation
+	 * has completed.
+	 */
+	public Duration getMaxLatency() {
+		return Duration.ofNanos(this.maxLatencyNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return "QueuedEventDispatcher [queueSize=" + getQueueSize() + ", queueCapacity=" + this.queueCapacity +
+				", rejectionPolicy=" + this.rejectionPolicy + ", ordered=" + (this.orderingKeyExtractor != null) + "]";
+	}
+
+}
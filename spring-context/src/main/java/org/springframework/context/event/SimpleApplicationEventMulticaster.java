@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.context.event;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,7 +27,9 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -40,20 +44,35 @@ import org.springframework.util.ErrorHandler;
  * This allows the danger of a rogue listener blocking the entire application,
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
+ * Alternatively, specify a {@link EventDispatcher} per listener through a
+ * {@linkplain #setDispatcherResolver dispatcher resolver}, e.g. a bounded and
+ * ordered {@link QueuedEventDispatcher} for slow listeners.
  *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @see #setTaskExecutor
+ * @see #setDispatcherResolver
  */
 public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster {
 
+	/** Marker for listeners without a specific dispatcher in the dispatcher cache. */
+	private static final EventDispatcher NO_DISPATCHER = (event, listenerInvocation) -> {};
+
+
 	@Nullable
 	private Executor taskExecutor;
 
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	@Nullable
+	private Function<ApplicationListener<?>, EventDispatcher> dispatcherResolver;
+
+	private final Map<Class<?>, ResolvableType> eventTypeCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final Map<ApplicationListener<?>, EventDispatcher> dispatcherCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -121,6 +140,42 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.errorHandler;
 	}
 
+	/**
+	 * Set a function resolving the {@link EventDispatcher} for each listener,
+	 * e.g. a {@link QueuedEventDispatcher} for slow listeners which should not
+	 * block the publisher. The function may return {@code null} for listeners
+	 * to be invoked through the {@linkplain #setTaskExecutor task executor}, if
+	 * any, or in the calling thread otherwise.
+	 * <p>The function is called once per listener, with the result being cached.
+	 * Listener exceptions are subject to the {@linkplain #setErrorHandler error
+	 * handler} in any case.
+	 * @since 5.2.23
+	 * @see EventDispatcher#SAME_THREAD
+	 */
+	public void setDispatcherResolver(@Nullable Function<ApplicationListener<?>, EventDispatcher> dispatcherResolver) {
+		this.dispatcherResolver = dispatcherResolver;
+		this.dispatcherCache.clear();
+	}
+
+	/**
+	 * Return the specific {@link EventDispatcher} for the given listener, if any.
+	 * @param listener the listener to dispatch events to
+	 * @return the dispatcher, or {@code null} for the default dispatch
+	 * @since 5.2.23
+	 */
+	@Nullable
+	protected EventDispatcher getEventDispatcher(ApplicationListener<?> listener) {
+		Function<ApplicationListener<?>, EventDispatcher> resolver = this.dispatcherResolver;
+		if (resolver == null) {
+			return null;
+		}
+		EventDispatcher dispatcher = this.dispatcherCache.computeIfAbsent(listener, key -> {
+			EventDispatcher resolved = resolver.apply(key);
+			return (resolved != null ? resolved : NO_DISPATCHER);
+		});
+		return (dispatcher != NO_DISPATCHER ? dispatcher : null);
+	}
+
 
 	@Override
 	public void multicastEvent(ApplicationEvent event) {
@@ -135,7 +190,12 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
 			// getApplicationListeners方法是返回与给定事件类型匹配的应用监听器集合
 			// 遍历所有的监听器
-			if (executor != null) {
+			EventDispatcher dispatcher = getEventDispatcher(listener);
+			if (dispatcher != null) {
+				// 监听器指定了分发器，则交由其调度
+				dispatcher.dispatch(event, () -> invokeListener(listener, event));
+			}
+			else if (executor != null) {
 				// 如果executor不为空，则使用executor调用监听器
 				executor.execute(() -> invokeListener(listener, event));
 			}
@@ -147,7 +207,11 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+		if (event instanceof ResolvableTypeProvider) {
+			return ResolvableType.forInstance(event);
+		}
+		// 普通事件的类型仅取决于事件类：复用同一实例，使监听器缓存查找可走引用相等的快速路径
+		return this.eventTypeCache.computeIfAbsent(event.getClass(), ResolvableType::forClass);
 	}
 
 	/**
@@ -16,11 +16,16 @@
 
 package org.springframework.context.expression;
 
+import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -30,16 +35,40 @@ import org.springframework.util.ObjectUtils;
  * Shared utility class used to evaluate and cache SpEL expressions that
  * are defined on {@link java.lang.reflect.AnnotatedElement}.
  *
+ * <p>By default, expressions are parsed in {@link SpelCompilerMode#MIXED}
+ * mode: frequently evaluated expressions are compiled to bytecode, falling
+ * back to interpretation if a compiled expression fails. The compiler mode
+ * can be specified through the {@value #COMPILER_MODE_PROPERTY_NAME}
+ * property; the general {@code spring.expression.compiler.mode} property
+ * is respected as well.
+ *
  * @author Stephane Nicoll
  * @since 4.2
  * @see AnnotatedElementKey
  */
 public abstract class CachedExpressionEvaluator {
 
+	/**
+	 * System property that specifies the {@link SpelCompilerMode} for the
+	 * default parser of expression evaluators:
+	 * {@code "spring.context.expression.compiler.mode"}.
+	 * @since 5.2.23
+	 */
+	public static final String COMPILER_MODE_PROPERTY_NAME = "spring.context.expression.compiler.mode";
+
+	/** 参数名无法发现时的缓存占位 */
+	private static final String[] NO_PARAMETER_NAMES = new String[0];
+
+
 	private final SpelExpressionParser parser;
 
+	private final SpelExpressionParser interpretingParser =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, null));
+
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private final Map<Method, String[]> parameterNamesCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Create a new instance with the specified {@link SpelExpressionParser}.
@@ -53,7 +82,7 @@ public abstract class CachedExpressionEvaluator {
 	 * Create a new instance with a default {@link SpelExpressionParser}.
 	 */
 	protected CachedExpressionEvaluator() {
-		this(new SpelExpressionParser());
+		this(new SpelExpressionParser(new SpelParserConfiguration(determineCompilerMode(), null)));
 	}
 
 
@@ -73,6 +102,28 @@ public abstract class CachedExpressionEvaluator {
 	}
 
 
+	/**
+	 * Return the parameter names of the given method, resolving them through
+	 * the {@link #getParameterNameDiscoverer() parameter name discoverer} once
+	 * and caching them for subsequent invocations.
+	 * @param method the method to introspect
+	 * @return the parameter names, or {@code null} if not discoverable
+	 * @since 5.2.23
+	 * @see MethodBasedEvaluationContext#MethodBasedEvaluationContext(Object, Method, Object[], String[])
+	 */
+	@Nullable
+	protected String[] getParameterNames(Method method) {
+		String[] parameterNames = this.parameterNamesCache.get(method);
+		if (parameterNames == null) {
+			parameterNames = this.parameterNameDiscoverer.getParameterNames(method);
+			if (parameterNames == null) {
+				parameterNames = NO_PARAMETER_NAMES;
+			}
+			this.parameterNamesCache.put(method, parameterNames);
+		}
+		return (parameterNames != NO_PARAMETER_NAMES ? parameterNames : null);
+	}
+
 	/**
 	 * Return the {@link Expression} for the specified SpEL value
 	 * <p>Parse the expression if it hasn't been already.
@@ -92,10 +143,48 @@ public abstract class CachedExpressionEvaluator {
 		return expr;
 	}
 
+	/**
+	 * Return the {@link Expression} for the specified SpEL value, never to be
+	 * compiled. Useful for evaluations which are expected to fail regularly,
+	 * e.g. against a context where some variables are not available yet,
+	 * which would otherwise discard a compiled expression over and over.
+	 * <p>Parse the expression if it hasn't been already.
+	 * @param cache the cache to use, not to be shared with {@link #getExpression}
+	 * @param elementKey the element on which the expression is defined
+	 * @param expression the expression to parse
+	 * @since 5.2.23
+	 */
+	protected Expression getInterpretedExpression(Map<ExpressionKey, Expression> cache,
+			AnnotatedElementKey elementKey, String expression) {
+
+		ExpressionKey expressionKey = createKey(elementKey, expression);
+		Expression expr = cache.get(expressionKey);
+		if (expr == null) {
+			expr = this.interpretingParser.parseExpression(expression);
+			cache.put(expressionKey, expr);
+		}
+		return expr;
+	}
+
 	private ExpressionKey createKey(AnnotatedElementKey elementKey, String expression) {
 		return new ExpressionKey(elementKey, expression);
 	}
 
+	/**
+	 * Determine the compiler mode for the default parser: the specific property
+	 * if set, otherwise the general SpEL default if set, otherwise "mixed".
+	 */
+	@Nullable
+	private static SpelCompilerMode determineCompilerMode() {
+		String compilerMode = SpringProperties.getProperty(COMPILER_MODE_PROPERTY_NAME);
+		if (compilerMode != null) {
+			return SpelCompilerMode.valueOf(compilerMode.trim().toUpperCase());
+		}
+		// 未设置时沿用全局的spring.expression.compiler.mode（由SpelParserConfiguration读取）
+		return (SpringProperties.getProperty("spring.expression.compiler.mode") != null ?
+				null : SpelCompilerMode.MIXED);
+	}
+
 
 	/**
 	 * An expression key.
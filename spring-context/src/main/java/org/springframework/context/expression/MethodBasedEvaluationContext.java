@@ -35,6 +35,10 @@ import org.springframework.util.ObjectUtils;
  * <li>the name of the parameter as discovered by a configurable {@link ParameterNameDiscoverer}</li>
  * </ol>
  *
+ * <p>Alternatively, the parameter names may be resolved upfront and passed in
+ * directly, in which case the arguments are looked up by index on demand
+ * rather than being registered as variables.
+ *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @since 4.2
@@ -45,8 +49,12 @@ public class MethodBasedEvaluationContext extends StandardEvaluationContext {
 
 	private final Object[] arguments;
 
+	@Nullable
 	private final ParameterNameDiscoverer parameterNameDiscoverer;
 
+	@Nullable
+	private final String[] parameterNames;
+
 	private boolean argumentsLoaded = false;
 
 
@@ -57,6 +65,30 @@ public class MethodBasedEvaluationContext extends StandardEvaluationContext {
 		this.method = method;
 		this.arguments = arguments;
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
+		this.parameterNames = null;
+	}
+
+	/**
+	 * Create a new context for the given method invocation, resolving the
+	 * arguments by index rather than through a {@link ParameterNameDiscoverer}.
+	 * @param rootObject the root object
+	 * @param method the method
+	 * @param arguments the method arguments
+	 * @param parameterNames the parameter names of the method, as resolved
+	 * beforehand, or {@code null} if not discoverable (in which case only
+	 * the indexed aliases are available)
+	 * @since 5.2.23
+	 */
+	public MethodBasedEvaluationContext(Object rootObject, Method method, Object[] arguments,
+			@Nullable String[] parameterNames) {
+
+		super(rootObject);
+		this.method = method;
+		this.arguments = arguments;
+		this.parameterNameDiscoverer = null;
+		this.parameterNames = parameterNames;
+		// 参数按索引直接解析，无需加载为变量
+		this.argumentsLoaded = true;
 	}
 
 
@@ -67,6 +99,9 @@ public class MethodBasedEvaluationContext extends StandardEvaluationContext {
 		if (variable != null) {
 			return variable;
 		}
+		if (this.parameterNameDiscoverer == null) {
+			return resolveArgument(name);
+		}
 		if (!this.argumentsLoaded) {
 			lazyLoadArguments();
 			this.argumentsLoaded = true;
@@ -85,7 +120,8 @@ public class MethodBasedEvaluationContext extends StandardEvaluationContext {
 		}
 
 		// Expose indexed variables as well as parameter names (if discoverable)
-		String[] paramNames = this.parameterNameDiscoverer.getParameterNames(this.method);
+		String[] paramNames = (this.parameterNameDiscoverer != null ?
+				this.parameterNameDiscoverer.getParameterNames(this.method) : this.parameterNames);
 		int paramCount = (paramNames != null ? paramNames.length : this.method.getParameterCount());
 		int argsCount = this.arguments.length;
 
@@ -107,4 +143,56 @@ public class MethodBasedEvaluationContext extends StandardEvaluationContext {
 		}
 	}
 
+	/**
+	 * Resolve the argument for the given variable name, if it denotes a
+	 * parameter, without registering any variables.
+	 */
+	@Nullable
+	private Object resolveArgument(String name) {
+		if (ObjectUtils.isEmpty(this.arguments)) {
+			return null;
+		}
+		int paramCount = (this.parameterNames != null ? this.parameterNames.length : this.method.getParameterCount());
+		int index = -1;
+		if (this.parameterNames != null) {
+			for (int i = 0; i < paramCount; i++) {
+				if (name.equals(this.parameterNames[i])) {
+					index = i;
+					break;
+				}
+			}
+		}
+		if (index == -1) {
+			index = parseIndex(name);
+		}
+		if (index < 0 || index >= paramCount) {
+			return null;
+		}
+		int argsCount = this.arguments.length;
+		if (argsCount > paramCount && index == paramCount - 1) {
+			// Expose remaining arguments as vararg array for last parameter
+			return Arrays.copyOfRange(this.arguments, index, argsCount);
+		}
+		return (argsCount > index ? this.arguments[index] : null);
+	}
+
+	/**
+	 * Parse the index of an "aX" or "pX" alias, returning -1 for any other name.
+	 */
+	private static int parseIndex(String name) {
+		int length = name.length();
+		if (length < 2 || length > 6 || (name.charAt(0) != 'a' && name.charAt(0) != 'p')) {
+			return -1;
+		}
+		int index = 0;
+		for (int i = 1; i < length; i++) {
+			char ch = name.charAt(i);
+			if (ch < '0' || ch > '9' || (ch == '0' && i == 1 && length > 2)) {
+				return -1;
+			}
+			index = index * 10 + (ch - '0');
+		}
+		return index;
+	}
+
 }
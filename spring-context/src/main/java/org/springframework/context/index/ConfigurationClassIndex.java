@@ -0,0 +1,570 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.annotation.AnnotationFilter;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Provide access to the configuration class structure that is defined in
+ * {@code META-INF/spring.configurations}, as generated by the
+ * {@code spring-context-indexer} annotation processor.
+ *
+ * <p>For each indexed class, the index provides an {@link AnnotationMetadata}
+ * equivalent to the one read from the class file through ASM: class hierarchy,
+ * member classes, class-level annotations and annotated methods (such as
+ * {@code @Bean} methods). Classes which cannot be restored from the index,
+ * e.g. because an annotation type changed since the index was generated,
+ * are reported as absent so that the caller can fall back to regular
+ * class file introspection.
+ *
+ * @since 5.2.23
+ * @see ConfigurationClassIndexLoader
+ */
+public class ConfigurationClassIndex {
+
+	private static final char ATTRIBUTE_SEPARATOR = '#';
+
+	private static final String METHOD_PREFIX = "method.";
+
+	private static final Log logger = LogFactory.getLog(ConfigurationClassIndex.class);
+
+
+	private final Map<String, Entry> index;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final Map<String, AnnotationMetadata> metadataCache = new ConcurrentHashMap<>(64);
+
+	private final Set<String> unresolvableTypes = ConcurrentHashMap.newKeySet();
+
+
+	ConfigurationClassIndex(List<Properties> content, @Nullable ClassLoader classLoader) {
+		this.index = parseIndex(content);
+		this.classLoader = classLoader;
+	}
+
+	private static Map<String, Entry> parseIndex(List<Properties> content) {
+		Map<String, Entry> index = new HashMap<>();
+		for (Properties properties : content) {
+			properties.forEach((key, value) -> {
+				String name = (String) key;
+				int separatorIndex = name.indexOf(ATTRIBUTE_SEPARATOR);
+				String type = (separatorIndex != -1 ? name.substring(0, separatorIndex) : name);
+				Entry entry = index.computeIfAbsent(type, Entry::new);
+				if (separatorIndex != -1) {
+					entry.attributes.put(name.substring(separatorIndex + 1), (String) value);
+				}
+				else {
+					entry.flags = StringUtils.commaDelimitedListToSet((String) value);
+				}
+			});
+		}
+		return index;
+	}
+
+
+	/**
+	 * Return whether the specified class is present in the index.
+	 * @param className the fully qualified name of the class
+	 */
+	public boolean hasType(String className) {
+		return this.index.containsKey(className);
+	}
+
+	/**
+	 * Return the {@link AnnotationMetadata} for the specified class.
+	 * @param className the fully qualified name of the class
+	 * @return the metadata, or {@code null} if the class is not indexed or
+	 * if its indexed metadata cannot be resolved against the current classpath
+	 */
+	@Nullable
+	public AnnotationMetadata getAnnotationMetadata(String className) {
+		AnnotationMetadata metadata = this.metadataCache.get(className);
+		if (metadata != null || this.unresolvableTypes.contains(className)) {
+			return metadata;
+		}
+		Entry entry = this.index.get(className);
+		if (entry == null || entry.flags == null) {
+			return null;
+		}
+		try {
+			metadata = createAnnotationMetadata(entry);
+			this.metadataCache.put(className, metadata);
+			return metadata;
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring indexed metadata for class [" + className + "]: " + ex);
+			}
+			this.unresolvableTypes.add(className);
+			return null;
+		}
+	}
+
+	private AnnotationMetadata createAnnotationMetadata(Entry entry) throws Exception {
+		Map<String, String> attributes = entry.attributes;
+		Set<String> flags = entry.flags;
+		Map<Integer, String> methodValues = new TreeMap<>();
+		attributes.forEach((name, value) -> {
+			if (name.startsWith(METHOD_PREFIX)) {
+				methodValues.put(Integer.valueOf(name.substring(METHOD_PREFIX.length())), value);
+			}
+		});
+		List<MethodMetadata> annotatedMethods = new ArrayList<>(methodValues.size());
+		for (String methodValue : methodValues.values()) {
+			List<?> method = (List<?>) new ValueParser(methodValue).parse();
+			String methodName = (String) method.get(0);
+			Set<String> methodFlags = StringUtils.commaDelimitedListToSet((String) method.get(1));
+			String returnTypeName = (String) method.get(2);
+			MergedAnnotations annotations = createAnnotations((List<?>) method.get(3),
+					entry.className + "." + methodName + "()");
+			annotatedMethods.add(new IndexedMethodMetadata(
+					methodName, methodFlags, entry.className, returnTypeName, annotations));
+		}
+		String annotations = attributes.get("annotations");
+		return new IndexedAnnotationMetadata(entry.className, flags,
+				attributes.get("enclosingClass"), attributes.get("superClass"),
+				StringUtils.commaDelimitedListToStringArray(attributes.get("interfaces")),
+				StringUtils.commaDelimitedListToStringArray(attributes.get("memberClasses")),
+				annotatedMethods, createAnnotations(
+						(annotations != null ? (List<?>) new ValueParser(annotations).parse() : Collections.emptyList()),
+						entry.className));
+	}
+
+	@SuppressWarnings("unchecked")
+	private MergedAnnotations createAnnotations(List<?> values, Object source) throws Exception {
+		List<MergedAnnotation<?>> annotations = new ArrayList<>(values.size());
+		for (Object value : values) {
+			ParsedAnnotation parsed = (ParsedAnnotation) value;
+			if (AnnotationFilter.PLAIN.matches(parsed.type)) {
+				continue;
+			}
+			Class<Annotation> annotationType;
+			try {
+				annotationType = (Class<Annotation>) ClassUtils.forName(parsed.type, this.classLoader);
+			}
+			catch (ClassNotFoundException | LinkageError ex) {
+				// Not present at runtime: skip it, as class file introspection would.
+				continue;
+			}
+			annotations.add(MergedAnnotation.of(this.classLoader, source, annotationType,
+					adaptAttributes(annotationType, parsed.attributes)));
+		}
+		return MergedAnnotations.of(annotations);
+	}
+
+	private Map<String, Object> adaptAttributes(Class<?> annotationType, Map<String, Object> attributes)
+			throws Exception {
+
+		Map<String, Object> result = new LinkedHashMap<>(attributes.size());
+		for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+			Class<?> attributeType = annotationType.getMethod(attribute.getKey()).getReturnType();
+			result.put(attribute.getKey(), adaptValue(attributeType, attribute.getValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * Adapt the given parsed value to the specified attribute type, using the
+	 * same representation as class file introspection: class names for class
+	 * values and maps for nested annotations.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Object adaptValue(Class<?> type, Object value) throws Exception {
+		if (type.isArray()) {
+			List<?> elements = (value instanceof List ? (List<?>) value : Collections.singletonList(value));
+			Class<?> componentType = type.getComponentType();
+			Class<?> arrayComponentType = (componentType == Class.class ? String.class :
+					(componentType.isAnnotation() ? Map.class : componentType));
+			Object array = Array.newInstance(arrayComponentType, elements.size());
+			for (int i = 0; i < elements.size(); i++) {
+				Array.set(array, i, adaptValue(componentType, elements.get(i)));
+			}
+			return array;
+		}
+		if (type.isAnnotation()) {
+			return adaptAttributes(type, ((ParsedAnnotation) value).attributes);
+		}
+		String text = (String) value;
+		if (type == String.class || type == Class.class) {
+			return text;
+		}
+		if (type.isEnum()) {
+			return Enum.valueOf((Class<Enum>) type, text);
+		}
+		if (type == boolean.class) {
+			return Boolean.valueOf(text);
+		}
+		if (type == char.class) {
+			return text.charAt(0);
+		}
+		if (type == byte.class) {
+			return Byte.valueOf(text);
+		}
+		if (type == short.class) {
+			return Short.valueOf(text);
+		}
+		if (type == int.class) {
+			return Integer.valueOf(text);
+		}
+		if (type == long.class) {
+			return Long.valueOf(text);
+		}
+		if (type == float.class) {
+			return Float.valueOf(text);
+		}
+		if (type == double.class) {
+			return Double.valueOf(text);
+		}
+		throw new IllegalStateException("Unsupported attribute type " + type.getName());
+	}
+
+
+	/**
+	 * Raw index content for a single class.
+	 */
+	private static class Entry {
+
+		final String className;
+
+		@Nullable
+		Set<String> flags;
+
+		final Map<String, String> attributes = new HashMap<>();
+
+		Entry(String className) {
+			this.className = className;
+		}
+	}
+
+
+	/**
+	 * An annotation as written in the index, with unconverted attribute values.
+	 */
+	private static class ParsedAnnotation {
+
+		final String type;
+
+		final Map<String, Object> attributes;
+
+		ParsedAnnotation(String type, Map<String, Object> attributes) {
+			this.type = type;
+			this.attributes = attributes;
+		}
+	}
+
+
+	/**
+	 * Parser for encoded index values: quoted strings, arrays in square brackets
+	 * and annotations in {@code @type(name=value,...)} form.
+	 */
+	private static class ValueParser {
+
+		private final String text;
+
+		private int position;
+
+		ValueParser(String text) {
+			this.text = text;
+		}
+
+		Object parse() {
+			Object value = readValue();
+			if (this.position != this.text.length()) {
+				throw new IllegalArgumentException("Unexpected trailing content in [" + this.text + "]");
+			}
+			return value;
+		}
+
+		private Object readValue() {
+			char ch = this.text.charAt(this.position);
+			switch (ch) {
+				case '"':
+					return readString();
+				case '[':
+					return readArray();
+				case '@':
+					return readAnnotation();
+				default:
+					throw new IllegalArgumentException(
+							"Unexpected character '" + ch + "' at position " + this.position + " in [" + this.text + "]");
+			}
+		}
+
+		private String readString() {
+			StringBuilder result = new StringBuilder();
+			this.position++;
+			char ch;
+			while ((ch = this.text.charAt(this.position++)) != '"') {
+				result.append(ch == '\\' ? this.text.charAt(this.position++) : ch);
+			}
+			return result.toString();
+		}
+
+		private List<Object> readArray() {
+			List<Object> result = new ArrayList<>();
+			this.position++;
+			if (this.text.charAt(this.position) == ']') {
+				this.position++;
+				return result;
+			}
+			do {
+				result.add(readValue());
+			}
+			while (this.text.charAt(this.position++) == ',');
+			assertPrevious(']');
+			return result;
+		}
+
+		private ParsedAnnotation readAnnotation() {
+			int typeEnd = this.text.indexOf('(', this.position);
+			String type = this.text.substring(this.position + 1, typeEnd);
+			this.position = typeEnd + 1;
+			Map<String, Object> attributes = new LinkedHashMap<>();
+			if (this.text.charAt(this.position) == ')') {
+				this.position++;
+				return new ParsedAnnotation(type, attributes);
+			}
+			do {
+				int nameEnd = this.text.indexOf('=', this.position);
+				String name = this.text.substring(this.position, nameEnd);
+				this.position = nameEnd + 1;
+				attributes.put(name, readValue());
+			}
+			while (this.text.charAt(this.position++) == ',');
+			assertPrevious(')');
+			return new ParsedAnnotation(type, attributes);
+		}
+
+		private void assertPrevious(char expected) {
+			if (this.text.charAt(this.position - 1) != expected) {
+				throw new IllegalArgumentException(
+						"Expected '" + expected + "' at position " + (this.position - 1) + " in [" + this.text + "]");
+			}
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationMetadata} restored from the index.
+	 */
+	private static final class IndexedAnnotationMetadata implements AnnotationMetadata {
+
+		private final String className;
+
+		private final Set<String> flags;
+
+		@Nullable
+		private final String enclosingClassName;
+
+		@Nullable
+		private final String superClassName;
+
+		private final String[] interfaceNames;
+
+		private final String[] memberClassNames;
+
+		private final List<MethodMetadata> annotatedMethods;
+
+		private final MergedAnnotations annotations;
+
+		IndexedAnnotationMetadata(String className, Set<String> flags, @Nullable String enclosingClassName,
+				@Nullable String superClassName, String[] interfaceNames, String[] memberClassNames,
+				List<MethodMetadata> annotatedMethods, MergedAnnotations annotations) {
+
+			this.className = className;
+			this.flags = flags;
+			this.enclosingClassName = enclosingClassName;
+			this.superClassName = superClassName;
+			this.interfaceNames = interfaceNames;
+			this.memberClassNames = memberClassNames;
+			this.annotatedMethods = annotatedMethods;
+			this.annotations = annotations;
+		}
+
+		@Override
+		public String getClassName() {
+			return this.className;
+		}
+
+		@Override
+		public boolean isInterface() {
+			return this.flags.contains("interface");
+		}
+
+		@Override
+		public boolean isAnnotation() {
+			return false;
+		}
+
+		@Override
+		public boolean isAbstract() {
+			return this.flags.contains("abstract");
+		}
+
+		@Override
+		public boolean isFinal() {
+			return this.flags.contains("final");
+		}
+
+		@Override
+		public boolean isIndependent() {
+			return (this.enclosingClassName == null || this.flags.contains("static"));
+		}
+
+		@Override
+		@Nullable
+		public String getEnclosingClassName() {
+			return this.enclosingClassName;
+		}
+
+		@Override
+		@Nullable
+		public String getSuperClassName() {
+			return this.superClassName;
+		}
+
+		@Override
+		public String[] getInterfaceNames() {
+			return this.interfaceNames.clone();
+		}
+
+		@Override
+		public String[] getMemberClassNames() {
+			return this.memberClassNames.clone();
+		}
+
+		@Override
+		public MergedAnnotations getAnnotations() {
+			return this.annotations;
+		}
+
+		@Override
+		public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+			Set<MethodMetadata> result = new LinkedHashSet<>(4);
+			for (MethodMetadata annotatedMethod : this.annotatedMethods) {
+				if (annotatedMethod.isAnnotated(annotationName)) {
+					result.add(annotatedMethod);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return this.className;
+		}
+	}
+
+
+	/**
+	 * {@link MethodMetadata} restored from the index.
+	 */
+	private static final class IndexedMethodMetadata implements MethodMetadata {
+
+		private final String methodName;
+
+		private final Set<String> flags;
+
+		private final String declaringClassName;
+
+		private final String returnTypeName;
+
+		private final MergedAnnotations annotations;
+
+		IndexedMethodMetadata(String methodName, Set<String> flags, String declaringClassName,
+				String returnTypeName, MergedAnnotations annotations) {
+
+			this.methodName = methodName;
+			this.flags = flags;
+			this.declaringClassName = declaringClassName;
+			this.returnTypeName = returnTypeName;
+			this.annotations = annotations;
+		}
+
+		@Override
+		public String getMethodName() {
+			return this.methodName;
+		}
+
+		@Override
+		public String getDeclaringClassName() {
+			return this.declaringClassName;
+		}
+
+		@Override
+		public String getReturnTypeName() {
+			return this.returnTypeName;
+		}
+
+		@Override
+		public boolean isAbstract() {
+			return this.flags.contains("abstract");
+		}
+
+		@Override
+		public boolean isStatic() {
+			return this.flags.contains("static");
+		}
+
+		@Override
+		public boolean isFinal() {
+			return this.flags.contains("final");
+		}
+
+		@Override
+		public boolean isOverridable() {
+			return (!isStatic() && !isFinal() && !this.flags.contains("private"));
+		}
+
+		@Override
+		public MergedAnnotations getAnnotations() {
+			return this.annotations;
+		}
+
+		@Override
+		public String toString() {
+			return this.declaringClassName + "." + this.methodName + "()";
+		}
+	}
+
+}
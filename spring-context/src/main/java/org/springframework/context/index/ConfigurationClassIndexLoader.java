@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Configuration class index loading mechanism for internal use within the framework.
+ *
+ * @since 5.2.23
+ * @see CandidateComponentsIndexLoader
+ */
+public final class ConfigurationClassIndexLoader {
+
+	/**
+	 * The location to look for configuration class metadata.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String CONFIGURATIONS_RESOURCE_LOCATION = "META-INF/spring.configurations";
+
+
+	private static final boolean shouldIgnoreIndex =
+			SpringProperties.getFlag(CandidateComponentsIndexLoader.IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(ConfigurationClassIndexLoader.class);
+
+	private static final ConcurrentMap<ClassLoader, ConfigurationClassIndex> cache =
+			new ConcurrentReferenceHashMap<>();
+
+
+	private ConfigurationClassIndexLoader() {
+	}
+
+
+	/**
+	 * Load and instantiate the {@link ConfigurationClassIndex} from
+	 * {@value #CONFIGURATIONS_RESOURCE_LOCATION}, using the given class loader.
+	 * If no index is available, return {@code null}.
+	 * <p>Like the components index, this index is ignored if the
+	 * {@value CandidateComponentsIndexLoader#IGNORE_INDEX} flag is set.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+	 * @return the index to use or {@code null} if no index was found
+	 * @throws IllegalArgumentException if any module index cannot be loaded
+	 */
+	@Nullable
+	public static ConfigurationClassIndex loadIndex(@Nullable ClassLoader classLoader) {
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ConfigurationClassIndexLoader.class.getClassLoader();
+		}
+		return cache.computeIfAbsent(classLoaderToUse, ConfigurationClassIndexLoader::doLoadIndex);
+	}
+
+	@Nullable
+	private static ConfigurationClassIndex doLoadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+
+		try {
+			Enumeration<URL> urls = classLoader.getResources(CONFIGURATIONS_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			List<Properties> result = new ArrayList<>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(url));
+				result.add(properties);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + result.size() + " configuration class index(es)");
+			}
+			int totalCount = result.stream().mapToInt(Properties::size).sum();
+			return (totalCount > 0 ? new ConfigurationClassIndex(result, classLoader) : null);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load indexes from location [" +
+					CONFIGURATIONS_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+}
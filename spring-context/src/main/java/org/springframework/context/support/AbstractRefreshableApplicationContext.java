@@ -69,6 +69,9 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 	// 是否允许循环依赖
 	@Nullable
 	private Boolean allowCircularReferences;
+	// 是否允许多线程并发创建单例
+	@Nullable
+	private Boolean allowConcurrentSingletonCreation;
 
 	/** Bean factory for this context. */
 	@Nullable
@@ -111,6 +114,17 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 		this.allowCircularReferences = allowCircularReferences;
 	}
 
+	/**
+	 * Set whether singletons may be created by several threads at the same time,
+	 * with a thread creating a lazy-init singleton only blocking other threads
+	 * that ask for the same singleton. Default is "false".
+	 * @since 5.2.23
+	 * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#setAllowConcurrentSingletonCreation
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.allowConcurrentSingletonCreation = allowConcurrentSingletonCreation;
+	}
+
 
 	/**
 	 * This implementation performs an actual refresh of this context's underlying
@@ -206,9 +220,10 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 	 * Customize the internal bean factory used by this context.
 	 * Called for each {@link #refresh()} attempt.
 	 * <p>The default implementation applies this context's
-	 * {@linkplain #setAllowBeanDefinitionOverriding "allowBeanDefinitionOverriding"}
-	 * and {@linkplain #setAllowCircularReferences "allowCircularReferences"} settings,
-	 * if specified. Can be overridden in subclasses to customize any of
+	 * {@linkplain #setAllowBeanDefinitionOverriding "allowBeanDefinitionOverriding"},
+	 * {@linkplain #setAllowCircularReferences "allowCircularReferences"} and
+	 * {@linkplain #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"}
+	 * settings, if specified. Can be overridden in subclasses to customize any of
 	 * {@link DefaultListableBeanFactory}'s settings.
 	 * @param beanFactory the newly created bean factory for this context
 	 * @see DefaultListableBeanFactory#setAllowBeanDefinitionOverriding
@@ -225,6 +240,10 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 		if (this.allowCircularReferences != null) {
 			beanFactory.setAllowCircularReferences(this.allowCircularReferences);
 		}
+		// 如果属性allowConcurrentSingletonCreation不为空，设置是否允许多线程并发创建单例
+		if (this.allowConcurrentSingletonCreation != null) {
+			beanFactory.setAllowConcurrentSingletonCreation(this.allowConcurrentSingletonCreation);
+		}
 	}
 
 	/**
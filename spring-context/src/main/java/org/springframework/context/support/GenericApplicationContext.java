@@ -181,6 +181,17 @@ public class GenericApplicationContext extends AbstractApplicationContext implem
 		this.beanFactory.setAllowCircularReferences(allowCircularReferences);
 	}
 
+	/**
+	 * Set whether singletons may be created by several threads at the same time,
+	 * with a thread creating a lazy-init singleton only blocking other threads
+	 * that ask for the same singleton. Default is "false".
+	 * @since 5.2.23
+	 * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#setAllowConcurrentSingletonCreation
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.beanFactory.setAllowConcurrentSingletonCreation(allowConcurrentSingletonCreation);
+	}
+
 	/**
 	 * Set a ResourceLoader to use for this context. If set, the context will
 	 * delegate all {@code getResource} calls to the given ResourceLoader.
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheTests;
+import org.springframework.core.serializer.support.SerializationDelegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BoundedConcurrentMapCache}.
+ *
+ * @since 5.2.23
+ */
+class BoundedConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<BoundedConcurrentMapCache> {
+
+	private final AtomicLong ticker = new AtomicLong();
+
+	private BoundedConcurrentMapCache cache;
+
+	private BoundedConcurrentMapCache cacheNoNull;
+
+
+	@BeforeEach
+	void setup() {
+		this.cache = new BoundedConcurrentMapCache(CACHE_NAME, 1000, null, true);
+		this.cacheNoNull = new BoundedConcurrentMapCache(CACHE_NAME_NO_NULL, 1000, null, false);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.cache;
+	}
+
+
+	@Test
+	void sizeLimitEvictsLeastRecentlyUsed() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 3, null);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		cache.put("d", 4);
+
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.get("d").get()).isEqualTo(4);
+		assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void frequentlyUsedEntriesSurviveScan() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10, null);
+		cache.put("hot1", 1);
+		cache.put("hot2", 2);
+		assertThat(cache.get("hot1").get()).isEqualTo(1);
+		assertThat(cache.get("hot2").get()).isEqualTo(2);
+
+		for (int i = 0; i < 100; i++) {
+			cache.put("scan" + i, i);
+		}
+		assertThat(cache.size()).isEqualTo(10);
+		assertThat(cache.get("hot1").get()).isEqualTo(1);
+		assertThat(cache.get("hot2").get()).isEqualTo(2);
+		assertThat(cache.get("scan0")).isNull();
+		assertThat(cache.get("scan99").get()).isEqualTo(99);
+	}
+
+	@Test
+	void overwriteDoesNotGrowCache() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 2, null);
+		for (int i = 0; i < 10; i++) {
+			cache.put("key", i);
+		}
+		cache.put("other", "value");
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("key").get()).isEqualTo(9);
+		assertThat(cache.getStatistics().getEvictionCount()).isZero();
+	}
+
+	@Test
+	void expireAfterWrite() {
+		BoundedConcurrentMapCache cache = createCacheWithTicker(Duration.ofSeconds(10));
+		cache.put("key", "value");
+		this.ticker.addAndGet(Duration.ofSeconds(9).toNanos());
+		assertThat(cache.get("key").get()).isEqualTo("value");
+
+		this.ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(cache.get("key")).isNull();
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(1);
+
+		cache.put("key", "value2");
+		assertThat(cache.putIfAbsent("key", "value3").get()).isEqualTo("value2");
+		this.ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertThat(cache.putIfAbsent("key", "value3")).isNull();
+		assertThat(cache.get("key").get()).isEqualTo("value3");
+	}
+
+	@Test
+	void perEntryTimeToLive() {
+		BoundedConcurrentMapCache cache = createCacheWithTicker(null);
+		cache.put("short", "value", Duration.ofSeconds(1));
+		cache.put("long", "value");
+		this.ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+
+		assertThat(cache.get("short")).isNull();
+		assertThat(cache.get("long").get()).isEqualTo("value");
+		assertThat(cache.getExpireAfterWrite()).isNull();
+	}
+
+	@Test
+	void expiredEntriesAreCleanedUpOnWrite() {
+		BoundedConcurrentMapCache cache = createCacheWithTicker(Duration.ofSeconds(1));
+		for (int i = 0; i < 100; i++) {
+			cache.put("old" + i, i);
+		}
+		this.ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+		for (int i = 0; i < 100; i++) {
+			cache.put("new" + i, i);
+		}
+		assertThat(cache.size()).isEqualTo(100);
+		assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(100);
+
+		this.ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+		cache.cleanUp();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void statistics() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10, null);
+		cache.put("key", "value");
+		cache.get("key");
+		cache.get("key", String.class);
+		cache.get("missing");
+		cache.get("loaded", () -> "value");
+		cache.get("loaded", () -> "other");
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertThat(statistics.getHitCount()).isEqualTo(3);
+		assertThat(statistics.getMissCount()).isEqualTo(2);
+		assertThat(statistics.getRequestCount()).isEqualTo(5);
+		assertThat(statistics.getHitRate()).isEqualTo(0.6);
+		assertThat(statistics.minus(new CacheStatistics(1, 1, 0))).isEqualTo(new CacheStatistics(2, 1, 0));
+	}
+
+	@Test
+	void recursiveLoadOfSameKeyFailsFast() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10, null);
+		assertThatExceptionOfType(Cache.ValueRetrievalException.class)
+				.isThrownBy(() -> cache.get("key", () -> cache.get("key", () -> "value")))
+				.withRootCauseInstanceOf(IllegalStateException.class);
+		assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void storeByValue() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10, null, true,
+				new SerializationDelegate(BoundedConcurrentMapCacheTests.class.getClassLoader()));
+		assertThat(cache.isStoreByValue()).isTrue();
+
+		List<String> content = new ArrayList<>(Arrays.asList("one", "two", "three"));
+		cache.put("key", content);
+		content.remove(0);
+		List<String> entry = (List<String>) cache.get("key").get();
+		assertThat(entry).containsExactly("one", "two", "three");
+	}
+
+
+	private BoundedConcurrentMapCache createCacheWithTicker(Duration expireAfterWrite) {
+		return new BoundedConcurrentMapCache(CACHE_NAME, 1000, expireAfterWrite, true, null, this.ticker::get);
+	}
+
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for caching of methods returning {@link CompletableFuture},
+ * {@link Mono} and {@link Flux} in {@link CacheAspectSupport}.
+ *
+ * @since 5.2.23
+ */
+class CacheAsyncTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private AsyncService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(AsyncService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("async");
+	}
+
+	@AfterEach
+	void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	void completableFutureCachesResolvedValue() throws Exception {
+		assertThat(this.service.future("key").get()).isEqualTo("key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("key-1");
+		assertThat(this.service.future("key").get()).isEqualTo("key-1");
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+	}
+
+	@Test
+	void completableFutureSharesInFlightInvocation() throws Exception {
+		CompletableFuture<String> first = this.service.pending("key");
+		CompletableFuture<String> second = this.service.pending("key");
+		assertThat(first.isDone()).isFalse();
+		assertThat(second.isDone()).isFalse();
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+
+		this.service.getPending().complete("value");
+		assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+	}
+
+	@Test
+	void joinedInFlightInvocationAppliesOwnPutsAndEvictions() throws Exception {
+		CacheManager cacheManager = this.context.getBean(CacheManager.class);
+		Cache evicted = cacheManager.getCache("evicted");
+		evicted.put("first", "stale");
+		evicted.put("second", "stale");
+		CompletableFuture<String> first = this.service.pendingAndUpdate("key", "first");
+		CompletableFuture<String> second = this.service.pendingAndUpdate("key", "second");
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+
+		this.service.getPending().complete("value");
+		assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(cacheManager.getCache("put").get("first").get()).isEqualTo("value");
+		assertThat(cacheManager.getCache("put").get("second").get()).isEqualTo("value");
+		assertThat(evicted.get("first")).isNull();
+		assertThat(evicted.get("second")).isNull();
+	}
+
+	@Test
+	void completableFutureFailureIsNotCached() {
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> this.service.fail("key").get())
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> this.service.fail("key").get())
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.getInvocations().get()).isEqualTo(2);
+	}
+
+	@Test
+	void monoIsDeferredAndCachesResolvedValue() {
+		Mono<String> mono = this.service.mono("key");
+		assertThat(this.service.getInvocations().get()).isZero();
+
+		assertThat(mono.block()).isEqualTo("key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("key-1");
+		assertThat(this.service.mono("key").block()).isEqualTo("key-1");
+		assertThat(mono.block()).isEqualTo("key-1");
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+	}
+
+	@Test
+	void fluxCachesCollectedElements() {
+		assertThat(this.service.flux("key").collectList().block()).containsExactly("key", "1");
+		assertThat(this.cache.get("key").get()).isEqualTo(Arrays.asList("key", "1"));
+		assertThat(this.service.flux("key").collectList().block()).containsExactly("key", "1");
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+	}
+
+	@Test
+	void evictionAfterResolution() throws Exception {
+		this.cache.put("key", "value");
+		assertThat(this.service.evict("key").get()).isEqualTo("evicted");
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	void completedLookupInvokesMethodOnCallingThread() throws Exception {
+		assertThat(this.service.future("key").get()).isEqualTo("key-1");
+		assertThat(this.service.getInvokingThread()).isSameAs(Thread.currentThread());
+	}
+
+	@Test
+	void asynchronousLookupInvokesMethodThroughAsyncExecutor() throws Exception {
+		ExecutorService lookupExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "lookup"));
+		ExecutorService asyncExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "invoker"));
+		try {
+			SimpleCacheManager cacheManager = new SimpleCacheManager();
+			cacheManager.setCaches(Collections.singleton(new ConcurrentMapCache("async") {
+				@Override
+				public CompletableFuture<ValueWrapper> retrieve(Object key) {
+					return CompletableFuture.supplyAsync(() -> get(key), lookupExecutor);
+				}
+			}));
+			cacheManager.afterPropertiesSet();
+			CacheInterceptor interceptor = this.context.getBean(CacheInterceptor.class);
+			interceptor.setCacheManager(cacheManager);
+			interceptor.setAsyncExecutor(asyncExecutor);
+
+			assertThat(this.service.future("key").get(10, TimeUnit.SECONDS)).isEqualTo("key-1");
+			assertThat(this.service.getInvokingThread().getName()).isEqualTo("invoker");
+		}
+		finally {
+			lookupExecutor.shutdown();
+			asyncExecutor.shutdown();
+		}
+	}
+
+	@Test
+	void syncIsSupportedForAsynchronousReturnType() throws Exception {
+		assertThat(this.service.syncFuture("key").get()).isEqualTo("key-1");
+		assertThat(this.service.syncFuture("key").get()).isEqualTo("key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("key-1");
+	}
+
+	@Test
+	void retrieveDelegatesToGet() throws Exception {
+		Cache cache = new ConcurrentMapCache("test");
+		assertThat(cache.retrieve("key").get()).isNull();
+		cache.put("key", "value");
+		assertThat(cache.retrieve("key").get().get()).isEqualTo("value");
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public AsyncService asyncService() {
+			return new AsyncService();
+		}
+	}
+
+
+	static class AsyncService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final CompletableFuture<String> pending = new CompletableFuture<>();
+
+		private volatile Thread invokingThread;
+
+		@Cacheable("async")
+		public CompletableFuture<String> future(String key) {
+			this.invokingThread = Thread.currentThread();
+			return CompletableFuture.completedFuture(key + "-" + this.invocations.incrementAndGet());
+		}
+
+		@Cacheable(cacheNames = "async", sync = true)
+		public CompletableFuture<String> syncFuture(String key) {
+			return CompletableFuture.completedFuture(key + "-" + this.invocations.incrementAndGet());
+		}
+
+		@Cacheable("async")
+		public CompletableFuture<String> pending(String key) {
+			this.invocations.incrementAndGet();
+			return this.pending;
+		}
+
+		@Cacheable(cacheNames = "async", key = "#key")
+		@CachePut(cacheNames = "put", key = "#caller")
+		@CacheEvict(cacheNames = "evicted", key = "#caller")
+		public CompletableFuture<String> pendingAndUpdate(String key, String caller) {
+			this.invocations.incrementAndGet();
+			return this.pending;
+		}
+
+		@Cacheable("async")
+		public CompletableFuture<String> fail(String key) {
+			this.invocations.incrementAndGet();
+			CompletableFuture<String> result = new CompletableFuture<>();
+			result.completeExceptionally(new IllegalStateException("failed"));
+			return result;
+		}
+
+		@CacheEvict("async")
+		public CompletableFuture<String> evict(String key) {
+			return CompletableFuture.completedFuture("evicted");
+		}
+
+		@Cacheable("async")
+		public Mono<String> mono(String key) {
+			return Mono.fromSupplier(() -> key + "-" + this.invocations.incrementAndGet());
+		}
+
+		@Cacheable("async")
+		public Flux<String> flux(String key) {
+			List<String> elements = Arrays.asList(key, String.valueOf(this.invocations.incrementAndGet()));
+			return Flux.fromIterable(elements);
+		}
+
+		public AtomicInteger getInvocations() {
+			return this.invocations;
+		}
+
+		public CompletableFuture<String> getPending() {
+			return this.pending;
+		}
+
+		public Thread getInvokingThread() {
+			return this.invokingThread;
+		}
+	}
+
+}
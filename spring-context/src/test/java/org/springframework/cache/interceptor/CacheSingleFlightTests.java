@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for single-flight handling of concurrent cache misses in
+ * {@link CacheAspectSupport}.
+ *
+ * @since 5.2.23
+ */
+class CacheSingleFlightTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private SlowService service;
+
+	private CacheManager cacheManager;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.context.getBean(CacheInterceptor.class).setSingleFlight(true);
+		this.service = this.context.getBean(SlowService.class);
+		this.cacheManager = this.context.getBean(CacheManager.class);
+	}
+
+	@AfterEach
+	void close() {
+		this.executor.shutdownNow();
+		this.context.close();
+	}
+
+
+	@Test
+	void concurrentMissesShareInvocation() throws Exception {
+		List<Future<Object>> results = invokeConcurrently(() -> this.service.find("key"), 4);
+		this.service.getRelease().countDown();
+
+		for (Future<Object> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+		assertThat(this.cacheManager.getCache("first").get("key").get()).isEqualTo("key-1");
+		assertThat(this.cacheManager.getCache("second").get("key").get()).isEqualTo("key-1");
+	}
+
+	@Test
+	void uncacheableResultIsSharedButNotCached() throws Exception {
+		List<Future<Object>> results = invokeConcurrently(() -> this.service.findUnless("skip"), 3);
+		this.service.getRelease().countDown();
+
+		for (Future<Object> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("skip-1");
+		}
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+		assertThat(this.cacheManager.getCache("first").get("skip")).isNull();
+	}
+
+	@Test
+	void exceptionIsPropagatedToWaiters() throws Exception {
+		List<Future<Object>> results = invokeConcurrently(() -> this.service.fail("key"), 3);
+		this.service.getRelease().countDown();
+
+		for (Future<Object> result : results) {
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+					.withCauseInstanceOf(IllegalStateException.class);
+		}
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+	}
+
+	@Test
+	void waitersApplyTheirOwnPutsAndEvictions() throws Exception {
+		Cache evicted = this.cacheManager.getCache("evicted");
+		for (int i = 0; i < 3; i++) {
+			evicted.put("caller" + i, "stale");
+		}
+		AtomicInteger callers = new AtomicInteger();
+		List<Future<Object>> results = invokeConcurrently(
+				() -> this.service.findAndUpdate("key", "caller" + callers.getAndIncrement()), 3);
+		this.service.getRelease().countDown();
+
+		for (Future<Object> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.cacheManager.getCache("put").get("caller" + i).get()).isEqualTo("key-1");
+			assertThat(evicted.get("caller" + i)).isNull();
+		}
+	}
+
+	@Test
+	void interruptedWaiterDoesNotInvokeMethod() throws Exception {
+		Future<Object> leader = this.executor.submit(() -> this.service.find("key"));
+		assertThat(this.service.getEntered().await(10, TimeUnit.SECONDS)).isTrue();
+		Future<Object> waiter = this.executor.submit(() -> {
+			Thread.currentThread().interrupt();
+			return this.service.find("key");
+		});
+
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> waiter.get(10, TimeUnit.SECONDS))
+				.withCauseInstanceOf(InterruptedException.class);
+		this.service.getRelease().countDown();
+		assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("key-1");
+		assertThat(this.service.getInvocations().get()).isEqualTo(1);
+	}
+
+	@Test
+	void differentKeysAreNotCoalesced() throws Exception {
+		this.service.getRelease().countDown();
+		assertThat(this.service.find("a")).isEqualTo("a-1");
+		assertThat(this.service.find("b")).isEqualTo("b-2");
+		assertThat(this.service.find("a")).isEqualTo("a-1");
+		assertThat(this.service.getInvocations().get()).isEqualTo(2);
+	}
+
+	@Test
+	void singleFlightIsDisabledByDefault() {
+		assertThat(new CacheInterceptor().isSingleFlight()).isFalse();
+	}
+
+
+	/**
+	 * Start a first invocation which blocks within the service, then further
+	 * invocations which are expected to wait for the first one.
+	 */
+	private List<Future<Object>> invokeConcurrently(Callable<Object> task, int count)
+			throws InterruptedException {
+
+		List<Future<Object>> results = new ArrayList<>();
+		results.add(this.executor.submit(task));
+		assertThat(this.service.getEntered().await(10, TimeUnit.SECONDS)).isTrue();
+		AtomicInteger started = new AtomicInteger();
+		List<Thread> waiters = new ArrayList<>();
+		for (int i = 1; i < count; i++) {
+			results.add(this.executor.submit(() -> {
+				synchronized (waiters) {
+					waiters.add(Thread.currentThread());
+				}
+				started.incrementAndGet();
+				return task.call();
+			}));
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!allWaiting(waiters, count - 1, started) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		return results;
+	}
+
+	private static boolean allWaiting(List<Thread> waiters, int expected, AtomicInteger started) {
+		if (started.get() < expected) {
+			return false;
+		}
+		synchronized (waiters) {
+			for (Thread waiter : waiters) {
+				if (waiter.getState() != Thread.State.WAITING) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public SlowService slowService() {
+			return new SlowService();
+		}
+	}
+
+
+	static class SlowService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Cacheable(cacheNames = {"first", "second"})
+		public Object find(String key) throws InterruptedException {
+			return key + "-" + invoke();
+		}
+
+		@Cacheable(cacheNames = "first", unless = "#result.startsWith('skip')")
+		public Object findUnless(String key) throws InterruptedException {
+			return key + "-" + invoke();
+		}
+
+		@Cacheable(cacheNames = "first", key = "#key")
+		@CachePut(cacheNames = "put", key = "#caller")
+		@CacheEvict(cacheNames = "evicted", key = "#caller")
+		public Object findAndUpdate(String key, String caller) throws InterruptedException {
+			return key + "-" + invoke();
+		}
+
+		@Cacheable(cacheNames = "first")
+		public Object fail(String key) throws InterruptedException {
+			invoke();
+			throw new IllegalStateException("failed");
+		}
+
+		public AtomicInteger getInvocations() {
+			return this.invocations;
+		}
+
+		public CountDownLatch getEntered() {
+			return this.entered;
+		}
+
+		public CountDownLatch getRelease() {
+			return this.release;
+		}
+
+		private int invoke() throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			this.entered.countDown();
+			this.release.await(10, TimeUnit.SECONDS);
+			return invocation;
+		}
+	}
+
+}
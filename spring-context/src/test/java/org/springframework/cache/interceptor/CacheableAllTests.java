@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CacheableAll;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for multi-key caching with {@link CacheableAll @CacheableAll}.
+ *
+ * @since 5.2.23
+ */
+class CacheableAllTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private UserService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(UserService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("users");
+	}
+
+	@AfterEach
+	void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	void onlyMissingKeysAreLoaded() {
+		this.cache.put(2L, "cached-2");
+
+		Map<Long, String> users = this.service.findUsers(Arrays.asList(1L, 2L, 3L));
+		assertThat(users).containsExactly(entry(1L, "user-1"), entry(2L, "cached-2"), entry(3L, "user-3"));
+		assertThat(this.service.getRequestedKeys()).containsExactly(Arrays.asList(1L, 3L));
+		assertThat(this.cache.get(1L).get()).isEqualTo("user-1");
+		assertThat(this.cache.get(3L).get()).isEqualTo("user-3");
+	}
+
+	@Test
+	void fullHitSkipsInvocation() {
+		this.service.findUsers(Arrays.asList(1L, 2L));
+		Map<Long, String> users = this.service.findUsers(Arrays.asList(2L, 1L));
+		assertThat(users).containsExactly(entry(2L, "user-2"), entry(1L, "user-1"));
+		assertThat(this.service.getRequestedKeys()).hasSize(1);
+	}
+
+	@Test
+	void missingEntriesAreNotCached() {
+		Map<Long, String> users = this.service.findUsers(Arrays.asList(1L, 404L));
+		assertThat(users).containsOnlyKeys(1L);
+		assertThat(this.cache.get(404L)).isNull();
+
+		this.service.findUsers(Arrays.asList(1L, 404L));
+		assertThat(this.service.getRequestedKeys()).containsExactly(Arrays.asList(1L, 404L), Arrays.asList(404L));
+	}
+
+	@Test
+	void setParameterReceivesSet() {
+		this.cache.put(1L, "cached-1");
+		Map<Long, String> users = this.service.findUsersBySet(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+		assertThat(users).containsExactly(entry(1L, "cached-1"), entry(2L, "user-2"));
+		assertThat(this.service.getRequestedKeys()).hasSize(1);
+		assertThat(this.service.getRequestedKeys().get(0)).isInstanceOf(Set.class).containsExactly(2L);
+	}
+
+	@Test
+	void callerArgumentsAreNotModified() {
+		this.cache.put(2L, "cached-2");
+		List<Long> ids = Arrays.asList(1L, 2L, 3L);
+		Object[][] callerArgs = new Object[1][];
+		List<Object> keysSeenByCaller = new ArrayList<>();
+		ProxyFactory proxyFactory = new ProxyFactory(new UserService());
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			callerArgs[0] = invocation.getArguments();
+			return invocation.proceed();
+		});
+		proxyFactory.addAdvice(this.context.getBean(CacheInterceptor.class));
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			keysSeenByCaller.add(callerArgs[0][0]);
+			return invocation.proceed();
+		});
+		UserService proxy = (UserService) proxyFactory.getProxy();
+
+		Map<Long, String> users = proxy.findUsers(ids);
+		assertThat(users).containsExactly(entry(1L, "user-1"), entry(2L, "cached-2"), entry(3L, "user-3"));
+		assertThat(proxy.getRequestedKeys()).containsExactly(Arrays.asList(1L, 3L));
+		assertThat(keysSeenByCaller).containsExactly(ids);
+		assertThat(callerArgs[0][0]).isSameAs(ids);
+	}
+
+	@Test
+	void conditionFailureBypassesCache() {
+		this.cache.put(1L, "cached-1");
+		Map<Long, String> users = this.service.findUsersIf(Arrays.asList(1L, 2L), false);
+		assertThat(users).containsExactly(entry(1L, "user-1"), entry(2L, "user-2"));
+		assertThat(this.cache.get(2L)).isNull();
+	}
+
+	@Test
+	void combinationWithOtherOperationsIsRejected() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.findAndEvict(Arrays.asList(1L)));
+	}
+
+	@Test
+	void defaultBulkOperationsDelegateToSingleKeyOperations() {
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("a", 1);
+		entries.put("b", null);
+		this.cache.putAll(entries);
+
+		Map<Object, Cache.ValueWrapper> hits = this.cache.getAll(Arrays.asList("a", "b", "c"));
+		assertThat(hits).containsOnlyKeys("a", "b");
+		assertThat(hits.get("a").get()).isEqualTo(1);
+		assertThat(hits.get("b").get()).isNull();
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public UserService userService() {
+			return new UserService();
+		}
+	}
+
+
+	static class UserService {
+
+		private final List<Collection<Long>> requestedKeys = new ArrayList<>();
+
+		@CacheableAll("users")
+		public Map<Long, String> findUsers(List<Long> ids) {
+			return load(ids);
+		}
+
+		@CacheableAll("users")
+		public Map<Long, String> findUsersBySet(Set<Long> ids) {
+			return load(ids);
+		}
+
+		@CacheableAll(cacheNames = "users", condition = "#p1")
+		public Map<Long, String> findUsersIf(List<Long> ids, boolean cache) {
+			return load(ids);
+		}
+
+		@CacheableAll("users")
+		@CacheEvict("other")
+		public Map<Long, String> findAndEvict(List<Long> ids) {
+			return load(ids);
+		}
+
+		public List<Collection<Long>> getRequestedKeys() {
+			return this.requestedKeys;
+		}
+
+		private Map<Long, String> load(Collection<Long> ids) {
+			this.requestedKeys.add(ids);
+			Map<Long, String> result = new LinkedHashMap<>();
+			for (Long id : ids) {
+				if (id != 404L) {
+					result.put(id, "user-" + id);
+				}
+			}
+			return result;
+		}
+	}
+
+}
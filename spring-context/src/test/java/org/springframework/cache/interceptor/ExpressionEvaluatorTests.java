@@ -124,6 +124,46 @@ public class ExpressionEvaluatorTests {
 			.satisfies(ex ->  assertThat(ex.getName()).isEqualTo("result"));
 	}
 
+	@Test
+	public void reuseContextWithResult() {
+		EvaluationContext context = createEvaluationContext(CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE);
+		this.eval.setResult(context, "theResult");
+		assertThat(new SpelExpressionParser().parseExpression("#result").getValue(context)).isEqualTo("theResult");
+		this.eval.setResult(context, CacheOperationExpressionEvaluator.NO_RESULT);
+		assertThat(new SpelExpressionParser().parseExpression("#result").getValue(context)).isNull();
+		this.eval.setResult(context, CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE);
+		assertThatExceptionOfType(VariableNotAvailableException.class).isThrownBy(() ->
+				new SpelExpressionParser().parseExpression("#result").getValue(context));
+	}
+
+	@Test
+	public void reuseContextClearsAssignedVariables() {
+		CacheEvaluationContext context = (CacheEvaluationContext) createEvaluationContext("theResult");
+		Object firstArgument = new SpelExpressionParser().parseExpression("#a").getValue(context);
+		new SpelExpressionParser().parseExpression("#x = 'assigned'").getValue(context);
+		new SpelExpressionParser().parseExpression("#a = 'overridden'").getValue(context);
+
+		context.clearAssignedVariables();
+		this.eval.setResult(context, "theResult");
+		assertThat(new SpelExpressionParser().parseExpression("#x").getValue(context)).isNull();
+		assertThat(new SpelExpressionParser().parseExpression("#a").getValue(context)).isSameAs(firstArgument);
+		assertThat(new SpelExpressionParser().parseExpression("#result").getValue(context)).isEqualTo("theResult");
+	}
+
+	@Test
+	public void conditionWithUnavailableResultIsNotCompiled() {
+		AnnotatedElementKey key = new AnnotatedElementKey(
+				ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class),
+				AnnotatedClass.class);
+		EvaluationContext context = createEvaluationContext("theResult");
+		EvaluationContext unavailable = createEvaluationContext(CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE);
+		for (int i = 0; i < 300; i++) {
+			assertThat(this.eval.condition("#result == 'theResult'", key, context)).isTrue();
+			assertThatExceptionOfType(VariableNotAvailableException.class).isThrownBy(() ->
+					this.eval.condition("#result == 'theResult'", key, unavailable));
+		}
+	}
+
 	@Test
 	public void resolveBeanReference() {
 		StaticApplicationContext applicationContext = new StaticApplicationContext();
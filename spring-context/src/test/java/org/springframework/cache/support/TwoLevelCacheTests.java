@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.BoundedConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.testfixture.cache.AbstractCacheTests;
+import org.springframework.lang.Nullable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TwoLevelCache} and {@link TwoLevelCacheManager}, using a
+ * {@link ConcurrentMapCache} as stand-in for the remote tier.
+ *
+ * @since 5.2.23
+ */
+class TwoLevelCacheTests extends AbstractCacheTests<TwoLevelCache> {
+
+	private final ConcurrentHashMap<Object, Object> nativeCache = new ConcurrentHashMap<>();
+
+	private final List<String> invalidations = new ArrayList<>();
+
+	private ConcurrentMapCache remoteCache;
+
+	private BoundedConcurrentMapCache localCache;
+
+	private TwoLevelCache cache;
+
+
+	@BeforeEach
+	void setup() {
+		this.remoteCache = new ConcurrentMapCache(CACHE_NAME, this.nativeCache, true);
+		this.localCache = new BoundedConcurrentMapCache(CACHE_NAME, 2, null, true);
+		this.cache = new TwoLevelCache(this.localCache, this.remoteCache,
+				(cacheName, key) -> this.invalidations.add(cacheName + ":" + key));
+	}
+
+	@Override
+	protected TwoLevelCache getCache() {
+		return this.cache;
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.nativeCache;
+	}
+
+
+	@Test
+	void remoteHitPopulatesLocalTier() {
+		this.remoteCache.put("key", "value");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+
+		this.nativeCache.clear();
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+		assertThat(this.cache.get("missing")).isNull();
+
+		assertThat(this.cache.getLocalStatistics()).isEqualTo(new CacheStatistics(1, 2, 0));
+		assertThat(this.cache.getRemoteStatistics()).isEqualTo(new CacheStatistics(1, 1, 0));
+	}
+
+	@Test
+	void writesGoThroughToRemoteTier() {
+		this.cache.put("key", "value");
+		assertThat(this.remoteCache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+
+		this.cache.evict("key");
+		assertThat(this.remoteCache.get("key")).isNull();
+		assertThat(this.localCache.get("key")).isNull();
+
+		this.cache.put("other", "value");
+		this.cache.clear();
+		assertThat(this.invalidations).containsExactly(
+				CACHE_NAME + ":key", CACHE_NAME + ":key", CACHE_NAME + ":other", CACHE_NAME + ":null");
+	}
+
+	@Test
+	void localTierIsBounded() {
+		this.cache.put("a", 1);
+		this.cache.put("b", 2);
+		this.cache.put("c", 3);
+		assertThat(this.localCache.size()).isEqualTo(2);
+		assertThat(this.cache.get("a").get()).isEqualTo(1);
+		assertThat(this.cache.getRemoteStatistics().getHitCount()).isEqualTo(1);
+		assertThat(this.cache.getLocalStatistics().getEvictionCount()).isEqualTo(2);
+	}
+
+	@Test
+	void evictLocalKeepsRemoteEntry() {
+		this.cache.put("key", "value");
+		this.remoteCache.put("key", "changed");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+
+		this.cache.evictLocal("key");
+		assertThat(this.cache.get("key").get()).isEqualTo("changed");
+		this.cache.clearLocal();
+		assertThat(this.localCache.size()).isZero();
+		assertThat(this.remoteCache.get("key").get()).isEqualTo("changed");
+	}
+
+	@Test
+	void retrievePopulatesLocalTier() throws Exception {
+		this.remoteCache.put("key", "value");
+		assertThat(this.cache.retrieve("key").get().get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+		assertThat(this.cache.retrieve("missing").get()).isNull();
+	}
+
+	@Test
+	void evictDuringRemoteReadDoesNotLeaveStaleLocalEntry() {
+		InterceptingRemoteCache remoteCache = new InterceptingRemoteCache();
+		TwoLevelCache cache = new TwoLevelCache(this.localCache, remoteCache);
+		remoteCache.put("key", "value");
+		remoteCache.afterGet = () -> cache.evict("key");
+
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key")).isNull();
+		assertThat(cache.get("key")).isNull();
+	}
+
+	@Test
+	void putDuringRemoteReadIsNotOverwritten() {
+		InterceptingRemoteCache remoteCache = new InterceptingRemoteCache();
+		TwoLevelCache cache = new TwoLevelCache(this.localCache, remoteCache);
+		remoteCache.put("key", "value");
+		remoteCache.afterGet = () -> cache.put("key", "new");
+
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("new");
+		assertThat(cache.get("key").get()).isEqualTo("new");
+	}
+
+	@Test
+	void clearDuringRemoteReadDoesNotLeaveStaleLocalEntries() {
+		InterceptingRemoteCache remoteCache = new InterceptingRemoteCache();
+		TwoLevelCache cache = new TwoLevelCache(this.localCache, remoteCache);
+		remoteCache.put("key", "value");
+		remoteCache.put("other", "value");
+		remoteCache.afterGet = cache::clear;
+
+		assertThat(cache.getAll(Arrays.asList("key", "other"))).hasSize(2);
+		assertThat(this.localCache.size()).isZero();
+	}
+
+	@Test
+	void cacheManagerLayersRemoteCaches() {
+		ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager("remote");
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(remoteCacheManager);
+		cacheManager.setLocalMaximumSize(10);
+		cacheManager.afterPropertiesSet();
+
+		Cache cache = cacheManager.getCache("remote");
+		assertThat(cache).isInstanceOf(TwoLevelCache.class);
+		assertThat(cacheManager.getCache("remote")).isSameAs(cache);
+		assertThat(cacheManager.getCache("unknown")).isNull();
+		assertThat(cacheManager.getCacheNames()).containsExactly("remote");
+
+		TwoLevelCache twoLevelCache = (TwoLevelCache) cache;
+		assertThat(twoLevelCache.getRemoteCache()).isSameAs(remoteCacheManager.getCache("remote"));
+		assertThat(((BoundedConcurrentMapCache) twoLevelCache.getLocalCache()).getMaximumSize()).isEqualTo(10);
+
+		cache.put("key", "value");
+		twoLevelCache.getRemoteCache().put("key", "changed");
+		cacheManager.evictLocal("remote", "key");
+		assertThat(cache.get("key").get()).isEqualTo("changed");
+	}
+
+
+	/**
+	 * Remote tier which runs a callback once a read has obtained its value,
+	 * simulating a write that races with the population of the local tier.
+	 */
+	private static class InterceptingRemoteCache extends ConcurrentMapCache {
+
+		@Nullable
+		Runnable afterGet;
+
+		InterceptingRemoteCache() {
+			super(CACHE_NAME);
+		}
+
+		@Override
+		@Nullable
+		public ValueWrapper get(Object key) {
+			ValueWrapper wrapper = super.get(key);
+			runAfterGet();
+			return wrapper;
+		}
+
+		@Override
+		public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+			Map<Object, ValueWrapper> result = new LinkedHashMap<>();
+			for (Object key : keys) {
+				ValueWrapper wrapper = super.get(key);
+				if (wrapper != null) {
+					result.put(key, wrapper);
+				}
+			}
+			runAfterGet();
+			return result;
+		}
+
+		private void runAfterGet() {
+			Runnable callback = this.afterGet;
+			if (callback != null) {
+				this.afterGet = null;
+				callback.run();
+			}
+		}
+	}
+
+}
@@ -16,11 +16,13 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.nio.file.Files;
 import java.util.HashSet;
 
 import example.scannable.CustomComponent;
@@ -59,6 +61,7 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.core.type.filter.TypeFilter;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -98,6 +101,26 @@ public class ComponentScanAnnotationIntegrationTests {
 			.isTrue();
 	}
 
+	@Test
+	public void viaContextRegistrationWithPersistentMetadataCache() throws IOException {
+		File cacheFile = new File(Files.createTempDirectory("metadata").toFile(), "metadata.cache");
+		System.setProperty(PersistentMetadataReaderFactory.CACHE_LOCATION_PROPERTY_NAME, cacheFile.getPath());
+		try {
+			for (int i = 0; i < 2; i++) {
+				AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+				ctx.register(ComponentScanAnnotatedConfig.class);
+				ctx.refresh();
+				assertThat(cacheFile).exists();
+				ctx.getBean(TestBean.class);
+				assertThat(ctx.containsBean("fooServiceImpl")).isTrue();
+				ctx.close();
+			}
+		}
+		finally {
+			System.clearProperty(PersistentMetadataReaderFactory.CACHE_LOCATION_PROPERTY_NAME);
+		}
+	}
+
 	@Test
 	public void viaContextRegistration_WithValueAttribute() {
 		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
@@ -301,8 +301,9 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.contains(event3)).isTrue();
 		assertThat(listener1.seenEvents.contains(event4)).isTrue();
 
+		// The lazily registered MyEvent listener leaves the other event types cached
 		AbstractApplicationEventMulticaster multicaster = context.getBean(AbstractApplicationEventMulticaster.class);
-		assertThat(multicaster.retrieverCache.size()).isEqualTo(2);
+		assertThat(multicaster.retrieverCache.size()).isEqualTo(3);
 
 		context.close();
 	}
@@ -562,6 +563,48 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		context.close();
 	}
 
+	@Test
+	public void listenerRegistrationOnlyInvalidatesAffectedEventTypes() {
+		SimpleApplicationEventMulticaster multicaster = new SimpleApplicationEventMulticaster();
+		MyOrderedListener3 allEventsListener = new MyOrderedListener3();
+		multicaster.addApplicationListener(allEventsListener);
+		MyEvent event = new MyEvent(this);
+		MyOtherEvent otherEvent = new MyOtherEvent(this);
+		multicaster.multicastEvent(event);
+		multicaster.multicastEvent(otherEvent);
+		assertThat(multicaster.retrieverCache.size()).isEqualTo(2);
+
+		MyOrderedListener4 myEventListener = new MyOrderedListener4(allEventsListener);
+		multicaster.addApplicationListener(myEventListener);
+		assertThat(multicaster.retrieverCache.size()).isEqualTo(1);
+		assertThat(multicaster.getApplicationListeners(otherEvent, ResolvableType.forClass(MyOtherEvent.class)))
+				.containsExactly(allEventsListener);
+		assertThat(multicaster.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)))
+				.containsExactly(allEventsListener, myEventListener);
+
+		multicaster.removeApplicationListener(myEventListener);
+		assertThat(multicaster.retrieverCache.size()).isEqualTo(1);
+		assertThat(multicaster.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)))
+				.containsExactly(allEventsListener);
+
+		multicaster.removeApplicationListener(allEventsListener);
+		assertThat(multicaster.retrieverCache).isEmpty();
+		allEventsListener.seenEvents.clear();
+		multicaster.multicastEvent(event);
+		assertThat(allEventsListener.seenEvents).isEmpty();
+	}
+
+	@Test
+	public void payloadEventTypeIsReused() {
+		PayloadApplicationEvent<String> event = new PayloadApplicationEvent<>(this, "payload");
+		PayloadApplicationEvent<String> otherEvent = new PayloadApplicationEvent<>(this, "other");
+		assertThat(event.getResolvableType()).isSameAs(otherEvent.getResolvableType());
+		assertThat(event.getResolvableType()).isEqualTo(
+				ResolvableType.forClassWithGenerics(PayloadApplicationEvent.class, String.class));
+		assertThat(new PayloadApplicationEvent<>(this, 1).getResolvableType()).isEqualTo(
+				ResolvableType.forClassWithGenerics(PayloadApplicationEvent.class, Integer.class));
+	}
+
 
 	@SuppressWarnings("serial")
 	public static class MyEvent extends ApplicationEvent {
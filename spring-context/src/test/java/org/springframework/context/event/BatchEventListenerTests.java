@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BatchEventListener @BatchEventListener}.
+ *
+ * @since 5.2.23
+ */
+class BatchEventListenerTests {
+
+	@Test
+	void batchIsDeliveredWhenFull() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		AuditListener listener = context.getBean(AuditListener.class);
+		for (int i = 0; i < 7; i++) {
+			context.publishEvent("event-" + i);
+		}
+		assertThat(listener.batches).containsExactly(
+				Arrays.asList("event-0", "event-1", "event-2"), Arrays.asList("event-3", "event-4", "event-5"));
+		context.close();
+	}
+
+	@Test
+	void pendingEventsAreDeliveredOnClose() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		AuditListener listener = context.getBean(AuditListener.class);
+		context.publishEvent("event-0");
+		assertThat(listener.batches).isEmpty();
+		context.close();
+		assertThat(listener.batches).containsExactly(Collections.singletonList("event-0"));
+	}
+
+	@Test
+	void conditionIsEvaluatedPerEvent() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		AuditListener listener = context.getBean(AuditListener.class);
+		context.publishEvent(1);
+		context.publishEvent(-2);
+		context.publishEvent(3);
+		context.close();
+		assertThat(listener.numbers).containsExactly(Arrays.asList(1, 3));
+	}
+
+	@Test
+	void batchIsDeliveredAfterMaxDelay() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TimedConfig.class);
+		TimedListener listener = context.getBean(TimedListener.class);
+		context.publishEvent("event-0");
+		context.publishEvent("event-1");
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(listener.batches).containsExactly(Arrays.asList("event-0", "event-1"));
+		context.close();
+		assertThat(listener.batches).hasSize(1);
+	}
+
+	@Test
+	void flushSchedulerIsOwnedByContextAndShutDownOnClose() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TimedConfig.class);
+		BatchingApplicationListenerMethodAdapter.FlushScheduler flushScheduler = context.getBean(
+				BatchingApplicationListenerMethodAdapter.FLUSH_SCHEDULER_BEAN_NAME,
+				BatchingApplicationListenerMethodAdapter.FlushScheduler.class);
+		assertThat(context.getBeanProvider(TaskScheduler.class).getIfAvailable()).isNull();
+		assertThat(flushScheduler.taskScheduler.getScheduledExecutor().isShutdown()).isFalse();
+
+		context.close();
+		assertThat(flushScheduler.taskScheduler.getScheduledExecutor().isShutdown()).isTrue();
+	}
+
+	@Test
+	void taskSchedulerBeanIsUsedForFlushing() throws Exception {
+		AnnotationConfigApplicationContext context =
+				new AnnotationConfigApplicationContext(TimedConfig.class, TaskSchedulerConfig.class);
+		TimedListener listener = context.getBean(TimedListener.class);
+		assertThat(context.containsBean(BatchingApplicationListenerMethodAdapter.FLUSH_SCHEDULER_BEAN_NAME)).isFalse();
+
+		context.publishEvent("event-0");
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(listener.threadNames).containsExactly("custom-scheduler-1");
+		context.close();
+	}
+
+	@Test
+	void nonListParameterIsRejected() {
+		assertThatExceptionOfType(BeanInitializationException.class).isThrownBy(() ->
+				new AnnotationConfigApplicationContext(InvalidListener.class))
+				.withStackTraceContaining("single List parameter");
+	}
+
+
+	@Configuration
+	static class Config {
+
+		@Bean
+		public AuditListener auditListener() {
+			return new AuditListener();
+		}
+	}
+
+
+	@Component
+	static class AuditListener {
+
+		final List<List<String>> batches = new ArrayList<>();
+
+		final List<List<Integer>> numbers = new ArrayList<>();
+
+		@BatchEventListener(maxSize = 3, maxDelay = 0)
+		public void onEvents(List<String> events) {
+			this.batches.add(events);
+		}
+
+		@BatchEventListener(maxDelay = 0, condition = "#p0 > 0")
+		public void onNumbers(List<Integer> events) {
+			this.numbers.add(events);
+		}
+	}
+
+
+	@Configuration
+	static class TimedConfig {
+
+		@Bean
+		public TimedListener timedListener() {
+			return new TimedListener();
+		}
+	}
+
+
+	@Component
+	static class TimedListener {
+
+		final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+		final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		@BatchEventListener(maxDelay = 50)
+		public void onEvents(List<String> events) {
+			this.batches.add(events);
+			this.threadNames.add(Thread.currentThread().getName());
+			this.latch.countDown();
+		}
+	}
+
+
+	@Configuration
+	static class TaskSchedulerConfig {
+
+		@Bean
+		public ThreadPoolTaskScheduler customScheduler() {
+			ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+			scheduler.setThreadNamePrefix("custom-scheduler-");
+			return scheduler;
+		}
+	}
+
+
+	@Component
+	static class InvalidListener {
+
+		@BatchEventListener
+		public void onEvent(String event) {
+		}
+	}
+
+}
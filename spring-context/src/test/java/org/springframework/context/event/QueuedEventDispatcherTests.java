@@ -0,0 +1,220 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link QueuedEventDispatcher}.
+ *
+ * @since 5.2.23
+ */
+class QueuedEventDispatcherTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	void fullQueueRejectsEvents() throws Exception {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		dispatcher.dispatch(event("a"), () -> {
+			await(release);
+			done.countDown();
+		});
+		assertThat(dispatcher.getQueueSize()).isEqualTo(1);
+
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				dispatcher.dispatch(event("b"), () -> {}));
+		assertThat(dispatcher.getRejectedCount()).isEqualTo(1);
+
+		release.countDown();
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		awaitCompletion(dispatcher, 1);
+		assertThat(dispatcher.getQueueSize()).isEqualTo(0);
+		assertThat(dispatcher.getDispatchedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void callerRunsWhenQueueIsFull() {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 1);
+		dispatcher.setRejectionPolicy(QueuedEventDispatcher.RejectionPolicy.CALLER_RUNS);
+		CountDownLatch release = new CountDownLatch(1);
+		dispatcher.dispatch(event("a"), () -> await(release));
+
+		List<Thread> threads = new ArrayList<>();
+		dispatcher.dispatch(event("b"), () -> threads.add(Thread.currentThread()));
+		assertThat(threads).containsExactly(Thread.currentThread());
+		release.countDown();
+	}
+
+	@Test
+	void discardWhenQueueIsFull() {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 1);
+		dispatcher.setRejectionPolicy(QueuedEventDispatcher.RejectionPolicy.DISCARD);
+		CountDownLatch release = new CountDownLatch(1);
+		dispatcher.dispatch(event("a"), () -> await(release));
+
+		List<String> invoked = new ArrayList<>();
+		dispatcher.dispatch(event("b"), () -> invoked.add("b"));
+		assertThat(invoked).isEmpty();
+		assertThat(dispatcher.getRejectedCount()).isEqualTo(1);
+		release.countDown();
+	}
+
+	@Test
+	void blockUntilCapacityIsAvailable() throws Exception {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 1);
+		dispatcher.setRejectionPolicy(QueuedEventDispatcher.RejectionPolicy.BLOCK);
+		CountDownLatch done = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			dispatcher.dispatch(event(i), done::countDown);
+		}
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatcher.getRejectedCount()).isEqualTo(0);
+		awaitCompletion(dispatcher, 10);
+	}
+
+	@Test
+	void eventsWithSameKeyAreDispatchedInOrder() throws Exception {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 1000);
+		dispatcher.setOrderingKeyExtractor(event -> ((Integer) ((PayloadApplicationEvent<?>) event).getPayload()) % 3);
+		List<Integer> invoked = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(300);
+		for (int i = 0; i < 300; i++) {
+			int value = i;
+			dispatcher.dispatch(event(value), () -> {
+				invoked.add(value);
+				done.countDown();
+			});
+		}
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int key = 0; key < 3; key++) {
+			int previous = -1;
+			for (Integer value : invoked) {
+				if (value % 3 == key) {
+					assertThat(value).isGreaterThan(previous);
+					previous = value;
+				}
+			}
+		}
+		awaitCompletion(dispatcher, 300);
+		assertThat(dispatcher.getQueueSize()).isEqualTo(0);
+	}
+
+	@Test
+	void failingInvocationDoesNotStallOrderedQueue() throws Exception {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 10);
+		dispatcher.setOrderingKeyExtractor(event -> "key");
+		CountDownLatch done = new CountDownLatch(1);
+		dispatcher.dispatch(event("a"), () -> {
+			throw new IllegalStateException("Expected");
+		});
+		dispatcher.dispatch(event("b"), done::countDown);
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		awaitCompletion(dispatcher, 2);
+		assertThat(dispatcher.getQueueSize()).isEqualTo(0);
+	}
+
+	@Test
+	void latencyIsRecorded() throws Exception {
+		QueuedEventDispatcher dispatcher = new QueuedEventDispatcher(this.executor, 10);
+		dispatcher.dispatch(event("a"), () -> sleep(20));
+		awaitCompletion(dispatcher, 1);
+		assertThat(dispatcher.getAverageLatency().toMillis()).isGreaterThanOrEqualTo(20);
+		assertThat(dispatcher.getMaxLatency()).isGreaterThanOrEqualTo(dispatcher.getAverageLatency());
+	}
+
+	@Test
+	void multicasterUsesResolvedDispatcher() throws Exception {
+		QueuedEventDispatcher queued = new QueuedEventDispatcher(this.executor, 10);
+		CountDownLatch done = new CountDownLatch(1);
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		ApplicationListener<ApplicationEvent> slow = event -> {
+			threads.add(Thread.currentThread());
+			done.countDown();
+		};
+		ApplicationListener<ApplicationEvent> fast = event -> threads.add(Thread.currentThread());
+
+		SimpleApplicationEventMulticaster multicaster = new SimpleApplicationEventMulticaster();
+		multicaster.addApplicationListener(slow);
+		multicaster.addApplicationListener(fast);
+		multicaster.setDispatcherResolver(listener -> (listener == slow ? queued : null));
+		multicaster.multicastEvent(event("a"));
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(threads).hasSize(2).contains(Thread.currentThread());
+		assertThat(threads).filteredOn(thread -> thread != Thread.currentThread()).hasSize(1);
+		awaitCompletion(queued, 1);
+	}
+
+
+	private static ApplicationEvent event(Object payload) {
+		return new PayloadApplicationEvent<>(QueuedEventDispatcherTests.class, payload);
+	}
+
+	private static void awaitCompletion(QueuedEventDispatcher dispatcher, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (dispatcher.getCompletedCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(dispatcher.getCompletedCount()).isEqualTo(count);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.context.expression;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -23,7 +24,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,6 +69,44 @@ public class CachedExpressionEvaluatorTests {
 		assertThat(expressionEvaluator.testCache.size()).as("Cached expression should be based on type").isEqualTo(2);
 	}
 
+	@Test
+	public void compileFrequentlyEvaluatedExpression() {
+		DefaultExpressionEvaluator evaluator = new DefaultExpressionEvaluator();
+		Method method = ReflectionUtils.findMethod(getClass(), "toString");
+		Expression expression = evaluator.getTestExpression("#foo + ':' + #bar", method, getClass());
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("foo", "a");
+		context.setVariable("bar", "b");
+		for (int i = 0; i < 200; i++) {
+			assertThat(expression.getValue(context)).isEqualTo("a:b");
+		}
+		assertThat(isCompiled(expression)).isTrue();
+
+		Expression interpreted = evaluator.getInterpretedTestExpression("#foo + ':' + #bar", method, getClass());
+		for (int i = 0; i < 200; i++) {
+			assertThat(interpreted.getValue(context)).isEqualTo("a:b");
+		}
+		assertThat(isCompiled(interpreted)).isFalse();
+	}
+
+	@Test
+	public void cacheParameterNames() {
+		Method method = ReflectionUtils.findMethod(getClass(), "sample", String.class, int.class);
+		String[] parameterNames = expressionEvaluator.getParameterNames(method);
+		assertThat(parameterNames).containsExactly("name", "count");
+		assertThat(expressionEvaluator.getParameterNames(method)).isSameAs(parameterNames);
+	}
+
+	private static boolean isCompiled(Expression expression) {
+		Field field = ReflectionUtils.findField(SpelExpression.class, "compiledAst");
+		ReflectionUtils.makeAccessible(field);
+		return (ReflectionUtils.getField(field, expression) != null);
+	}
+
+	@SuppressWarnings("unused")
+	private void sample(String name, int count) {
+	}
+
 	private void hasParsedExpression(String expression) {
 		verify(expressionEvaluator.getParser(), times(1)).parseExpression(expression);
 	}
@@ -88,4 +129,19 @@ public class CachedExpressionEvaluatorTests {
 		}
 	}
 
+	private static class DefaultExpressionEvaluator extends CachedExpressionEvaluator {
+
+		private final Map<ExpressionKey, Expression> testCache = new ConcurrentHashMap<>();
+
+		private final Map<ExpressionKey, Expression> interpretedCache = new ConcurrentHashMap<>();
+
+		public Expression getTestExpression(String expression, Method method, Class<?> type) {
+			return getExpression(this.testCache, new AnnotatedElementKey(method, type), expression);
+		}
+
+		public Expression getInterpretedTestExpression(String expression, Method method, Class<?> type) {
+			return getInterpretedExpression(this.interpretedCache, new AnnotatedElementKey(method, type), expression);
+		}
+	}
+
 }
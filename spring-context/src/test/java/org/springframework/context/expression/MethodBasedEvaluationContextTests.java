@@ -125,6 +125,62 @@ public class MethodBasedEvaluationContextTests {
 		assertThat(context.lookupVariable("vararg")).isEqualTo(new Object[] {"hello", "hi"});
 	}
 
+	@Test
+	public void indexedArguments() {
+		Method method = ReflectionUtils.findMethod(SampleMethods.class, "hello", String.class, Boolean.class);
+		MethodBasedEvaluationContext context = createIndexedEvaluationContext(method, "test", true);
+
+		assertThat(context.lookupVariable("a0")).isEqualTo("test");
+		assertThat(context.lookupVariable("p0")).isEqualTo("test");
+		assertThat(context.lookupVariable("foo")).isEqualTo("test");
+
+		assertThat(context.lookupVariable("a1")).isEqualTo(true);
+		assertThat(context.lookupVariable("p1")).isEqualTo(true);
+		assertThat(context.lookupVariable("flag")).isEqualTo(true);
+
+		assertThat(context.lookupVariable("a2")).isNull();
+		assertThat(context.lookupVariable("a01")).isNull();
+		assertThat(context.lookupVariable("bar")).isNull();
+	}
+
+	@Test
+	public void indexedArgumentsWithExplicitVariable() {
+		Method method = ReflectionUtils.findMethod(SampleMethods.class, "hello", String.class, Boolean.class);
+		MethodBasedEvaluationContext context = createIndexedEvaluationContext(method, "test", true);
+		context.setVariable("foo", "explicit");
+
+		assertThat(context.lookupVariable("foo")).isEqualTo("explicit");
+		assertThat(context.lookupVariable("a0")).isEqualTo("test");
+	}
+
+	@Test
+	public void indexedArgumentsWithoutParameterNames() {
+		Method method = ReflectionUtils.findMethod(SampleMethods.class, "hello", String.class, Boolean.class);
+		MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(this, method,
+				new Object[] {"test", true}, (String[]) null);
+
+		assertThat(context.lookupVariable("p0")).isEqualTo("test");
+		assertThat(context.lookupVariable("a1")).isEqualTo(true);
+		assertThat(context.lookupVariable("foo")).isNull();
+	}
+
+	@Test
+	public void indexedVarArgMultiple() {
+		Method method = ReflectionUtils.findMethod(SampleMethods.class, "hello", Boolean.class, String[].class);
+		MethodBasedEvaluationContext context = createIndexedEvaluationContext(method, null, "hello", "hi");
+
+		assertThat(context.lookupVariable("a0")).isNull();
+		assertThat(context.lookupVariable("flag")).isNull();
+
+		assertThat(context.lookupVariable("a1")).isEqualTo(new Object[] {"hello", "hi"});
+		assertThat(context.lookupVariable("p1")).isEqualTo(new Object[] {"hello", "hi"});
+		assertThat(context.lookupVariable("vararg")).isEqualTo(new Object[] {"hello", "hi"});
+	}
+
+	private MethodBasedEvaluationContext createIndexedEvaluationContext(Method method, Object... args) {
+		return new MethodBasedEvaluationContext(this, method, args, this.paramDiscover.getParameterNames(method));
+	}
+
 	private MethodBasedEvaluationContext createEvaluationContext(Method method, Object... args) {
 		return new MethodBasedEvaluationContext(this, method, args, this.paramDiscover);
 	}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Benchmarks comparing a cold scan of class metadata through ASM with restoring
+ * it from an up-to-date {@link PersistentMetadataReaderFactory} cache file,
+ * including fingerprinting of each class file. A new factory is used for each
+ * invocation, as on application startup.
+ *
+ * @since 5.2.23
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistentMetadataReaderFactoryBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class ScanState {
+
+		/** Classes in a jar file (CRC fingerprint) or in a directory (MD5 fingerprint). */
+		@Param({"classpath*:org/springframework/core/annotation/*.class", "classpath*:org/openjdk/jmh/annotations/*.class"})
+		public String pattern;
+
+		public Resource[] resources;
+
+		public File cacheFile;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			this.resources = new PathMatchingResourcePatternResolver().getResources(this.pattern);
+			this.cacheFile = File.createTempFile("metadata", ".cache");
+			PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+			for (Resource resource : this.resources) {
+				factory.getMetadataReader(resource);
+			}
+			factory.saveCache();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.cacheFile.delete();
+		}
+	}
+
+
+	@Benchmark
+	public void readThroughAsm(ScanState state, Blackhole bh) throws IOException {
+		MetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		for (Resource resource : state.resources) {
+			bh.consume(factory.getMetadataReader(resource).getAnnotationMetadata());
+		}
+	}
+
+	@Benchmark
+	public void restoreFromCacheFile(ScanState state, Blackhole bh) throws IOException {
+		MetadataReaderFactory factory = new PersistentMetadataReaderFactory(state.cacheFile);
+		for (Resource resource : state.resources) {
+			bh.consume(factory.getMetadataReader(resource).getAnnotationMetadata());
+		}
+	}
+
+}
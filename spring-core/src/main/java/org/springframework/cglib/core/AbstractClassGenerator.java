@@ -294,6 +294,20 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 
 	abstract protected ClassLoader getDefaultClassLoader();
 
+	// SPRING PATCH BEGIN
+	/**
+	 * Return a key describing everything the generated bytecode depends on, for
+	 * reusing bytecode from the {@link PersistentClassCache}. The generated class
+	 * name is not part of the key: a cached class is defined under its original name.
+	 * @return the key, or {@code null} if the generated class cannot be cached
+	 * (the default)
+	 * @since 5.2.23
+	 */
+	protected String getPersistentCacheKey() {
+		return null;
+	}
+	// SPRING PATCH END
+
 	/**
 	 * Returns the protection domain to use when defining the class.
 	 * <p>
@@ -365,9 +379,34 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 						getClassName() + ". It seems that the loader has been expired from a weak reference somehow. " +
 						"Please file an issue at cglib's issue tracker.");
 			}
+			// SPRING PATCH BEGIN
+			PersistentClassCache persistentCache = PersistentClassCache.getSharedInstance();
+			String persistentKey = (persistentCache != null ? getPersistentCacheKey() : null);
+			byte[] cachedBytes = (persistentKey != null ? persistentCache.load(persistentKey) : null);
+			boolean defineCachedClass = false;
+			// SPRING PATCH END
 			synchronized (classLoader) {
-				// 生成代理类名字
-				String name = generateClassName(data.getUniqueNamePredicate());
+				// SPRING PATCH BEGIN
+				String name = null;
+				if (cachedBytes != null) {
+					// 缓存的类以其原有的名字定义，名字已被占用时重新生成
+					try {
+						name = ClassNameReader.getClassName(new ClassReader(cachedBytes));
+					}
+					catch (RuntimeException ex) {
+						// Corrupt cache entry: to be replaced with the generated class
+						cachedBytes = null;
+					}
+					if (name != null && data.getUniqueNamePredicate().evaluate(name)) {
+						name = null;
+					}
+					defineCachedClass = (name != null);
+				}
+				if (name == null) {
+					// 生成代理类名字
+					name = generateClassName(data.getUniqueNamePredicate());
+				}
+				// SPRING PATCH END
 				// 缓存中存入这个名字
 				data.reserveName(name);
 				// 当前代理类生成器设置类名
@@ -384,16 +423,38 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 					// ignore
 				}
 			}
+			ProtectionDomain protectionDomain = getProtectionDomain();
+			// SPRING PATCH BEGIN
+			if (defineCachedClass) {
+				try {
+					synchronized (classLoader) {
+						return ReflectUtils.defineClass(getClassName(), cachedBytes, classLoader, protectionDomain, contextClass);
+					}
+				}
+				catch (CodeGenerationException | LinkageError ex) {
+					// Class of that name defined elsewhere already: generate under a fresh name
+					synchronized (classLoader) {
+						String name = generateClassName(data.getUniqueNamePredicate());
+						data.reserveName(name);
+						this.setClassName(name);
+					}
+				}
+			}
+			// SPRING PATCH END
 			// 生成字节码
 			byte[] b = strategy.generate(this);
 			// 获取到字节码代表的class名字
 			String className = ClassNameReader.getClassName(new ClassReader(b));
-			ProtectionDomain protectionDomain = getProtectionDomain();
 			synchronized (classLoader) { // just in case
 				// SPRING PATCH BEGIN
 				gen = ReflectUtils.defineClass(className, b, classLoader, protectionDomain, contextClass);
 				// SPRING PATCH END
 			}
+			// SPRING PATCH BEGIN
+			if (persistentKey != null && cachedBytes == null) {
+				persistentCache.store(persistentKey, b);
+			}
+			// SPRING PATCH END
 			return gen;
 		}
 		catch (RuntimeException | Error ex) {
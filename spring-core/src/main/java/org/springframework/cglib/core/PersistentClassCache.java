@@ -0,0 +1,321 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * File-based cache of generated class bytecode, allowing a later run to define
+ * a previously generated class directly instead of generating it again.
+ *
+ * <p>Entries are stored under a hash of a generator-specific key which covers
+ * everything the bytecode depends on, including fingerprints of the class files
+ * of the superclass hierarchy and of the generator itself: a changed class
+ * results in a different key, so stale entries are never used (but are not
+ * removed either). A class generator participates by returning a key from
+ * {@link AbstractClassGenerator#getPersistentCacheKey()}.
+ *
+ * <p>The location is either a directory, which entries are read from and
+ * written to, or a jar file, e.g. a directory populated by a training run
+ * and packaged at build time, which entries are only read from.
+ *
+ * @since 5.2.23
+ * @see #CACHE_LOCATION_PROPERTY_NAME
+ */
+public class PersistentClassCache {
+
+	/**
+	 * System property that specifies the directory or jar file of the shared
+	 * class cache: {@value}. No classes are cached if not set.
+	 */
+	public static final String CACHE_LOCATION_PROPERTY_NAME = "spring.cglib.class-cache.location";
+
+	private static final Log logger = LogFactory.getLog(PersistentClassCache.class);
+
+	@Nullable
+	private static PersistentClassCache sharedInstance;
+
+
+	private final File location;
+
+	private final boolean readOnly;
+
+	@Nullable
+	private JarFile jarFile;
+
+	private final Map<Class<?>, String> fingerprintCache = new ConcurrentReferenceHashMap<>(256);
+
+	@Nullable
+	private volatile String generatorFingerprint;
+
+
+	/**
+	 * Create a new PersistentClassCache for the given location.
+	 * @param location the directory to read classes from and write them to,
+	 * or a jar file to read classes from
+	 */
+	public PersistentClassCache(File location) {
+		this.location = location;
+		this.readOnly = location.getName().endsWith(ResourceUtils.JAR_FILE_EXTENSION);
+	}
+
+
+	/**
+	 * Return the cache for the location specified by the
+	 * {@link #CACHE_LOCATION_PROPERTY_NAME} property, if any.
+	 */
+	@Nullable
+	public static synchronized PersistentClassCache getSharedInstance() {
+		String location = SpringProperties.getProperty(CACHE_LOCATION_PROPERTY_NAME);
+		if (location == null) {
+			return null;
+		}
+		File file = new File(location);
+		if (sharedInstance == null || !sharedInstance.location.equals(file)) {
+			sharedInstance = new PersistentClassCache(file);
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Return the directory or jar file of this cache.
+	 */
+	public File getLocation() {
+		return this.location;
+	}
+
+
+	/**
+	 * Load the bytecode stored for the given key.
+	 * @param key the generator-specific key
+	 * @return the bytecode, or {@code null} if none stored
+	 */
+	@Nullable
+	public byte[] load(String key) {
+		String entryName = getEntryName(key);
+		try {
+			if (this.readOnly) {
+				return loadFromJar(entryName);
+			}
+			File file = new File(this.location, entryName);
+			return (file.isFile() ? Files.readAllBytes(file.toPath()) : null);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read cached class " + entryName + " from " + this.location, ex);
+			}
+			return null;
+		}
+	}
+
+	@Nullable
+	private synchronized byte[] loadFromJar(String entryName) throws IOException {
+		if (this.jarFile == null) {
+			if (!this.location.isFile()) {
+				return null;
+			}
+			this.jarFile = new JarFile(this.location);
+		}
+		JarEntry entry = this.jarFile.getJarEntry(entryName);
+		if (entry == null) {
+			return null;
+		}
+		try (InputStream is = this.jarFile.getInputStream(entry)) {
+			return FileCopyUtils.copyToByteArray(is);
+		}
+	}
+
+	/**
+	 * Store the given bytecode for the given key. This is a no-op for a
+	 * cache backed by a jar file.
+	 * @param key the generator-specific key
+	 * @param bytecode the generated bytecode
+	 */
+	public void store(String key, byte[] bytecode) {
+		if (this.readOnly) {
+			return;
+		}
+		String entryName = getEntryName(key);
+		try {
+			Path directory = this.location.getAbsoluteFile().toPath();
+			Files.createDirectories(directory);
+			Path tempFile = Files.createTempFile(directory, entryName, ".tmp");
+			try {
+				Files.write(tempFile, bytecode);
+				Path target = directory.resolve(entryName);
+				try {
+					Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (AtomicMoveNotSupportedException ex) {
+					Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write cached class " + entryName + " to " + this.location, ex);
+			}
+		}
+	}
+
+	private String getEntryName(String key) {
+		return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + ClassUtils.CLASS_FILE_SUFFIX;
+	}
+
+
+	/**
+	 * Return a fingerprint of the class generation infrastructure itself,
+	 * to be included in every key.
+	 */
+	public String getGeneratorFingerprint() {
+		String fingerprint = this.generatorFingerprint;
+		if (fingerprint == null) {
+			StringBuilder sb = new StringBuilder();
+			for (Class<?> clazz : new Class<?>[] {AbstractClassGenerator.class, ClassEmitter.class,
+					CodeEmitter.class, ClassWriter.class}) {
+				sb.append(getClassFingerprint(clazz)).append(';');
+			}
+			fingerprint = sb.toString();
+			this.generatorFingerprint = fingerprint;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Return a fingerprint of the given class and all of its superclasses and
+	 * interfaces, or {@code null} if any of them has no class file.
+	 */
+	@Nullable
+	public String getHierarchyFingerprint(Class<?> clazz) {
+		StringBuilder sb = new StringBuilder();
+		for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+			if (!appendFingerprint(sb, current)) {
+				return null;
+			}
+		}
+		// 父接口的变更同样会影响生成的代理类
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		collectInterfaces(clazz, interfaces);
+		for (Class<?> ifc : interfaces) {
+			if (!appendFingerprint(sb, ifc)) {
+				return null;
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+		for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+			for (Class<?> ifc : current.getInterfaces()) {
+				if (interfaces.add(ifc)) {
+					collectInterfaces(ifc, interfaces);
+				}
+			}
+		}
+	}
+
+	private boolean appendFingerprint(StringBuilder sb, Class<?> clazz) {
+		String fingerprint = getClassFingerprint(clazz);
+		if (fingerprint == null) {
+			return false;
+		}
+		sb.append(clazz.getName()).append('=').append(fingerprint).append(';');
+		return true;
+	}
+
+	/**
+	 * Return a fingerprint of the class file of the given class: the jar entry
+	 * CRC for a class in a jar, an MD5 hash of the class file otherwise.
+	 * @return the fingerprint, or {@code null} if the class has no class file
+	 * (e.g. a generated class)
+	 */
+	@Nullable
+	public String getClassFingerprint(Class<?> clazz) {
+		String fingerprint = this.fingerprintCache.get(clazz);
+		if (fingerprint == null) {
+			fingerprint = computeClassFingerprint(clazz);
+			this.fingerprintCache.put(clazz, fingerprint);
+		}
+		return (fingerprint.isEmpty() ? null : fingerprint);
+	}
+
+	private String computeClassFingerprint(Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null) {
+			// JDK类随JDK版本固定
+			return "jdk:" + System.getProperty("java.version");
+		}
+		URL url = classLoader.getResource(ClassUtils.convertClassNameToResourcePath(clazz.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX);
+		if (url == null) {
+			return "";
+		}
+		try {
+			if (ResourceUtils.isJarURL(url)) {
+				URLConnection con = url.openConnection();
+				if (con instanceof JarURLConnection) {
+					JarURLConnection jarCon = (JarURLConnection) con;
+					ResourceUtils.useCachesIfNecessary(jarCon);
+					JarEntry jarEntry = jarCon.getJarEntry();
+					if (!jarCon.getUseCaches()) {
+						jarCon.getJarFile().close();
+					}
+					if (jarEntry != null && jarEntry.getCrc() != -1) {
+						return "crc:" + Long.toHexString(jarEntry.getCrc()) + ":" + jarEntry.getSize();
+					}
+				}
+			}
+			try (InputStream is = url.openStream()) {
+				return "md5:" + DigestUtils.md5DigestAsHex(is);
+			}
+		}
+		catch (IOException ex) {
+			return "";
+		}
+	}
+
+}
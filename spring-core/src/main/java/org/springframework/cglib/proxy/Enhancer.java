@@ -562,6 +562,67 @@ public class Enhancer extends AbstractClassGenerator {
 		return super.generate(data);
 	}
 
+	// SPRING PATCH BEGIN
+	@Override
+	protected String getPersistentCacheKey() {
+		PersistentClassCache persistentCache = PersistentClassCache.getSharedInstance();
+		GeneratorStrategy strategy = getStrategy();
+		// 自定义的子类及有状态的生成策略无法仅凭类文件判断生成结果是否相同
+		if (persistentCache == null || getClass() != Enhancer.class || currentData != null ||
+				!(strategy.getClass() == DefaultGeneratorStrategy.class ||
+						strategy instanceof ClassLoaderAwareGeneratorStrategy)) {
+			return null;
+		}
+		String enhancerFingerprint = persistentCache.getClassFingerprint(Enhancer.class);
+		String strategyFingerprint = persistentCache.getClassFingerprint(strategy.getClass());
+		if (enhancerFingerprint == null || strategyFingerprint == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder("Enhancer:").append(enhancerFingerprint).append(';');
+		sb.append(persistentCache.getGeneratorFingerprint());
+		sb.append("|strategy=").append(strategy.getClass().getName()).append(':').append(strategyFingerprint);
+		sb.append("|naming=").append(getNamingPolicy().getClass().getName());
+		Class sc = (superclass == null ? Object.class : superclass);
+		if (!appendTypeFingerprint(sb.append("|superclass="), sc, persistentCache)) {
+			return null;
+		}
+		sb.append("|interfaces=");
+		if (interfaces != null) {
+			for (Class ifc : interfaces) {
+				if (!appendTypeFingerprint(sb, ifc, persistentCache)) {
+					return null;
+				}
+			}
+		}
+		sb.append("|callbackTypes=");
+		for (Type callbackType : callbackTypes) {
+			sb.append(callbackType.getDescriptor());
+		}
+		sb.append("|useFactory=").append(useFactory);
+		sb.append("|interceptDuringConstruction=").append(interceptDuringConstruction);
+		sb.append("|serialVersionUID=").append(serialVersionUID);
+		// 回调过滤器对每个方法的选择会写入字节码
+		List methods = new ArrayList();
+		getMethods(sc, interfaces, methods);
+		List<String> callbackIndexes = new ArrayList<String>(methods.size());
+		for (Object method : methods) {
+			callbackIndexes.add(ReflectUtils.getSignature((Method) method) + "=" + filter.accept((Method) method));
+		}
+		Collections.sort(callbackIndexes);
+		sb.append("|methods=").append(callbackIndexes);
+		return sb.toString();
+	}
+
+	private static boolean appendTypeFingerprint(StringBuilder sb, Class type, PersistentClassCache persistentCache) {
+		String fingerprint = persistentCache.getHierarchyFingerprint(type);
+		if (fingerprint == null) {
+			return false;
+		}
+		sb.append(type.getName()).append(':').append(fingerprint).append(';');
+		return true;
+	}
+	// SPRING PATCH END
+
 	protected ClassLoader getDefaultClassLoader() {
 		if (superclass != null) {
 			return superclass.getClassLoader();
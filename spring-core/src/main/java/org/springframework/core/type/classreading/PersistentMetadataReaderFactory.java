@@ -0,0 +1,750 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotation.Adapt;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Extension of {@link CachingMetadataReaderFactory} that additionally keeps the
+ * class metadata in a file, so that a later run can restore a
+ * {@link MetadataReader} without parsing the class file through ASM again.
+ *
+ * <p>Each entry is keyed by the URL of the ".class" resource and validated
+ * against a fingerprint of that class file: the CRC of the jar entry for
+ * classes in a jar file, or an MD5 hash of the file content otherwise.
+ * Entries with a stale fingerprint, as well as entries that cannot be
+ * restored (e.g. because an annotation type is not available anymore),
+ * are transparently read through ASM again.
+ *
+ * <p>The restored metadata covers class structure, directly present class
+ * annotations and annotated methods (e.g. {@code @Bean} methods), which is
+ * what component scanning and configuration class parsing rely on. It is
+ * stored as plain strings and primitive values rather than through Java
+ * serialization: restoring an entry only resolves the annotation and enum
+ * types it refers to, just like reading the class file through ASM does.
+ * Restored readers are held in the regular {@link CachingMetadataReaderFactory}
+ * cache, and the cache file is only written on {@link #saveCache()},
+ * containing the entries used since the cache was loaded.
+ *
+ * @since 5.2.23
+ * @see #CACHE_LOCATION_PROPERTY_NAME
+ */
+public class PersistentMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	/**
+	 * System property that specifies the location of the metadata cache file
+	 * to be used by the configuration class infrastructure, typically pointing
+	 * to a file generated at build time or kept across restarts.
+	 * <p>If not set, metadata is only cached in memory for a single run.
+	 */
+	public static final String CACHE_LOCATION_PROPERTY_NAME = "spring.metadata.cache.location";
+
+	private static final int CACHE_FILE_MAGIC = 0x53504D43;
+
+	private static final int CACHE_FILE_VERSION = 2;
+
+	private static final byte SOURCE_NONE = 0;
+
+	private static final byte SOURCE_CLASS = 1;
+
+	private static final byte SOURCE_METHOD = 2;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final File cacheFile;
+
+	/** Entries read from the cache file, keyed by resource URL. */
+	private final Map<String, CacheEntry> storedEntries = new ConcurrentHashMap<>(256);
+
+	/** Entries resolved in the current run, to be written on {@link #saveCache()}. */
+	private final Map<String, CacheEntry> usedEntries = new ConcurrentHashMap<>(256);
+
+	private volatile boolean loaded;
+
+	private volatile boolean modified;
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the default class loader.
+	 * @param cacheFile the file to read the cached metadata from and to write it to
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile) {
+		super();
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ClassLoader}.
+	 * @param cacheFile the file to read the cached metadata from and to write it to
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, @Nullable ClassLoader classLoader) {
+		super(classLoader);
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ResourceLoader}.
+	 * @param cacheFile the file to read the cached metadata from and to write it to
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the file that this factory reads its cached metadata from.
+	 */
+	public File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Restore the MetadataReader from the cache file if its entry is up to date,
+	 * reading the class file through ASM otherwise. Only called for resources
+	 * that are not held in the in-memory MetadataReader cache yet.
+	 */
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		String key = getCacheKey(resource);
+		if (key == null) {
+			return super.createMetadataReader(resource);
+		}
+		// 本次运行中已校验过指纹的条目无需再次计算指纹
+		CacheEntry entry = this.usedEntries.get(key);
+		if (entry == null) {
+			String fingerprint = getFingerprint(resource);
+			if (fingerprint == null) {
+				return super.createMetadataReader(resource);
+			}
+			if (!this.loaded) {
+				loadCache();
+			}
+			entry = this.storedEntries.get(key);
+			if (entry == null || !entry.fingerprint.equals(fingerprint)) {
+				return readAndStoreMetadata(resource, key, fingerprint);
+			}
+		}
+		AnnotationMetadata metadata = restoreMetadata(entry);
+		if (metadata == null) {
+			return readAndStoreMetadata(resource, key, entry.fingerprint);
+		}
+		this.usedEntries.put(key, entry);
+		return new SimpleMetadataReader(resource, metadata);
+	}
+
+	private MetadataReader readAndStoreMetadata(Resource resource, String key, String fingerprint)
+			throws IOException {
+
+		MetadataReader metadataReader = super.createMetadataReader(resource);
+		byte[] content = storeMetadata(metadataReader.getAnnotationMetadata());
+		if (content != null) {
+			this.usedEntries.put(key, new CacheEntry(fingerprint, content));
+			this.modified = true;
+		}
+		return metadataReader;
+	}
+
+	/**
+	 * Write the metadata used since the cache file was loaded to the cache file,
+	 * replacing its previous content. This is a no-op if all metadata has been
+	 * restored from an up-to-date cache file.
+	 * @throws IOException if the cache file could not be written
+	 */
+	public void saveCache() throws IOException {
+		if (!this.loaded) {
+			loadCache();
+		}
+		if (!this.modified && this.usedEntries.size() == this.storedEntries.size()) {
+			return;
+		}
+		Map<String, CacheEntry> entries = new LinkedHashMap<>(this.usedEntries);
+		Path target = this.cacheFile.getAbsoluteFile().toPath();
+		Path directory = target.getParent();
+		Files.createDirectories(directory);
+		Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(CACHE_FILE_MAGIC);
+				out.writeInt(CACHE_FILE_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeUTF(entry.getValue().fingerprint);
+					out.writeInt(entry.getValue().content.length);
+					out.write(entry.getValue().content);
+				}
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+		this.storedEntries.clear();
+		this.storedEntries.putAll(entries);
+		this.modified = false;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Wrote " + entries.size() + " metadata cache entries to " + target);
+		}
+	}
+
+
+	private synchronized void loadCache() {
+		if (!this.loaded) {
+			try {
+				readCacheFile();
+			}
+			finally {
+				this.loaded = true;
+			}
+		}
+	}
+
+	private void readCacheFile() {
+		if (!this.cacheFile.isFile()) {
+			return;
+		}
+		long fileLength = this.cacheFile.length();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(this.cacheFile.toPath())))) {
+			if (in.readInt() != CACHE_FILE_MAGIC || in.readInt() != CACHE_FILE_VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring metadata cache file in unsupported format: " + this.cacheFile);
+				}
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				String fingerprint = in.readUTF();
+				int length = in.readInt();
+				if (length < 0 || length > fileLength) {
+					throw new IOException("Invalid entry length " + length);
+				}
+				byte[] content = new byte[length];
+				in.readFully(content);
+				this.storedEntries.put(key, new CacheEntry(fingerprint, content));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Read " + count + " metadata cache entries from " + this.cacheFile);
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			// Corrupt or truncated file: start over with ASM-based reading
+			this.storedEntries.clear();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read metadata cache file " + this.cacheFile, ex);
+			}
+		}
+	}
+
+	@Nullable
+	private String getCacheKey(Resource resource) {
+		try {
+			return resource.getURL().toString();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	@Nullable
+	private String getFingerprint(Resource resource) {
+		try {
+			URL url = resource.getURL();
+			if (ResourceUtils.isJarURL(url)) {
+				URLConnection con = url.openConnection();
+				if (con instanceof JarURLConnection) {
+					JarURLConnection jarCon = (JarURLConnection) con;
+					ResourceUtils.useCachesIfNecessary(jarCon);
+					JarEntry jarEntry = jarCon.getJarEntry();
+					if (!jarCon.getUseCaches()) {
+						jarCon.getJarFile().close();
+					}
+					if (jarEntry != null && jarEntry.getCrc() != -1) {
+						return "crc:" + Long.toHexString(jarEntry.getCrc()) + ":" + jarEntry.getSize();
+					}
+				}
+			}
+			try (InputStream is = resource.getInputStream()) {
+				return "md5:" + DigestUtils.md5DigestAsHex(is);
+			}
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Writing and reading of the cached metadata
+	//---------------------------------------------------------------------
+
+	@Nullable
+	private byte[] storeMetadata(AnnotationMetadata metadata) {
+		if (!(metadata instanceof SimpleAnnotationMetadata)) {
+			return null;
+		}
+		SimpleAnnotationMetadata simpleMetadata = (SimpleAnnotationMetadata) metadata;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+		try (DataOutputStream out = new DataOutputStream(baos)) {
+			out.writeUTF(simpleMetadata.getClassName());
+			out.writeInt(simpleMetadata.getAccess());
+			writeNullableString(out, simpleMetadata.getEnclosingClassName());
+			writeNullableString(out, simpleMetadata.getSuperClassName());
+			out.writeBoolean(simpleMetadata.isIndependent());
+			writeStrings(out, simpleMetadata.getInterfaceNames());
+			writeStrings(out, simpleMetadata.getMemberClassNames());
+			writeAnnotations(out, simpleMetadata.getAnnotations());
+			MethodMetadata[] annotatedMethods = simpleMetadata.getAllAnnotatedMethods();
+			out.writeInt(annotatedMethods.length);
+			for (MethodMetadata annotatedMethod : annotatedMethods) {
+				SimpleMethodMetadata method = (SimpleMethodMetadata) annotatedMethod;
+				out.writeUTF(method.getMethodName());
+				out.writeInt(method.getAccess());
+				out.writeUTF(method.getDeclaringClassName());
+				out.writeUTF(method.getReturnTypeName());
+				writeAnnotations(out, method.getAnnotations());
+			}
+		}
+		catch (IOException | IllegalArgumentException ex) {
+			// Typically a custom annotation source or an unsupported attribute value
+			if (logger.isTraceEnabled()) {
+				logger.trace("Not caching metadata for class [" + metadata.getClassName() + "]", ex);
+			}
+			return null;
+		}
+		return baos.toByteArray();
+	}
+
+	private void writeAnnotations(DataOutputStream out, MergedAnnotations annotations) throws IOException {
+		List<MergedAnnotation<Annotation>> directAnnotations = new ArrayList<>(4);
+		annotations.stream().filter(MergedAnnotation::isDirectlyPresent).forEach(directAnnotations::add);
+		out.writeInt(directAnnotations.size());
+		for (MergedAnnotation<Annotation> annotation : directAnnotations) {
+			out.writeUTF(annotation.getType().getName());
+			writeSource(out, annotation.getSource());
+			writeAttributes(out, annotation.asMap(mergedAnnotation -> new LinkedHashMap<>(),
+					Adapt.CLASS_TO_STRING, Adapt.ANNOTATION_TO_MAP));
+		}
+	}
+
+	private void writeSource(DataOutputStream out, @Nullable Object source) throws IOException {
+		if (source == null) {
+			out.writeByte(SOURCE_NONE);
+		}
+		else if (source instanceof SimpleAnnotationMetadataReadingVisitor.Source) {
+			out.writeByte(SOURCE_CLASS);
+			out.writeUTF(((SimpleAnnotationMetadataReadingVisitor.Source) source).getClassName());
+		}
+		else if (source instanceof SimpleMethodMetadataReadingVisitor.Source) {
+			SimpleMethodMetadataReadingVisitor.Source methodSource = (SimpleMethodMetadataReadingVisitor.Source) source;
+			out.writeByte(SOURCE_METHOD);
+			out.writeUTF(methodSource.getDeclaringClassName());
+			out.writeUTF(methodSource.getName());
+			out.writeUTF(methodSource.getDescriptor());
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported annotation source: " + source);
+		}
+	}
+
+	private void writeAttributes(DataOutputStream out, Map<String, Object> attributes) throws IOException {
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+			out.writeUTF(attribute.getKey());
+			writeValue(out, attribute.getValue());
+		}
+	}
+
+	/**
+	 * 按类型标记写出属性值：字符串、基本类型包装类、枚举、嵌套注解（Map）及其数组
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte('s');
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte('Z');
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte('B');
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte('C');
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte('S');
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte('I');
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte('J');
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte('F');
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte('D');
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Enum) {
+			out.writeByte('e');
+			out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+			out.writeUTF(((Enum<?>) value).name());
+		}
+		else if (value instanceof Map) {
+			out.writeByte('m');
+			writeAttributes(out, (Map<String, Object>) value);
+		}
+		else if (value.getClass().isArray()) {
+			Class<?> componentType = value.getClass().getComponentType();
+			out.writeByte('[');
+			if (componentType == String.class) {
+				out.writeByte('s');
+			}
+			else if (componentType.isEnum()) {
+				out.writeByte('e');
+				out.writeUTF(componentType.getName());
+			}
+			else if (Map.class.isAssignableFrom(componentType)) {
+				out.writeByte('m');
+			}
+			else if (componentType.isPrimitive()) {
+				out.writeByte(getPrimitiveTag(componentType));
+			}
+			else {
+				throw new IllegalArgumentException("Unsupported attribute array type: " + value.getClass().getName());
+			}
+			int length = Array.getLength(value);
+			out.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(out, Array.get(value, i));
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported attribute value type: " + value.getClass().getName());
+		}
+	}
+
+	private static byte getPrimitiveTag(Class<?> primitiveType) {
+		if (primitiveType == boolean.class) {
+			return 'Z';
+		}
+		else if (primitiveType == byte.class) {
+			return 'B';
+		}
+		else if (primitiveType == char.class) {
+			return 'C';
+		}
+		else if (primitiveType == short.class) {
+			return 'S';
+		}
+		else if (primitiveType == int.class) {
+			return 'I';
+		}
+		else if (primitiveType == long.class) {
+			return 'J';
+		}
+		else if (primitiveType == float.class) {
+			return 'F';
+		}
+		else if (primitiveType == double.class) {
+			return 'D';
+		}
+		throw new IllegalArgumentException("Unsupported primitive type: " + primitiveType);
+	}
+
+	private void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private void writeStrings(DataOutputStream out, String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private AnnotationMetadata restoreMetadata(CacheEntry entry) {
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.content))) {
+			String className = in.readUTF();
+			int access = in.readInt();
+			String enclosingClassName = readNullableString(in);
+			String superClassName = readNullableString(in);
+			boolean independentInnerClass = in.readBoolean();
+			String[] interfaceNames = readStrings(in);
+			String[] memberClassNames = readStrings(in);
+			MergedAnnotations annotations = readAnnotations(in, classLoader);
+			MethodMetadata[] annotatedMethods = new MethodMetadata[readLength(in)];
+			for (int i = 0; i < annotatedMethods.length; i++) {
+				String methodName = in.readUTF();
+				int methodAccess = in.readInt();
+				String declaringClassName = in.readUTF();
+				String returnTypeName = in.readUTF();
+				annotatedMethods[i] = new SimpleMethodMetadata(methodName, methodAccess,
+						declaringClassName, returnTypeName, readAnnotations(in, classLoader));
+			}
+			return new SimpleAnnotationMetadata(className, access, enclosingClassName, superClassName,
+					independentInnerClass, interfaceNames, memberClassNames, annotatedMethods, annotations);
+		}
+		catch (Throwable ex) {
+			// Missing annotation or enum type, incompatible attribute values etc:
+			// fall back to reading the class file itself.
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to restore cached class metadata", ex);
+			}
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private MergedAnnotations readAnnotations(DataInputStream in, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		int count = readLength(in);
+		List<MergedAnnotation<?>> annotations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Class<?> annotationType = ClassUtils.forName(in.readUTF(), classLoader);
+			if (!annotationType.isAnnotation()) {
+				throw new IOException("Not an annotation type: " + annotationType.getName());
+			}
+			Object source = readSource(in);
+			Map<String, Object> attributes = readAttributes(in, classLoader);
+			annotations.add(MergedAnnotation.of(classLoader, source, (Class<Annotation>) annotationType, attributes));
+		}
+		return MergedAnnotations.of(annotations);
+	}
+
+	@Nullable
+	private Object readSource(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case SOURCE_NONE:
+				return null;
+			case SOURCE_CLASS:
+				return new SimpleAnnotationMetadataReadingVisitor.Source(in.readUTF());
+			case SOURCE_METHOD:
+				return new SimpleMethodMetadataReadingVisitor.Source(in.readUTF(), in.readUTF(), in.readUTF());
+			default:
+				throw new IOException("Invalid annotation source tag: " + tag);
+		}
+	}
+
+	private Map<String, Object> readAttributes(DataInputStream in, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		int count = readLength(in);
+		Map<String, Object> attributes = new LinkedHashMap<>(count);
+		for (int i = 0; i < count; i++) {
+			attributes.put(in.readUTF(), readValue(in, classLoader));
+		}
+		return attributes;
+	}
+
+	private Object readValue(DataInputStream in, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		byte tag = in.readByte();
+		switch (tag) {
+			case 's':
+				return in.readUTF();
+			case 'Z':
+				return in.readBoolean();
+			case 'B':
+				return in.readByte();
+			case 'C':
+				return in.readChar();
+			case 'S':
+				return in.readShort();
+			case 'I':
+				return in.readInt();
+			case 'J':
+				return in.readLong();
+			case 'F':
+				return in.readFloat();
+			case 'D':
+				return in.readDouble();
+			case 'e':
+				return readEnum(resolveEnumType(in.readUTF(), classLoader), in.readUTF());
+			case 'm':
+				return readAttributes(in, classLoader);
+			case '[':
+				Class<?> componentType = readComponentType(in, classLoader);
+				Object array = Array.newInstance(componentType, readLength(in));
+				for (int i = 0; i < Array.getLength(array); i++) {
+					Array.set(array, i, readValue(in, classLoader));
+				}
+				return array;
+			default:
+				throw new IOException("Invalid attribute value tag: " + tag);
+		}
+	}
+
+	private Class<?> readComponentType(DataInputStream in, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		byte tag = in.readByte();
+		switch (tag) {
+			case 's':
+				return String.class;
+			case 'Z':
+				return boolean.class;
+			case 'B':
+				return byte.class;
+			case 'C':
+				return char.class;
+			case 'S':
+				return short.class;
+			case 'I':
+				return int.class;
+			case 'J':
+				return long.class;
+			case 'F':
+				return float.class;
+			case 'D':
+				return double.class;
+			case 'e':
+				return resolveEnumType(in.readUTF(), classLoader);
+			case 'm':
+				return Map.class;
+			default:
+				throw new IOException("Invalid attribute array tag: " + tag);
+		}
+	}
+
+	private Class<?> resolveEnumType(String typeName, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		Class<?> enumType = ClassUtils.forName(typeName, classLoader);
+		if (!enumType.isEnum()) {
+			throw new IOException("Not an enum type: " + typeName);
+		}
+		return enumType;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Object readEnum(Class<?> enumType, String name) {
+		return Enum.valueOf((Class<? extends Enum>) enumType, name);
+	}
+
+	@Nullable
+	private String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private String[] readStrings(DataInputStream in) throws IOException {
+		String[] values = new String[readLength(in)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+	/**
+	 * 读取数组或集合的长度，并校验其不超过剩余的字节数，以免损坏的条目导致过大的内存分配
+	 */
+	private int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new IOException("Invalid length " + length);
+		}
+		return length;
+	}
+
+
+	/**
+	 * Encoded class metadata for a specific class file fingerprint.
+	 */
+	private static class CacheEntry {
+
+		final String fingerprint;
+
+		final byte[] content;
+
+		CacheEntry(String fingerprint, byte[] content) {
+			Assert.notNull(fingerprint, "Fingerprint must not be null");
+			this.fingerprint = fingerprint;
+			this.content = content;
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.core.OverridingClassLoader;
+import org.springframework.core.SpringProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for reusing generated classes through the {@link PersistentClassCache}.
+ *
+ * @since 5.2.23
+ */
+class PersistentClassCacheTests {
+
+	@TempDir
+	File tempDir;
+
+
+	@AfterEach
+	void clearCacheLocation() {
+		SpringProperties.setProperty(PersistentClassCache.CACHE_LOCATION_PROPERTY_NAME, null);
+	}
+
+
+	@Test
+	void generatedClassIsReusedInFreshClassLoader() throws Exception {
+		SpringProperties.setProperty(PersistentClassCache.CACHE_LOCATION_PROPERTY_NAME, this.tempDir.getPath());
+
+		CountingGeneratorStrategy firstStrategy = new CountingGeneratorStrategy();
+		Class<?> first = createProxyClass(firstStrategy, method -> 0);
+		assertThat(firstStrategy.generated).isEqualTo(1);
+		assertThat(this.tempDir.listFiles()).hasSize(1);
+
+		CountingGeneratorStrategy secondStrategy = new CountingGeneratorStrategy();
+		Class<?> second = createProxyClass(secondStrategy, method -> 0);
+		assertThat(secondStrategy.generated).isZero();
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getName()).isEqualTo(first.getName());
+		assertThat(invokeGreet(second)).isEqualTo("Intercepted: Hello");
+	}
+
+	@Test
+	void changedCallbackAssignmentIsGeneratedAgain() throws Exception {
+		SpringProperties.setProperty(PersistentClassCache.CACHE_LOCATION_PROPERTY_NAME, this.tempDir.getPath());
+
+		CountingGeneratorStrategy firstStrategy = new CountingGeneratorStrategy();
+		createProxyClass(firstStrategy, method -> 0);
+		CountingGeneratorStrategy secondStrategy = new CountingGeneratorStrategy();
+		Class<?> second = createProxyClass(secondStrategy, method -> (method.getName().equals("greet") ? 1 : 0));
+
+		assertThat(secondStrategy.generated).isEqualTo(1);
+		assertThat(this.tempDir.listFiles()).hasSize(2);
+		assertThat(invokeGreet(second)).isEqualTo("Hello");
+	}
+
+	@Test
+	void generatedClassIsReadFromJar() throws Exception {
+		File directory = new File(this.tempDir, "classes");
+		SpringProperties.setProperty(PersistentClassCache.CACHE_LOCATION_PROPERTY_NAME, directory.getPath());
+		createProxyClass(new CountingGeneratorStrategy(), method -> 0);
+
+		File jar = new File(this.tempDir, "classes.jar");
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			for (File file : directory.listFiles()) {
+				jos.putNextEntry(new JarEntry(file.getName()));
+				jos.write(Files.readAllBytes(file.toPath()));
+				jos.closeEntry();
+			}
+		}
+		SpringProperties.setProperty(PersistentClassCache.CACHE_LOCATION_PROPERTY_NAME, jar.getPath());
+		CountingGeneratorStrategy strategy = new CountingGeneratorStrategy();
+		Class<?> proxyClass = createProxyClass(strategy, method -> 0);
+
+		assertThat(strategy.generated).isZero();
+		assertThat(invokeGreet(proxyClass)).isEqualTo("Intercepted: Hello");
+	}
+
+	@Test
+	void noCacheWithoutLocation() throws Exception {
+		CountingGeneratorStrategy firstStrategy = new CountingGeneratorStrategy();
+		createProxyClass(firstStrategy, method -> 0);
+		CountingGeneratorStrategy secondStrategy = new CountingGeneratorStrategy();
+		createProxyClass(secondStrategy, method -> 0);
+
+		assertThat(firstStrategy.generated).isEqualTo(1);
+		assertThat(secondStrategy.generated).isEqualTo(1);
+	}
+
+	@Test
+	void hierarchyFingerprintIncludesInheritedInterfaces() {
+		PersistentClassCache cache = new PersistentClassCache(this.tempDir) {
+			@Override
+			public String getClassFingerprint(Class<?> clazz) {
+				// 父接口没有类文件时整个层级不可缓存
+				return (clazz == BaseGreeting.class ? null : super.getClassFingerprint(clazz));
+			}
+		};
+
+		assertThat(cache.getHierarchyFingerprint(Greeter.class)).isNotNull();
+		assertThat(cache.getHierarchyFingerprint(ExtendedGreeter.class)).isNull();
+	}
+
+
+	/**
+	 * Simulate a new run by loading the superclass through a fresh ClassLoader.
+	 */
+	private Class<?> createProxyClass(GeneratorStrategy strategy, CallbackFilter filter) throws Exception {
+		OverridingClassLoader classLoader = new OverridingClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected boolean isEligibleForOverriding(String className) {
+				return className.equals(Greeter.class.getName());
+			}
+		};
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(classLoader.loadClass(Greeter.class.getName()));
+		enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+		enhancer.setStrategy(strategy);
+		enhancer.setCallbackFilter(filter);
+		enhancer.setCallbackTypes(new Class<?>[] {MethodInterceptor.class, NoOp.class});
+		return enhancer.createClass();
+	}
+
+	private String invokeGreet(Class<?> proxyClass) throws Exception {
+		MethodInterceptor interceptor = (obj, method, args, proxy) -> "Intercepted: " + proxy.invokeSuper(obj, args);
+		Enhancer.registerCallbacks(proxyClass, new Callback[] {interceptor, NoOp.INSTANCE});
+		try {
+			Object proxy = proxyClass.getDeclaredConstructor().newInstance();
+			return (String) proxyClass.getMethod("greet").invoke(proxy);
+		}
+		finally {
+			Enhancer.registerCallbacks(proxyClass, null);
+		}
+	}
+
+
+	private static class CountingGeneratorStrategy extends ClassLoaderAwareGeneratorStrategy {
+
+		int generated;
+
+		CountingGeneratorStrategy() {
+			super(null);
+		}
+
+		@Override
+		public byte[] generate(ClassGenerator cg) throws Exception {
+			this.generated++;
+			return super.generate(cg);
+		}
+	}
+
+
+	public static class Greeter {
+
+		public String greet() {
+			return "Hello";
+		}
+	}
+
+
+	public interface BaseGreeting {
+	}
+
+
+	public interface Greeting extends BaseGreeting {
+	}
+
+
+	public static class ExtendedGreeter extends Greeter implements Greeting {
+	}
+
+}
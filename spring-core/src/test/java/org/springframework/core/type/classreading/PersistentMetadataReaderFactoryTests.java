@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AbstractAnnotationMetadataTests;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentMetadataReaderFactory}, running the common
+ * {@link AnnotationMetadata} tests against metadata restored from a cache file.
+ *
+ * @since 5.2.23
+ */
+class PersistentMetadataReaderFactoryTests extends AbstractAnnotationMetadataTests {
+
+	@Override
+	protected AnnotationMetadata get(Class<?> source) {
+		try {
+			File cacheFile = File.createTempFile("metadata", ".cache");
+			cacheFile.deleteOnExit();
+			ClassLoader classLoader = source.getClassLoader();
+			PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, classLoader);
+			factory.getMetadataReader(source.getName());
+			factory.saveCache();
+			return new PersistentMetadataReaderFactory(cacheFile, classLoader)
+					.getMetadataReader(source.getName()).getAnnotationMetadata();
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Test
+	void restoresMetadataWithoutReadingClassFile() throws Exception {
+		Path directory = Files.createTempDirectory("metadata");
+		File cacheFile = directory.resolve("metadata.cache").toFile();
+		CountingResource resource = copyClassFile(WithNestedAnnotations.class, directory);
+
+		new PersistentMetadataReaderFactory(cacheFile).getMetadataReader(resource);
+		// Once for the fingerprint, once for ASM
+		assertThat(resource.reads.getAndSet(0)).isEqualTo(2);
+		assertThat(cacheFile).doesNotExist();
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(resource);
+		factory.saveCache();
+		assertThat(cacheFile).exists();
+		resource.reads.set(0);
+
+		factory = new PersistentMetadataReaderFactory(cacheFile);
+		AnnotationMetadata metadata = factory.getMetadataReader(resource).getAnnotationMetadata();
+		assertThat(resource.reads.get()).isEqualTo(1);
+		assertThat(factory.getMetadataReader(resource).getAnnotationMetadata()).isSameAs(metadata);
+		assertThat(resource.reads.get()).isEqualTo(1);
+
+		assertThat(metadata.getClassName()).isEqualTo(WithNestedAnnotations.class.getName());
+		NestedAttributes attributes = metadata.getAnnotations().get(NestedAttributes.class).synthesize();
+		assertThat(attributes.type()).isEqualTo(String.class);
+		assertThat(attributes.policy()).isEqualTo(RetentionPolicy.CLASS);
+		assertThat(attributes.targets()).containsExactly(ElementType.TYPE, ElementType.METHOD);
+		assertThat(attributes.numbers()).containsExactly(1, 2);
+		assertThat(attributes.separator()).isEqualTo(';');
+		assertThat(attributes.nested().value()).isEqualTo("single");
+		assertThat(attributes.nestedArray()).extracting(Nested::value).containsExactly("first", "second");
+		Set<MethodMetadata> methods = metadata.getAnnotatedMethods(Nested.class.getName());
+		assertThat(methods).hasSize(1);
+		MethodMetadata method = methods.iterator().next();
+		assertThat(method.getMethodName()).isEqualTo("factoryMethod");
+		assertThat(method.getReturnTypeName()).isEqualTo(String.class.getName());
+		assertThat(method.isStatic()).isTrue();
+		assertThat(method.getAnnotations().get(Nested.class).getString("value")).isEqualTo("method");
+	}
+
+	@Test
+	void rereadsClassFileWithChangedFingerprint() throws Exception {
+		Path directory = Files.createTempDirectory("metadata");
+		File cacheFile = directory.resolve("metadata.cache").toFile();
+		CountingResource resource = copyClassFile(WithNestedAnnotations.class, directory);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(resource);
+		factory.saveCache();
+
+		// Replace the class file content, keeping the URL
+		FileCopyUtils.copy(new ClassPathResource(
+				ClassUtils.convertClassNameToResourcePath(WithNestedAnnotations.Other.class.getName()) +
+						ClassUtils.CLASS_FILE_SUFFIX).getInputStream(), Files.newOutputStream(resource.getFile().toPath()));
+		resource.reads.set(0);
+
+		factory = new PersistentMetadataReaderFactory(cacheFile);
+		AnnotationMetadata metadata = factory.getMetadataReader(resource).getAnnotationMetadata();
+		assertThat(resource.reads.get()).isEqualTo(2);
+		assertThat(metadata.getClassName()).isEqualTo(WithNestedAnnotations.Other.class.getName());
+	}
+
+	@Test
+	void ignoresCorruptCacheFile() throws Exception {
+		Path directory = Files.createTempDirectory("metadata");
+		File cacheFile = directory.resolve("metadata.cache").toFile();
+		Files.write(cacheFile.toPath(), new byte[] {1, 2, 3});
+		AnnotationMetadata metadata = new PersistentMetadataReaderFactory(cacheFile)
+				.getMetadataReader(WithNestedAnnotations.class.getName()).getAnnotationMetadata();
+		assertThat(metadata.hasAnnotation(NestedAttributes.class.getName())).isTrue();
+	}
+
+
+	private static CountingResource copyClassFile(Class<?> clazz, Path directory) throws IOException {
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(clazz.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+		Path target = directory.resolve(resourcePath);
+		Files.createDirectories(target.getParent());
+		FileCopyUtils.copy(new ClassPathResource(resourcePath).getInputStream(), Files.newOutputStream(target));
+		return new CountingResource(target);
+	}
+
+
+	private static class CountingResource extends UrlResource {
+
+		final AtomicInteger reads = new AtomicInteger();
+
+		CountingResource(Path path) throws IOException {
+			super(path.toUri());
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			this.reads.incrementAndGet();
+			return super.getInputStream();
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Nested {
+
+		String value();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface NestedAttributes {
+
+		Class<?> type();
+
+		RetentionPolicy policy();
+
+		ElementType[] targets() default {};
+
+		int[] numbers() default {};
+
+		char separator() default ',';
+
+		Nested nested();
+
+		Nested[] nestedArray();
+	}
+
+
+	@NestedAttributes(type = String.class, policy = RetentionPolicy.CLASS,
+			targets = {ElementType.TYPE, ElementType.METHOD}, numbers = {1, 2}, separator = ';',
+			nested = @Nested("single"), nestedArray = {@Nested("first"), @Nested("second")})
+	static class WithNestedAnnotations {
+
+		@Nested("method")
+		static String factoryMethod() {
+			return "";
+		}
+
+		static class Other {
+		}
+	}
+
+}
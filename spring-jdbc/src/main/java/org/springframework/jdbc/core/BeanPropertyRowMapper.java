@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,21 +16,30 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.TypeMismatchException;
@@ -42,6 +51,8 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -67,8 +78,12 @@ import org.springframework.util.StringUtils;
  * Be aware that if you use the values from the generated bean to update the database the primitive value
  * will have been set to the primitive's default value instead of null.
  *
- * <p>Please note that this class is designed to provide convenience rather than high performance.
- * For best performance, consider using a custom {@link RowMapper} implementation.
+ * <p>The mapping of columns to properties is resolved once per result set shape (that is,
+ * per sequence of column names) and target class, and shared across mapper instances. Values
+ * which are assignable to the property type are set through the resolved setter method; other
+ * values are converted through a {@link BeanWrapper}. Please note that this class is still
+ * designed to provide convenience rather than high performance: for best performance,
+ * consider using a custom {@link RowMapper} implementation.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
@@ -77,6 +92,9 @@ import org.springframework.util.StringUtils;
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
+	/** 按目标类及列名序列共享的映射计划，仅用于未定制名称映射的BeanPropertyRowMapper本身 */
+	private static final Map<MappingPlanKey, MappingPlan> sharedMappingPlans = new ConcurrentReferenceHashMap<>(64);
+
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -102,6 +120,16 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Mapping plans of this mapper, per sequence of column names. */
+	private final Map<List<String>, MappingPlan> mappingPlans = new ConcurrentHashMap<>(4);
+
+	/** The mapping plan for the most recently seen result set meta-data, held weakly. */
+	@Nullable
+	private volatile MetaDataMappingPlan lastMappingPlan;
+
+	/** Whether {@link #initBeanWrapper} is overridden, requiring a BeanWrapper for each row. */
+	private final boolean customBeanWrapper = isOverridden("initBeanWrapper", BeanWrapper.class);
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -282,60 +310,51 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
-		T mappedObject = BeanUtils.instantiateClass(this.mappedClass);
-		BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
-		initBeanWrapper(bw);
-
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int columnCount = rsmd.getColumnCount();
-		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<>() : null);
+		MappingPlan plan = getMappingPlan(rs.getMetaData());
+		T mappedObject = plan.instantiate(this.mappedClass);
+		BeanWrapper bw = null;
+		if (this.customBeanWrapper) {
+			bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+			initBeanWrapper(bw);
+		}
 
-		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			String field = lowerCaseName(StringUtils.delete(column, " "));
-			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
-			if (pd != null) {
+		for (ColumnMapping mapping : plan.columnMappings) {
+			PropertyDescriptor pd = mapping.propertyDescriptor;
+			Object value = getColumnValue(rs, mapping.index, pd);
+			if (bw == null && ClassUtils.isAssignableValue(pd.getPropertyType(), value)) {
+				mapping.setValue(mappedObject, value);
+				continue;
+			}
+			if (bw == null) {
+				bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+				initBeanWrapper(bw);
+			}
+			try {
 				try {
-					Object value = getColumnValue(rs, index, pd);
-					if (rowNumber == 0 && logger.isDebugEnabled()) {
-						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
-								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
-					}
-					try {
-						bw.setPropertyValue(pd.getName(), value);
-					}
-					catch (TypeMismatchException ex) {
-						if (value == null && this.primitivesDefaultedForNullValue) {
-							if (logger.isDebugEnabled()) {
-								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-										" and column '" + column + "' with null value when setting property '" +
-										pd.getName() + "' of type '" +
-										ClassUtils.getQualifiedName(pd.getPropertyType()) +
-										"' on object: " + mappedObject, ex);
-							}
-						}
-						else {
-							throw ex;
+					bw.setPropertyValue(pd.getName(), value);
+				}
+				catch (TypeMismatchException ex) {
+					if (value == null && this.primitivesDefaultedForNullValue) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+									" and column '" + mapping.column + "' with null value when setting property '" +
+									pd.getName() + "' of type '" +
+									ClassUtils.getQualifiedName(pd.getPropertyType()) +
+									"' on object: " + mappedObject, ex);
 						}
 					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
+					else {
+						throw ex;
 					}
 				}
-				catch (NotWritablePropertyException ex) {
-					throw new DataRetrievalFailureException(
-							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
-				}
 			}
-			else {
-				// No PropertyDescriptor found
-				if (rowNumber == 0 && logger.isDebugEnabled()) {
-					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
-				}
+			catch (NotWritablePropertyException ex) {
+				throw new DataRetrievalFailureException(
+						"Unable to map column '" + mapping.column + "' to property '" + pd.getName() + "'", ex);
 			}
 		}
 
-		if (populatedProperties != null && !populatedProperties.equals(this.mappedProperties)) {
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
 			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
 					"necessary to populate object of " + this.mappedClass + ": " + this.mappedProperties);
 		}
@@ -343,6 +362,71 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return mappedObject;
 	}
 
+	/**
+	 * Obtain the mapping plan for the given result set meta-data,
+	 * resolving it on first encounter of a sequence of column names.
+	 */
+	private MappingPlan getMappingPlan(ResultSetMetaData rsmd) throws SQLException {
+		// 同一结果集的各行通常返回同一个元数据对象，无需再逐列查找列名
+		MetaDataMappingPlan last = this.lastMappingPlan;
+		if (last != null && last.get() == rsmd) {
+			return last.plan;
+		}
+		int columnCount = rsmd.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			columns.add(JdbcUtils.lookupColumnName(rsmd, index));
+		}
+		MappingPlan plan = this.mappingPlans.get(columns);
+		if (plan == null) {
+			if (getClass() == BeanPropertyRowMapper.class) {
+				MappingPlanKey key = new MappingPlanKey(this.mappedClass, columns);
+				plan = sharedMappingPlans.get(key);
+				if (plan == null) {
+					plan = createMappingPlan(columns);
+					sharedMappingPlans.put(key, plan);
+				}
+			}
+			else {
+				plan = createMappingPlan(columns);
+			}
+			this.mappingPlans.put(columns, plan);
+		}
+		this.lastMappingPlan = new MetaDataMappingPlan(rsmd, plan);
+		return plan;
+	}
+
+	private MappingPlan createMappingPlan(List<String> columns) {
+		List<ColumnMapping> columnMappings = new ArrayList<>(columns.size());
+		Set<String> populatedProperties = new HashSet<>();
+		for (int i = 0; i < columns.size(); i++) {
+			String column = columns.get(i);
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
+			if (pd != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				columnMappings.add(new ColumnMapping(i + 1, column, pd));
+				populatedProperties.add(pd.getName());
+			}
+			else {
+				// No PropertyDescriptor found
+				if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+				}
+			}
+		}
+		return new MappingPlan(columnMappings.toArray(new ColumnMapping[0]),
+				populatedProperties.equals(this.mappedProperties), this.mappedClass);
+	}
+
+	private boolean isOverridden(String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != BeanPropertyRowMapper.class);
+	}
+
 	/**
 	 * Initialize the given BeanWrapper to be used for row mapping.
 	 * To be called for each row.
@@ -404,4 +488,130 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return rowMapper;
 	}
 
+
+	/**
+	 * Resolved mapping of the columns of a result set to the properties of
+	 * the mapped class.
+	 */
+	private static final class MappingPlan {
+
+		final ColumnMapping[] columnMappings;
+
+		final boolean fullyPopulated;
+
+		@Nullable
+		private final Constructor<?> constructor;
+
+		MappingPlan(ColumnMapping[] columnMappings, boolean fullyPopulated, @Nullable Class<?> mappedClass) {
+			this.columnMappings = columnMappings;
+			this.fullyPopulated = fullyPopulated;
+			Constructor<?> constructor = null;
+			if (mappedClass != null) {
+				try {
+					constructor = ReflectionUtils.accessibleConstructor(mappedClass);
+				}
+				catch (NoSuchMethodException ex) {
+					// 交由BeanUtils处理（如Kotlin主构造函数）
+				}
+			}
+			this.constructor = constructor;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> T instantiate(Class<T> mappedClass) {
+			return (this.constructor != null ? (T) BeanUtils.instantiateClass(this.constructor) :
+					BeanUtils.instantiateClass(mappedClass));
+		}
+	}
+
+
+	/**
+	 * Resolved mapping of a single column to a bean property.
+	 */
+	private static final class ColumnMapping {
+
+		final int index;
+
+		final String column;
+
+		final PropertyDescriptor propertyDescriptor;
+
+		private final Method writeMethod;
+
+		ColumnMapping(int index, String column, PropertyDescriptor propertyDescriptor) {
+			this.index = index;
+			this.column = column;
+			this.propertyDescriptor = propertyDescriptor;
+			Method writeMethod = propertyDescriptor.getWriteMethod();
+			Assert.state(writeMethod != null, "No write method");
+			ReflectionUtils.makeAccessible(writeMethod);
+			this.writeMethod = writeMethod;
+		}
+
+		void setValue(Object mappedObject, @Nullable Object value) {
+			try {
+				this.writeMethod.invoke(mappedObject, value);
+			}
+			catch (InvocationTargetException ex) {
+				throw new MethodInvocationException(new PropertyChangeEvent(
+						mappedObject, this.propertyDescriptor.getName(), null, value), ex.getTargetException());
+			}
+			catch (IllegalAccessException ex) {
+				throw new DataRetrievalFailureException(
+						"Unable to map column '" + this.column + "' to property '" +
+								this.propertyDescriptor.getName() + "'", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Key for mapping plans shared across mapper instances.
+	 */
+	private static final class MappingPlanKey {
+
+		private final Class<?> mappedClass;
+
+		private final List<String> columns;
+
+		MappingPlanKey(Class<?> mappedClass, List<String> columns) {
+			this.mappedClass = mappedClass;
+			this.columns = columns;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MappingPlanKey)) {
+				return false;
+			}
+			MappingPlanKey otherKey = (MappingPlanKey) other;
+			return (this.mappedClass == otherKey.mappedClass && this.columns.equals(otherKey.columns));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.mappedClass.hashCode() * 31 + this.columns.hashCode());
+		}
+	}
+
+
+	/**
+	 * Mapping plan for a specific result set meta-data instance. The meta-data
+	 * is only referenced weakly, so that a long-lived mapper does not keep the
+	 * driver's meta-data (and whatever it references) alive after its result
+	 * set has been processed.
+	 */
+	private static final class MetaDataMappingPlan extends WeakReference<ResultSetMetaData> {
+
+		final MappingPlan plan;
+
+		MetaDataMappingPlan(ResultSetMetaData metaData, MappingPlan plan) {
+			super(metaData);
+			this.plan = plan;
+		}
+	}
+
 }
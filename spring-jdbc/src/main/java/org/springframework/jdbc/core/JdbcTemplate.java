@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,12 +34,20 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.InvalidResultSetAccessException;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.datasource.ConnectionProxy;
@@ -49,6 +57,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
@@ -147,6 +156,25 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * If this variable is set to a positive value, it will be used as the maximum
+	 * number of rows to send to the database per JDBC batch in batch updates.
+	 */
+	private int batchChunkSize = -1;
+
+	/**
+	 * If this variable is set to a value greater than 1, single-row INSERT statements
+	 * in batch updates will be rewritten to insert this number of rows per statement.
+	 */
+	private int batchMultiRowInsertSize = -1;
+
+	/**
+	 * If this variable is set, the chunks of a batch update outside of a transaction
+	 * will be executed concurrently on separate connections through this Executor.
+	 */
+	@Nullable
+	private Executor batchExecutor;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -311,6 +339,84 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set the maximum number of rows to send to the database per JDBC batch in
+	 * {@link #batchUpdate(String, BatchPreparedStatementSetter) batch updates}.
+	 * Default is -1, sending all rows of a batch update in a single JDBC batch.
+	 * <p>The update counts of all chunks are combined into a single array.
+	 * This setting does not apply to {@link InterruptibleBatchPreparedStatementSetter}
+	 * implementations, or to batch updates with an explicit batch size.
+	 * @since 5.2.23
+	 * @see #setBatchExecutor
+	 */
+	public void setBatchChunkSize(int batchChunkSize) {
+		this.batchChunkSize = batchChunkSize;
+	}
+
+	/**
+	 * Return the maximum number of rows per JDBC batch in batch updates.
+	 * @since 5.2.23
+	 */
+	public int getBatchChunkSize() {
+		return this.batchChunkSize;
+	}
+
+	/**
+	 * Set the number of rows to insert per statement in batch updates: single-row
+	 * {@code INSERT ... VALUES (?, ?)} statements with all placeholders in their
+	 * {@code VALUES} group get rewritten to {@code INSERT ... VALUES (?, ?), (?, ?)}
+	 * statements for up to this number of rows. Other statements are executed as-is.
+	 * Default is -1, not rewriting any statements.
+	 * <p>This is beneficial for drivers which execute JDBC batches row by row.
+	 * Choose the number of rows according to the maximum number of parameters per
+	 * statement supported by the database. Since the update count of a multi-row
+	 * statement cannot be attributed to its rows, rows inserted through a rewritten
+	 * statement are reported as {@link Statement#SUCCESS_NO_INFO}.
+	 * <p>Parameters of subsequent rows are bound through a PreparedStatement proxy
+	 * which shifts their parameter index. {@code unwrap(PreparedStatement.class)}
+	 * returns that proxy as well, but setters invoked on a vendor-specific statement
+	 * obtained through {@code unwrap} bypass it: do not enable this setting for
+	 * {@link BatchPreparedStatementSetter} implementations which do so.
+	 * @since 5.2.23
+	 * @see #setBatchChunkSize
+	 */
+	public void setBatchMultiRowInsertSize(int batchMultiRowInsertSize) {
+		this.batchMultiRowInsertSize = batchMultiRowInsertSize;
+	}
+
+	/**
+	 * Return the number of rows to insert per statement in batch updates.
+	 * @since 5.2.23
+	 */
+	public int getBatchMultiRowInsertSize() {
+		return this.batchMultiRowInsertSize;
+	}
+
+	/**
+	 * Set an Executor for executing the chunks of a batch update concurrently,
+	 * each on a separate connection. Default is none, executing all chunks one
+	 * after another on the same connection.
+	 * <p>Only applies to batch updates with several chunks (as determined by the
+	 * {@link #setBatchChunkSize "batchChunkSize"}) outside of a transaction:
+	 * within a transaction, all chunks are executed on the transactional connection.
+	 * The {@link BatchPreparedStatementSetter} needs to be safe for concurrent use
+	 * then, which is the case for the variants taking a list of arguments. Note
+	 * that if a chunk fails, other chunks may already have been executed.
+	 * @since 5.2.23
+	 */
+	public void setBatchExecutor(@Nullable Executor batchExecutor) {
+		this.batchExecutor = batchExecutor;
+	}
+
+	/**
+	 * Return the Executor for executing the chunks of a batch update concurrently, if any.
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public Executor getBatchExecutor() {
+		return this.batchExecutor;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -602,6 +708,26 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(psc, action, true);
+	}
+
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC PreparedStatement.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the PreparedStatement and release
+	 * the Connection after the action, or to leave that to the action's result
+	 * (as with a {@link Stream} returned from {@code queryForStream}); resources
+	 * are always released if the action fails
+	 * @return a result object returned by the action, or {@code null} if none
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.2.23
+	 */
+	@Nullable
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources)
+			throws DataAccessException {
+
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -632,12 +758,24 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			con = null;
 			throw translateException("PreparedStatementCallback", sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			throw ex;
+		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
 		}
 	}
 
@@ -768,6 +906,85 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper and exposing the results as a lazily fetched Stream. The other
+	 * {@code queryForStream} methods use this method.
+	 * <p>The returned Stream holds the PreparedStatement and its Connection
+	 * until it is closed: make sure to close it, e.g. through try-with-resources.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @param fetchSize the fetch size for this query, overriding the
+	 * {@link #setFetchSize "fetchSize"} of this template, or -1 for none
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.2.23
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper, int fetchSize) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query for stream");
+
+		return result(execute(psc, ps -> {
+			if (fetchSize != -1) {
+				ps.setFetchSize(fetchSize);
+			}
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			Connection con = ps.getConnection();
+			return new ResultSetSpliterator<>(rs, rowMapper).stream().onClose(() -> {
+				// 流关闭时才释放结果集、语句及连接
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			});
+		}, false));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper, -1);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper, int fetchSize)
+			throws DataAccessException {
+
+		return queryForStream(psc, null, rowMapper, fetchSize);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(new SimplePreparedStatementCreator(sql), null, rowMapper, -1);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper, -1);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper, -1);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -933,6 +1150,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL batch update [" + sql + "]");
 		}
 
+		if ((this.batchChunkSize > 0 || this.batchMultiRowInsertSize > 1) &&
+				!(pss instanceof InterruptibleBatchPreparedStatementSetter)) {
+			return chunkedBatchUpdate(sql, pss);
+		}
+
 		int[] result = execute(sql, (PreparedStatementCallback<int[]>) ps -> {
 			try {
 				int batchSize = pss.getBatchSize();
@@ -976,6 +1198,60 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result;
 	}
 
+	/**
+	 * Execute a batch update in chunks of the configured
+	 * {@link #setBatchChunkSize "batchChunkSize"}, rewriting the statement into
+	 * a multi-row INSERT statement if configured and applicable.
+	 * @since 5.2.23
+	 */
+	private int[] chunkedBatchUpdate(String sql, BatchPreparedStatementSetter pss) throws DataAccessException {
+		try {
+			int batchSize = pss.getBatchSize();
+			int[] rowsAffected = new int[batchSize];
+			if (batchSize == 0) {
+				return rowsAffected;
+			}
+			MultiRowInsertRewriter rewriter =
+					(this.batchMultiRowInsertSize > 1 ? MultiRowInsertRewriter.forSql(sql) : null);
+			int chunkSize = (this.batchChunkSize > 0 ? this.batchChunkSize : batchSize);
+			int chunkCount = (batchSize + chunkSize - 1) / chunkSize;
+			Executor executor = getBatchExecutor();
+
+			if (executor != null && chunkCount > 1 && !TransactionSynchronizationManager.isActualTransactionActive()) {
+				// 事务之外各分块使用各自的连接并发执行
+				CompletableFuture<?>[] futures = new CompletableFuture<?>[chunkCount];
+				for (int chunk = 0; chunk < chunkCount; chunk++) {
+					int from = chunk * chunkSize;
+					int to = Math.min(from + chunkSize, batchSize);
+					futures[chunk] = CompletableFuture.runAsync(() -> execute(
+							new BatchChunkCallback(sql, rewriter, pss, from, to, to - from, rowsAffected)), executor);
+				}
+				try {
+					CompletableFuture.allOf(futures).join();
+				}
+				catch (CompletionException ex) {
+					Throwable cause = ex.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw ex;
+				}
+			}
+			else {
+				execute(new BatchChunkCallback(sql, rewriter, pss, 0, batchSize, chunkSize, rowsAffected));
+			}
+			return rowsAffected;
+		}
+		finally {
+			if (pss instanceof ParameterDisposer) {
+				((ParameterDisposer) pss).cleanupParameters();
+			}
+		}
+	}
+
 	@Override
 	public int[] batchUpdate(String sql, List<Object[]> batchArgs) throws DataAccessException {
 		return batchUpdate(sql, batchArgs, new int[0]);
@@ -1587,6 +1863,188 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Callback for executing a range of rows of a batch update in chunks on a
+	 * single Connection. Exposes the statement currently being executed, which
+	 * may be a rewritten multi-row INSERT statement, for exception translation.
+	 * @since 5.2.23
+	 */
+	private class BatchChunkCallback implements ConnectionCallback<Object>, SqlProvider {
+
+		private final String sql;
+
+		@Nullable
+		private final MultiRowInsertRewriter rewriter;
+
+		private final BatchPreparedStatementSetter pss;
+
+		private final int from;
+
+		private final int to;
+
+		private final int chunkSize;
+
+		private final int[] rowsAffected;
+
+		@Nullable
+		private String currentSql;
+
+		public BatchChunkCallback(String sql, @Nullable MultiRowInsertRewriter rewriter,
+				BatchPreparedStatementSetter pss, int from, int to, int chunkSize, int[] rowsAffected) {
+
+			this.sql = sql;
+			this.rewriter = rewriter;
+			this.pss = pss;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.rowsAffected = rowsAffected;
+		}
+
+		@Override
+		@Nullable
+		public Object doInConnection(Connection con) throws SQLException {
+			boolean batchSupported = JdbcUtils.supportsBatchUpdates(con);
+			for (int chunkStart = this.from; chunkStart < this.to; chunkStart += this.chunkSize) {
+				executeChunk(con, chunkStart, Math.min(chunkStart + this.chunkSize, this.to), batchSupported);
+			}
+			return null;
+		}
+
+		@Override
+		@Nullable
+		public String getSql() {
+			return (this.currentSql != null ? this.currentSql : this.sql);
+		}
+
+		/**
+		 * Execute the given range of rows of the batch update.
+		 */
+		private void executeChunk(Connection con, int chunkFrom, int chunkTo, boolean batchSupported)
+				throws SQLException {
+
+			if (logger.isTraceEnabled()) {
+				logger.trace("Sending SQL batch update chunk with rows " + chunkFrom + " to " + (chunkTo - 1));
+			}
+			if (this.rewriter == null) {
+				executeStatements(con, this.sql, 1, 0, chunkFrom, chunkTo, batchSupported);
+				return;
+			}
+			int rowsPerStatement = Math.min(batchMultiRowInsertSize, chunkTo - chunkFrom);
+			int remainderStart = chunkTo - (chunkTo - chunkFrom) % rowsPerStatement;
+			executeStatements(con, this.rewriter.getSql(rowsPerStatement), rowsPerStatement,
+					this.rewriter.getParameterCount(), chunkFrom, remainderStart, batchSupported);
+			if (remainderStart < chunkTo) {
+				executeStatements(con, this.rewriter.getSql(chunkTo - remainderStart), chunkTo - remainderStart,
+						this.rewriter.getParameterCount(), remainderStart, chunkTo, batchSupported);
+			}
+		}
+
+		/**
+		 * Execute the given range of rows through a single PreparedStatement,
+		 * binding the given number of rows per statement execution.
+		 */
+		private void executeStatements(Connection con, String sqlToUse, int rowsPerStatement, int parameterCount,
+				int chunkFrom, int chunkTo, boolean batchSupported) throws SQLException {
+
+			// 记录实际执行的SQL（可能是改写后的多行INSERT），用于异常转换
+			this.currentSql = sqlToUse;
+			// 连接为关闭抑制代理，创建语句时已应用语句设置
+			PreparedStatement ps = con.prepareStatement(sqlToUse);
+			try {
+				ParameterOffsetInvocationHandler offsetHandler = null;
+				PreparedStatement psToUse = ps;
+				if (rowsPerStatement > 1) {
+					offsetHandler = new ParameterOffsetInvocationHandler(ps);
+					psToUse = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+							new Class<?>[] {PreparedStatement.class}, offsetHandler);
+				}
+				for (int start = chunkFrom; start < chunkTo; start += rowsPerStatement) {
+					for (int row = 0; row < rowsPerStatement; row++) {
+						if (offsetHandler != null) {
+							offsetHandler.offset = row * parameterCount;
+						}
+						this.pss.setValues(psToUse, start + row);
+					}
+					if (batchSupported) {
+						ps.addBatch();
+					}
+					else {
+						setRowsAffected(start, rowsPerStatement, ps.executeUpdate());
+					}
+				}
+				if (batchSupported) {
+					int[] updateCounts = ps.executeBatch();
+					for (int i = 0; i < updateCounts.length; i++) {
+						setRowsAffected(chunkFrom + i * rowsPerStatement, rowsPerStatement, updateCounts[i]);
+					}
+				}
+				handleWarnings(ps);
+			}
+			finally {
+				JdbcUtils.closeStatement(ps);
+			}
+		}
+
+		private void setRowsAffected(int start, int rowsPerStatement, int updateCount) {
+			if (rowsPerStatement == 1) {
+				this.rowsAffected[start] = updateCount;
+			}
+			else {
+				for (int row = start; row < start + rowsPerStatement; row++) {
+					this.rowsAffected[row] = Statement.SUCCESS_NO_INFO;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler that shifts the parameter index of setter invocations
+	 * on a PreparedStatement, for binding the values of a row of a multi-row
+	 * INSERT statement.
+	 * @since 5.2.23
+	 */
+	private static class ParameterOffsetInvocationHandler implements InvocationHandler {
+
+		private final PreparedStatement target;
+
+		int offset;
+
+		public ParameterOffsetInvocationHandler(PreparedStatement target) {
+			this.target = target;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "unwrap":
+					// 解包为PreparedStatement时仍返回代理，以保留参数偏移
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+			}
+			if (this.offset != 0 && args != null && args.length >= 2 && method.getName().startsWith("set") &&
+					method.getParameterTypes()[0] == int.class) {
+				args[0] = (Integer) args[0] + this.offset;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
 	/**
 	 * Adapter to enable use of a RowCallbackHandler inside a ResultSetExtractor.
 	 * <p>Uses a regular ResultSet, so we have to be careful when using it:
@@ -1610,4 +2068,57 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream.
+	 * @since 5.2.23
+	 */
+	private static class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw new InvalidResultSetAccessException(ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false);
+		}
+	}
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Rewriter for single-row {@code INSERT ... VALUES (?, ?)} statements into
+ * multi-row {@code INSERT ... VALUES (?, ?), (?, ?)} statements, as used by
+ * {@link JdbcTemplate} for batch updates.
+ *
+ * <p>Only statements whose placeholders are all contained in a single trailing
+ * {@code VALUES} group qualify: the parameters of each row can then be bound
+ * at a fixed offset per row.
+ *
+ * @since 5.2.23
+ * @see JdbcTemplate#setBatchMultiRowInsertSize
+ */
+final class MultiRowInsertRewriter {
+
+	private static final String VALUES_KEYWORD = "values";
+
+
+	private final String prefix;
+
+	private final String valuesGroup;
+
+	private final int parameterCount;
+
+
+	private MultiRowInsertRewriter(String prefix, String valuesGroup, int parameterCount) {
+		this.prefix = prefix;
+		this.valuesGroup = valuesGroup;
+		this.parameterCount = parameterCount;
+	}
+
+
+	/**
+	 * Return the number of parameters per row.
+	 */
+	int getParameterCount() {
+		return this.parameterCount;
+	}
+
+	/**
+	 * Build the SQL statement for inserting the given number of rows.
+	 */
+	String getSql(int rows) {
+		StringBuilder sb = new StringBuilder(this.prefix.length() + rows * (this.valuesGroup.length() + 2));
+		sb.append(this.prefix).append(this.valuesGroup);
+		for (int i = 1; i < rows; i++) {
+			sb.append(", ").append(this.valuesGroup);
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Create a rewriter for the given SQL statement, if applicable.
+	 * @param sql the SQL statement, with {@code ?} placeholders
+	 * @return the rewriter, or {@code null} if the statement is not a
+	 * single-row {@code INSERT ... VALUES} statement with all placeholders
+	 * in its {@code VALUES} group
+	 */
+	@Nullable
+	static MultiRowInsertRewriter forSql(String sql) {
+		String statement = sql.trim();
+		if (!statement.regionMatches(true, 0, "insert", 0, 6)) {
+			return null;
+		}
+		int length = statement.length();
+		int depth = 0;
+		int valuesIndex = -1;
+		int groupStart = -1;
+		int groupEnd = -1;
+		int parameterCount = 0;
+		int groupParameterCount = 0;
+		int i = 0;
+		while (i < length) {
+			char c = statement.charAt(i);
+			if (c == '\'' || c == '"' || c == '`') {
+				int end = statement.indexOf(c, i + 1);
+				if (end == -1) {
+					return null;
+				}
+				i = end + 1;
+				continue;
+			}
+			if (statement.startsWith("--", i)) {
+				int end = statement.indexOf('\n', i);
+				i = (end != -1 ? end + 1 : length);
+				continue;
+			}
+			if (statement.startsWith("/*", i)) {
+				int end = statement.indexOf("*/", i + 2);
+				if (end == -1) {
+					return null;
+				}
+				i = end + 2;
+				continue;
+			}
+			if (groupEnd != -1 && !Character.isWhitespace(c)) {
+				// 值组之后还有其他子句（如ON DUPLICATE KEY UPDATE）
+				return null;
+			}
+			if (c == '?') {
+				parameterCount++;
+				if (groupStart != -1) {
+					groupParameterCount++;
+				}
+			}
+			else if (c == '(') {
+				if (depth == 0 && valuesIndex != -1 && groupStart == -1) {
+					groupStart = i;
+				}
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+				if (depth == 0 && groupStart != -1) {
+					groupEnd = i;
+				}
+			}
+			else if (depth == 0 && valuesIndex == -1 && isValuesKeyword(statement, i)) {
+				valuesIndex = i;
+				i += VALUES_KEYWORD.length();
+				continue;
+			}
+			else if (valuesIndex != -1 && groupStart == -1 && !Character.isWhitespace(c)) {
+				return null;
+			}
+			i++;
+		}
+		if (groupEnd == -1 || groupParameterCount == 0 || groupParameterCount != parameterCount) {
+			return null;
+		}
+		return new MultiRowInsertRewriter(statement.substring(0, groupStart),
+				statement.substring(groupStart, groupEnd + 1), parameterCount);
+	}
+
+	private static boolean isValuesKeyword(String statement, int index) {
+		if (!statement.regionMatches(true, index, VALUES_KEYWORD, 0, VALUES_KEYWORD.length())) {
+			return false;
+		}
+		int end = index + VALUES_KEYWORD.length();
+		return ((index == 0 || !Character.isJavaIdentifierPart(statement.charAt(index - 1))) &&
+				(end == statement.length() || !Character.isJavaIdentifierPart(statement.charAt(end))));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -204,6 +204,11 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	 * <p>Note that older Oracle JDBC drivers (9i, 10g) used to enforce this read-only
 	 * mode even for {@code Connection.setReadOnly(true}. However, with recent drivers,
 	 * this strong enforcement needs to be applied explicitly, e.g. through this flag.
+	 * <p>The statement is skipped when the DataSource is a
+	 * {@link LazyConnectionDataSourceProxy} with a
+	 * {@link LazyConnectionDataSourceProxy#setReadOnlyDataSource "readOnlyDataSource"}:
+	 * read-only transactions are routed to that DataSource then, which is expected
+	 * to be read-only by nature, and their Connections remain lazy.
 	 * @since 4.3.7
 	 * @see #prepareTransactionalConnection
 	 */
@@ -467,13 +472,27 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	protected void prepareTransactionalConnection(Connection con, TransactionDefinition definition)
 			throws SQLException {
 
-		if (isEnforceReadOnly() && definition.isReadOnly()) {
+		if (isEnforceReadOnly() && definition.isReadOnly() && !isReadOnlyRouting()) {
 			try (Statement stmt = con.createStatement()) {
 				stmt.executeUpdate("SET TRANSACTION READ ONLY");
 			}
 		}
 	}
 
+	/**
+	 * Determine whether read-only transactions are routed to a dedicated
+	 * read-only DataSource by a {@link LazyConnectionDataSourceProxy}.
+	 * @since 5.2.23
+	 * @see LazyConnectionDataSourceProxy#setReadOnlyDataSource
+	 */
+	private boolean isReadOnlyRouting() throws SQLException {
+		DataSource dataSource = obtainDataSource();
+		if (!dataSource.isWrapperFor(LazyConnectionDataSourceProxy.class)) {
+			return false;
+		}
+		return (dataSource.unwrap(LazyConnectionDataSourceProxy.class).getReadOnlyDataSource() != null);
+	}
+
 
 	/**
 	 * 数据源事务对象，代表一个连接持有器，用作事务管理器的事务对象
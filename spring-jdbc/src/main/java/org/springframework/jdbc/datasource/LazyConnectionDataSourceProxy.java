@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.Constants;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Proxy for a target DataSource, fetching actual JDBC Connections lazily,
@@ -69,6 +70,13 @@ import org.springframework.lang.Nullable;
  * You will get the same effect with non-transactional reads, but lazy fetching
  * of JDBC Connections allows you to still perform reads in transactions.
  *
+ * <p>A separate {@link #setReadOnlyDataSource "readOnlyDataSource"} (e.g. a
+ * connection pool for a read replica, or an {@code AbstractRoutingDataSource}
+ * across several replicas) can be specified for read-only transactions: since
+ * the actual Connection is only fetched on first creation of a Statement, the
+ * read-only flag of the transaction is known at that point, and read-only
+ * transactions do not consume Connections from the primary target DataSource.
+ *
  * <p><b>NOTE:</b> This DataSource proxy needs to return wrapped Connections
  * (which implement the {@link ConnectionProxy} interface) in order to handle
  * lazy fetching of an actual JDBC Connection. Use {@link Connection#unwrap}
@@ -85,6 +93,9 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 
 	private static final Log logger = LogFactory.getLog(LazyConnectionDataSourceProxy.class);
 
+	@Nullable
+	private DataSource readOnlyDataSource;
+
 	@Nullable
 	private Boolean defaultAutoCommit;
 
@@ -109,6 +120,38 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 	}
 
 
+	/**
+	 * Specify a variant of the target DataSource to use for read-only
+	 * transactions, typically a connection pool for a read replica.
+	 * <p>Connections are fetched from this DataSource if {@link Connection#setReadOnly}
+	 * has been called with {@code true} on the Connection handle before (as done
+	 * by {@link DataSourceTransactionManager} for a read-only transaction), or
+	 * if the current transaction is marked as read-only through
+	 * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}.
+	 * <p>Such Connections are assumed to be read-only by nature: the read-only
+	 * flag will not be applied to them, and {@code setReadOnly} calls on them
+	 * will be ignored, avoiding the corresponding round-trips to the database.
+	 * The read-only DataSource is expected to expose the same default auto-commit
+	 * mode and transaction isolation level as the target DataSource.
+	 * @param readOnlyDataSource the read-only DataSource, or {@code null} to
+	 * fetch all Connections from the target DataSource
+	 * @since 5.2.23
+	 * @see DataSourceTransactionManager#setEnforceReadOnly
+	 */
+	public void setReadOnlyDataSource(@Nullable DataSource readOnlyDataSource) {
+		this.readOnlyDataSource = readOnlyDataSource;
+	}
+
+	/**
+	 * Return the variant of the target DataSource to use for read-only
+	 * transactions, if any.
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public DataSource getReadOnlyDataSource() {
+		return this.readOnlyDataSource;
+	}
+
 	/**
 	 * Set the default auto-commit mode to expose when no target Connection
 	 * has been fetched yet (-> actual JDBC Connection default not known yet).
@@ -269,6 +312,9 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 		@Nullable
 		private Connection target;
 
+		/** 目标连接是否来自只读数据源 */
+		private boolean readOnlyTarget = false;
+
 		public LazyConnectionInvocationHandler() {
 			this.autoCommit = defaultAutoCommit();
 			this.transactionIsolation = defaultTransactionIsolation();
@@ -378,6 +424,18 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 				}
 			}
 
+			else if (this.readOnlyTarget) {
+				// Connection from read-only DataSource: keep the read-only flag
+				// locally instead of applying it to the target Connection.
+				if (method.getName().equals("isReadOnly")) {
+					return this.readOnly;
+				}
+				else if (method.getName().equals("setReadOnly")) {
+					this.readOnly = (Boolean) args[0];
+					return null;
+				}
+			}
+
 			// Target Connection already fetched,
 			// or target Connection necessary for current operation ->
 			// invoke method on target connection.
@@ -406,16 +464,24 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 					logger.trace("Connecting to database for operation '" + operation.getName() + "'");
 				}
 
-				// Fetch physical Connection from DataSource.
+				// Fetch physical Connection from DataSource, or from the
+				// read-only DataSource for a read-only transaction.
+				DataSource dataSource = obtainTargetDataSource();
+				DataSource readOnlyDataSource = getReadOnlyDataSource();
+				if (readOnlyDataSource != null &&
+						(this.readOnly || TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+					dataSource = readOnlyDataSource;
+					this.readOnlyTarget = true;
+				}
 				this.target = (this.username != null) ?
-						obtainTargetDataSource().getConnection(this.username, this.password) :
-						obtainTargetDataSource().getConnection();
+						dataSource.getConnection(this.username, this.password) :
+						dataSource.getConnection();
 
 				// If we still lack default connection properties, check them now.
 				checkDefaultConnectionProperties(this.target);
 
 				// Apply kept transaction settings, if any.
-				if (this.readOnly) {
+				if (this.readOnly && !this.readOnlyTarget) {
 					try {
 						this.target.setReadOnly(true);
 					}
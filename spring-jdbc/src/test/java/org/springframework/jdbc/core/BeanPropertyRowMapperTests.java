@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,15 @@
 
 package org.springframework.jdbc.core;
 
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.test.ConcretePerson;
@@ -30,6 +35,10 @@ import org.springframework.jdbc.core.test.SpacePerson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Thomas Risberg
@@ -134,4 +143,52 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testColumnNamesResolvedOncePerResultSet() throws Exception {
+		ResultSet rs = mockResultSet();
+		ResultSetMetaData rsmd = rs.getMetaData();
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+
+		Person first = mapper.mapRow(rs, 0);
+		Person second = mapper.mapRow(rs, 1);
+		assertThat(first.getName()).isEqualTo("Bubba");
+		assertThat(first.getAge()).isEqualTo(22L);
+		assertThat(first.getBalance()).isEqualTo(new BigDecimal("1234.56"));
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getName()).isEqualTo("Bubba");
+		verify(rsmd, times(1)).getColumnCount();
+		verify(rsmd, times(1)).getColumnLabel(1);
+	}
+
+	@Test
+	public void testCustomBeanWrapperInitializedForEachRow() throws Exception {
+		ResultSet rs = mockResultSet();
+		AtomicInteger initialized = new AtomicInteger();
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<Person>(Person.class) {
+			@Override
+			protected void initBeanWrapper(BeanWrapper bw) {
+				super.initBeanWrapper(bw);
+				initialized.incrementAndGet();
+			}
+		};
+
+		assertThat(mapper.mapRow(rs, 0).getName()).isEqualTo("Bubba");
+		assertThat(mapper.mapRow(rs, 1).getName()).isEqualTo("Bubba");
+		assertThat(initialized.get()).isEqualTo(2);
+	}
+
+	private static ResultSet mockResultSet() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rs.getString(1)).willReturn("Bubba");
+		given(rs.getLong(2)).willReturn(22L);
+		given(rs.getBigDecimal(3)).willReturn(new BigDecimal("1234.56"));
+		given(rsmd.getColumnCount()).willReturn(3);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		given(rsmd.getColumnLabel(3)).willReturn("balance");
+		return rs;
+	}
+
 }
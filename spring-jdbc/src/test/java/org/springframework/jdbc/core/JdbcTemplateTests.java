@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -728,6 +728,136 @@ public class JdbcTemplateTests {
 		verify(this.connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testBatchUpdateWithChunkSize() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Object[]> ids = new ArrayList<>(5);
+		for (int i = 1; i <= 5; i++) {
+			ids.add(new Object[] {i * 100});
+		}
+
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 2}, new int[] {3, 4}, new int[] {5});
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.setBatchChunkSize(2);
+
+		int[] actualRowsAffected = template.batchUpdate(sql, ids);
+		assertThat(actualRowsAffected).containsExactly(1, 2, 3, 4, 5);
+
+		verify(this.preparedStatement, times(5)).addBatch();
+		verify(this.preparedStatement, times(3)).executeBatch();
+		verify(this.preparedStatement).setObject(1, 500);
+		verify(this.preparedStatement, times(3)).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsert() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)";
+		final List<Object[]> rows = new ArrayList<>(5);
+		for (int i = 1; i <= 5; i++) {
+			rows.add(new Object[] {i, "name" + i});
+		}
+		PreparedStatement remainderStatement = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?), (?, ?)"))
+				.willReturn(this.preparedStatement);
+		given(this.connection.prepareStatement("INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)"))
+				.willReturn(remainderStatement);
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {2, 2});
+		given(remainderStatement.executeBatch()).willReturn(new int[] {1});
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.setBatchMultiRowInsertSize(2);
+
+		int[] actualRowsAffected = template.batchUpdate(sql, rows);
+		assertThat(actualRowsAffected).containsExactly(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO,
+				Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, 1);
+
+		verify(this.preparedStatement, times(2)).addBatch();
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.preparedStatement).setString(2, "name3");
+		verify(this.preparedStatement).setObject(3, 4);
+		verify(this.preparedStatement).setString(4, "name4");
+		verify(remainderStatement).setObject(1, 5);
+		verify(remainderStatement).setString(2, "name5");
+		verify(this.preparedStatement).close();
+		verify(remainderStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsertTranslatesExceptionWithExecutedSql() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)";
+		final String multiRowSql = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?), (?, ?)";
+		final List<Object[]> rows = new ArrayList<>(2);
+		rows.add(new Object[] {1, "name1"});
+		rows.add(new Object[] {2, "name2"});
+		SQLException sqlException = new SQLException("Duplicate key");
+		given(this.connection.prepareStatement(multiRowSql)).willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeBatch()).willThrow(sqlException);
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.setExceptionTranslator((task, sqlToUse, ex) -> new UncategorizedSQLException(task, sqlToUse, ex));
+		template.setBatchMultiRowInsertSize(2);
+
+		assertThatExceptionOfType(UncategorizedSQLException.class)
+				.isThrownBy(() -> template.batchUpdate(sql, rows))
+				.withMessageContaining("SQL [" + multiRowSql + "]")
+				.withCause(sqlException);
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsertAndUnwrappedStatement() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)";
+		given(this.connection.prepareStatement("INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?), (?, ?)"))
+				.willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {2});
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.setBatchMultiRowInsertSize(2);
+
+		template.batchUpdate(sql, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				PreparedStatement unwrapped = ps.unwrap(PreparedStatement.class);
+				unwrapped.setInt(1, i);
+				unwrapped.setString(2, "name" + i);
+			}
+			@Override
+			public int getBatchSize() {
+				return 2;
+			}
+		});
+
+		verify(this.preparedStatement).setInt(1, 0);
+		verify(this.preparedStatement).setString(2, "name0");
+		verify(this.preparedStatement).setInt(3, 1);
+		verify(this.preparedStatement).setString(4, "name1");
+	}
+
+	@Test
+	public void testBatchUpdateWithChunksOnSeparateConnections() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Object[]> ids = new ArrayList<>(2);
+		ids.add(new Object[] {100});
+		ids.add(new Object[] {200});
+
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1}, new int[] {2});
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.setBatchChunkSize(1);
+		template.setBatchExecutor(Runnable::run);
+
+		int[] actualRowsAffected = template.batchUpdate(sql, ids);
+		assertThat(actualRowsAffected).containsExactly(1, 2);
+
+		verify(this.dataSource, times(2)).getConnection();
+		verify(this.preparedStatement, times(2)).close();
+		verify(this.connection, times(2)).close();
+	}
+
 	@Test
 	public void testBatchUpdateWithListOfObjectArraysPlusTypeInfo() throws Exception {
 		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MultiRowInsertRewriter}.
+ *
+ * @since 5.2.23
+ */
+class MultiRowInsertRewriterTests {
+
+	@Test
+	void rewriteInsertWithColumnList() {
+		MultiRowInsertRewriter rewriter = MultiRowInsertRewriter.forSql(
+				"insert into customer (id, name, created) values (?, ?, now())");
+
+		assertThat(rewriter).isNotNull();
+		assertThat(rewriter.getParameterCount()).isEqualTo(2);
+		assertThat(rewriter.getSql(1)).isEqualTo("insert into customer (id, name, created) values (?, ?, now())");
+		assertThat(rewriter.getSql(3)).isEqualTo("insert into customer (id, name, created) values " +
+				"(?, ?, now()), (?, ?, now()), (?, ?, now())");
+	}
+
+	@Test
+	void rewriteInsertWithQuotedValuesAndComments() {
+		MultiRowInsertRewriter rewriter = MultiRowInsertRewriter.forSql(
+				"INSERT INTO \"values\" (a, b) /* values (?) */ VALUES (?, 'x?)') -- trailing");
+
+		assertThat(rewriter).isNotNull();
+		assertThat(rewriter.getParameterCount()).isEqualTo(1);
+		assertThat(rewriter.getSql(2)).isEqualTo(
+				"INSERT INTO \"values\" (a, b) /* values (?) */ VALUES (?, 'x?)'), (?, 'x?)')");
+	}
+
+	@Test
+	void noRewriteForOtherStatements() {
+		assertThat(MultiRowInsertRewriter.forSql("update customer set name = ? where id = ?")).isNull();
+		assertThat(MultiRowInsertRewriter.forSql("insert into customer select * from prospect where id = ?")).isNull();
+		assertThat(MultiRowInsertRewriter.forSql("insert into customer (id) values (1)")).isNull();
+		assertThat(MultiRowInsertRewriter.forSql(
+				"insert into customer (id, name) values (?, ?) on duplicate key update name = ?")).isNull();
+		assertThat(MultiRowInsertRewriter.forSql("insert into customer (id) values (?), (?)")).isNull();
+	}
+
+}
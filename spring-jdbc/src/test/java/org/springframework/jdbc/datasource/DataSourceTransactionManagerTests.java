@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,10 +52,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.core.testfixture.TestGroup.PERFORMANCE;
@@ -965,6 +967,82 @@ public class DataSourceTransactionManagerTests  {
 		ordered.verify(con).close();
 	}
 
+	@Test
+	public void testReadOnlyTransactionWithReadOnlyDataSource() throws Exception {
+		DataSource readOnlyDs = mock(DataSource.class);
+		Connection readOnlyCon = mock(Connection.class);
+		given(readOnlyDs.getConnection()).willReturn(readOnlyCon);
+		given(readOnlyCon.getAutoCommit()).willReturn(true);
+		Statement stmt = mock(Statement.class);
+		given(readOnlyCon.createStatement()).willReturn(stmt);
+
+		LazyConnectionDataSourceProxy dsProxy = createReadOnlyRoutingProxy(readOnlyDs);
+		tm = new DataSourceTransactionManager(dsProxy);
+		tm.setEnforceReadOnly(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				try {
+					DataSourceUtils.getConnection(dsProxy).createStatement();
+				}
+				catch (SQLException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		});
+
+		verify(ds, never()).getConnection();
+		verify(stmt, never()).executeUpdate("SET TRANSACTION READ ONLY");
+		verify(readOnlyCon, never()).setReadOnly(anyBoolean());
+		InOrder ordered = inOrder(readOnlyCon);
+		ordered.verify(readOnlyCon).setAutoCommit(false);
+		ordered.verify(readOnlyCon).commit();
+		ordered.verify(readOnlyCon).setAutoCommit(true);
+		ordered.verify(readOnlyCon).close();
+	}
+
+	@Test
+	public void testReadWriteTransactionWithReadOnlyDataSource() throws Exception {
+		DataSource readOnlyDs = mock(DataSource.class);
+		given(con.getAutoCommit()).willReturn(true);
+		Statement stmt = mock(Statement.class);
+		given(con.createStatement()).willReturn(stmt);
+
+		LazyConnectionDataSourceProxy dsProxy = createReadOnlyRoutingProxy(readOnlyDs);
+		tm = new DataSourceTransactionManager(dsProxy);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				try {
+					DataSourceUtils.getConnection(dsProxy).createStatement();
+				}
+				catch (SQLException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		});
+
+		verify(readOnlyDs, never()).getConnection();
+		InOrder ordered = inOrder(con);
+		ordered.verify(con).setAutoCommit(false);
+		ordered.verify(con).commit();
+		ordered.verify(con).setAutoCommit(true);
+		ordered.verify(con).close();
+	}
+
+	private LazyConnectionDataSourceProxy createReadOnlyRoutingProxy(DataSource readOnlyDs) {
+		LazyConnectionDataSourceProxy dsProxy = new LazyConnectionDataSourceProxy();
+		dsProxy.setTargetDataSource(ds);
+		dsProxy.setReadOnlyDataSource(readOnlyDs);
+		dsProxy.setDefaultAutoCommit(true);
+		dsProxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		dsProxy.afterPropertiesSet();
+		return dsProxy;
+	}
+
 	@Test
 	public void testTransactionWithLongTimeout() throws Exception {
 		doTestTransactionWithTimeout(10);
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Transactional state of a thread as managed by {@link TransactionSynchronizationManager}:
+ * bound resources, registered synchronizations and the characteristics of the
+ * current transaction.
+ *
+ * <p>A context is bound to its thread for the outermost transaction scope only:
+ * it is reused by nested and inner transactions within that scope and removed
+ * from the thread once it holds no state anymore. It can be handed over to
+ * another thread, e.g. when a continuation resumes there, via
+ * {@link TransactionSynchronizationManager#setCurrentContext}. A context must
+ * not be used by several threads at the same time.
+ *
+ * @since 5.2.23
+ * @see TransactionSynchronizationManager#getCurrentContext()
+ * @see TransactionSynchronizationManager#setCurrentContext
+ */
+public final class TransactionSynchronizationContext {
+
+	final Map<Object, Object> resources = new HashMap<>();
+
+	final Set<TransactionSynchronization> synchronizations = new LinkedHashSet<>();
+
+	boolean synchronizationActive;
+
+	@Nullable
+	String currentTransactionName;
+
+	boolean currentTransactionReadOnly;
+
+	@Nullable
+	Integer currentTransactionIsolationLevel;
+
+	boolean actualTransactionActive;
+
+
+	TransactionSynchronizationContext() {
+	}
+
+
+	/**
+	 * Clear synchronizations and transaction characteristics, keeping bound resources.
+	 * @see TransactionSynchronizationManager#clear()
+	 */
+	void clear() {
+		this.synchronizations.clear();
+		this.synchronizationActive = false;
+		this.currentTransactionName = null;
+		this.currentTransactionReadOnly = false;
+		this.currentTransactionIsolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	/**
+	 * Determine whether this context holds no transactional state at all.
+	 */
+	boolean isEmpty() {
+		return (this.resources.isEmpty() && !this.synchronizationActive && this.currentTransactionName == null &&
+				!this.currentTransactionReadOnly && this.currentTransactionIsolationLevel == null &&
+				!this.actualTransactionActive);
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionSynchronizationContext: resources=" + this.resources.keySet() +
+				", synchronizationActive=" + this.synchronizationActive +
+				", currentTransactionName='" + this.currentTransactionName + "'" +
+				", actualTransactionActive=" + this.actualTransactionActive;
+	}
+
+}
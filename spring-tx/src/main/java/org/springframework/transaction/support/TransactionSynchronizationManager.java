@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,6 +57,11 @@ import java.util.*;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>All of this state is held in a single {@link TransactionSynchronizationContext}
+ * per thread, which may be handed over to another thread via
+ * {@link #setCurrentContext}. The context is removed from its thread as soon
+ * as it holds no resources, synchronizations or transaction characteristics.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -71,26 +76,70 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	// 线程私有事务资源
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
+	// 线程私有的事务上下文：事务资源、事务同步及当前事务的名称、只读、隔离级别、实际事务是否激活
+	private static final ThreadLocal<TransactionSynchronizationContext> currentContext =
+			new NamedThreadLocal<>("Transaction synchronization context");
+
 
-	// 事务同步
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
+	//-------------------------------------------------------------------------
+	// Management of the thread-bound transaction context
+	//-------------------------------------------------------------------------
 
-	// 当前事务的名称
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
-	// 当前事务是否只读
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
-	// 当前事务的隔离级别
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
-	// 实际事务是否激活
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Return the transaction context bound to the current thread, if any.
+	 * <p>Together with {@link #setCurrentContext}, this allows for moving the
+	 * transactional state of a thread to another thread, e.g. to a virtual
+	 * thread or to the thread that a continuation resumes on.
+	 * @return the current context, or {@code null} if none bound
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public static TransactionSynchronizationContext getCurrentContext() {
+		return currentContext.get();
+	}
+
+	/**
+	 * Bind the given transaction context to the current thread, replacing the
+	 * context currently bound, if any.
+	 * <p>The returned context should be restored once the given context is no
+	 * longer used by the current thread. A context must not be bound to several
+	 * threads at the same time: the original thread should detach it first, by
+	 * binding {@code null}.
+	 * @param context the context to bind, or {@code null} to detach the current one
+	 * @return the previously bound context, or {@code null} if none
+	 * @since 5.2.23
+	 */
+	@Nullable
+	public static TransactionSynchronizationContext setCurrentContext(@Nullable TransactionSynchronizationContext context) {
+		TransactionSynchronizationContext previous = currentContext.get();
+		if (context != null) {
+			currentContext.set(context);
+		}
+		else {
+			currentContext.remove();
+		}
+		return previous;
+	}
+
+	private static TransactionSynchronizationContext obtainContext() {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null) {
+			context = new TransactionSynchronizationContext();
+			currentContext.set(context);
+		}
+		return context;
+	}
+
+	/**
+	 * Remove the given context from the current thread once it does not hold
+	 * any transactional state anymore, so that neither the context nor its
+	 * resource map outlive the outermost transaction scope of a pooled thread.
+	 */
+	private static void releaseContextIfEmpty(TransactionSynchronizationContext context) {
+		if (context.isEmpty() && currentContext.get() == context) {
+			currentContext.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -107,8 +156,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null ? Collections.unmodifiableMap(context.resources) : Collections.emptyMap());
 	}
 
 	/**
@@ -146,19 +195,15 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		//
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null) {
 			return null;
 		}
+		Map<Object, Object> map = context.resources;
 		Object value = map.get(actualKey);
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
 			value = null;
 		}
 		return value;
@@ -174,13 +219,8 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null"); // 每次在进行获取的时候都要根据obtainDataSource()返回的数据来获取connnectionHolder,现在经过
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<>();
-			resources.set(map);
-		}
-		Object oldValue = map.put(actualKey, value);
+		// 复用线程上下文中的Map，不再每次新建
+		Object oldValue = obtainContext().resources.put(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
 			oldValue = null;
@@ -228,15 +268,11 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
-		}
+		Object value = context.resources.remove(actualKey);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -245,6 +281,7 @@ public abstract class TransactionSynchronizationManager {
 			logger.trace("Removed value [" + value + "] for key [" + actualKey + "] from thread [" +
 					Thread.currentThread().getName() + "]");
 		}
+		releaseContextIfEmpty(context);
 		return value;
 	}
 
@@ -259,7 +296,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null && context.synchronizationActive);
 	}
 
 	/**
@@ -268,11 +306,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is already active
 	 */
 	public static void initSynchronization() throws IllegalStateException {
-		if (isSynchronizationActive()) {
+		TransactionSynchronizationContext context = obtainContext();
+		if (context.synchronizationActive) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		context.synchronizations.clear();
+		context.synchronizationActive = true;
 	}
 
 	/**
@@ -289,11 +329,11 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null || !context.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchs.add(synchronization);
+		context.synchronizations.add(synchronization);
 	}
 
 	/**
@@ -304,10 +344,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null || !context.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
+		Set<TransactionSynchronization> synchs = context.synchronizations;
 		// Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
 		// while iterating and invoking synchronization callbacks that in turn
 		// might register further synchronizations.
@@ -328,11 +369,14 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context == null || !context.synchronizationActive) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		context.synchronizations.clear();
+		context.synchronizationActive = false;
+		releaseContextIfEmpty(context);
 	}
 
 
@@ -347,7 +391,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		TransactionSynchronizationContext context = (name != null ? obtainContext() : currentContext.get());
+		if (context != null) {
+			context.currentTransactionName = name;
+			releaseContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -358,7 +406,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null ? context.currentTransactionName : null);
 	}
 
 	/**
@@ -369,7 +418,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		TransactionSynchronizationContext context = (readOnly ? obtainContext() : currentContext.get());
+		if (context != null) {
+			context.currentTransactionReadOnly = readOnly;
+			releaseContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -385,7 +438,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null && context.currentTransactionReadOnly);
 	}
 
 	/**
@@ -405,7 +459,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		TransactionSynchronizationContext context = (isolationLevel != null ? obtainContext() : currentContext.get());
+		if (context != null) {
+			context.currentTransactionIsolationLevel = isolationLevel;
+			releaseContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -427,7 +485,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null ? context.currentTransactionIsolationLevel : null);
 	}
 
 	/**
@@ -437,7 +496,11 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		TransactionSynchronizationContext context = (active ? obtainContext() : currentContext.get());
+		if (context != null) {
+			context.actualTransactionActive = active;
+			releaseContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -452,7 +515,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionSynchronizationContext context = currentContext.get();
+		return (context != null && context.actualTransactionActive);
 	}
 
 
@@ -466,11 +530,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionSynchronizationContext context = currentContext.get();
+		if (context != null) {
+			context.clear();
+			releaseContextIfEmpty(context);
+		}
 	}
 
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for the thread-bound {@link TransactionSynchronizationContext} of
+ * {@link TransactionSynchronizationManager}.
+ *
+ * @since 5.2.23
+ */
+class TransactionSynchronizationManagerTests {
+
+	@AfterEach
+	void detachContext() {
+		TransactionSynchronizationManager.setCurrentContext(null);
+	}
+
+
+	@Test
+	void bindAndUnbindResource() {
+		Object key = new Object();
+		assertThat(TransactionSynchronizationManager.hasResource(key)).isFalse();
+
+		TransactionSynchronizationManager.bindResource(key, "value");
+		assertThat(TransactionSynchronizationManager.getResource(key)).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.getResourceMap()).containsEntry(key, "value");
+
+		assertThat(TransactionSynchronizationManager.unbindResource(key)).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.unbindResourceIfPossible(key)).isNull();
+		assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+	}
+
+	@Test
+	void synchronizationLifecycle() {
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {}));
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::initSynchronization);
+		TransactionSynchronization synchronization = new TransactionSynchronization() {};
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactly(synchronization);
+
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::getSynchronizations);
+	}
+
+	@Test
+	void clearKeepsResourcesAndContext() {
+		Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {});
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(2);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationContext context = TransactionSynchronizationManager.getCurrentContext();
+
+		TransactionSynchronizationManager.clear();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isNull();
+		assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).isNull();
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getResource(key)).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isSameAs(context);
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isSameAs(context);
+		TransactionSynchronizationManager.unbindResource(key);
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isNull();
+	}
+
+	@Test
+	void emptyContextIsRemovedFromThread() {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isNotNull();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("tx");
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isNull();
+
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.clear();
+		assertThat(TransactionSynchronizationManager.getCurrentContext()).isNull();
+	}
+
+	@Test
+	void contextHandoverToOtherThread() throws Exception {
+		Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationContext context = TransactionSynchronizationManager.setCurrentContext(null);
+		assertThat(context).isNotNull();
+		assertThat(TransactionSynchronizationManager.hasResource(key)).isFalse();
+
+		AtomicReference<Object> resource = new AtomicReference<>();
+		AtomicReference<String> name = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			TransactionSynchronizationContext previous = TransactionSynchronizationManager.setCurrentContext(context);
+			try {
+				resource.set(TransactionSynchronizationManager.getResource(key));
+				name.set(TransactionSynchronizationManager.getCurrentTransactionName());
+				TransactionSynchronizationManager.unbindResource(key);
+			}
+			finally {
+				TransactionSynchronizationManager.setCurrentContext(previous);
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertThat(resource.get()).isEqualTo("value");
+		assertThat(name.get()).isEqualTo("tx");
+		assertThat(TransactionSynchronizationManager.setCurrentContext(context)).isNull();
+		assertThat(TransactionSynchronizationManager.hasResource(key)).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("tx");
+	}
+
+}